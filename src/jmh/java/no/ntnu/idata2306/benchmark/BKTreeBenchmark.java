@@ -0,0 +1,90 @@
+package no.ntnu.idata2306.benchmark;
+
+import no.ntnu.idata2306.util.datastructure.BKTree;
+import no.ntnu.idata2306.util.datastructure.CompactBKTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks building and searching the map-based BKTree and the array-based CompactBKTree
+ * over synthetic catalogs of different sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BKTreeBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"2", "30"})
+    public int threshold;
+
+    private List<String> names;
+    private String[] queries;
+    private BKTree<String> tree;
+    private CompactBKTree compactTree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCatalog catalog = new SyntheticCatalog(42);
+        names = catalog.names(catalogSize).stream().map(String::toLowerCase).toList();
+        queries = catalog.queries(names, QueryCursor.QUERIES).toArray(new String[0]);
+
+        tree = new BKTree<>();
+        compactTree = new CompactBKTree(catalogSize);
+        for (String name : names) {
+            tree.add(name);
+            compactTree.add(name);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public BKTree<String> add() {
+        BKTree<String> built = new BKTree<>();
+        for (String name : names) {
+            built.add(name);
+        }
+        return built;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public CompactBKTree compactAdd() {
+        CompactBKTree built = new CompactBKTree(names.size());
+        for (String name : names) {
+            built.add(name);
+        }
+        return built;
+    }
+
+    @Benchmark
+    public List<String> search(QueryCursor cursor) {
+        return tree.search(queries[cursor.nextQuery()], threshold);
+    }
+
+    @Benchmark
+    public List<String> hybridSearch(QueryCursor cursor) {
+        return tree.hybridSearch(queries[cursor.nextQuery()], threshold);
+    }
+
+    @Benchmark
+    public List<String> compactSearch(QueryCursor cursor) {
+        return compactTree.search(queries[cursor.nextQuery()], threshold);
+    }
+
+    @Benchmark
+    public List<String> compactHybridSearch(QueryCursor cursor) {
+        return compactTree.hybridSearch(queries[cursor.nextQuery()], threshold);
+    }
+}
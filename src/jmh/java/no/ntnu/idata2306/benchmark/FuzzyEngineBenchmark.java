@@ -0,0 +1,64 @@
+package no.ntnu.idata2306.benchmark;
+
+import no.ntnu.idata2306.enums.FuzzyEngineEnum;
+import no.ntnu.idata2306.index.SearchEntry;
+import no.ntnu.idata2306.index.SearchIndex;
+import no.ntnu.idata2306.util.SearchUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the fuzzy stage of the search with the BKTree, the symmetric delete engine and the Levenshtein automaton,
+ * over synthetic catalogs of course names and misspelled queries. Each query is looked up with its initial fuzzy
+ * radius, limited to the two edits the symmetric delete engine supports, so all engines search the same radius.
+ *
+ * The memory retained by each engine is measured by {@link FuzzyEngineMemoryHarness}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class FuzzyEngineBenchmark {
+
+    @Param({"BK_TREE", "SYMMETRIC_DELETE", "LEVENSHTEIN_AUTOMATON"})
+    public FuzzyEngineEnum engine;
+
+    @Param({"1000", "10000", "100000"})
+    public int catalogSize;
+
+    private SearchIndex index;
+    private String[] queries;
+    private int[] radii;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCatalog catalog = new SyntheticCatalog(42);
+        List<String> names = catalog.names(catalogSize);
+        List<String> generated = catalog.queries(names, QueryCursor.QUERIES);
+
+        queries = new String[QueryCursor.QUERIES];
+        radii = new int[QueryCursor.QUERIES];
+        for (int i = 0; i < QueryCursor.QUERIES; i++) {
+            queries[i] = SearchIndex.normalize(generated.get(i));
+            radii[i] = Math.min(2, SearchUtils.initialFuzzyRadius(queries[i].length()));
+        }
+
+        List<SearchEntry> entries = new ArrayList<>(names.size());
+        for (int id = 0; id < names.size(); id++) {
+            entries.add(new SearchEntry(id, names.get(id)));
+        }
+        index = new SearchIndex(engine, false);
+        index.rebuild(entries);
+    }
+
+    @Benchmark
+    public List<SearchEntry> findFuzzyCandidates(QueryCursor cursor) {
+        int query = cursor.nextQuery();
+        return index.findFuzzyCandidates(queries[query], radii[query]);
+    }
+}
@@ -0,0 +1,75 @@
+package no.ntnu.idata2306.benchmark;
+
+import no.ntnu.idata2306.enums.FuzzyEngineEnum;
+import no.ntnu.idata2306.util.datastructure.CompactBKTree;
+import no.ntnu.idata2306.util.datastructure.FuzzyMatcher;
+import no.ntnu.idata2306.util.datastructure.SortedTermDictionary;
+import no.ntnu.idata2306.util.datastructure.SymmetricDeleteDictionary;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Measures the heap retained by each fuzzy engine and the time to build it,
+ * over synthetic catalogs of course names of different sizes. The engines are built the same way as by
+ * {@link no.ntnu.idata2306.index.SearchIndex}, from the distinct normalized names.
+ *
+ * Retained heap is the difference in used heap after a full garbage collection before and after building,
+ * so the harness should be run with a heap large enough to hold the largest catalog, e.g. -Xmx8g.
+ */
+public class FuzzyEngineMemoryHarness {
+
+    private static final int[] CATALOG_SIZES = {1_000, 10_000, 100_000};
+
+    // Same settings as the symmetric delete engine of the search index
+    private static final int MAX_DISTANCE = 2;
+    private static final int PREFIX_LENGTH = 10;
+
+    /**
+     * Runs the measurement and prints a row per engine and catalog size.
+     *
+     * @param args not used.
+     */
+    public static void main(String[] args) {
+        System.out.printf("%22s %10s %10s %14s %12s%n", "engine", "catalog", "keys", "retained MiB", "build ms");
+        for (int catalogSize : CATALOG_SIZES) {
+            Set<String> keys = new LinkedHashSet<>();
+            for (String name : new SyntheticCatalog(42).names(catalogSize)) {
+                keys.add(name.toLowerCase());
+            }
+            for (FuzzyEngineEnum engine : FuzzyEngineEnum.values()) {
+                long before = usedHeap();
+                long start = System.nanoTime();
+                FuzzyMatcher matcher = build(engine, keys);
+                long buildNanos = System.nanoTime() - start;
+                long retained = usedHeap() - before;
+
+                System.out.printf("%22s %10d %10d %14.1f %12.1f%n",
+                        engine, catalogSize, matcher.size(), retained / (1024.0 * 1024.0), buildNanos / 1_000_000.0);
+            }
+        }
+    }
+
+    private static FuzzyMatcher build(FuzzyEngineEnum engine, Set<String> keys) {
+        FuzzyMatcher matcher = switch (engine) {
+            case BK_TREE -> new CompactBKTree(keys.size());
+            case SYMMETRIC_DELETE -> new SymmetricDeleteDictionary(MAX_DISTANCE, PREFIX_LENGTH);
+            case LEVENSHTEIN_AUTOMATON -> new SortedTermDictionary();
+        };
+        for (String key : keys) {
+            matcher.add(key);
+        }
+        return matcher;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private FuzzyEngineMemoryHarness() {
+    }
+}
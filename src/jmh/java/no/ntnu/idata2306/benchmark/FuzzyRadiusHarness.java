@@ -0,0 +1,71 @@
+package no.ntnu.idata2306.benchmark;
+
+import no.ntnu.idata2306.util.SearchUtils;
+import no.ntnu.idata2306.util.datastructure.CompactBKTree;
+
+import java.util.List;
+
+/**
+ * Measures how many BKTree nodes a fuzzy search visits per query, with the former fixed radius of 30
+ * and with the adaptive radius of {@link SearchUtils}, over synthetic catalogs of different sizes.
+ * The number of visited nodes is the number of edit distance calculations, so it shows how much
+ * of the tree is pruned independently of the machine the harness runs on.
+ *
+ * The adaptive search is widened in the same steps as in {@link SearchUtils#genericSearch}, until it
+ * returns enough distinct names to fill a page. Visited nodes of all steps are counted.
+ */
+public class FuzzyRadiusHarness {
+
+    private static final int[] CATALOG_SIZES = {1_000, 10_000, 100_000};
+    private static final int QUERIES = 200;
+    private static final int FIXED_RADIUS = 30;
+    private static final int PAGE_SIZE = 10;
+
+    /**
+     * Runs the measurement and prints a row per catalog size.
+     *
+     * @param args not used.
+     */
+    public static void main(String[] args) {
+        System.out.printf("%10s %10s %16s %16s %14s%n",
+                "catalog", "keys", "fixed visited", "adaptive visited", "adaptive hits");
+        for (int catalogSize : CATALOG_SIZES) {
+            SyntheticCatalog catalog = new SyntheticCatalog(42);
+            List<String> names = catalog.names(catalogSize);
+            List<String> queries = catalog.queries(names, QUERIES);
+
+            CompactBKTree tree = new CompactBKTree(catalogSize);
+            for (String name : names) {
+                tree.add(name);
+            }
+
+            long fixedVisited = 0;
+            long adaptiveVisited = 0;
+            long adaptiveHits = 0;
+            for (String query : queries) {
+                fixedVisited += tree.countVisitedNodes(query, FIXED_RADIUS);
+
+                int radius = SearchUtils.initialFuzzyRadius(query.length());
+                while (true) {
+                    adaptiveVisited += tree.countVisitedNodes(query, radius);
+                    int hits = tree.search(query, radius).size();
+                    if (hits >= PAGE_SIZE || radius == SearchUtils.MAX_FUZZY_RADIUS) {
+                        adaptiveHits += hits;
+                        break;
+                    }
+                    radius = SearchUtils.widenFuzzyRadius(radius);
+                }
+            }
+
+            System.out.printf("%10d %10d %16.1f %16.1f %14.1f%n",
+                    catalogSize,
+                    tree.size(),
+                    (double) fixedVisited / QUERIES,
+                    (double) adaptiveVisited / QUERIES,
+                    (double) adaptiveHits / QUERIES);
+        }
+    }
+
+    private FuzzyRadiusHarness() {
+    }
+}
@@ -0,0 +1,64 @@
+package no.ntnu.idata2306.benchmark;
+
+import no.ntnu.idata2306.index.ScoredEntry;
+import no.ntnu.idata2306.index.SearchDocument;
+import no.ntnu.idata2306.index.SearchEntry;
+import no.ntnu.idata2306.index.SearchIndex;
+import no.ntnu.idata2306.util.ScoreThresholdUtils;
+import no.ntnu.idata2306.util.ScoreUtils;
+import no.ntnu.idata2306.util.SearchUtils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the full fuzzy search pipeline of {@link SearchUtils#genericSearch} over a resident
+ * search index, scoring candidates the same way as the course search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GenericSearchBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int catalogSize;
+
+    private final Pageable pageable = PageRequest.of(0, 5);
+    private SearchIndex index;
+    private String[] queries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCatalog catalog = new SyntheticCatalog(42);
+        List<String> names = catalog.names(catalogSize);
+        queries = catalog.queries(names, QueryCursor.QUERIES).toArray(new String[0]);
+
+        List<SearchEntry> entries = new ArrayList<>(names.size());
+        for (int id = 0; id < names.size(); id++) {
+            entries.add(new SearchEntry(id, names.get(id)));
+        }
+        index = new SearchIndex();
+        index.rebuild(entries);
+    }
+
+    @Benchmark
+    public List<ScoredEntry> genericSearch(QueryCursor cursor) {
+        String query = queries[cursor.nextQuery()];
+        SearchDocument queryDocument = new SearchDocument(query);
+        return SearchUtils.genericSearch(
+                query,
+                pageable,
+                index,
+                entry -> ScoreUtils.calculateSimilarityScore(entry.getDocument(), queryDocument),
+                ScoreThresholdUtils.COURSE_SCORE_THRESHOLD,
+                ScoredEntry::new
+        );
+    }
+}
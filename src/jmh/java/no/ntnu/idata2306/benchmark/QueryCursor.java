@@ -0,0 +1,26 @@
+package no.ntnu.idata2306.benchmark;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cycles each benchmark thread through the queries generated for a benchmark, so every invocation runs the next query.
+ */
+@State(Scope.Thread)
+public class QueryCursor {
+
+    // Number of queries generated per benchmark, and so the length of the cycle
+    public static final int QUERIES = 256;
+
+    private int next;
+
+    /**
+     * Moves to the next query, starting over after the last one.
+     *
+     * @return the index of the next query.
+     */
+    public int nextQuery() {
+        next = (next + 1) % QUERIES;
+        return next;
+    }
+}
@@ -0,0 +1,263 @@
+package no.ntnu.idata2306.benchmark;
+
+import no.ntnu.idata2306.dto.search.SearchTextView;
+import no.ntnu.idata2306.enums.FuzzyEngineEnum;
+import no.ntnu.idata2306.index.*;
+import no.ntnu.idata2306.repository.ProviderRepository;
+import no.ntnu.idata2306.repository.ReviewRepository;
+import no.ntnu.idata2306.repository.course.CourseRepository;
+import no.ntnu.idata2306.repository.course.details.CategoryRepository;
+import no.ntnu.idata2306.repository.course.details.TopicRepository;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the time to build a {@link SearchIndex} from its entries with the time to read it from a
+ * {@link SearchIndexSnapshot}, over synthetic catalogs of course names of different sizes.
+ * Building includes creating the entries, as the entries are read from the snapshot as well.
+ *
+ * The harness also measures the startup of all course indexes over each catalog, running the {@code initialize} of
+ * {@link CourseTextIndex}, {@link AutocompleteIndex}, {@link CourseFilterIndex} and {@link SpellingIndex} over synthetic
+ * rows served by in-memory repositories. Every index is built once, and then read from its snapshot, except the
+ * {@link SpellingIndex}, which is always built. Reading includes reloading the review counts and provider names of
+ * the autocomplete index. The time of the database queries is not included.
+ *
+ * The harness should be run with a heap large enough to hold two indexes over the largest catalog, e.g. -Xmx8g.
+ */
+public class SearchSnapshotHarness {
+
+    private static final int[] CATALOG_SIZES = {10_000, 100_000, 500_000};
+    private static final int CATEGORIES = 20;
+    private static final int TOPICS = 200;
+    private static final int PROVIDERS = 50;
+    private static final int DESCRIPTION_NAMES = 4;
+
+    /**
+     * Runs the measurement and prints a row per engine and catalog size, followed by two rows of startup times per
+     * catalog size, one with every index built and one with the indexes read from their snapshots.
+     *
+     * @param args not used.
+     * @throws IOException if a snapshot could not be written or read.
+     * @throws ReflectiveOperationException if snapshots could not be enabled for the resident course indexes.
+     */
+    public static void main(String[] args) throws IOException, ReflectiveOperationException {
+        Path file = Files.createTempFile("search-index", ".snapshot");
+        System.out.printf("%22s %10s %12s %14s %12s%n", "engine", "catalog", "build ms", "snapshot MiB", "read ms");
+        try {
+            for (int catalogSize : CATALOG_SIZES) {
+                List<String> names = new SyntheticCatalog(42).names(catalogSize);
+                for (FuzzyEngineEnum engine : FuzzyEngineEnum.values()) {
+                    long start = System.nanoTime();
+                    List<SearchEntry> entries = new ArrayList<>(names.size());
+                    for (int id = 0; id < names.size(); id++) {
+                        entries.add(new SearchEntry(id, names.get(id)));
+                    }
+                    SearchIndex built = new SearchIndex(engine, false);
+                    built.rebuild(entries);
+                    long buildNanos = System.nanoTime() - start;
+
+                    SearchIndexSnapshot.write(built, file, LocalDateTime.now());
+                    built = null;
+                    entries = null;
+                    System.gc();
+
+                    start = System.nanoTime();
+                    SearchIndex read = new SearchIndex(engine, false);
+                    SearchIndexSnapshot.read(read, file);
+                    long readNanos = System.nanoTime() - start;
+
+                    System.out.printf("%22s %10d %12.1f %14.1f %12.1f%n", engine, read.size(), buildNanos / 1_000_000.0,
+                            Files.size(file) / (1024.0 * 1024.0), readNanos / 1_000_000.0);
+                }
+            }
+            System.out.println();
+            System.out.printf("%10s %10s %12s %12s %16s %12s %12s %12s%n", "catalog", "startup", "course ms", "text ms",
+                    "autocomplete ms", "filter ms", "spelling ms", "total ms");
+            for (int catalogSize : CATALOG_SIZES) {
+                measureStartup(new SyntheticCatalog(42).names(catalogSize), file);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Measures building every course index over the given names with the default fuzzy engine, and reading every index
+     * but the spelling index from a snapshot instead, and prints the times of both along with their totals.
+     *
+     * @param names the names of the courses.
+     * @param file the file to write the snapshot of the course search index to.
+     * @throws IOException if a snapshot could not be written or read.
+     * @throws ReflectiveOperationException if snapshots could not be enabled for the resident course indexes.
+     */
+    private static void measureStartup(List<String> names, Path file) throws IOException, ReflectiveOperationException {
+        Random random = new Random(42);
+        List<SearchTextView> courseNames = new ArrayList<>(names.size());
+        List<SearchTextView> descriptions = new ArrayList<>(names.size());
+        List<Object[]> topicIds = new ArrayList<>();
+        List<Object[]> filterAttributes = new ArrayList<>(names.size());
+        List<Object[]> autocompleteKeys = new ArrayList<>(names.size());
+        List<Object[]> reviewCounts = new ArrayList<>();
+        for (int id = 0; id < names.size(); id++) {
+            courseNames.add(new TextRow(id, names.get(id)));
+            StringBuilder description = new StringBuilder();
+            for (int i = 0; i < DESCRIPTION_NAMES; i++) {
+                description.append(names.get(random.nextInt(names.size()))).append(' ');
+            }
+            descriptions.add(new TextRow(id, description.toString()));
+            for (int i = 1 + random.nextInt(3); i > 0; i--) {
+                topicIds.add(new Object[]{id, random.nextInt(TOPICS)});
+            }
+            int category = random.nextInt(CATEGORIES);
+            int provider = random.nextInt(PROVIDERS);
+            filterAttributes.add(new Object[]{id, category, 1 + random.nextInt(3), BigDecimal.valueOf(random.nextInt(50_000))});
+            autocompleteKeys.add(new Object[]{id, names.get(id), "Category " + category, provider, "Provider " + provider});
+            if (random.nextBoolean()) {
+                reviewCounts.add(new Object[]{id, (long) (1 + random.nextInt(20))});
+            }
+        }
+        List<SearchTextView> categoryNames = textRows("Category", CATEGORIES);
+        List<SearchTextView> topicNames = textRows("Topic", TOPICS);
+        List<SearchTextView> providerNames = textRows("Provider", PROVIDERS);
+
+        CourseRepository courseRepository = repository(CourseRepository.class, Map.of(
+                "findNamesByActiveTrue", courseNames,
+                "findDescriptionsByActiveTrue", descriptions,
+                "findTopicIdsByActiveTrue", topicIds,
+                "findFilterAttributesByActiveTrue", filterAttributes,
+                "findAutocompleteKeysByActiveTrue", autocompleteKeys,
+                "findNamesChangedSince", List.of(),
+                "countByActiveTrue", (long) names.size()));
+        ReviewRepository reviewRepository = repository(ReviewRepository.class, Map.of("countReviewsPerCourse", reviewCounts));
+        CategoryRepository categoryRepository = repository(CategoryRepository.class, Map.of("findAllNames", categoryNames));
+        TopicRepository topicRepository = repository(TopicRepository.class, Map.of("findAllNames", topicNames));
+        ProviderRepository providerRepository = repository(ProviderRepository.class, Map.of("findAllNames", providerNames));
+
+        long start = System.nanoTime();
+        List<SearchEntry> entries = new ArrayList<>(courseNames.size());
+        for (SearchTextView course : courseNames) {
+            entries.add(new SearchEntry(course.getId(), course.getText()));
+        }
+        SearchIndex courseIndex = new SearchIndex(FuzzyEngineEnum.BK_TREE, false);
+        courseIndex.rebuild(entries);
+        double courseMillis = millisSince(start);
+        SearchIndexSnapshot.write(courseIndex, file, LocalDateTime.now());
+        courseIndex = null;
+        entries = null;
+
+        Path directory = Files.createTempDirectory("search-snapshots");
+        try {
+            List<ResidentCourseIndex> built = List.of(
+                    new CourseTextIndex(courseRepository),
+                    new AutocompleteIndex(courseRepository, reviewRepository, topicRepository, providerRepository),
+                    new CourseFilterIndex(courseRepository));
+            double[] buildMillis = new double[built.size()];
+            for (int i = 0; i < built.size(); i++) {
+                start = System.nanoTime();
+                built.get(i).initialize();
+                buildMillis[i] = millisSince(start);
+                SearchIndexSnapshot.write(built.get(i), directory.resolve(built.get(i).getLayout() + ".snapshot"),
+                        LocalDateTime.now());
+            }
+            built = null;
+
+            start = System.nanoTime();
+            new SpellingIndex(courseRepository, categoryRepository, topicRepository).initialize();
+            double spellingMillis = millisSince(start);
+            System.gc();
+
+            start = System.nanoTime();
+            SearchIndexSnapshot.read(new SearchIndex(FuzzyEngineEnum.BK_TREE, false), file);
+            double courseReadMillis = millisSince(start);
+
+            List<ResidentCourseIndex> read = List.of(
+                    withSnapshots(new CourseTextIndex(courseRepository), directory),
+                    withSnapshots(new AutocompleteIndex(courseRepository, reviewRepository, topicRepository,
+                            providerRepository), directory),
+                    withSnapshots(new CourseFilterIndex(courseRepository), directory));
+            double[] readMillis = new double[read.size()];
+            for (int i = 0; i < read.size(); i++) {
+                start = System.nanoTime();
+                read.get(i).initialize();
+                readMillis[i] = millisSince(start);
+            }
+
+            System.out.printf("%10d %10s %12.1f %12.1f %16.1f %12.1f %12.1f %12.1f%n", names.size(), "build",
+                    courseMillis, buildMillis[0], buildMillis[1], buildMillis[2], spellingMillis,
+                    courseMillis + buildMillis[0] + buildMillis[1] + buildMillis[2] + spellingMillis);
+            System.out.printf("%10d %10s %12.1f %12.1f %16.1f %12.1f %12.1f %12.1f%n", names.size(), "snapshot",
+                    courseReadMillis, readMillis[0], readMillis[1], readMillis[2], spellingMillis,
+                    courseReadMillis + readMillis[0] + readMillis[1] + readMillis[2] + spellingMillis);
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path snapshot : files.toList()) {
+                    Files.delete(snapshot);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Enables snapshots of a resident course index in the given directory, as Spring injects them from the properties.
+     *
+     * @param index the index.
+     * @param directory the directory the snapshot of the index is in.
+     * @return the index.
+     * @throws ReflectiveOperationException if the snapshot properties of the index could not be set.
+     */
+    private static <I extends ResidentCourseIndex> I withSnapshots(I index, Path directory) throws ReflectiveOperationException {
+        Field enabled = ResidentCourseIndex.class.getDeclaredField("snapshotEnabled");
+        enabled.setAccessible(true);
+        enabled.setBoolean(index, true);
+        Field snapshotDirectory = ResidentCourseIndex.class.getDeclaredField("snapshotDirectory");
+        snapshotDirectory.setAccessible(true);
+        snapshotDirectory.set(index, directory.toString());
+        return index;
+    }
+
+    /**
+     * Creates an in-memory repository answering the given queries with the given rows.
+     *
+     * @param type the repository interface.
+     * @param rows the result of each query, usually a list of rows, by method name.
+     * @return a repository that fails on every other method.
+     */
+    private static <R> R repository(Class<R> type, Map<String, Object> rows) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Object result = rows.get(method.getName());
+            if (result == null) {
+                throw new UnsupportedOperationException(method.getName() + " is not used when building the indexes");
+            }
+            return result;
+        }));
+    }
+
+    private static List<SearchTextView> textRows(String prefix, int count) {
+        List<SearchTextView> rows = new ArrayList<>(count);
+        for (int id = 0; id < count; id++) {
+            rows.add(new TextRow(id, prefix + " " + id));
+        }
+        return rows;
+    }
+
+    private static double millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000.0;
+    }
+
+    private record TextRow(Integer getId, String getText) implements SearchTextView {
+    }
+
+    private SearchSnapshotHarness() {
+    }
+}
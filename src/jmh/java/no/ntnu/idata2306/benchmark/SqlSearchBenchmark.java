@@ -0,0 +1,153 @@
+package no.ntnu.idata2306.benchmark;
+
+import no.ntnu.idata2306.Idata2306Application;
+import no.ntnu.idata2306.enums.SqlSearchModeEnum;
+import no.ntnu.idata2306.repository.course.CourseRepository;
+import no.ntnu.idata2306.service.DatabaseSearchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the scored course queries of {@link CourseRepository} in LIKE, natural language and boolean mode,
+ * on the dummy data of the application extended with a synthetic catalog of course names.
+ *
+ * The benchmark runs against a schema of its own on the MySQL server of the application, named by the
+ * {@code BENCHMARK_DATABASE_NAME} environment variable, {@value #DEFAULT_SCHEMA} by default. The schema is dropped and
+ * created for every trial, and must not be the schema of the application. The application is started on it without
+ * its web server, so the tables, the dummy data and the FULLTEXT indexes are created as in production.
+ * The synthetic courses are then copied from the dummy courses with only their names changed,
+ * so they have categories and topics for the queries to join.
+ *
+ * The queries are parts of names from the catalog without typos, as neither LIKE nor FULLTEXT matching tolerates
+ * typos. Only the course name is searched for, the category and topic terms are blank and match nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqlSearchBenchmark {
+
+    private static final String DEFAULT_SCHEMA = "learniverse_bench";
+    private static final Pageable PAGE = PageRequest.of(0, 5);
+
+    @Param({"LIKE", "NATURAL_LANGUAGE", "BOOLEAN"})
+    public SqlSearchModeEnum mode;
+
+    @Param({"10000", "100000"})
+    public int catalogSize;
+
+    private String schema;
+    private ConfigurableApplicationContext context;
+    private CourseRepository courseRepository;
+    private String[] queries;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        schema = System.getenv().getOrDefault("BENCHMARK_DATABASE_NAME", DEFAULT_SCHEMA);
+        if (!schema.matches("\\w+") || schema.equalsIgnoreCase(System.getenv("DATABASE_NAME"))) {
+            throw new IllegalStateException("The benchmark schema " + schema
+                    + " must be a plain name different from the schema of the application");
+        }
+        executeOnServer("DROP DATABASE IF EXISTS " + schema, "CREATE DATABASE " + schema);
+
+        // A full text mode makes the application create the FULLTEXT indexes when it is ready
+        context = new SpringApplicationBuilder(Idata2306Application.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:mysql://" + System.getenv("DATABASE_URL") + ":3306/" + schema,
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        "logging.level.org.hibernate.SQL=OFF",
+                        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=OFF",
+                        "search.snapshot.enabled=false",
+                        "search.sql.course-mode=NATURAL_LANGUAGE")
+                .run();
+        courseRepository = context.getBean(CourseRepository.class);
+
+        List<String> names = new SyntheticCatalog(42).names(catalogSize);
+        seed(context.getBean(JdbcTemplate.class), names);
+
+        Random random = new Random(42);
+        queries = new String[QueryCursor.QUERIES];
+        for (int i = 0; i < QueryCursor.QUERIES; i++) {
+            String[] words = names.get(random.nextInt(names.size())).split(" ");
+            int from = random.nextInt(words.length);
+            int to = Math.min(words.length, from + 1 + random.nextInt(2));
+            String query = String.join(" ", List.of(words).subList(from, to));
+            queries[i] = mode == SqlSearchModeEnum.BOOLEAN ? DatabaseSearchService.toBooleanQuery(query) : query;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        context.close();
+        executeOnServer("DROP DATABASE IF EXISTS " + schema);
+    }
+
+    @Benchmark
+    public Page<Object[]> search(QueryCursor cursor) {
+        String query = queries[cursor.nextQuery()];
+        return switch (mode) {
+            case LIKE -> courseRepository.findCoursesWithScore(query, null, null, PAGE);
+            case NATURAL_LANGUAGE -> courseRepository.findCoursesWithFullTextScore(query, "", "", PAGE);
+            case BOOLEAN -> courseRepository.findCoursesWithBooleanFullTextScore(query, "", "", PAGE);
+        };
+    }
+
+    /**
+     * Runs statements on the MySQL server of the application, outside of any schema.
+     */
+    private static void executeOnServer(String... statements) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:mysql://" + System.getenv("DATABASE_URL") + ":3306/",
+                System.getenv("DATABASE_USERNAME"), System.getenv("DATABASE_PASSWORD"));
+             Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * Inserts a course per name, copying every other column and the topics of the active dummy courses in turn.
+     */
+    private static void seed(JdbcTemplate jdbcTemplate, List<String> names) {
+        List<Integer> templates = jdbcTemplate.queryForList("SELECT id FROM course WHERE active = true ORDER BY id", Integer.class);
+        if (templates.isEmpty()) {
+            throw new IllegalStateException("The dummy data has no active courses to copy");
+        }
+        List<String> columns = jdbcTemplate.queryForList("SELECT CONCAT('`', column_name, '`') FROM information_schema.columns " +
+                "WHERE table_schema = DATABASE() AND table_name = 'course' AND column_name NOT IN ('id', 'course_name')", String.class);
+        String copiedColumns = String.join(", ", columns);
+        int firstId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM course", Integer.class);
+
+        List<Object[]> courses = new ArrayList<>(names.size());
+        List<Object[]> topics = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            int template = templates.get(i % templates.size());
+            courses.add(new Object[]{firstId + i, names.get(i), template});
+            topics.add(new Object[]{firstId + i, template});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO course (id, course_name, " + copiedColumns + ") " +
+                "SELECT ?, ?, " + copiedColumns + " FROM course WHERE id = ?", courses);
+        jdbcTemplate.batchUpdate("INSERT INTO course_topic (course_id, topic_id) " +
+                "SELECT ?, topic_id FROM course_topic WHERE course_id = ?", topics);
+    }
+}
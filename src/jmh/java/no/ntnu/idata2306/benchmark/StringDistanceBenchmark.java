@@ -0,0 +1,83 @@
+package no.ntnu.idata2306.benchmark;
+
+import no.ntnu.idata2306.index.SearchDocument;
+import no.ntnu.idata2306.util.ScoreUtils;
+import no.ntnu.idata2306.util.StringUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the edit distance and similarity score calculations on names and misspelled queries.
+ * Every invocation calculates the distance for one name and query pair, cycling through the pairs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringDistanceBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    private String[] names;
+    private String[] queries;
+    private SearchDocument[] nameDocuments;
+    private SearchDocument[] queryDocuments;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCatalog catalog = new SyntheticCatalog(42);
+        List<String> catalogNames = catalog.names(PAIRS);
+        List<String> catalogQueries = catalog.queries(catalogNames, PAIRS);
+
+        names = new String[PAIRS];
+        queries = new String[PAIRS];
+        nameDocuments = new SearchDocument[PAIRS];
+        queryDocuments = new SearchDocument[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            names[i] = catalogNames.get(i).toLowerCase();
+            queries[i] = catalogQueries.get(i);
+            nameDocuments[i] = new SearchDocument(names[i]);
+            queryDocuments[i] = new SearchDocument(queries[i]);
+        }
+    }
+
+    private int nextPair() {
+        next = (next + 1) & (PAIRS - 1);
+        return next;
+    }
+
+    @Benchmark
+    public int levenshteinDistance() {
+        int i = nextPair();
+        return StringUtils.levenshteinDistance(names[i], queries[i]);
+    }
+
+    @Benchmark
+    public int damerauLevenshteinDistance() {
+        int i = nextPair();
+        return StringUtils.damerauLevenshteinDistance(names[i], queries[i]).getDistance();
+    }
+
+    @Benchmark
+    public int distance() {
+        int i = nextPair();
+        return StringUtils.distance(names[i], queries[i]);
+    }
+
+    @Benchmark
+    public int boundedDistance() {
+        int i = nextPair();
+        return StringUtils.distance(names[i], queries[i], 3);
+    }
+
+    @Benchmark
+    public double calculateSimilarityScore() {
+        int i = nextPair();
+        return ScoreUtils.calculateSimilarityScore(nameDocuments[i], queryDocuments[i]);
+    }
+}
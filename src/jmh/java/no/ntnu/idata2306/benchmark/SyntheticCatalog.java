@@ -0,0 +1,131 @@
+package no.ntnu.idata2306.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic course names and misspelled queries for the search benchmarks.
+ * Names are built from a vocabulary of words seen in course catalogs, and queries are names with
+ * typos added: most queries have no typo or a single one, fewer have two or three.
+ */
+public class SyntheticCatalog {
+
+    private static final String[] PREFIXES = {
+            "Introduction to", "Advanced", "Fundamentals of", "Applied", "Practical", "Modern",
+            "Professional", "Beginner", "Mastering", "Essentials of", "Hands-on", "Certified"
+    };
+
+    private static final String[] SUBJECTS = {
+            "Java", "Python", "SQL", "Azure", "AWS", "Databricks", "Machine Learning", "Image Recognition",
+            "Business Strategy", "Search Engine Optimization", "Social Media Marketing", "C#", ".NET",
+            "Cloud Services", "Relational Databases", "Neural Networks", "Data Science", "Kubernetes",
+            "Docker", "React", "Spring Boot", "Linux", "Networking", "Cyber Security", "Statistics"
+    };
+
+    private static final String[] SUFFIXES = {
+            "", "Programming", "Development", "Administration", "Fundamentals", "for Beginners",
+            "Bootcamp", "in Practice", "Certification", "Masterclass", "Workshop", "Analytics"
+    };
+
+    // Share of queries with 0, 1, 2 and 3 typos
+    private static final double[] TYPO_DISTRIBUTION = {0.45, 0.35, 0.15, 0.05};
+
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
+
+    private final Random random;
+
+    /**
+     * Constructs a generator with a fixed seed, so every run benchmarks the same data.
+     *
+     * @param seed the seed of the random generator.
+     */
+    public SyntheticCatalog(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Generates the given number of course names. Names repeat, as in a real catalog where
+     * several providers offer courses with the same name.
+     *
+     * @param size the number of names.
+     * @return the generated names.
+     */
+    public List<String> names(int size) {
+        List<String> names = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String name = pick(PREFIXES) + " " + pick(SUBJECTS) + " " + pick(SUFFIXES);
+            if (random.nextInt(4) == 0) {
+                name = name + " " + (random.nextInt(size) + 1);
+            }
+            names.add(name.trim());
+        }
+        return names;
+    }
+
+    /**
+     * Generates queries by picking names from the catalog and adding typos to them.
+     *
+     * @param names the names of the catalog.
+     * @param count the number of queries.
+     * @return the generated queries.
+     */
+    public List<String> queries(List<String> names, int count) {
+        List<String> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String query = names.get(random.nextInt(names.size())).toLowerCase();
+            int typos = typoCount();
+            for (int typo = 0; typo < typos; typo++) {
+                query = addTypo(query);
+            }
+            queries.add(query);
+        }
+        return queries;
+    }
+
+    /**
+     * Draws the number of typos of a query from the typo distribution.
+     *
+     * @return the number of typos.
+     */
+    private int typoCount() {
+        double draw = random.nextDouble();
+        double cumulative = 0;
+        for (int typos = 0; typos < TYPO_DISTRIBUTION.length; typos++) {
+            cumulative += TYPO_DISTRIBUTION[typos];
+            if (draw < cumulative) {
+                return typos;
+            }
+        }
+        return TYPO_DISTRIBUTION.length - 1;
+    }
+
+    /**
+     * Adds a single substitution, deletion, insertion or transposition to the text.
+     *
+     * @param text the text.
+     * @return the text with a typo.
+     */
+    private String addTypo(String text) {
+        if (text.length() < 2) {
+            return text;
+        }
+        StringBuilder builder = new StringBuilder(text);
+        int position = random.nextInt(text.length() - 1);
+        switch (random.nextInt(4)) {
+            case 0 -> builder.setCharAt(position, ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            case 1 -> builder.deleteCharAt(position);
+            case 2 -> builder.insert(position, ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            default -> {
+                char swapped = builder.charAt(position);
+                builder.setCharAt(position, builder.charAt(position + 1));
+                builder.setCharAt(position + 1, swapped);
+            }
+        }
+        return builder.toString();
+    }
+
+    private String pick(String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+}
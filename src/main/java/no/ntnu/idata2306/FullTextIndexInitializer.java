@@ -0,0 +1,69 @@
+package no.ntnu.idata2306;
+
+import lombok.extern.slf4j.Slf4j;
+import no.ntnu.idata2306.service.DatabaseSearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Responsible for creating the FULLTEXT indexes used by the full text modes of the database searches.
+ * Hibernate does not generate FULLTEXT indexes, so they are added when the application is ready,
+ * if any query type uses a full text mode and the index does not exist yet.
+ */
+@Slf4j
+@Component
+public class FullTextIndexInitializer implements ApplicationListener<ApplicationReadyEvent> {
+
+    // Table, column and name of every FULLTEXT index
+    private static final String[][] INDEXES = {
+            {"course", "course_name", "ft_course_name"},
+            {"category", "category", "ft_category_name"},
+            {"topic", "topic", "ft_topic_name"}
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseSearchService databaseSearchService;
+
+    @Autowired
+    public FullTextIndexInitializer(JdbcTemplate jdbcTemplate, DatabaseSearchService databaseSearchService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databaseSearchService = databaseSearchService;
+    }
+
+    /**
+     * Creates the missing FULLTEXT indexes when the application is ready.
+     *
+     * @param event the event published when the application is ready.
+     */
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!this.databaseSearchService.requiresFullTextIndexes()) {
+            return;
+        }
+        for (String[] index : INDEXES) {
+            createIndexIfMissing(index[0], index[1], index[2]);
+        }
+    }
+
+    /**
+     * Creates a FULLTEXT index on a column, unless the table already has an index with the same name.
+     *
+     * @param table  the name of the table.
+     * @param column the name of the column.
+     * @param name   the name of the index.
+     */
+    private void createIndexIfMissing(String table, String column, String name) {
+        Integer existing = this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics " +
+                        "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?",
+                Integer.class, table, name);
+        if (existing != null && existing > 0) {
+            return;
+        }
+        log.info("Creating FULLTEXT index {} on {}.{}", name, table, column);
+        this.jdbcTemplate.execute("ALTER TABLE " + table + " ADD FULLTEXT INDEX " + name + " (" + column + ")");
+    }
+}
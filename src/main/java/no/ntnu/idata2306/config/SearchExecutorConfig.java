@@ -0,0 +1,30 @@
+package no.ntnu.idata2306.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Configuration class for the executor running the parts of a search concurrently.
+ * The executor runs every task on a virtual thread, and limits the number of tasks running at once,
+ * so a burst of searches queues up instead of opening more database connections than the pool has.
+ */
+@Configuration
+public class SearchExecutorConfig {
+
+    @Value("${search.executor.max-concurrency:16}")
+    private int maxConcurrency;
+
+    /**
+     * Creates a fixed size executor running its tasks on virtual threads.
+     *
+     * @return the executor for search tasks
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService searchExecutor() {
+        return Executors.newFixedThreadPool(maxConcurrency, Thread.ofVirtual().name("search-", 0).factory());
+    }
+}
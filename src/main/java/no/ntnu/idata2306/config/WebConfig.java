@@ -1,5 +1,6 @@
 package no.ntnu.idata2306.config;
 
+import no.ntnu.idata2306.controller.SearchController;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.cors.CorsConfiguration;
@@ -18,7 +19,8 @@ public class WebConfig {
 
     /**
      * Defines the CORS configuration source bean.
-     * This method sets up the allowed origins, methods, and headers for CORS requests.
+     * This method sets up the allowed origins, methods, and headers for CORS requests,
+     * and the response headers the frontend may read.
      *
      * @return the configured CorsConfigurationSource
      */
@@ -28,6 +30,7 @@ public class WebConfig {
         configuration.setAllowedOrigins(List.of("http://localhost:3000", "https://localhost:3000", "https://learniverseconnect.norwayeast.cloudapp.azure.com"));
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("Authorization", "Content-Type"));
+        configuration.setExposedHeaders(List.of(SearchController.PARTIAL_HEADER));
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
 
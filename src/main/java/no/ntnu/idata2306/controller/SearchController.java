@@ -1,6 +1,7 @@
 package no.ntnu.idata2306.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -11,11 +12,14 @@ import lombok.extern.slf4j.Slf4j;
 import no.ntnu.idata2306.dto.course.CourseListResponseDto;
 import no.ntnu.idata2306.dto.course.CourseResponseDto;
 import no.ntnu.idata2306.dto.search.request.CategoryAndTopicsSearch;
+import no.ntnu.idata2306.dto.search.request.TextSearchCriteria;
 import no.ntnu.idata2306.dto.search.request.UserSearchCriteria;
 import no.ntnu.idata2306.dto.search.response.*;
 import no.ntnu.idata2306.dto.search.request.SearchCriteria;
 import no.ntnu.idata2306.service.SearchService;
+import no.ntnu.idata2306.util.SearchDeadline;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
@@ -31,8 +35,28 @@ import java.util.List;
 @RequestMapping("/api")
 @Tag(name = "Search API", description = "Endpoints for searching")
 public class SearchController {
+
+    // Response header telling if a search was cut short by its time budget and only has the results found so far
+    public static final String PARTIAL_HEADER = "X-Search-Partial";
+
     private final SearchService searchService;
 
+    // Time budget in milliseconds of the search stages per endpoint, 0 for no budget
+    @Value("${search.budget.multi-parameter-ms:300}")
+    private long multiParameterBudgetMillis;
+
+    @Value("${search.budget.course-ms:200}")
+    private long courseBudgetMillis;
+
+    @Value("${search.budget.category-ms:100}")
+    private long categoryBudgetMillis;
+
+    @Value("${search.budget.topic-ms:100}")
+    private long topicBudgetMillis;
+
+    @Value("${search.budget.user-ms:0}")
+    private long userBudgetMillis;
+
     @Autowired
     public SearchController(SearchService searchService) {
         this.searchService = searchService;
@@ -41,13 +65,14 @@ public class SearchController {
     /**
      * Searches for courses, categories, and topics based on the provided search criteria.
      * The search results are paginated.
+     * If the search runs out of its time budget, the best results found so far are returned and marked as partial.
      *
      * @param criteria the search criteria containing the course name, category name, and topic name to search for
      * @param page     the page number to retrieve (default is 0)
      * @param size     the number of records per page (default is 5)
      * @return ResponseEntity with the SearchResult object containing the scored courses, categories, and topics, along with pagination information
      */
-    @Operation(summary = "Search for courses, categories, and topics", description = "Searches for courses, categories, and topics based on the provided search criteria. The results are paginated.")
+    @Operation(summary = "Search for courses, categories, and topics", description = "Searches for courses, categories, and topics based on the provided search criteria. The results are paginated, and marked as partial if the search ran out of time.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Search results retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = SearchResult.class))),
             @ApiResponse(responseCode = "400", description = "Invalid search criteria"),
@@ -58,13 +83,39 @@ public class SearchController {
                                                              @RequestParam(defaultValue = "0") int page,
                                                              @RequestParam(defaultValue = "5") int size) {
         Pageable pageable = PageRequest.of(page, size);
-        SearchResult result = this.searchService.multiParameterSearch(criteria, pageable);
+        SearchResult result = this.searchService.multiParameterSearch(criteria, pageable, SearchDeadline.after(this.multiParameterBudgetMillis));
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Searches for courses, categories, and topics with the scored name queries run by the database,
+     * in the LIKE or full text mode set for every query type, instead of the resident search indexes.
+     * The search results are paginated.
+     *
+     * @param criteria the search criteria containing the course name, category name, and topic name to search for
+     * @param page     the page number to retrieve (default is 0)
+     * @param size     the number of records per page (default is 5)
+     * @return ResponseEntity with the SearchResult object containing the courses, categories, and topics scored by the database
+     */
+    @Operation(summary = "Search for courses, categories, and topics in the database", description = "Searches for courses, categories, and topics with the scored queries of the database, in the LIKE or full text mode set for every query type. The results are paginated.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Search results retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = SearchResult.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid search criteria"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/anonymous/databaseSearch")
+    public ResponseEntity<SearchResult> databaseSearch(@Valid @RequestBody SearchCriteria criteria,
+                                                       @RequestParam(defaultValue = "0") int page,
+                                                       @RequestParam(defaultValue = "5") int size) {
+        Pageable pageable = PageRequest.of(page, size);
+        return ResponseEntity.ok(this.searchService.databaseSearch(criteria, pageable));
+    }
+
     /**
      * Searches for courses based on the provided search criteria.
      * The search results are paginated.
+     * If the search runs out of its time budget, the best results found so far are returned
+     * and the {@value #PARTIAL_HEADER} header is true.
      *
      * @param criteria the search criteria containing the course name, category name, and topic name to search for (only course is used)
      * @param page     the page number to retrieve (default is 0)
@@ -73,7 +124,7 @@ public class SearchController {
      */
     @Operation(summary = "Search for courses", description = "Searches for courses based on the provided search criteria. The results are paginated.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Search results retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ScoredCourse.class))),
+            @ApiResponse(responseCode = "200", description = "Search results retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ScoredCourse.class)), headers = @Header(name = PARTIAL_HEADER, description = "True if the search ran out of time and only has the results found so far")),
             @ApiResponse(responseCode = "400", description = "Invalid search criteria"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
@@ -82,13 +133,40 @@ public class SearchController {
                                                            @RequestParam(defaultValue = "0") int page,
                                                            @RequestParam(defaultValue = "5") int size) {
         Pageable pageable = PageRequest.of(page, size);
-        List<ScoredCourse> result = this.searchService.courseSearch(criteria.getCourseName(), pageable);
+        SearchDeadline deadline = SearchDeadline.after(this.courseBudgetMillis);
+        List<ScoredCourse> result = this.searchService.courseSearch(criteria.getCourseName(), pageable, deadline);
+        return ok(deadline).body(result);
+    }
+
+    /**
+     * Searches for courses whose description or requirement description matches the provided free text query.
+     * The search results are ranked by relevance and paginated.
+     *
+     * @param criteria the search criteria containing the free text query
+     * @param page     the page number to retrieve (default is 0)
+     * @param size     the number of records per page (default is 5)
+     * @return ResponseEntity with the list of scored courses, scored by the relevance of their descriptions
+     */
+    @Operation(summary = "Search for courses by description", description = "Searches the descriptions and requirement descriptions of courses for the provided free text query. The results are ranked by relevance and paginated.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Search results retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ScoredCourse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid search criteria"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/anonymous/courseDescriptionSearch")
+    public ResponseEntity<List<ScoredCourse>> courseDescriptionSearch(@Valid @RequestBody TextSearchCriteria criteria,
+                                                                      @RequestParam(defaultValue = "0") int page,
+                                                                      @RequestParam(defaultValue = "5") int size) {
+        Pageable pageable = PageRequest.of(page, size);
+        List<ScoredCourse> result = this.searchService.courseDescriptionSearch(criteria.getQuery(), pageable);
         return ResponseEntity.ok(result);
     }
 
     /**
      * Searches for categories, and topics based on the provided search criteria.
      * The search results are paginated.
+     * If the search runs out of its time budget, the best results found so far are returned
+     * and the {@value #PARTIAL_HEADER} header is true.
      *
      * @param criteria the search criteria containing the course name, category name, and topic name to search for (only category is used)
      * @param page     the page number to retrieve (default is 0)
@@ -97,7 +175,7 @@ public class SearchController {
      */
     @Operation(summary = "Search for categories", description = "Searches for categories based on the provided search criteria. The results are paginated.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Search results retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ScoredCategory.class))),
+            @ApiResponse(responseCode = "200", description = "Search results retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ScoredCategory.class)), headers = @Header(name = PARTIAL_HEADER, description = "True if the search ran out of time and only has the results found so far")),
             @ApiResponse(responseCode = "400", description = "Invalid search criteria"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
@@ -106,13 +184,16 @@ public class SearchController {
                                                                @RequestParam(defaultValue = "0") int page,
                                                                @RequestParam(defaultValue = "5") int size) {
         Pageable pageable = PageRequest.of(page, size);
-        List<ScoredCategory> result = this.searchService.categorySearch(criteria.getCategoryName(), pageable);
-        return ResponseEntity.ok(result);
+        SearchDeadline deadline = SearchDeadline.after(this.categoryBudgetMillis);
+        List<ScoredCategory> result = this.searchService.categorySearch(criteria.getCategoryName(), pageable, deadline);
+        return ok(deadline).body(result);
     }
 
     /**
      * Searches for courses, categories, and topics based on the provided search criteria.
      * The search results are paginated.
+     * If the search runs out of its time budget, the best results found so far are returned
+     * and the {@value #PARTIAL_HEADER} header is true.
      *
      * @param criteria the search criteria containing the course name, category name, and topic name to search for
      * @param page     the page number to retrieve (default is 0)
@@ -121,7 +202,7 @@ public class SearchController {
      */
     @Operation(summary = "Search for courses, categories, and topics", description = "Searches for courses, categories, and topics based on the provided search criteria. The results are paginated.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Search results retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ScoredTopic.class))),
+            @ApiResponse(responseCode = "200", description = "Search results retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ScoredTopic.class)), headers = @Header(name = PARTIAL_HEADER, description = "True if the search ran out of time and only has the results found so far")),
             @ApiResponse(responseCode = "400", description = "Invalid search criteria"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
@@ -130,8 +211,9 @@ public class SearchController {
                                                          @RequestParam(defaultValue = "0") int page,
                                                          @RequestParam(defaultValue = "5") int size) {
         Pageable pageable = PageRequest.of(page, size);
-        List<ScoredTopic> result = this.searchService.topicSearch(criteria.getTopicName(), pageable);
-        return ResponseEntity.ok(result);
+        SearchDeadline deadline = SearchDeadline.after(this.topicBudgetMillis);
+        List<ScoredTopic> result = this.searchService.topicSearch(criteria.getTopicName(), pageable, deadline);
+        return ok(deadline).body(result);
     }
 
     /**
@@ -159,9 +241,36 @@ public class SearchController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Searches for courses based on the provided category ID, topic IDs, difficulty level ID and max price,
+     * and counts the facets of all matching courses.
+     * The search results are paginated, the facet counts cover all matching courses.
+     *
+     * @param search the request object containing category ID and topic IDs.
+     * @param page   the page number to retrieve (default is 0).
+     * @param size   the number of records per page (default is 5).
+     * @return ResponseEntity with the courses on the page and the number of matching courses per category, difficulty level, topic and price range.
+     */
+    @Operation(summary = "Search for courses by topics and category with facet counts", description = "Searches for courses based on the provided category ID and a list of topic IDs, and counts the matching courses per category, difficulty level, topic and price range. The results are paginated.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Search results retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = FacetedCourseResult.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid search criteria"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/anonymous/search/findCourseFacetsByFilteringIdsAndMaxPrice")
+    public ResponseEntity<FacetedCourseResult> findCourseFacetsByFilteringIdsAndMaxPrice(@Valid @RequestBody CategoryAndTopicsSearch search,
+                                                                                          @RequestParam(defaultValue = "0") int page,
+                                                                                          @RequestParam(defaultValue = "5") int size) {
+        Pageable pageable = PageRequest.of(page, size);
+        FacetedCourseResult result = this.searchService.advancedFilteringWithFacets(search, pageable);
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * Searches for users based on the provided full name and paginates the results.
      * The results are filtered based on predefined score thresholds to ensure relevance.
+     * If the search runs out of its time budget, the best results found so far are returned
+     * and the {@value #PARTIAL_HEADER} header is true.
      *
      * @param search the search criteria containing the full name of the user to search for.
      * @param page   the page number to retrieve (default is 0).
@@ -170,7 +279,7 @@ public class SearchController {
      */
     @Operation(summary = "Search for users by full name", description = "Searches for users based on the provided full name. The results are paginated.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Search results retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ScoredUser.class))),
+            @ApiResponse(responseCode = "200", description = "Search results retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ScoredUser.class)), headers = @Header(name = PARTIAL_HEADER, description = "True if the search ran out of time and only has the results found so far")),
             @ApiResponse(responseCode = "400", description = "Invalid search criteria"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
@@ -179,7 +288,54 @@ public class SearchController {
                                                         @RequestParam(defaultValue = "0") int page,
                                                         @RequestParam(defaultValue = "5") int size) {
         Pageable pageable = PageRequest.of(page, size);
-        List<ScoredUser> result = this.searchService.userSearch(search.getFullName().toLowerCase(), pageable);
+        SearchDeadline deadline = SearchDeadline.after(this.userBudgetMillis);
+        List<ScoredUser> result = this.searchService.userSearch(search.getFullName().toLowerCase(), pageable, deadline);
+        return ok(deadline).body(result);
+    }
+
+    /**
+     * Suggests course names, topics, categories and provider names starting with the provided prefix,
+     * or with a near miss of it if there are too few.
+     * Intended to be called on every keystroke of a search field.
+     *
+     * @param prefix the prefix typed so far
+     * @param limit  the maximum number of suggestions of each kind (default is 5, at most 10)
+     * @return ResponseEntity with the suggestions of each kind, the most popular first
+     */
+    @Operation(summary = "Autocomplete a search prefix", description = "Suggests course names, topics, categories and provider names starting with the provided prefix, ranked by popularity, followed by suggestions for near misses of the prefix.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Suggestions retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = AutocompleteResult.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/anonymous/autocomplete")
+    public ResponseEntity<AutocompleteResult> autocomplete(@RequestParam String prefix,
+                                                           @RequestParam(defaultValue = "5") int limit) {
+        AutocompleteResult result = this.searchService.autocomplete(prefix, limit);
         return ResponseEntity.ok(result);
     }
+
+    /**
+     * Retrieves the hit, miss and eviction statistics of the search result cache.
+     *
+     * @return ResponseEntity with the statistics of the search result cache.
+     */
+    @Operation(summary = "Get search cache statistics", description = "Retrieves the hit, miss and eviction statistics of the search result cache.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = SearchCacheStatistics.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/admin/search/cacheStatistics")
+    public ResponseEntity<SearchCacheStatistics> getCacheStatistics() {
+        return ResponseEntity.ok(this.searchService.getCacheStatistics());
+    }
+
+    /**
+     * Starts a successful response of a search, with the header telling if the search ran out of its time budget.
+     *
+     * @param deadline the time budget of the search.
+     * @return the builder of the response.
+     */
+    private static ResponseEntity.BodyBuilder ok(SearchDeadline deadline) {
+        return ResponseEntity.ok().header(PARTIAL_HEADER, String.valueOf(deadline.isPartial()));
+    }
 }
@@ -0,0 +1,9 @@
+package no.ntnu.idata2306.dto.search;
+
+/**
+ * Projection of a changed entity to its ID, the text it is searched by and whether it is still searchable.
+ * Used to replay the changes made after a snapshot of a resident search index was taken.
+ */
+public interface SearchChangeView extends SearchTextView {
+    Boolean getSearchable();
+}
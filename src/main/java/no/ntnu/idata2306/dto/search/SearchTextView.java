@@ -0,0 +1,10 @@
+package no.ntnu.idata2306.dto.search;
+
+/**
+ * Projection of an entity to its ID and the text it is searched by.
+ * Used to build the resident search indexes without loading full entities and their eager associations.
+ */
+public interface SearchTextView {
+    Integer getId();
+    String getText();
+}
@@ -0,0 +1,20 @@
+package no.ntnu.idata2306.dto.search.request;
+
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Dto for free text search criteria
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TextSearchCriteria {
+
+    @Size(max = 500, message = "Query must be 500 characters or less")
+    private String query;
+}
@@ -0,0 +1,22 @@
+package no.ntnu.idata2306.dto.search.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Dto for autocomplete suggestions, grouped by what they complete
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class AutocompleteResult {
+    private List<AutocompleteSuggestion> courseNames;
+    private List<AutocompleteSuggestion> topics;
+    private List<AutocompleteSuggestion> categories;
+    private List<AutocompleteSuggestion> providers;
+}
@@ -0,0 +1,18 @@
+package no.ntnu.idata2306.dto.search.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Dto for a suggestion completing a search prefix
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class AutocompleteSuggestion {
+    private String text;
+    private long popularity;
+}
@@ -0,0 +1,22 @@
+package no.ntnu.idata2306.dto.search.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Dto for the facet counts of the courses matching a filter, the most frequent values first
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CourseFacets {
+    private List<FacetCount> categories;
+    private List<FacetCount> difficultyLevels;
+    private List<FacetCount> topics;
+    private List<PriceBucketCount> priceBuckets;
+}
@@ -0,0 +1,18 @@
+package no.ntnu.idata2306.dto.search.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Dto for the number of matching courses having one value of a facet, e.g. one category
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class FacetCount {
+    private int id;
+    private int count;
+}
@@ -0,0 +1,19 @@
+package no.ntnu.idata2306.dto.search.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import no.ntnu.idata2306.dto.course.CourseListResponseDto;
+
+/**
+ * Dto for a page of filtered courses together with the facet counts of all courses matching the filter
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class FacetedCourseResult {
+    private CourseListResponseDto courseList;
+    private CourseFacets facets;
+}
@@ -0,0 +1,22 @@
+package no.ntnu.idata2306.dto.search.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Dto for the number of matching courses with a price in a price range.
+ * The range includes its lower bound and excludes its upper bound, which is null for the last range.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceBucketCount {
+    private BigDecimal from;
+    private BigDecimal to;
+    private int count;
+}
@@ -21,4 +21,8 @@ public class SearchResult {
     private List<ScoredCourse> scoredCourses;
     private List<ScoredCategory> scoredCategories;
     private List<ScoredTopic> scoredTopics;
+    // True if a part of the search did not finish in time and its results are missing
+    private boolean partial;
+    // Corrected spellings of the search, only suggested when nothing was found
+    private List<String> suggestions;
 }
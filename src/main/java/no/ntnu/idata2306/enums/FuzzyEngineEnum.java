@@ -0,0 +1,7 @@
+package no.ntnu.idata2306.enums;
+
+public enum FuzzyEngineEnum {
+    BK_TREE,
+    SYMMETRIC_DELETE,
+    LEVENSHTEIN_AUTOMATON
+}
@@ -0,0 +1,9 @@
+package no.ntnu.idata2306.enums;
+
+public enum SearchTypeEnum {
+    COURSE,
+    COURSE_DESCRIPTION,
+    CATEGORY,
+    TOPIC,
+    USER
+}
@@ -0,0 +1,7 @@
+package no.ntnu.idata2306.enums;
+
+public enum SqlSearchModeEnum {
+    LIKE,
+    NATURAL_LANGUAGE,
+    BOOLEAN
+}
@@ -0,0 +1,560 @@
+package no.ntnu.idata2306.index;
+
+import no.ntnu.idata2306.dto.search.SearchTextView;
+import no.ntnu.idata2306.model.Provider;
+import no.ntnu.idata2306.model.course.Course;
+import no.ntnu.idata2306.model.course.details.Topic;
+import no.ntnu.idata2306.repository.ProviderRepository;
+import no.ntnu.idata2306.repository.ReviewRepository;
+import no.ntnu.idata2306.repository.course.CourseRepository;
+import no.ntnu.idata2306.repository.course.details.TopicRepository;
+import no.ntnu.idata2306.util.SnapshotUtils;
+import no.ntnu.idata2306.util.datastructure.CompletionTrie;
+import no.ntnu.idata2306.util.datastructure.SortedTermDictionary;
+import no.ntnu.idata2306.util.datastructure.SortedTermDictionary.Match;
+import no.ntnu.idata2306.util.datastructure.WordVocabulary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * AutocompleteIndex suggests course names, topics, categories and provider names completing a prefix,
+ * using a {@link CompletionTrie} for each of them.
+ *
+ * Suggestions are ranked by popularity. A course name is as popular as the number of active courses
+ * with that name plus the number of reviews of those courses. Topics, categories and providers
+ * are as popular as the number of active courses they are used by.
+ *
+ * Prefixes with a typo are completed as well: if a prefix has fewer completions than requested, they are followed
+ * by the keys starting with a prefix within a small edit distance of it, e.g. "javascript basics" for "javs",
+ * found by a Levenshtein automaton over a {@link SortedTermDictionary} of the keys. These are ranked by their
+ * edit distance to the prefix, and by popularity among equally close ones.
+ *
+ * The contribution of every active course is remembered, so a written course only patches the keys it
+ * adds or removes instead of rebuilding the tries.
+ *
+ * Like the other {@link ResidentCourseIndex} implementations, it is read from its snapshot or built when the application
+ * is ready, and updated in place by the course and provider services. The snapshot holds the tries, their popularity
+ * and the contributions of the courses. Reviews and providers change without the courses being updated, so after the
+ * snapshot is read, the review counts are reloaded with a single query counting the reviews per course, and the
+ * provider names with a query over the providers, and only the contributions that changed are patched.
+ * Review count changes made while the index is built or read are applied again once the review counts are loaded.
+ */
+@Component
+public class AutocompleteIndex extends ResidentCourseIndex {
+
+    // Number of completions kept per trie node, and so the maximum number of suggestions per type
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private final ReviewRepository reviewRepository;
+    private final TopicRepository topicRepository;
+    private final ProviderRepository providerRepository;
+    private PopularityTrie courseNames = new PopularityTrie();
+    private PopularityTrie topics = new PopularityTrie();
+    private PopularityTrie categories = new PopularityTrie();
+    private PopularityTrie providers = new PopularityTrie();
+    private Map<Integer, CourseContribution> contributions = new HashMap<>();
+
+    // Review count changes made since the review counts started loading, null unless they are being loaded
+    private Map<Integer, Long> reviewDeltasDuringBuild;
+
+    @Autowired
+    public AutocompleteIndex(CourseRepository courseRepository, ReviewRepository reviewRepository,
+                             TopicRepository topicRepository, ProviderRepository providerRepository) {
+        super(courseRepository);
+        this.reviewRepository = reviewRepository;
+        this.topicRepository = topicRepository;
+        this.providerRepository = providerRepository;
+    }
+
+    /**
+     * Builds the tries from all active courses and their review counts, replacing what they held.
+     * Only the names of the courses and the IDs of their topics are loaded, not the courses themselves,
+     * and the topic IDs are resolved to topic names with a single query over the topics.
+     */
+    @Override
+    protected void build() {
+        Map<Integer, Long> reviewCounts = loadReviewCounts();
+
+        Map<Integer, String> topicNames = new HashMap<>();
+        for (SearchTextView topic : this.topicRepository.findAllNames()) {
+            topicNames.put(topic.getId(), topic.getText());
+        }
+        Map<Integer, List<String>> topicNamesByCourse = new HashMap<>();
+        for (Object[] row : this.courseRepository.findTopicIdsByActiveTrue()) {
+            topicNamesByCourse.computeIfAbsent((Integer) row[0], id -> new ArrayList<>()).add(topicNames.get((Integer) row[1]));
+        }
+
+        List<Object[]> rows = this.courseRepository.findAutocompleteKeysByActiveTrue();
+        lock.writeLock().lock();
+        try {
+            clear();
+            for (Object[] row : rows) {
+                int id = (Integer) row[0];
+                contribute(new CourseContribution(id, (String) row[1], (String) row[2], (Integer) row[3], (String) row[4],
+                        topicNamesByCourse.getOrDefault(id, List.of()), reviewCounts.getOrDefault(id, 0L)), 1);
+            }
+            applyReviewDeltasDuringBuild();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads the review counts and provider names after the tries have been read from the snapshot,
+     * and patches the contributions of the courses whose review count or provider name changed since.
+     */
+    @Override
+    protected void restored() {
+        Map<Integer, Long> reviewCounts = loadReviewCounts();
+        Map<Integer, String> providerNames = new HashMap<>();
+        for (SearchTextView provider : this.providerRepository.findAllNames()) {
+            providerNames.put(provider.getId(), provider.getText());
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (CourseContribution contribution : contributions.values()) {
+                long reviewCount = reviewCounts.getOrDefault(contribution.courseId, 0L);
+                if (reviewCount != contribution.reviewCount) {
+                    courseNames.add(contribution.courseName, reviewCount - contribution.reviewCount);
+                    contribution.reviewCount = reviewCount;
+                }
+                if (contribution.providerId != null && providerNames.containsKey(contribution.providerId)
+                        && !Objects.equals(providerNames.get(contribution.providerId), contribution.providerName)) {
+                    providers.add(contribution.providerName, -1);
+                    contribution.providerName = providerNames.get(contribution.providerId);
+                    providers.add(contribution.providerName, 1);
+                }
+            }
+            applyReviewDeltasDuringBuild();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Captures the keys of a written course, or that it is inactive and no longer contributes.
+     * The review count of the course is kept when the write is applied.
+     *
+     * @param course the course that was written.
+     * @return the write of the course to the tries.
+     */
+    @Override
+    protected Runnable toWrite(Course course) {
+        int courseId = course.getId();
+        CourseContribution written = course.isActive() ? new CourseContribution(course, 0) : null;
+        return () -> applyUpdate(courseId, written);
+    }
+
+    @Override
+    protected int size() {
+        lock.readLock().lock();
+        try {
+            return contributions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the contributions of the courses and the tries to a snapshot under the read lock.
+     * The names in the contributions are written once each, and referred to by their number, as the category,
+     * provider and topic names are shared by many courses.
+     *
+     * @param out the output to write to.
+     * @throws IOException if the index could not be written.
+     */
+    @Override
+    public void writeTo(DataOutput out) throws IOException {
+        lock.readLock().lock();
+        try {
+            Map<String, Integer> nameNumbers = new LinkedHashMap<>();
+            for (CourseContribution contribution : contributions.values()) {
+                nameNumbers.putIfAbsent(contribution.courseName, nameNumbers.size());
+                nameNumbers.putIfAbsent(contribution.categoryName, nameNumbers.size());
+                nameNumbers.putIfAbsent(contribution.providerName, nameNumbers.size());
+                for (String topicName : contribution.topicNames) {
+                    nameNumbers.putIfAbsent(topicName, nameNumbers.size());
+                }
+            }
+            out.writeInt(nameNumbers.size());
+            for (String name : nameNumbers.keySet()) {
+                out.writeBoolean(name != null);
+                if (name != null) {
+                    SnapshotUtils.writeString(out, name);
+                }
+            }
+
+            out.writeInt(contributions.size());
+            for (CourseContribution contribution : contributions.values()) {
+                out.writeInt(contribution.courseId);
+                out.writeInt(nameNumbers.get(contribution.courseName));
+                out.writeInt(nameNumbers.get(contribution.categoryName));
+                out.writeBoolean(contribution.providerId != null);
+                if (contribution.providerId != null) {
+                    out.writeInt(contribution.providerId);
+                }
+                out.writeInt(nameNumbers.get(contribution.providerName));
+                out.writeInt(contribution.topicNames.size());
+                for (String topicName : contribution.topicNames) {
+                    out.writeInt(nameNumbers.get(topicName));
+                }
+                out.writeLong(contribution.reviewCount);
+            }
+
+            courseNames.writeTo(out);
+            topics.writeTo(out);
+            categories.writeTo(out);
+            providers.writeTo(out);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the contributions of the courses and the tries with a snapshot under the write lock.
+     *
+     * @param buffer the buffer to read from, positioned at the snapshot of the index.
+     */
+    @Override
+    public void readFrom(ByteBuffer buffer) {
+        lock.writeLock().lock();
+        try {
+            clear();
+            String[] names = new String[buffer.getInt()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = buffer.get() != 0 ? SnapshotUtils.readString(buffer) : null;
+            }
+
+            for (int i = buffer.getInt(); i > 0; i--) {
+                int courseId = buffer.getInt();
+                String courseName = names[buffer.getInt()];
+                String categoryName = names[buffer.getInt()];
+                Integer providerId = buffer.get() != 0 ? buffer.getInt() : null;
+                String providerName = names[buffer.getInt()];
+                String[] topicNames = new String[buffer.getInt()];
+                for (int j = 0; j < topicNames.length; j++) {
+                    topicNames[j] = names[buffer.getInt()];
+                }
+                contributions.put(courseId, new CourseContribution(courseId, courseName, categoryName, providerId,
+                        providerName, Arrays.asList(topicNames), buffer.getLong()));
+            }
+
+            courseNames.readFrom(buffer);
+            topics.readFrom(buffer);
+            categories.readFrom(buffer);
+            providers.readFrom(buffer);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Updates the popularity of a course after one of its reviews has been created or deleted.
+     *
+     * @param courseId the ID of the reviewed course.
+     * @param delta 1 if a review was created, -1 if a review was deleted.
+     */
+    public void reviewCountChanged(int courseId, int delta) {
+        lock.writeLock().lock();
+        try {
+            applyReviewDelta(courseId, delta);
+            if (reviewDeltasDuringBuild != null) {
+                reviewDeltasDuringBuild.merge(courseId, (long) delta, Long::sum);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Updates the provider name of the courses of a provider after the provider has been changed.
+     *
+     * @param provider the provider that was written.
+     */
+    public void updateProvider(Provider provider) {
+        int providerId = provider.getId();
+        String providerName = provider.getProviderName();
+        write(() -> applyProviderName(providerId, providerName));
+    }
+
+    /**
+     * Returns the most popular course names completing the prefix.
+     *
+     * @param prefix the prefix typed so far.
+     * @param limit the maximum number of suggestions.
+     * @return the completions, the most popular first, followed by the completions of near misses of the prefix.
+     */
+    public List<CompletionTrie.Completion> completeCourseNames(String prefix, int limit) {
+        return complete(courseNames, prefix, limit);
+    }
+
+    /**
+     * Returns the most popular topics completing the prefix.
+     *
+     * @param prefix the prefix typed so far.
+     * @param limit the maximum number of suggestions.
+     * @return the completions, the most popular first, followed by the completions of near misses of the prefix.
+     */
+    public List<CompletionTrie.Completion> completeTopics(String prefix, int limit) {
+        return complete(topics, prefix, limit);
+    }
+
+    /**
+     * Returns the most popular categories completing the prefix.
+     *
+     * @param prefix the prefix typed so far.
+     * @param limit the maximum number of suggestions.
+     * @return the completions, the most popular first, followed by the completions of near misses of the prefix.
+     */
+    public List<CompletionTrie.Completion> completeCategories(String prefix, int limit) {
+        return complete(categories, prefix, limit);
+    }
+
+    /**
+     * Returns the most popular provider names completing the prefix.
+     *
+     * @param prefix the prefix typed so far.
+     * @param limit the maximum number of suggestions.
+     * @return the completions, the most popular first, followed by the completions of near misses of the prefix.
+     */
+    public List<CompletionTrie.Completion> completeProviders(String prefix, int limit) {
+        return complete(providers, prefix, limit);
+    }
+
+    /**
+     * Looks up the completions of a prefix in one of the tries under the read lock, followed by the completions
+     * of near misses of the prefix if there are too few of them.
+     * The edit distance allowed depends on the length of the prefix, as for the words of a search.
+     */
+    private List<CompletionTrie.Completion> complete(PopularityTrie trie, String prefix, int limit) {
+        String normalizedPrefix = SearchIndex.normalize(prefix);
+        int maxCompletions = Math.min(limit, MAX_SUGGESTIONS);
+        int radius = WordVocabulary.wordRadius(normalizedPrefix);
+        lock.readLock().lock();
+        try {
+            List<CompletionTrie.Completion> completions = trie.trie.complete(normalizedPrefix, maxCompletions);
+            if (completions.size() >= maxCompletions || radius == 0) {
+                return completions;
+            }
+            List<CompletionTrie.Completion> withFuzzy = new ArrayList<>(completions);
+            withFuzzy.addAll(trie.completeFuzzy(normalizedPrefix, radius, maxCompletions - completions.size()));
+            return withFuzzy;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loads the number of reviews of every course, and starts keeping the review count changes made from just before
+     * the query, so the reviews written meanwhile are counted once the counts are applied, and the ones written before
+     * are not counted twice.
+     *
+     * @return the number of reviews per course ID, for the courses with reviews.
+     */
+    private Map<Integer, Long> loadReviewCounts() {
+        lock.writeLock().lock();
+        try {
+            this.reviewDeltasDuringBuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<Integer, Long> reviewCounts = new HashMap<>();
+        for (Object[] row : this.reviewRepository.countReviewsPerCourse()) {
+            reviewCounts.put((Integer) row[0], (Long) row[1]);
+        }
+        return reviewCounts;
+    }
+
+    /**
+     * Applies the review count changes made since the review counts started loading, and stops keeping them.
+     * Must be called while holding the write lock, in the same hold as the loaded review counts are applied.
+     */
+    private void applyReviewDeltasDuringBuild() {
+        reviewDeltasDuringBuild.forEach((courseId, delta) -> applyReviewDelta(courseId, delta));
+        reviewDeltasDuringBuild = null;
+    }
+
+    /**
+     * Replaces the contribution of a course with the keys it was written with, keeping its review count.
+     * Must be called while holding the write lock.
+     *
+     * @param courseId the ID of the course.
+     * @param written the contribution of the written course, or null if it is inactive.
+     */
+    private void applyUpdate(int courseId, CourseContribution written) {
+        CourseContribution previous = contributions.get(courseId);
+        long reviewCount = previous != null ? previous.reviewCount : 0;
+        if (previous != null) {
+            contribute(previous, -1);
+        }
+        if (written != null) {
+            contribute(new CourseContribution(written, reviewCount), 1);
+        }
+    }
+
+    /**
+     * Changes the review count of a course, if it is active. Must be called while holding the write lock.
+     */
+    private void applyReviewDelta(int courseId, long delta) {
+        CourseContribution contribution = contributions.get(courseId);
+        if (contribution != null) {
+            courseNames.add(contribution.courseName, delta);
+            contribution.reviewCount += delta;
+        }
+    }
+
+    /**
+     * Renames a provider in the contributions of its courses. Must be called while holding the write lock.
+     */
+    private void applyProviderName(int providerId, String providerName) {
+        for (CourseContribution contribution : contributions.values()) {
+            if (contribution.providerId != null && contribution.providerId == providerId) {
+                providers.add(contribution.providerName, -1);
+                contribution.providerName = providerName;
+                providers.add(contribution.providerName, 1);
+            }
+        }
+    }
+
+    /**
+     * Removes all keys and contributions. Must be called while holding the write lock.
+     */
+    private void clear() {
+        courseNames = new PopularityTrie();
+        topics = new PopularityTrie();
+        categories = new PopularityTrie();
+        providers = new PopularityTrie();
+        contributions = new HashMap<>();
+    }
+
+    /**
+     * Adds or withdraws the contribution of a course to the popularity of its keys.
+     * Must be called while holding the write lock.
+     *
+     * @param contribution the contribution of the course.
+     * @param sign 1 to add the contribution, -1 to withdraw it.
+     */
+    private void contribute(CourseContribution contribution, int sign) {
+        courseNames.add(contribution.courseName, sign * (1 + contribution.reviewCount));
+        categories.add(contribution.categoryName, sign);
+        providers.add(contribution.providerName, sign);
+        for (String topic : contribution.topicNames) {
+            topics.add(topic, sign);
+        }
+        if (sign > 0) {
+            contributions.put(contribution.courseId, contribution);
+        } else {
+            contributions.remove(contribution.courseId);
+        }
+    }
+
+    /**
+     * The keys an active course contributes to, captured when the course was indexed.
+     */
+    private static class CourseContribution {
+        private final int courseId;
+        private final String courseName;
+        private final String categoryName;
+        private final Integer providerId;
+        private String providerName;
+        private final List<String> topicNames;
+        private long reviewCount;
+
+        private CourseContribution(int courseId, String courseName, String categoryName, Integer providerId,
+                                   String providerName, List<String> topicNames, long reviewCount) {
+            this.courseId = courseId;
+            this.courseName = courseName;
+            this.categoryName = categoryName;
+            this.providerId = providerId;
+            this.providerName = providerName;
+            this.topicNames = topicNames;
+            this.reviewCount = reviewCount;
+        }
+
+        private CourseContribution(CourseContribution written, long reviewCount) {
+            this(written.courseId, written.courseName, written.categoryName, written.providerId, written.providerName,
+                    written.topicNames, reviewCount);
+        }
+
+        private CourseContribution(Course course, long reviewCount) {
+            this(course.getId(), course.getCourseName(),
+                    course.getCategory() != null ? course.getCategory().getCategory() : null,
+                    course.getProvider() != null ? course.getProvider().getId() : null,
+                    course.getProvider() != null ? course.getProvider().getProviderName() : null,
+                    course.getTopics() != null ? course.getTopics().stream().map(Topic::getTopic).toList() : List.of(),
+                    reviewCount);
+        }
+    }
+
+    /**
+     * A completion trie together with the popularity of its keys, so contributions can be added and withdrawn,
+     * and a sorted dictionary of the keys to complete prefixes with typos from.
+     * A key is removed from the trie and the dictionary once its popularity drops to zero.
+     */
+    private static class PopularityTrie {
+        private final CompletionTrie trie = new CompletionTrie(MAX_SUGGESTIONS);
+        private final SortedTermDictionary keys = new SortedTermDictionary();
+        private final Map<String, Long> popularityByKey = new HashMap<>();
+
+        private void add(String text, long delta) {
+            if (text == null || text.isBlank() || delta == 0) {
+                return;
+            }
+            String key = SearchIndex.normalize(text);
+            long popularity = popularityByKey.getOrDefault(key, 0L) + delta;
+            if (popularity > 0) {
+                if (popularityByKey.put(key, popularity) == null) {
+                    keys.add(key);
+                }
+                trie.put(key, text, popularity);
+            } else {
+                popularityByKey.remove(key);
+                keys.remove(key);
+                trie.remove(key);
+            }
+        }
+
+        private void writeTo(DataOutput out) throws IOException {
+            trie.writeTo(out);
+            keys.writeTo(out);
+            out.writeInt(popularityByKey.size());
+            for (Map.Entry<String, Long> popularity : popularityByKey.entrySet()) {
+                SnapshotUtils.writeString(out, popularity.getKey());
+                out.writeLong(popularity.getValue());
+            }
+        }
+
+        private void readFrom(ByteBuffer buffer) {
+            trie.readFrom(buffer);
+            keys.readFrom(buffer);
+            popularityByKey.clear();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                String key = SnapshotUtils.readString(buffer);
+                popularityByKey.put(key, buffer.getLong());
+            }
+        }
+
+        /**
+         * Finds the most popular keys starting with a near miss of a prefix, but not with the prefix itself,
+         * which are already completed by the trie.
+         */
+        private List<CompletionTrie.Completion> completeFuzzy(String prefix, int radius, int limit) {
+            List<Match> matches = new ArrayList<>(keys.findCompletions(prefix, radius));
+            matches.removeIf(match -> match.distance() == 0);
+            matches.sort(Comparator.comparingInt(Match::distance)
+                    .thenComparing(Comparator.comparingLong((Match match) -> popularityByKey.get(match.term())).reversed()));
+
+            List<CompletionTrie.Completion> completions = new ArrayList<>(Math.min(limit, matches.size()));
+            for (int i = 0; i < matches.size() && completions.size() < limit; i++) {
+                completions.add(trie.get(matches.get(i).term()));
+            }
+            return completions;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package no.ntnu.idata2306.index;
+
+import no.ntnu.idata2306.dto.search.SearchTextView;
+import no.ntnu.idata2306.enums.FuzzyEngineEnum;
+import no.ntnu.idata2306.model.course.details.Category;
+import no.ntnu.idata2306.repository.course.details.CategoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Resident search index over category names.
+ */
+@Component
+public class CategorySearchIndex extends EntitySearchIndex<Category> {
+
+    private final CategoryRepository categoryRepository;
+
+    @Autowired
+    public CategorySearchIndex(CategoryRepository categoryRepository,
+                               @Value("${search.category.fuzzy-engine:BK_TREE}") FuzzyEngineEnum fuzzyEngine) {
+        super(new SearchIndex(fuzzyEngine, false));
+        this.categoryRepository = categoryRepository;
+    }
+
+    @Override
+    protected List<SearchTextView> loadSearchTexts() {
+        return this.categoryRepository.findAllNames();
+    }
+
+    @Override
+    protected boolean isSearchable(Category category) {
+        return true;
+    }
+
+    @Override
+    protected int getId(Category category) {
+        return category.getId();
+    }
+
+    @Override
+    protected String getSearchText(Category category) {
+        return category.getCategory();
+    }
+}
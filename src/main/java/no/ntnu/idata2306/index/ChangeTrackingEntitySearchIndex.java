@@ -0,0 +1,155 @@
+package no.ntnu.idata2306.index;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import no.ntnu.idata2306.dto.search.SearchChangeView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Resident search index over entities with creation and update times, so the entities changed since a given time
+ * can be found.
+ *
+ * The index is written to a {@link SearchIndexSnapshot} on local disk after it is built and when the application
+ * shuts down. At the next startup the index is read from the snapshot, and only the entities created or updated since
+ * the snapshot was taken are loaded from the database and replayed, so a large index is ready without being built
+ * from scratch.
+ *
+ * @param <E> the type of entity the index is over.
+ */
+@Slf4j
+public abstract class ChangeTrackingEntitySearchIndex<E> extends EntitySearchIndex<E> {
+
+    // Changes are replayed from a while before the snapshot was taken, so an entity saved just before the snapshot
+    // but only indexed after it is not missed. Replaying an entity already in the snapshot does no harm.
+    private static final Duration REPLAY_MARGIN = Duration.ofMinutes(1);
+
+    @Value("${search.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${search.snapshot.directory:search-snapshots}")
+    private String snapshotDirectory;
+
+    protected ChangeTrackingEntitySearchIndex(SearchIndex index) {
+        super(index);
+    }
+
+    /**
+     * Reads the index from its snapshot, if snapshots are enabled.
+     *
+     * @return true if the index was read from the snapshot.
+     */
+    @Override
+    protected boolean restore() {
+        return this.snapshotEnabled && loadSnapshot();
+    }
+
+    /**
+     * Writes a snapshot of the index once it has been built, if snapshots are enabled.
+     *
+     * @param loadedAt the time the entities were loaded at, so every change of an entity before it is in the index.
+     */
+    @Override
+    protected void built(LocalDateTime loadedAt) {
+        if (this.snapshotEnabled) {
+            writeSnapshot(loadedAt);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the index when the application shuts down, so the next startup reads it instead of
+     * building the index. Nothing is written if the index was never initialized, as it would then be empty.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (isInitialized() && this.snapshotEnabled) {
+            writeSnapshot(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Loads the ID, search text and searchable state of the entities created or updated after the given time,
+     * including the ones no longer searchable.
+     *
+     * @param since the time after which the entities were changed.
+     * @return a list of the changed entities.
+     */
+    protected abstract List<SearchChangeView> loadChangesSince(LocalDateTime since);
+
+    /**
+     * Counts the entities that should be searchable, to check an index read from a snapshot against the database.
+     *
+     * @return the number of searchable entities.
+     */
+    protected abstract long countSearchable();
+
+    /**
+     * Returns the file the snapshot of the index is kept in, named after the index.
+     *
+     * @return the path of the snapshot file.
+     */
+    private Path snapshotFile() {
+        return Path.of(this.snapshotDirectory, ClassUtils.getUserClass(getClass()).getSimpleName() + ".snapshot");
+    }
+
+    /**
+     * Reads the index from its snapshot, and replays the entities created or updated since the snapshot was taken.
+     * A missing, outdated or invalid snapshot is ignored, so the index is built from the database instead.
+     * So is a snapshot that does not end up with as many entries as there are searchable entities, e.g. because
+     * entities were deleted from the database, or the snapshot was taken of another database.
+     *
+     * @return true if the index was read from the snapshot.
+     */
+    private boolean loadSnapshot() {
+        Path file = snapshotFile();
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        try {
+            LocalDateTime takenAt = SearchIndexSnapshot.read(getIndex(), file);
+            List<SearchChangeView> changes = loadChangesSince(takenAt.minus(REPLAY_MARGIN));
+            for (SearchChangeView change : changes) {
+                if (Boolean.TRUE.equals(change.getSearchable())) {
+                    getIndex().put(new SearchEntry(change.getId(), change.getText()));
+                } else {
+                    getIndex().remove(change.getId());
+                }
+            }
+            long searchable = countSearchable();
+            if (getIndex().size() != searchable) {
+                log.warn("{} has {} entries after reading snapshot {}, but {} entities are searchable, "
+                        + "building it from the database", getClass().getSimpleName(), getIndex().size(), file, searchable);
+                return false;
+            }
+            log.info("{} initialized with {} entries from the snapshot taken at {} and {} changes since",
+                    getClass().getSimpleName(), getIndex().size(), takenAt, changes.size());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("{} could not be read from snapshot {}, building it from the database: {}",
+                    getClass().getSimpleName(), file, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the index. A failure is logged, as the index can still be built from the database.
+     *
+     * @param takenAt the time every change of an entity before which is in the index.
+     */
+    private void writeSnapshot(LocalDateTime takenAt) {
+        Path file = snapshotFile();
+        try {
+            SearchIndexSnapshot.write(getIndex(), file, takenAt);
+            log.info("{} wrote a snapshot of {} entries to {}", getClass().getSimpleName(), getIndex().size(), file);
+        } catch (IOException | RuntimeException e) {
+            log.warn("{} could not write snapshot {}: {}", getClass().getSimpleName(), file, e.getMessage());
+        }
+    }
+}
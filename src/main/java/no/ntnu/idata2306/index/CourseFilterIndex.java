@@ -0,0 +1,605 @@
+package no.ntnu.idata2306.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import no.ntnu.idata2306.dto.search.response.CourseFacets;
+import no.ntnu.idata2306.dto.search.response.FacetCount;
+import no.ntnu.idata2306.dto.search.response.PriceBucketCount;
+import no.ntnu.idata2306.model.course.Course;
+import no.ntnu.idata2306.model.course.details.Topic;
+import no.ntnu.idata2306.repository.course.CourseRepository;
+import no.ntnu.idata2306.util.SnapshotUtils;
+import no.ntnu.idata2306.util.datastructure.CompressedBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * CourseFilterIndex filters active courses by category, difficulty level, topics and maximum price in memory.
+ *
+ * For every category, difficulty level and topic, the IDs of the active courses having it are kept in a
+ * {@link CompressedBitmap}, so a filter is resolved by intersecting the bitmaps of its criteria.
+ * The prices are kept in a column sorted by price, so the courses up to a maximum price are the start of the column.
+ * Only the IDs on the requested page are returned, and only those courses are loaded from the database.
+ *
+ * The attributes of every course are kept as well, so the facet counts of all matching courses, i.e. the number of
+ * matching courses per category, difficulty level, topic and price range, are counted in a single pass over the matches.
+ *
+ * Like the other {@link ResidentCourseIndex} implementations, it is read from its snapshot or built when the application
+ * is ready, and updated in place by the course service. The snapshot holds the bitmaps as they are, and the price
+ * column as the IDs in price order, so neither is built again from the attributes.
+ */
+@Component
+public class CourseFilterIndex extends ResidentCourseIndex {
+
+    private static final CompressedBitmap NO_COURSES = new CompressedBitmap();
+
+    private CompressedBitmap activeCourses = new CompressedBitmap();
+    private final Map<Integer, CompressedBitmap> coursesByCategory = new HashMap<>();
+    private final Map<Integer, CompressedBitmap> coursesByDifficultyLevel = new HashMap<>();
+    private final Map<Integer, CompressedBitmap> coursesByTopic = new HashMap<>();
+    private final Map<Integer, CourseAttributes> attributesById = new HashMap<>();
+    private final PriceColumn prices = new PriceColumn();
+
+    // Lower bounds of the price ranges counted as facets, in ascending order
+    @Value("${search.facets.price-bounds:0,1000,5000,10000,25000,50000}")
+    private BigDecimal[] priceBounds;
+
+    @Autowired
+    public CourseFilterIndex(CourseRepository courseRepository) {
+        super(courseRepository);
+    }
+
+    /**
+     * Builds the index from the filter attributes of all active courses, replacing what it held.
+     * Only the IDs of the courses and their attributes are loaded, not the courses themselves.
+     */
+    @Override
+    protected void build() {
+        Map<Integer, List<Integer>> topicIdsByCourse = new HashMap<>();
+        for (Object[] row : this.courseRepository.findTopicIdsByActiveTrue()) {
+            topicIdsByCourse.computeIfAbsent((Integer) row[0], id -> new ArrayList<>()).add((Integer) row[1]);
+        }
+
+        List<Object[]> rows = this.courseRepository.findFilterAttributesByActiveTrue();
+        lock.writeLock().lock();
+        try {
+            clear();
+            List<Integer> pricedIds = new ArrayList<>(rows.size());
+            List<BigDecimal> coursePrices = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                int id = (Integer) row[0];
+                CourseAttributes attributes = new CourseAttributes((Integer) row[1], (Integer) row[2], (BigDecimal) row[3],
+                        topicIdsByCourse.getOrDefault(id, List.of()));
+                addToBitmaps(id, attributes);
+                if (attributes.price != null) {
+                    pricedIds.add(id);
+                    coursePrices.add(attributes.price);
+                }
+            }
+            this.prices.fill(coursePrices, pricedIds);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Captures the filter attributes of a written course, or that it is inactive and must be removed from the index.
+     *
+     * @param course the course that was written.
+     * @return the write of the course to the index.
+     */
+    @Override
+    protected Runnable toWrite(Course course) {
+        int id = course.getId();
+        CourseAttributes attributes = null;
+        if (course.isActive()) {
+            List<Integer> topicIds = course.getTopics() != null
+                    ? course.getTopics().stream().map(Topic::getId).distinct().toList()
+                    : List.of();
+            attributes = new CourseAttributes(
+                    course.getCategory() != null ? course.getCategory().getId() : null,
+                    course.getDifficultyLevel() != null ? course.getDifficultyLevel().getId() : null,
+                    course.getPrice(),
+                    topicIds);
+        }
+        CourseAttributes written = attributes;
+        return () -> {
+            remove(id);
+            if (written != null) {
+                add(id, written);
+            }
+        };
+    }
+
+    @Override
+    protected int size() {
+        lock.readLock().lock();
+        try {
+            return this.attributesById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the index to a snapshot under the read lock: the bitmaps, the attributes of every course,
+     * and the IDs of the courses with a price in the order of the price column.
+     *
+     * @param out the output to write to.
+     * @throws IOException if the index could not be written.
+     */
+    @Override
+    public void writeTo(DataOutput out) throws IOException {
+        lock.readLock().lock();
+        try {
+            this.activeCourses.writeTo(out);
+            writeBitmaps(out, this.coursesByCategory);
+            writeBitmaps(out, this.coursesByDifficultyLevel);
+            writeBitmaps(out, this.coursesByTopic);
+            out.writeInt(this.attributesById.size());
+            for (Map.Entry<Integer, CourseAttributes> entry : this.attributesById.entrySet()) {
+                CourseAttributes attributes = entry.getValue();
+                out.writeInt(entry.getKey());
+                writeNullableId(out, attributes.categoryId);
+                writeNullableId(out, attributes.difficultyLevelId);
+                out.writeBoolean(attributes.price != null);
+                if (attributes.price != null) {
+                    SnapshotUtils.writeString(out, attributes.price.toString());
+                }
+                out.writeInt(attributes.topicIds.size());
+                for (Integer topicId : attributes.topicIds) {
+                    out.writeInt(topicId);
+                }
+            }
+            SnapshotUtils.writeInts(out, this.prices.ids, this.prices.size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the content of the index with a snapshot under the write lock.
+     * The prices of the price column are taken from the attributes of its courses.
+     *
+     * @param buffer the buffer to read from, positioned at the snapshot of the index.
+     */
+    @Override
+    public void readFrom(ByteBuffer buffer) {
+        lock.writeLock().lock();
+        try {
+            clear();
+            this.activeCourses = CompressedBitmap.readFrom(buffer);
+            readBitmaps(buffer, this.coursesByCategory);
+            readBitmaps(buffer, this.coursesByDifficultyLevel);
+            readBitmaps(buffer, this.coursesByTopic);
+            for (int i = buffer.getInt(); i > 0; i--) {
+                int id = buffer.getInt();
+                Integer categoryId = readNullableId(buffer);
+                Integer difficultyLevelId = readNullableId(buffer);
+                BigDecimal price = buffer.get() != 0 ? new BigDecimal(SnapshotUtils.readString(buffer)) : null;
+                Integer[] topicIds = new Integer[buffer.getInt()];
+                for (int j = 0; j < topicIds.length; j++) {
+                    topicIds[j] = buffer.getInt();
+                }
+                this.attributesById.put(id, new CourseAttributes(categoryId, difficultyLevelId, price, List.of(topicIds)));
+            }
+            this.prices.fill(SnapshotUtils.readInts(buffer), this.attributesById);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the active courses matching all the given criteria, and returns the IDs on the requested page.
+     * Criteria that are null are ignored. A course matches the topics if it has all of them.
+     * Courses without a price never match a maximum price.
+     *
+     * @param categoryId the ID of the category of the courses. Can be null.
+     * @param topicIds the IDs of the topics the courses must all have. Can be null or empty.
+     * @param difficultyLevelId the ID of the difficulty level of the courses. Can be null.
+     * @param maxPrice the maximum price of the courses. Can be null.
+     * @param offset the number of matching courses to skip.
+     * @param limit the maximum number of IDs to return.
+     * @return the IDs of the matching courses on the page, in ascending order, and the total number of matching courses.
+     */
+    public FilterResult filter(Integer categoryId, Collection<Integer> topicIds, Integer difficultyLevelId,
+                               BigDecimal maxPrice, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            CompressedBitmap matches = match(categoryId, topicIds, difficultyLevelId, maxPrice);
+            return new FilterResult(matches.toArray(offset, limit), matches.cardinality(), null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the active courses matching all the given criteria as {@link #filter} does,
+     * and also counts the facets of all matching courses.
+     *
+     * @param categoryId the ID of the category of the courses. Can be null.
+     * @param topicIds the IDs of the topics the courses must all have. Can be null or empty.
+     * @param difficultyLevelId the ID of the difficulty level of the courses. Can be null.
+     * @param maxPrice the maximum price of the courses. Can be null.
+     * @param offset the number of matching courses to skip.
+     * @param limit the maximum number of IDs to return.
+     * @return the IDs of the matching courses on the page, the total number of matching courses and their facet counts.
+     */
+    public FilterResult filterWithFacets(Integer categoryId, Collection<Integer> topicIds, Integer difficultyLevelId,
+                                         BigDecimal maxPrice, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            CompressedBitmap matches = match(categoryId, topicIds, difficultyLevelId, maxPrice);
+            return new FilterResult(matches.toArray(offset, limit), matches.cardinality(), countFacets(matches));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Intersects the bitmaps of the given criteria.
+     * Must be called while holding the read lock.
+     *
+     * @return the matching courses. May be the bitmap of all active courses, so it must not be changed.
+     */
+    private CompressedBitmap match(Integer categoryId, Collection<Integer> topicIds, Integer difficultyLevelId,
+                                   BigDecimal maxPrice) {
+        CompressedBitmap matches = this.activeCourses;
+        if (categoryId != null) {
+            matches = matches.and(this.coursesByCategory.getOrDefault(categoryId, NO_COURSES));
+        }
+        if (difficultyLevelId != null) {
+            matches = matches.and(this.coursesByDifficultyLevel.getOrDefault(difficultyLevelId, NO_COURSES));
+        }
+        if (topicIds != null) {
+            for (Integer topicId : new HashSet<>(topicIds)) {
+                matches = matches.and(this.coursesByTopic.getOrDefault(topicId, NO_COURSES));
+            }
+        }
+        if (maxPrice != null) {
+            matches = filterByMaxPrice(matches, maxPrice);
+        }
+        return matches;
+    }
+
+    /**
+     * Counts the matching courses per category, difficulty level, topic and price range,
+     * in a single pass over the matches reading the attributes of every course.
+     * Must be called while holding the read lock.
+     *
+     * @param matches the matching courses.
+     * @return the facet counts, the most frequent values first.
+     */
+    private CourseFacets countFacets(CompressedBitmap matches) {
+        Map<Integer, Integer> categoryCounts = new HashMap<>();
+        Map<Integer, Integer> difficultyLevelCounts = new HashMap<>();
+        Map<Integer, Integer> topicCounts = new HashMap<>();
+        int[] priceBucketCounts = new int[this.priceBounds.length];
+
+        matches.forEach(id -> {
+            CourseAttributes attributes = this.attributesById.get(id);
+            if (attributes.categoryId != null) {
+                categoryCounts.merge(attributes.categoryId, 1, Integer::sum);
+            }
+            if (attributes.difficultyLevelId != null) {
+                difficultyLevelCounts.merge(attributes.difficultyLevelId, 1, Integer::sum);
+            }
+            for (Integer topicId : attributes.topicIds) {
+                topicCounts.merge(topicId, 1, Integer::sum);
+            }
+            int bucket = attributes.price != null ? findPriceBucket(attributes.price) : -1;
+            if (bucket >= 0) {
+                priceBucketCounts[bucket]++;
+            }
+        });
+
+        List<PriceBucketCount> priceBuckets = new ArrayList<>(this.priceBounds.length);
+        for (int i = 0; i < this.priceBounds.length; i++) {
+            BigDecimal upperBound = i + 1 < this.priceBounds.length ? this.priceBounds[i + 1] : null;
+            priceBuckets.add(new PriceBucketCount(this.priceBounds[i], upperBound, priceBucketCounts[i]));
+        }
+        return new CourseFacets(toFacetCounts(categoryCounts), toFacetCounts(difficultyLevelCounts),
+                toFacetCounts(topicCounts), priceBuckets);
+    }
+
+    /**
+     * Finds the price range of a price.
+     *
+     * @param price the price.
+     * @return the index of the last lower bound not above the price, or -1 if the price is below all ranges.
+     */
+    private int findPriceBucket(BigDecimal price) {
+        int low = 0;
+        int high = this.priceBounds.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.priceBounds[middle].compareTo(price) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low - 1;
+    }
+
+    /**
+     * Converts the counts of a facet to DTOs, the most frequent values first and equally frequent values by ID.
+     */
+    private static List<FacetCount> toFacetCounts(Map<Integer, Integer> counts) {
+        return counts.entrySet().stream()
+                .map(count -> new FacetCount(count.getKey(), count.getValue()))
+                .sorted(Comparator.comparingInt(FacetCount::getCount).reversed().thenComparingInt(FacetCount::getId))
+                .toList();
+    }
+
+    /**
+     * Keeps the courses up to a maximum price.
+     * If the courses up to the price are fewer than the candidates, they are taken from the start of the price column
+     * and intersected with the candidates. Otherwise the price of every candidate is checked.
+     * Must be called while holding the read lock.
+     *
+     * @param candidates the courses matching the other criteria.
+     * @param maxPrice the maximum price.
+     * @return a new bitmap with the candidates up to the maximum price.
+     */
+    private CompressedBitmap filterByMaxPrice(CompressedBitmap candidates, BigDecimal maxPrice) {
+        int affordable = this.prices.countAtMost(maxPrice);
+        int candidateCount = candidates.cardinality();
+        CompressedBitmap result = new CompressedBitmap();
+        if (affordable < candidateCount) {
+            int[] ids = Arrays.copyOf(this.prices.ids, affordable);
+            Arrays.sort(ids);
+            for (int id : ids) {
+                result.add(id);
+            }
+            return result.and(candidates);
+        }
+        for (int id : candidates.toArray(0, candidateCount)) {
+            BigDecimal price = this.attributesById.get(id).price;
+            if (price != null && price.compareTo(maxPrice) <= 0) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes all courses from the bitmaps and the price column. Must be called while holding the write lock.
+     */
+    private void clear() {
+        this.activeCourses = new CompressedBitmap();
+        this.coursesByCategory.clear();
+        this.coursesByDifficultyLevel.clear();
+        this.coursesByTopic.clear();
+        this.attributesById.clear();
+    }
+
+    /**
+     * Adds an active course with its attributes to the bitmaps and the price column.
+     * Must be called while holding the write lock.
+     */
+    private void add(int id, CourseAttributes attributes) {
+        addToBitmaps(id, attributes);
+        if (attributes.price != null) {
+            this.prices.add(attributes.price, id);
+        }
+    }
+
+    /**
+     * Adds an active course with its attributes to the bitmaps, but not to the price column.
+     * Must be called while holding the write lock.
+     */
+    private void addToBitmaps(int id, CourseAttributes attributes) {
+        this.attributesById.put(id, attributes);
+        this.activeCourses.add(id);
+        addToBitmap(this.coursesByCategory, attributes.categoryId, id);
+        addToBitmap(this.coursesByDifficultyLevel, attributes.difficultyLevelId, id);
+        for (Integer topicId : attributes.topicIds) {
+            addToBitmap(this.coursesByTopic, topicId, id);
+        }
+    }
+
+    /**
+     * Removes a course from the bitmaps and the price column, if present.
+     * Must be called while holding the write lock.
+     */
+    private void remove(int id) {
+        CourseAttributes attributes = this.attributesById.remove(id);
+        if (attributes == null) {
+            return;
+        }
+        this.activeCourses.remove(id);
+        removeFromBitmap(this.coursesByCategory, attributes.categoryId, id);
+        removeFromBitmap(this.coursesByDifficultyLevel, attributes.difficultyLevelId, id);
+        for (Integer topicId : attributes.topicIds) {
+            removeFromBitmap(this.coursesByTopic, topicId, id);
+        }
+        if (attributes.price != null) {
+            this.prices.remove(attributes.price, id);
+        }
+    }
+
+    private static void writeBitmaps(DataOutput out, Map<Integer, CompressedBitmap> bitmaps) throws IOException {
+        out.writeInt(bitmaps.size());
+        for (Map.Entry<Integer, CompressedBitmap> bitmap : bitmaps.entrySet()) {
+            out.writeInt(bitmap.getKey());
+            bitmap.getValue().writeTo(out);
+        }
+    }
+
+    private static void readBitmaps(ByteBuffer buffer, Map<Integer, CompressedBitmap> bitmaps) {
+        for (int i = buffer.getInt(); i > 0; i--) {
+            int key = buffer.getInt();
+            bitmaps.put(key, CompressedBitmap.readFrom(buffer));
+        }
+    }
+
+    private static void writeNullableId(DataOutput out, Integer id) throws IOException {
+        out.writeBoolean(id != null);
+        if (id != null) {
+            out.writeInt(id);
+        }
+    }
+
+    private static Integer readNullableId(ByteBuffer buffer) {
+        return buffer.get() != 0 ? buffer.getInt() : null;
+    }
+
+    private static void addToBitmap(Map<Integer, CompressedBitmap> bitmaps, Integer key, int id) {
+        if (key != null) {
+            bitmaps.computeIfAbsent(key, k -> new CompressedBitmap()).add(id);
+        }
+    }
+
+    private static void removeFromBitmap(Map<Integer, CompressedBitmap> bitmaps, Integer key, int id) {
+        CompressedBitmap bitmap = key != null ? bitmaps.get(key) : null;
+        if (bitmap != null) {
+            bitmap.remove(id);
+            if (bitmap.cardinality() == 0) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    /**
+     * The IDs of the matching courses on the requested page, the total number of matching courses,
+     * and their facet counts if they were requested.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class FilterResult {
+        private final int[] ids;
+        private final int total;
+        private final CourseFacets facets;
+    }
+
+    /**
+     * The filter attributes an active course was indexed with, so it can be removed again.
+     */
+    @AllArgsConstructor
+    private static class CourseAttributes {
+        private final Integer categoryId;
+        private final Integer difficultyLevelId;
+        private final BigDecimal price;
+        private final List<Integer> topicIds;
+    }
+
+    /**
+     * The IDs of the courses with a price, sorted by price and then by ID.
+     * The column is filled in bulk when the index is built, and kept sorted by inserting into it on updates.
+     */
+    private static class PriceColumn {
+        private BigDecimal[] prices = new BigDecimal[16];
+        private int[] ids = new int[16];
+        private int size;
+
+        /**
+         * Replaces the content of the column with the given courses, sorting them once instead of inserting them one by one.
+         *
+         * @param prices the prices of the courses.
+         * @param ids the IDs of the courses, in the same order as their prices.
+         */
+        private void fill(List<BigDecimal> prices, List<Integer> ids) {
+            Integer[] order = new Integer[ids.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.<Integer, BigDecimal>comparing(prices::get).thenComparing(ids::get));
+
+            this.size = order.length;
+            this.prices = new BigDecimal[Math.max(16, size)];
+            this.ids = new int[Math.max(16, size)];
+            for (int i = 0; i < size; i++) {
+                this.prices[i] = prices.get(order[i]);
+                this.ids[i] = ids.get(order[i]);
+            }
+        }
+
+        /**
+         * Replaces the content of the column with the given courses, which are in price order already,
+         * taking their prices from their attributes.
+         *
+         * @param ids the IDs of the courses, sorted by price and then by ID.
+         * @param attributesById the attributes of the courses.
+         */
+        private void fill(int[] ids, Map<Integer, CourseAttributes> attributesById) {
+            this.size = ids.length;
+            this.prices = new BigDecimal[Math.max(16, size)];
+            this.ids = Arrays.copyOf(ids, Math.max(16, size));
+            for (int i = 0; i < size; i++) {
+                this.prices[i] = attributesById.get(ids[i]).price;
+            }
+        }
+
+        private void add(BigDecimal price, int id) {
+            int index = -find(price, id) - 1;
+            if (size == ids.length) {
+                prices = Arrays.copyOf(prices, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(prices, index, prices, index + 1, size - index);
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            prices[index] = price;
+            ids[index] = id;
+            size++;
+        }
+
+        private void remove(BigDecimal price, int id) {
+            int index = find(price, id);
+            if (index >= 0) {
+                System.arraycopy(prices, index + 1, prices, index, size - index - 1);
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                prices[--size] = null;
+            }
+        }
+
+        /**
+         * Returns the number of courses with a price up to the maximum price, which are the first ones in the column.
+         */
+        private int countAtMost(BigDecimal maxPrice) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (prices[middle].compareTo(maxPrice) <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Finds a course in the column by binary search.
+         *
+         * @return the index of the course, or {@code -(insertion point) - 1} if it is not in the column.
+         */
+        private int find(BigDecimal price, int id) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = prices[middle].compareTo(price);
+                if (comparison == 0) {
+                    comparison = Integer.compare(ids[middle], id);
+                }
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package no.ntnu.idata2306.index;
+
+import no.ntnu.idata2306.dto.search.SearchChangeView;
+import no.ntnu.idata2306.dto.search.SearchTextView;
+import no.ntnu.idata2306.enums.FuzzyEngineEnum;
+import no.ntnu.idata2306.model.course.Course;
+import no.ntnu.idata2306.repository.course.CourseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Resident search index over the names of active courses.
+ */
+@Component
+public class CourseSearchIndex extends ChangeTrackingEntitySearchIndex<Course> {
+
+    private final CourseRepository courseRepository;
+
+    @Autowired
+    public CourseSearchIndex(CourseRepository courseRepository,
+                             @Value("${search.course.fuzzy-engine:BK_TREE}") FuzzyEngineEnum fuzzyEngine) {
+        super(new SearchIndex(fuzzyEngine, false));
+        this.courseRepository = courseRepository;
+    }
+
+    @Override
+    protected List<SearchTextView> loadSearchTexts() {
+        return this.courseRepository.findNamesByActiveTrue();
+    }
+
+    @Override
+    protected List<SearchChangeView> loadChangesSince(LocalDateTime since) {
+        return this.courseRepository.findNamesChangedSince(since);
+    }
+
+    @Override
+    protected long countSearchable() {
+        return this.courseRepository.countByActiveTrue();
+    }
+
+    @Override
+    protected boolean isSearchable(Course course) {
+        return course.isActive();
+    }
+
+    @Override
+    protected int getId(Course course) {
+        return course.getId();
+    }
+
+    @Override
+    protected String getSearchText(Course course) {
+        return course.getCourseName();
+    }
+}
@@ -0,0 +1,165 @@
+package no.ntnu.idata2306.index;
+
+import no.ntnu.idata2306.dto.search.SearchTextView;
+import no.ntnu.idata2306.model.course.Course;
+import no.ntnu.idata2306.repository.course.CourseRepository;
+import no.ntnu.idata2306.util.datastructure.Bm25Index;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Resident full-text index over the description and requirement description of active courses,
+ * ranking courses by BM25. Like the other {@link ResidentCourseIndex} implementations, it is read from its snapshot
+ * or built when the application is ready, and updated in place by the course service.
+ */
+@Component
+public class CourseTextIndex extends ResidentCourseIndex {
+
+    private final Bm25Index index = new Bm25Index();
+
+    @Autowired
+    public CourseTextIndex(CourseRepository courseRepository) {
+        super(courseRepository);
+    }
+
+    /**
+     * Builds the index from all active courses in the database.
+     * Only the IDs and descriptions of the courses are loaded, not the courses themselves.
+     */
+    @Override
+    protected void build() {
+        List<SearchTextView> courses = this.courseRepository.findDescriptionsByActiveTrue();
+        lock.writeLock().lock();
+        try {
+            this.index.clear();
+            for (SearchTextView course : courses) {
+                this.index.add(course.getId(), course.getText());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Captures the text of a written course, or that it is inactive and must be removed from the index.
+     *
+     * @param course the course that was written.
+     * @return the write of the course to the index.
+     */
+    @Override
+    protected Runnable toWrite(Course course) {
+        int id = course.getId();
+        String text = course.isActive() ? getText(course) : null;
+        return () -> {
+            if (text != null) {
+                this.index.add(id, text);
+            } else {
+                this.index.remove(id);
+            }
+        };
+    }
+
+    @Override
+    protected int size() {
+        lock.readLock().lock();
+        try {
+            return this.index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the BM25 index to a snapshot under the read lock.
+     *
+     * @param out the output to write to.
+     * @throws IOException if the index could not be written.
+     */
+    @Override
+    public void writeTo(DataOutput out) throws IOException {
+        lock.readLock().lock();
+        try {
+            this.index.writeTo(out);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the BM25 index with a snapshot under the write lock.
+     *
+     * @param buffer the buffer to read from, positioned at the snapshot of the index.
+     */
+    @Override
+    public void readFrom(ByteBuffer buffer) {
+        lock.writeLock().lock();
+        try {
+            this.index.readFrom(buffer);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the courses whose descriptions best match the query.
+     *
+     * @param query the free text query.
+     * @param limit the maximum number of hits to return.
+     * @return the IDs of the matching courses with their BM25 scores, the highest scoring first.
+     */
+    public List<Bm25Index.Hit> search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return this.index.search(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a function scoring single courses by how well their descriptions match the query, as a percentage of
+     * the highest BM25 score a description could get for it. Only the courses the function is applied to are scored,
+     * each under the read lock, so it suits scoring the few candidates of another search.
+     *
+     * @param query the free text query.
+     * @return a function from the ID of a course to its description score between 0 and 100.
+     */
+    public IntToDoubleFunction scorer(String query) {
+        Bm25Index.Query prepared;
+        lock.readLock().lock();
+        try {
+            prepared = this.index.prepare(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (prepared.getMaxScore() == 0) {
+            return id -> 0;
+        }
+        return id -> {
+            lock.readLock().lock();
+            try {
+                return this.index.score(prepared, id) / prepared.getMaxScore() * 100;
+            } finally {
+                lock.readLock().unlock();
+            }
+        };
+    }
+
+    /**
+     * Returns the text a course is indexed by.
+     *
+     * @param course the course.
+     * @return the description followed by the requirement description of the course.
+     */
+    private static String getText(Course course) {
+        String description = course.getDescription() != null ? course.getDescription() : "";
+        String requirementDescription = course.getRequirementDescription() != null ? course.getRequirementDescription() : "";
+        return description + "\n" + requirementDescription;
+    }
+}
@@ -0,0 +1,187 @@
+package no.ntnu.idata2306.index;
+
+import lombok.extern.slf4j.Slf4j;
+import no.ntnu.idata2306.dto.search.SearchTextView;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * EntitySearchIndex keeps a {@link SearchIndex} for one entity type in sync with the database.
+ * The index is built once when the application is ready, and is afterwards updated in place
+ * by the services that write the entities. The index is built from projections of the searchable entities
+ * to their ID and search text, so no full entities are loaded for it.
+ *
+ * Requests are already served while the index is built, so an entity written then may be loaded before its change.
+ * Writes made before the index is initialized are therefore applied again once it has been built, so the build
+ * does not overwrite them with older rows.
+ *
+ * Indexes over entities with creation and update times extend {@link ChangeTrackingEntitySearchIndex},
+ * which restores them from a snapshot instead of building them at startup.
+ *
+ * @param <E> the type of entity indexed.
+ */
+@Slf4j
+public abstract class EntitySearchIndex<E> {
+
+    private final SearchIndex index;
+    private final List<Runnable> writesDuringBuild = new ArrayList<>();
+    private volatile boolean initialized;
+
+    /**
+     * Constructs an entity search index keeping its entries in the given search index.
+     *
+     * @param index the empty search index to keep in sync.
+     */
+    protected EntitySearchIndex(SearchIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Builds the index from all searchable entities in the database, unless it is restored otherwise.
+     * Runs when the application is ready, which is after the dummy data has been imported.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!restore()) {
+            LocalDateTime loadedAt = LocalDateTime.now();
+            List<SearchEntry> entries = loadSearchTexts().stream()
+                    .map(searchText -> new SearchEntry(searchText.getId(), searchText.getText()))
+                    .toList();
+            this.index.rebuild(entries);
+            log.info("{} initialized with {} entries", getClass().getSimpleName(), entries.size());
+            built(loadedAt);
+        }
+        synchronized (this.writesDuringBuild) {
+            this.writesDuringBuild.forEach(Runnable::run);
+            if (!this.writesDuringBuild.isEmpty()) {
+                log.info("{} applied {} writes made while it was built", getClass().getSimpleName(), this.writesDuringBuild.size());
+            }
+            this.writesDuringBuild.clear();
+            this.initialized = true;
+        }
+    }
+
+    /**
+     * Updates the index after the given entity has been created or changed.
+     * Entities that are no longer searchable, e.g. deactivated courses, are removed from the index.
+     *
+     * @param entity the entity that was written.
+     */
+    public void update(E entity) {
+        if (isSearchable(entity)) {
+            SearchEntry entry = toSearchEntry(entity);
+            write(() -> this.index.put(entry));
+        } else {
+            int id = getId(entity);
+            write(() -> this.index.remove(id));
+        }
+    }
+
+    /**
+     * Removes the entity with the given ID from the index.
+     *
+     * @param id the ID of the entity to remove.
+     */
+    public void remove(int id) {
+        write(() -> this.index.remove(id));
+    }
+
+    /**
+     * Returns the resident search index.
+     *
+     * @return the search index.
+     */
+    public SearchIndex getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Returns whether the index has been built or read from its snapshot. Until then the index is empty or incomplete,
+     * so searches over it must not be cached.
+     *
+     * @return true if the index is initialized.
+     */
+    public boolean isInitialized() {
+        return this.initialized;
+    }
+
+    /**
+     * Applies a write to the index, and keeps it to be applied again after the build if the index is not yet initialized.
+     * Applying a write twice gives the same entry, so a write kept just as the index is initialized does no harm.
+     *
+     * @param write the write to apply.
+     */
+    private void write(Runnable write) {
+        if (!this.initialized) {
+            synchronized (this.writesDuringBuild) {
+                if (!this.initialized) {
+                    this.writesDuringBuild.add(write);
+                }
+            }
+        }
+        write.run();
+    }
+
+    /**
+     * Converts an entity to its search entry.
+     *
+     * @param entity the entity to convert.
+     * @return the search entry of the entity.
+     */
+    private SearchEntry toSearchEntry(E entity) {
+        return new SearchEntry(getId(entity), getSearchText(entity));
+    }
+
+    /**
+     * Restores the index without building it from all searchable entities, if possible.
+     * The index is built from the database by default.
+     *
+     * @return true if the index was restored, false if it must be built.
+     */
+    protected boolean restore() {
+        return false;
+    }
+
+    /**
+     * Called after the index has been built from the database. Does nothing by default.
+     *
+     * @param loadedAt the time the entities were loaded at, so every change of an entity before it is in the index.
+     */
+    protected void built(LocalDateTime loadedAt) {
+    }
+
+    /**
+     * Loads the ID and search text of all entities that should be searchable.
+     *
+     * @return a list of the IDs and search texts of searchable entities.
+     */
+    protected abstract List<SearchTextView> loadSearchTexts();
+
+    /**
+     * Checks if the given entity should be searchable.
+     *
+     * @param entity the entity to check.
+     * @return true if the entity should be in the index.
+     */
+    protected abstract boolean isSearchable(E entity);
+
+    /**
+     * Extracts the ID of the given entity.
+     *
+     * @param entity the entity.
+     * @return the ID of the entity.
+     */
+    protected abstract int getId(E entity);
+
+    /**
+     * Extracts the searchable text of the given entity.
+     *
+     * @param entity the entity.
+     * @return the text the entity is searched by.
+     */
+    protected abstract String getSearchText(E entity);
+}
@@ -0,0 +1,253 @@
+package no.ntnu.idata2306.index;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import no.ntnu.idata2306.dto.search.SearchChangeView;
+import no.ntnu.idata2306.model.course.Course;
+import no.ntnu.idata2306.repository.course.CourseRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resident index over the active courses kept next to the course search index, such as the full-text, filter and
+ * autocomplete indexes. It is built when the application is ready and updated in place by the course service.
+ *
+ * Like the {@link ChangeTrackingEntitySearchIndex} implementations, the index is written to a {@link SearchIndexSnapshot}
+ * on local disk after it is built and when the application shuts down. At the next startup it is read from the snapshot,
+ * and only the courses created or updated since the snapshot was taken are loaded from the database and applied
+ * as if they had been written, so a large index is ready without being built from scratch.
+ *
+ * Requests are already served while the index is built or read, so courses written meanwhile are applied again once
+ * it is ready, so it does not end up with older rows than were written.
+ */
+@Slf4j
+public abstract class ResidentCourseIndex implements SnapshotContent {
+
+    // Changes are replayed from a while before the snapshot was taken, so a course saved just before the snapshot
+    // but only indexed after it is not missed. Replaying a course already in the snapshot does no harm.
+    private static final Duration REPLAY_MARGIN = Duration.ofMinutes(1);
+
+    // Number of changed courses loaded per query when replaying the changes since a snapshot
+    private static final int REPLAY_BATCH_SIZE = 1000;
+
+    protected final CourseRepository courseRepository;
+    protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean initialized;
+
+    // Writes made before the index is ready, null once it is
+    private List<Runnable> writesDuringBuild = new ArrayList<>();
+
+    @Value("${search.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${search.snapshot.directory:search-snapshots}")
+    private String snapshotDirectory;
+
+    protected ResidentCourseIndex(CourseRepository courseRepository) {
+        this.courseRepository = courseRepository;
+    }
+
+    /**
+     * Reads the index from its snapshot, or builds it from the database if there is no usable snapshot,
+     * and applies the courses written meanwhile again.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        boolean restored = this.snapshotEnabled && loadSnapshot();
+        LocalDateTime loadedAt = LocalDateTime.now();
+        if (!restored) {
+            build();
+        }
+        lock.writeLock().lock();
+        try {
+            this.writesDuringBuild.forEach(Runnable::run);
+            this.writesDuringBuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        this.initialized = true;
+        if (!restored) {
+            log.info("{} initialized with {} courses", getClass().getSimpleName(), size());
+            if (this.snapshotEnabled) {
+                writeSnapshot(loadedAt);
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot of the index when the application shuts down, so the next startup reads it instead of
+     * building the index. Nothing is written if the index was never initialized, as it would then be empty.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (this.initialized && this.snapshotEnabled) {
+            writeSnapshot(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Returns whether the index has been built or read. Until then it may be incomplete, so searches over it must not be cached.
+     *
+     * @return true if the index is initialized.
+     */
+    public boolean isInitialized() {
+        return this.initialized;
+    }
+
+    /**
+     * Updates the index after the given course has been created or changed.
+     * Inactive courses are removed from the index.
+     *
+     * @param course the course that was written.
+     */
+    public void update(Course course) {
+        write(toWrite(course));
+    }
+
+    /**
+     * Describes the layout of a snapshot of the index, which only depends on the kind of index.
+     *
+     * @return the name of the index class.
+     */
+    @Override
+    public String getLayout() {
+        return ClassUtils.getUserClass(getClass()).getSimpleName();
+    }
+
+    /**
+     * Loads the active courses from the database and replaces the content of the index with them.
+     */
+    protected abstract void build();
+
+    /**
+     * Captures what the index keeps of a written course as plain values, and returns the write of those values
+     * to the index. The write must give the same content when applied again.
+     *
+     * @param course the course that was written.
+     * @return the write, applied while holding the write lock.
+     */
+    protected abstract Runnable toWrite(Course course);
+
+    /**
+     * Returns the number of courses in the index, to check an index read from a snapshot against the database.
+     *
+     * @return the number of courses.
+     */
+    protected abstract int size();
+
+    /**
+     * Called once the index has been read from its snapshot and the changed courses have been applied,
+     * to reload what can change without the courses being updated. Does nothing by default.
+     */
+    protected void restored() {
+    }
+
+    /**
+     * Applies a write under the write lock, and keeps it to be applied again once the index is ready
+     * if it is not ready yet.
+     *
+     * @param write the write to apply.
+     */
+    protected void write(Runnable write) {
+        lock.writeLock().lock();
+        try {
+            write.run();
+            if (this.writesDuringBuild != null) {
+                this.writesDuringBuild.add(write);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the file the snapshot of the index is kept in, named after the index.
+     *
+     * @return the path of the snapshot file.
+     */
+    private Path snapshotFile() {
+        return Path.of(this.snapshotDirectory, getLayout() + ".snapshot");
+    }
+
+    /**
+     * Reads the index from its snapshot, and applies the courses created or updated since the snapshot was taken.
+     * A missing, outdated or invalid snapshot is ignored, so the index is built from the database instead.
+     * So is a snapshot that does not end up with as many courses as are active, e.g. because courses were deleted
+     * from the database, or the snapshot was taken of another database.
+     *
+     * @return true if the index was read from the snapshot.
+     */
+    private boolean loadSnapshot() {
+        Path file = snapshotFile();
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        try {
+            LocalDateTime takenAt = SearchIndexSnapshot.read(this, file);
+            List<SearchChangeView> changes = this.courseRepository.findNamesChangedSince(takenAt.minus(REPLAY_MARGIN));
+            replay(changes);
+            restored();
+            long active = this.courseRepository.countByActiveTrue();
+            if (size() != active) {
+                log.warn("{} has {} courses after reading snapshot {}, but {} courses are active, "
+                        + "building it from the database", getClass().getSimpleName(), size(), file, active);
+                return false;
+            }
+            log.info("{} initialized with {} courses from the snapshot taken at {} and {} changes since",
+                    getClass().getSimpleName(), size(), takenAt, changes.size());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("{} could not be read from snapshot {}, building it from the database: {}",
+                    getClass().getSimpleName(), file, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Loads the changed courses in batches and applies them to the index, removing the ones no longer active.
+     *
+     * @param changes the courses changed since the snapshot was taken.
+     */
+    private void replay(List<SearchChangeView> changes) {
+        List<Integer> ids = changes.stream().map(SearchChangeView::getId).toList();
+        for (int from = 0; from < ids.size(); from += REPLAY_BATCH_SIZE) {
+            List<Course> courses = this.courseRepository.findWithTopicsByIdIn(
+                    ids.subList(from, Math.min(from + REPLAY_BATCH_SIZE, ids.size())));
+            lock.writeLock().lock();
+            try {
+                for (Course course : courses) {
+                    toWrite(course).run();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot of the index. A failure is logged, as the index can still be built from the database.
+     *
+     * @param takenAt the time every change of a course before which is in the index.
+     */
+    private void writeSnapshot(LocalDateTime takenAt) {
+        Path file = snapshotFile();
+        try {
+            SearchIndexSnapshot.write(this, file, takenAt);
+            log.info("{} wrote a snapshot of {} courses to {}", getClass().getSimpleName(), size(), file);
+        } catch (IOException | RuntimeException e) {
+            log.warn("{} could not write snapshot {}: {}", getClass().getSimpleName(), file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package no.ntnu.idata2306.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import no.ntnu.idata2306.dto.search.ScoredItem;
+
+/**
+ * A search entry together with its similarity score, before it is mapped to a response DTO.
+ */
+@Getter
+@AllArgsConstructor
+public class ScoredEntry implements ScoredItem {
+
+    private final SearchEntry entry;
+    private final double score;
+
+    @Override
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,58 @@
+package no.ntnu.idata2306.index;
+
+import lombok.Getter;
+
+/**
+ * SearchDocument is the normalized, pre-tokenized form of a searchable text, as scored by
+ * {@link no.ntnu.idata2306.util.ScoreUtils}.
+ *
+ * The text is normalized with {@link SearchIndex#normalize(String)}, so it is lower case, without diacritics and
+ * with its words separated by single spaces, and it is split into its words once. Documents of indexed entities
+ * are built when the entity is indexed, and the document of a query once per request, so scoring a candidate
+ * neither lowercases, splits nor joins any strings.
+ */
+@Getter
+public class SearchDocument {
+
+    private static final String[] NO_WORDS = new String[0];
+
+    private final String text;
+    private final String[] words;
+
+    /**
+     * Constructs the search document of a text.
+     *
+     * @param text the text, in any form.
+     */
+    public SearchDocument(String text) {
+        this.text = SearchIndex.normalize(text);
+        this.words = this.text.isEmpty() ? NO_WORDS : this.text.split(" ");
+    }
+
+    /**
+     * Returns the length of the normalized text.
+     *
+     * @return the number of characters of the normalized text.
+     */
+    public int length() {
+        return text.length();
+    }
+
+    /**
+     * Returns the number of words of the text.
+     *
+     * @return the number of words.
+     */
+    public int wordCount() {
+        return words.length;
+    }
+
+    /**
+     * Checks if the text has no words.
+     *
+     * @return true if the normalized text is empty.
+     */
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+}
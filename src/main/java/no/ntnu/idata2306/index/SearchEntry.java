@@ -0,0 +1,31 @@
+package no.ntnu.idata2306.index;
+
+import lombok.Getter;
+
+/**
+ * SearchEntry is the lightweight representation of a searchable entity kept resident in a {@link SearchIndex}.
+ * Only the identifier, the searchable text and its search document are kept, full entities are loaded from the database
+ * for the entries that end up on the requested page.
+ */
+@Getter
+public class SearchEntry {
+
+    private final int id;
+    private final String text;
+    private final String key;
+    private final SearchDocument document;
+
+    /**
+     * Constructs a SearchEntry with the given identifier and searchable text.
+     * The search key is the normalized form of the text, and the text is tokenized into its search document once.
+     *
+     * @param id the unique identifier of the entity.
+     * @param text the searchable text of the entity, e.g. the course name.
+     */
+    public SearchEntry(int id, String text) {
+        this.id = id;
+        this.text = text;
+        this.document = new SearchDocument(text);
+        this.key = this.document.getText();
+    }
+}
@@ -0,0 +1,549 @@
+package no.ntnu.idata2306.index;
+
+import no.ntnu.idata2306.enums.FuzzyEngineEnum;
+import no.ntnu.idata2306.util.SearchDeadline;
+import no.ntnu.idata2306.util.SnapshotUtils;
+import no.ntnu.idata2306.util.datastructure.CompactBKTree;
+import no.ntnu.idata2306.util.datastructure.FuzzyMatcher;
+import no.ntnu.idata2306.util.datastructure.PhoneticIndex;
+import no.ntnu.idata2306.util.datastructure.SortedTermDictionary;
+import no.ntnu.idata2306.util.datastructure.SymmetricDeleteDictionary;
+import no.ntnu.idata2306.util.datastructure.TrigramIndex;
+import no.ntnu.idata2306.util.datastructure.WordVocabulary;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * SearchIndex is a resident, incrementally maintained index used for fuzzy searching.
+ * It keeps the searchable entries of one entity type in memory together with a {@link FuzzyMatcher} over their
+ * normalized search keys, so a search request neither reloads the data nor rebuilds the matcher.
+ * The matcher is a {@link CompactBKTree} by default, a {@link SymmetricDeleteDictionary}, which finds keys
+ * within two edits of the search term in a number of hash lookups independent of the number of keys,
+ * or a {@link SortedTermDictionary}, which walks the sorted keys with a Levenshtein automaton of the search term.
+ *
+ * The matcher only holds each distinct key once. Entries are resolved from the keys returned by the matcher
+ * through a key to entries multimap, so several entities sharing a name, e.g. courses offered by
+ * different providers, are all found in a single hash lookup.
+ *
+ * Next to the BKTree, a {@link TrigramIndex} over the keys generates candidates by the number of trigrams they
+ * share with the search term. It finds entries whose words are in a different order than in the search term,
+ * or that only contain some of its words, which are far apart by edit distance on the whole key.
+ *
+ * A {@link WordVocabulary} over the words of the keys resolves every word of a multi-word search term fuzzily on
+ * its own, and finds the entries containing all of them, e.g. "Introduction to Java Programming" for
+ * "java programing", without comparing the search term to whole keys.
+ *
+ * An index over names can also keep a {@link PhoneticIndex} over the keys, which generates candidates sounding like
+ * the search term, e.g. "Christiansen" for "Kristiansen".
+ *
+ * A BKTree does not support removal, so keys of removed or renamed entries are left in the tree
+ * and resolve to no entries. The tree is rebuilt once these stale keys make up too large a share of it.
+ * Keys are removed from a symmetric delete dictionary or a sorted term dictionary right away.
+ *
+ * The content of the index can be written to a snapshot and read back, see {@link SearchIndexSnapshot}, which restores
+ * the postings of the trigrams, words and phonetic keys, and the nodes of a BKTree, instead of deriving them again.
+ *
+ * The index is safe for concurrent use: searches share a read lock while updates take the write lock.
+ */
+public class SearchIndex implements SnapshotContent {
+
+    // Small indexes are never rebuilt because of stale keys
+    private static final int MIN_REBUILD_SIZE = 64;
+
+    // Largest edit distance of the symmetric delete engine, and the number of leading key characters it computes
+    // deletes for, which is longer than for single words as keys such as course names often share their first words
+    private static final int SYMMETRIC_DELETE_MAX_DISTANCE = 2;
+    private static final int SYMMETRIC_DELETE_PREFIX_LENGTH = 10;
+
+    private final Map<Integer, SearchEntry> entries = new HashMap<>();
+    private final Map<String, List<SearchEntry>> entriesByKey = new HashMap<>();
+    private final Set<String> matcherKeys = new HashSet<>();
+    private final TrigramIndex trigramIndex = new TrigramIndex();
+    private final WordVocabulary wordVocabulary = new WordVocabulary();
+    private final PhoneticIndex phoneticIndex;
+    private final FuzzyEngineEnum fuzzyEngine;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private FuzzyMatcher matcher;
+
+    /**
+     * Constructs an empty search index with a BKTree and without phonetic keys.
+     */
+    public SearchIndex() {
+        this(FuzzyEngineEnum.BK_TREE, false);
+    }
+
+    /**
+     * Constructs an empty search index.
+     *
+     * @param fuzzyEngine the engine finding the keys within an edit distance of a search term.
+     * @param phoneticKeys true if the index should keep the phonetic keys of the entries, e.g. for names of people.
+     */
+    public SearchIndex(FuzzyEngineEnum fuzzyEngine, boolean phoneticKeys) {
+        this.fuzzyEngine = fuzzyEngine;
+        this.phoneticIndex = phoneticKeys ? new PhoneticIndex() : null;
+        this.matcher = newMatcher(0);
+    }
+
+    /**
+     * Normalizes a text to the form used as search key.
+     * The text is lower cased, diacritics are removed, e.g. "é" becomes "e" and "ø" becomes "o",
+     * and runs of whitespace are replaced by a single space, so the words of a key are separated by single spaces.
+     *
+     * @param text the text to normalize.
+     * @return the normalized text, or an empty string if the text is null.
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = isAscii(text) ? text : Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = !normalized.isEmpty();
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                if (pendingSpace) {
+                    normalized.append(' ');
+                    pendingSpace = false;
+                }
+                appendFolded(normalized, Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Appends a lower case character, replacing the letters that do not decompose into a base letter and a diacritic.
+     */
+    private static void appendFolded(StringBuilder normalized, char c) {
+        switch (c) {
+            case 'ø' -> normalized.append('o');
+            case 'æ' -> normalized.append("ae");
+            case 'ß' -> normalized.append("ss");
+            case 'đ' -> normalized.append('d');
+            case 'ł' -> normalized.append('l');
+            default -> normalized.append(c);
+        }
+    }
+
+    /**
+     * Checks if a text only has ASCII characters, which have no diacritics to remove.
+     */
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the content of the index with the given entries and rebuilds the fuzzy matcher.
+     *
+     * @param newEntries the entries the index should contain.
+     */
+    public void rebuild(Collection<SearchEntry> newEntries) {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            entriesByKey.clear();
+            trigramIndex.clear();
+            wordVocabulary.clear();
+            if (phoneticIndex != null) {
+                phoneticIndex.clear();
+            }
+            for (SearchEntry entry : newEntries) {
+                SearchEntry previous = entries.put(entry.getId(), entry);
+                if (previous != null) {
+                    removeFromKey(previous);
+                }
+                addToKey(entry);
+                trigramIndex.add(entry.getId(), entry.getKey());
+                wordVocabulary.add(entry.getId(), entry.getKey());
+                if (phoneticIndex != null) {
+                    phoneticIndex.add(entry.getId(), entry.getKey());
+                }
+            }
+            rebuildMatcher();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds an entry to the index, or replaces the entry with the same identifier.
+     *
+     * @param entry the entry to add or replace.
+     */
+    public void put(SearchEntry entry) {
+        lock.writeLock().lock();
+        try {
+            SearchEntry previous = entries.put(entry.getId(), entry);
+            if (previous != null) {
+                removeFromKey(previous);
+            }
+            addToKey(entry);
+            trigramIndex.add(entry.getId(), entry.getKey());
+            wordVocabulary.add(entry.getId(), entry.getKey());
+            if (phoneticIndex != null) {
+                phoneticIndex.add(entry.getId(), entry.getKey());
+            }
+            if (matcherKeys.add(entry.getKey())) {
+                matcher.add(entry.getKey());
+            }
+            rebuildMatcherIfStale();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the entry with the given identifier from the index, if present.
+     *
+     * @param id the identifier of the entry to remove.
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            SearchEntry removed = entries.remove(id);
+            if (removed != null) {
+                removeFromKey(removed);
+                trigramIndex.remove(id);
+                wordVocabulary.remove(id);
+                if (phoneticIndex != null) {
+                    phoneticIndex.remove(id);
+                }
+                rebuildMatcherIfStale();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of entries in the index.
+     *
+     * @return the number of entries.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the engine of the fuzzy matcher of the index.
+     *
+     * @return the fuzzy engine.
+     */
+    public FuzzyEngineEnum getFuzzyEngine() {
+        return fuzzyEngine;
+    }
+
+    /**
+     * Describes the layout of a snapshot of the index, which depends on the fuzzy engine and whether it keeps phonetic keys.
+     *
+     * @return the fuzzy engine, followed by "+PHONETIC" if the index keeps phonetic keys.
+     */
+    @Override
+    public String getLayout() {
+        return fuzzyEngine.name() + (phoneticIndex != null ? "+PHONETIC" : "");
+    }
+
+    /**
+     * Writes the content of the index to a snapshot, under the read lock.
+     * The entries are written grouped by key, so entries sharing a key are read back in the same order.
+     * The nodes of a BKTree are only written if it has no stale keys, otherwise it is rebuilt when read.
+     *
+     * @param out the output to write to.
+     * @throws IOException if the index could not be written.
+     */
+    @Override
+    public void writeTo(DataOutput out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(entries.size());
+            for (List<SearchEntry> entriesWithKey : entriesByKey.values()) {
+                for (SearchEntry entry : entriesWithKey) {
+                    out.writeInt(entry.getId());
+                    SnapshotUtils.writeString(out, Objects.toString(entry.getText(), ""));
+                }
+            }
+            trigramIndex.writeTo(out);
+            wordVocabulary.writeTo(out);
+            if (phoneticIndex != null) {
+                phoneticIndex.writeTo(out);
+            }
+            boolean writeMatcher = matcher instanceof CompactBKTree && matcherKeys.size() == entriesByKey.size();
+            out.writeBoolean(writeMatcher);
+            if (writeMatcher) {
+                ((CompactBKTree) matcher).writeTo(out);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the content of the index with a snapshot written by {@link #writeTo(DataOutput)}, under the write lock.
+     * The snapshot must have been written by an index with the same fuzzy engine and phonetic keys.
+     *
+     * @param buffer the buffer to read from, positioned at the snapshot of the index.
+     */
+    @Override
+    public void readFrom(ByteBuffer buffer) {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            entriesByKey.clear();
+            int entryCount = buffer.getInt();
+            for (int i = 0; i < entryCount; i++) {
+                SearchEntry entry = new SearchEntry(buffer.getInt(), SnapshotUtils.readString(buffer));
+                entries.put(entry.getId(), entry);
+                addToKey(entry);
+            }
+            trigramIndex.readFrom(buffer);
+            wordVocabulary.readFrom(buffer);
+            if (phoneticIndex != null) {
+                phoneticIndex.readFrom(buffer);
+            }
+            if (buffer.get() != 0) {
+                CompactBKTree tree = new CompactBKTree();
+                tree.readFrom(buffer, key -> {
+                    List<SearchEntry> entriesWithKey = entriesByKey.get(key);
+                    return entriesWithKey != null ? entriesWithKey.get(0).getKey() : key;
+                });
+                matcher = tree;
+                matcherKeys.clear();
+                matcherKeys.addAll(entriesByKey.keySet());
+            } else {
+                rebuildMatcher();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds all entries whose search key is equal to the given normalized search term.
+     *
+     * @param normalizedSearchTerm the search term in normalized form.
+     * @return the entries matching the search term exactly.
+     */
+    public List<SearchEntry> findExactMatches(String normalizedSearchTerm) {
+        lock.readLock().lock();
+        try {
+            List<SearchEntry> matches = entriesByKey.get(normalizedSearchTerm);
+            return matches == null ? List.of() : new ArrayList<>(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the largest edit distance the fuzzy matcher of the index can search with.
+     *
+     * @return the largest supported threshold of {@link #findFuzzyCandidates(String, int)}.
+     */
+    public int maxFuzzyThreshold() {
+        lock.readLock().lock();
+        try {
+            return matcher.maxThreshold();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds fuzzy candidates for the given normalized search term using the fuzzy matcher, without a time budget.
+     * The candidates are returned in the order given by the matcher, most similar first.
+     *
+     * @param normalizedSearchTerm the search term in normalized form.
+     * @param threshold the maximum edit distance allowed for candidates.
+     * @return the entries whose search keys are within the threshold of the search term.
+     */
+    public List<SearchEntry> findFuzzyCandidates(String normalizedSearchTerm, int threshold) {
+        return findFuzzyCandidates(normalizedSearchTerm, threshold, SearchDeadline.none());
+    }
+
+    /**
+     * Finds fuzzy candidates for the given normalized search term using the fuzzy matcher.
+     * The matcher checks the deadline while it walks its keys, and returns the candidates found so far once it has
+     * expired. The candidates are returned in the order given by the matcher, most similar first.
+     *
+     * @param normalizedSearchTerm the search term in normalized form.
+     * @param threshold the maximum edit distance allowed for candidates.
+     * @param deadline the time budget of the search.
+     * @return the entries whose search keys are within the threshold of the search term.
+     */
+    public List<SearchEntry> findFuzzyCandidates(String normalizedSearchTerm, int threshold, SearchDeadline deadline) {
+        lock.readLock().lock();
+        try {
+            List<SearchEntry> candidates = new ArrayList<>();
+            for (String candidateKey : matcher.findCandidates(normalizedSearchTerm, threshold, deadline)) {
+                List<SearchEntry> entriesWithKey = entriesByKey.get(candidateKey);
+                if (entriesWithKey != null) {
+                    candidates.addAll(entriesWithKey);
+                }
+            }
+            return candidates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the entries sharing the most trigrams with the given normalized search term.
+     *
+     * @param normalizedSearchTerm the search term in normalized form.
+     * @param limit the maximum number of candidates to return.
+     * @return the candidates, the ones sharing the most trigrams with the search term first.
+     */
+    public List<SearchEntry> findTrigramCandidates(String normalizedSearchTerm, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] candidateIds = trigramIndex.topCandidates(normalizedSearchTerm, limit);
+            List<SearchEntry> candidates = new ArrayList<>(candidateIds.length);
+            for (int candidateId : candidateIds) {
+                candidates.add(entries.get(candidateId));
+            }
+            return candidates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the entries whose words match the words of the given normalized search term within a small edit distance.
+     *
+     * @param normalizedSearchTerm the search term in normalized form.
+     * @param limit the maximum number of candidates to return.
+     * @return the candidates, the ones matching every word of the search term first.
+     */
+    public List<SearchEntry> findWordCandidates(String normalizedSearchTerm, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] candidateIds = wordVocabulary.topCandidates(normalizedSearchTerm, limit);
+            List<SearchEntry> candidates = new ArrayList<>(candidateIds.length);
+            for (int candidateId : candidateIds) {
+                candidates.add(entries.get(candidateId));
+            }
+            return candidates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks if the index keeps the phonetic keys of its entries.
+     *
+     * @return true if phonetic candidates can be found.
+     */
+    public boolean hasPhoneticKeys() {
+        return phoneticIndex != null;
+    }
+
+    /**
+     * Finds the entries with the most words sounding like a word of the given normalized search term.
+     *
+     * @param normalizedSearchTerm the search term in normalized form.
+     * @param limit the maximum number of candidates to return.
+     * @return the candidates, the ones matching the most words of the search term first,
+     *         or an empty list if the index does not keep phonetic keys.
+     */
+    public List<SearchEntry> findPhoneticCandidates(String normalizedSearchTerm, int limit) {
+        if (phoneticIndex == null) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int[] candidateIds = phoneticIndex.topCandidates(normalizedSearchTerm, limit);
+            List<SearchEntry> candidates = new ArrayList<>(candidateIds.length);
+            for (int candidateId : candidateIds) {
+                candidates.add(entries.get(candidateId));
+            }
+            return candidates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds an entry to the list of entries sharing its key.
+     * Must be called while holding the write lock.
+     *
+     * @param entry the entry to add.
+     */
+    private void addToKey(SearchEntry entry) {
+        entriesByKey.computeIfAbsent(entry.getKey(), key -> new ArrayList<>(1)).add(entry);
+    }
+
+    /**
+     * Removes an entry from the list of entries sharing its key, dropping the key when no entries are left.
+     * Must be called while holding the write lock.
+     *
+     * @param entry the entry to remove.
+     */
+    private void removeFromKey(SearchEntry entry) {
+        List<SearchEntry> entriesWithKey = entriesByKey.get(entry.getKey());
+        if (entriesWithKey != null) {
+            entriesWithKey.removeIf(existing -> existing.getId() == entry.getId());
+            if (entriesWithKey.isEmpty()) {
+                entriesByKey.remove(entry.getKey());
+                if (matcher.supportsRemoval() && matcherKeys.remove(entry.getKey())) {
+                    matcher.remove(entry.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the fuzzy matcher once the keys that no longer resolve to any entry outnumber the live keys.
+     * Must be called while holding the write lock.
+     */
+    private void rebuildMatcherIfStale() {
+        int staleKeys = matcherKeys.size() - entriesByKey.size();
+        if (matcherKeys.size() > MIN_REBUILD_SIZE && staleKeys > entriesByKey.size()) {
+            rebuildMatcher();
+        }
+    }
+
+    /**
+     * Rebuilds the fuzzy matcher from the keys of the current entries.
+     * Must be called while holding the write lock.
+     */
+    private void rebuildMatcher() {
+        matcherKeys.clear();
+        matcherKeys.addAll(entriesByKey.keySet());
+        matcher = newMatcher(matcherKeys.size());
+        for (String key : matcherKeys) {
+            matcher.add(key);
+        }
+    }
+
+    /**
+     * Creates an empty fuzzy matcher of the engine of the index.
+     *
+     * @param capacity the expected number of keys.
+     * @return the fuzzy matcher.
+     */
+    private FuzzyMatcher newMatcher(int capacity) {
+        return switch (fuzzyEngine) {
+            case BK_TREE -> capacity > 0 ? new CompactBKTree(capacity) : new CompactBKTree();
+            case SYMMETRIC_DELETE -> new SymmetricDeleteDictionary(SYMMETRIC_DELETE_MAX_DISTANCE, SYMMETRIC_DELETE_PREFIX_LENGTH);
+            case LEVENSHTEIN_AUTOMATON -> new SortedTermDictionary();
+        };
+    }
+}
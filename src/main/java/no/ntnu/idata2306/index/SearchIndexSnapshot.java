@@ -0,0 +1,97 @@
+package no.ntnu.idata2306.index;
+
+import no.ntnu.idata2306.util.SnapshotUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+/**
+ * SearchIndexSnapshot writes the content of a resident index, such as a {@link SearchIndex}, to a file on local disk,
+ * and reads it back by mapping the file into memory, so a large index is restored at startup without loading its
+ * entries from the database and deriving its postings and trees again.
+ *
+ * A snapshot starts with a header of the format version and the layout of the content, which must match the index it
+ * is read into, and the time the snapshot was taken. Entities changed after that time are not in the snapshot,
+ * and must be replayed into the index after reading it.
+ * The header is followed by the content of the index, and the file ends with the same magic number it starts with.
+ *
+ * A snapshot is written to a temporary file that replaces the previous snapshot once it is complete,
+ * so a snapshot is never read while it is being written.
+ */
+public class SearchIndexSnapshot {
+
+    // "LSIX", at the start and end of every snapshot
+    private static final int MAGIC = 0x4C534958;
+    private static final int VERSION = 2;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Writes a snapshot of the index to a file, replacing the previous snapshot.
+     *
+     * @param index the content of the index to write.
+     * @param file the snapshot file.
+     * @param timestamp the time the snapshot is taken at, so every change of an entity before it is in the index.
+     * @throws IOException if the snapshot could not be written.
+     */
+    public static void write(SnapshotContent index, Path file, LocalDateTime timestamp) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporaryFile), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            SnapshotUtils.writeString(out, index.getLayout());
+            SnapshotUtils.writeString(out, timestamp.toString());
+            index.writeTo(out);
+            out.writeInt(MAGIC);
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Replaces the content of the index with a snapshot read from a memory mapped file.
+     * The header is checked before the index is touched. If the content turns out to be invalid anyway,
+     * the index is left in an undefined state and must be rebuilt.
+     *
+     * @param index the content of the index to read the snapshot into.
+     * @param file the snapshot file.
+     * @return the time the snapshot was taken at.
+     * @throws IOException if the file could not be read, or is not a complete snapshot for the index.
+     */
+    public static LocalDateTime read(SnapshotContent index, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file + " is too large to be mapped");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < 2L * Integer.BYTES || buffer.getInt() != MAGIC
+                    || buffer.getInt((int) size - Integer.BYTES) != MAGIC) {
+                throw new IOException("Snapshot " + file + " is incomplete or not a search index snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Snapshot " + file + " has version " + version + ", expected " + VERSION);
+            }
+            String layout = SnapshotUtils.readString(buffer);
+            if (!layout.equals(index.getLayout())) {
+                throw new IOException("Snapshot " + file + " has layout " + layout + ", expected " + index.getLayout());
+            }
+            LocalDateTime timestamp = LocalDateTime.parse(SnapshotUtils.readString(buffer));
+
+            index.readFrom(buffer);
+            if (buffer.remaining() != Integer.BYTES) {
+                throw new IOException("Snapshot " + file + " has " + buffer.remaining() + " unexpected bytes at the end");
+            }
+            return timestamp;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package no.ntnu.idata2306.index;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import no.ntnu.idata2306.dto.search.response.SearchCacheStatistics;
+import no.ntnu.idata2306.enums.SearchTypeEnum;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * SearchResultCache is a bounded cache of search result pages, keyed by search type, normalized query and page.
+ * The least recently used page is evicted once the cache is full, and pages expire after a fixed time.
+ *
+ * The services writing searchable data invalidate the search types their writes affect.
+ * Every search type has a generation that is increased on invalidation, and a result is only stored
+ * if the generation did not change while it was computed, so a search racing with a write
+ * never stores a result computed from the data before the write.
+ * Likewise, searches started before the indexes they use are initialized are not cached,
+ * as their results are computed from indexes that are still empty.
+ */
+@Slf4j
+@Component
+public class SearchResultCache {
+
+    private final Map<CacheKey, CacheValue> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<SearchTypeEnum, Long> generations = new EnumMap<>(SearchTypeEnum.class);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Value("${search.cache.max-size:1000}")
+    private int maxSize;
+
+    @Value("${search.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    /**
+     * Returns the cached result of a search, or computes and caches it if it is missing or expired.
+     *
+     * @param <T> the type of the search result.
+     * @param type the type of the search.
+     * @param query the search query.
+     * @param pageable the pagination information.
+     * @param search the search computing the result on a cache miss.
+     * @return the result of the search.
+     */
+    public <T> T get(SearchTypeEnum type, String query, Pageable pageable, Supplier<T> search) {
+        return get(type, query, pageable, search, () -> true);
+    }
+
+    /**
+     * Returns the cached result of a search, or computes it if it is missing or expired, and caches it if it is
+     * complete. Results that are not complete, e.g. searches cut short by their deadline, are returned but not cached.
+     *
+     * @param <T> the type of the search result.
+     * @param type the type of the search.
+     * @param query the search query.
+     * @param pageable the pagination information.
+     * @param search the search computing the result on a cache miss.
+     * @param complete checked after the search has run, true if its result may be cached.
+     * @return the result of the search.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(SearchTypeEnum type, String query, Pageable pageable, Supplier<T> search, BooleanSupplier complete) {
+        CacheKey key = new CacheKey(type, SearchIndex.normalize(query), pageable.getPageNumber(), pageable.getPageSize());
+        long generation;
+        synchronized (this) {
+            CacheValue value = entries.get(key);
+            if (value != null && value.expiresAt - System.nanoTime() > 0) {
+                hits.increment();
+                return (T) value.result;
+            }
+            if (value != null) {
+                entries.remove(key);
+            }
+            generation = generations.getOrDefault(type, 0L);
+        }
+
+        misses.increment();
+        T result = search.get();
+        if (!complete.getAsBoolean()) {
+            return result;
+        }
+
+        synchronized (this) {
+            if (maxSize > 0 && generation == generations.getOrDefault(type, 0L)) {
+                entries.put(key, new CacheValue(result, System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+                if (entries.size() > maxSize) {
+                    entries.remove(entries.keySet().iterator().next());
+                    evictions.increment();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes all cached results of the given search types.
+     *
+     * @param types the search types affected by a write.
+     */
+    public synchronized void invalidate(SearchTypeEnum... types) {
+        for (SearchTypeEnum type : types) {
+            generations.merge(type, 1L, Long::sum);
+            entries.keySet().removeIf(key -> key.type == type);
+        }
+        invalidations.increment();
+        log.debug("Search result cache invalidated for {}", Arrays.toString(types));
+    }
+
+    /**
+     * Returns the hit, miss and eviction counts and the current size of the cache.
+     *
+     * @return the statistics of the cache.
+     */
+    public synchronized SearchCacheStatistics getStatistics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+        double hitRate = lookups == 0 ? 0 : (double) hitCount / lookups;
+        return new SearchCacheStatistics(hitCount, missCount, hitRate, evictions.sum(), invalidations.sum(),
+                entries.size(), maxSize);
+    }
+
+    /**
+     * The key of a cached search result page.
+     */
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class CacheKey {
+        private final SearchTypeEnum type;
+        private final String query;
+        private final int page;
+        private final int size;
+    }
+
+    /**
+     * A cached search result page and the time it expires, in the time base of {@link System#nanoTime()}.
+     */
+    @AllArgsConstructor
+    private static class CacheValue {
+        private final Object result;
+        private final long expiresAt;
+    }
+}
@@ -0,0 +1,35 @@
+package no.ntnu.idata2306.index;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The content of a resident index that can be written to a {@link SearchIndexSnapshot} and read back.
+ * Implementations synchronize access to their content themselves.
+ */
+public interface SnapshotContent {
+
+    /**
+     * Describes how the content is laid out, e.g. the kind of index and the options it was configured with.
+     * A snapshot is only read into content with the same layout.
+     *
+     * @return the layout of the content.
+     */
+    String getLayout();
+
+    /**
+     * Writes the content to a snapshot.
+     *
+     * @param out the output to write to.
+     * @throws IOException if the content could not be written.
+     */
+    void writeTo(DataOutput out) throws IOException;
+
+    /**
+     * Replaces the content with a snapshot written by {@link #writeTo(DataOutput)} from content with the same layout.
+     *
+     * @param buffer the buffer to read from, positioned at the snapshot of the content.
+     */
+    void readFrom(ByteBuffer buffer);
+}
@@ -0,0 +1,206 @@
+package no.ntnu.idata2306.index;
+
+import lombok.extern.slf4j.Slf4j;
+import no.ntnu.idata2306.dto.search.SearchTextView;
+import no.ntnu.idata2306.model.course.Course;
+import no.ntnu.idata2306.repository.course.CourseRepository;
+import no.ntnu.idata2306.repository.course.details.CategoryRepository;
+import no.ntnu.idata2306.repository.course.details.TopicRepository;
+import no.ntnu.idata2306.util.SearchUtils;
+import no.ntnu.idata2306.util.datastructure.SymmetricDeleteDictionary;
+import no.ntnu.idata2306.util.datastructure.SymmetricDeleteDictionary.Suggestion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * SpellingIndex suggests corrected spellings of searches that found nothing, e.g. "java programming" for
+ * "jav programing", from the vocabulary of the names of active courses, categories and topics.
+ *
+ * The words are kept in a {@link SymmetricDeleteDictionary}, counted by how often they occur in the names.
+ * The deletes of every word are computed when the index is built, so correcting a word costs a few hash lookups.
+ * Each misspelled word is replaced by the closest word of the vocabulary, and by the most frequent one among
+ * equally close words. Words of the vocabulary are never replaced.
+ *
+ * The words of every active course are remembered, so a written course only adds and removes its own words.
+ * Categories and topics are not written by the application and are only read when the index is built.
+ */
+@Slf4j
+@Component
+public class SpellingIndex {
+
+    // Maximum number of spellings suggested for a search
+    public static final int MAX_SUGGESTIONS = 3;
+
+    // Largest edit distance between a misspelled word and its correction
+    private static final int MAX_EDIT_DISTANCE = 2;
+
+    // Words shorter than this are never corrected
+    private static final int MIN_WORD_LENGTH = 3;
+
+    private final CourseRepository courseRepository;
+    private final CategoryRepository categoryRepository;
+    private final TopicRepository topicRepository;
+    private final SymmetricDeleteDictionary dictionary = new SymmetricDeleteDictionary(MAX_EDIT_DISTANCE);
+    private final Map<Integer, String[]> courseWords = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public SpellingIndex(CourseRepository courseRepository, CategoryRepository categoryRepository, TopicRepository topicRepository) {
+        this.courseRepository = courseRepository;
+        this.categoryRepository = categoryRepository;
+        this.topicRepository = topicRepository;
+    }
+
+    /**
+     * Builds the vocabulary from the names of all active courses, categories and topics.
+     * Only the IDs and names are loaded, not the entities themselves.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        List<SearchTextView> courses = this.courseRepository.findNamesByActiveTrue();
+        List<SearchTextView> categories = this.categoryRepository.findAllNames();
+        List<SearchTextView> topics = this.topicRepository.findAllNames();
+        lock.writeLock().lock();
+        try {
+            this.dictionary.clear();
+            this.courseWords.clear();
+            for (SearchTextView course : courses) {
+                String[] words = words(course.getText());
+                this.courseWords.put(course.getId(), words);
+                addWords(words);
+            }
+            for (SearchTextView category : categories) {
+                addWords(words(category.getText()));
+            }
+            for (SearchTextView topic : topics) {
+                addWords(words(topic.getText()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("{} initialized with {} words", getClass().getSimpleName(), this.dictionary.size());
+    }
+
+    /**
+     * Updates the vocabulary after the given course has been created or changed.
+     * The words of the previous name of the course are removed, and inactive courses contribute no words.
+     *
+     * @param course the course that was written.
+     */
+    public void update(Course course) {
+        String[] words = course.isActive() ? words(course.getCourseName()) : null;
+        lock.writeLock().lock();
+        try {
+            String[] previousWords = words == null
+                    ? this.courseWords.remove(course.getId())
+                    : this.courseWords.put(course.getId(), words);
+            if (previousWords != null) {
+                for (String word : previousWords) {
+                    this.dictionary.remove(word);
+                }
+            }
+            if (words != null) {
+                addWords(words);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Suggests corrected spellings of a search.
+     * The first suggestion replaces every misspelled word by its best correction. The following ones each
+     * replace one misspelled word by its next best correction instead.
+     *
+     * @param text the search text.
+     * @return the suggested spellings, normalized, or an empty list if no word of the search could be corrected.
+     */
+    public List<String> suggest(String text) {
+        String[] words = words(text);
+        if (words.length == 0) {
+            return List.of();
+        }
+
+        List<List<String>> corrections = new ArrayList<>(words.length);
+        lock.readLock().lock();
+        try {
+            for (String word : words) {
+                corrections.add(corrections(word));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Set<String> suggestions = new LinkedHashSet<>();
+        String original = String.join(" ", words);
+        String best = phrase(corrections, -1);
+        if (best.equals(original)) {
+            return List.of();
+        }
+        suggestions.add(best);
+        for (int i = 0; i < words.length && suggestions.size() < MAX_SUGGESTIONS; i++) {
+            if (corrections.get(i).size() > 1) {
+                suggestions.add(phrase(corrections, i));
+            }
+        }
+        return new ArrayList<>(suggestions);
+    }
+
+    /**
+     * Finds the corrections of a word, the best first.
+     * A word of the vocabulary, or a word that is too short or has no corrections, is kept as it is.
+     * Must be called while holding the read lock.
+     *
+     * @param word the normalized word.
+     * @return the corrections of the word, or a list of only the word itself.
+     */
+    private List<String> corrections(String word) {
+        if (word.length() < MIN_WORD_LENGTH || this.dictionary.count(word) > 0) {
+            return List.of(word);
+        }
+        int maxDistance = Math.min(MAX_EDIT_DISTANCE, SearchUtils.initialFuzzyRadius(word.length()));
+        List<String> corrections = this.dictionary.lookup(word, maxDistance, MAX_SUGGESTIONS).stream()
+                .map(Suggestion::word)
+                .toList();
+        return corrections.isEmpty() ? List.of(word) : corrections;
+    }
+
+    /**
+     * Joins the best correction of every word, except for one word whose second best correction is used.
+     *
+     * @param corrections the corrections of each word.
+     * @param alternative the position of the word to use the second best correction of, or -1 for none.
+     * @return the corrected phrase.
+     */
+    private static String phrase(List<List<String>> corrections, int alternative) {
+        StringJoiner phrase = new StringJoiner(" ");
+        for (int i = 0; i < corrections.size(); i++) {
+            phrase.add(corrections.get(i).get(i == alternative ? 1 : 0));
+        }
+        return phrase.toString();
+    }
+
+    /**
+     * Adds the words of a name to the vocabulary.
+     * Must be called while holding the write lock.
+     */
+    private void addWords(String[] words) {
+        for (String word : words) {
+            this.dictionary.add(word);
+        }
+    }
+
+    /**
+     * Splits a text into its normalized words.
+     */
+    private static String[] words(String text) {
+        String normalized = SearchIndex.normalize(text);
+        return normalized.isEmpty() ? new String[0] : normalized.split(" ");
+    }
+}
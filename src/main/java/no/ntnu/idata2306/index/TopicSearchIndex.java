@@ -0,0 +1,47 @@
+package no.ntnu.idata2306.index;
+
+import no.ntnu.idata2306.dto.search.SearchTextView;
+import no.ntnu.idata2306.enums.FuzzyEngineEnum;
+import no.ntnu.idata2306.model.course.details.Topic;
+import no.ntnu.idata2306.repository.course.details.TopicRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Resident search index over topic names.
+ */
+@Component
+public class TopicSearchIndex extends EntitySearchIndex<Topic> {
+
+    private final TopicRepository topicRepository;
+
+    @Autowired
+    public TopicSearchIndex(TopicRepository topicRepository,
+                            @Value("${search.topic.fuzzy-engine:BK_TREE}") FuzzyEngineEnum fuzzyEngine) {
+        super(new SearchIndex(fuzzyEngine, false));
+        this.topicRepository = topicRepository;
+    }
+
+    @Override
+    protected List<SearchTextView> loadSearchTexts() {
+        return this.topicRepository.findAllNames();
+    }
+
+    @Override
+    protected boolean isSearchable(Topic topic) {
+        return true;
+    }
+
+    @Override
+    protected int getId(Topic topic) {
+        return topic.getId();
+    }
+
+    @Override
+    protected String getSearchText(Topic topic) {
+        return topic.getTopic();
+    }
+}
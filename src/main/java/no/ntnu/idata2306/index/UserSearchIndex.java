@@ -0,0 +1,61 @@
+package no.ntnu.idata2306.index;
+
+import no.ntnu.idata2306.dto.search.SearchChangeView;
+import no.ntnu.idata2306.dto.search.SearchTextView;
+import no.ntnu.idata2306.enums.FuzzyEngineEnum;
+import no.ntnu.idata2306.model.User;
+import no.ntnu.idata2306.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Resident search index over the full names of users that are not deleted.
+ * The index keeps the phonetic keys of the first and last names, so users are also found by spelling variants
+ * of their names.
+ */
+@Component
+public class UserSearchIndex extends ChangeTrackingEntitySearchIndex<User> {
+
+    private final UserRepository userRepository;
+
+    @Autowired
+    public UserSearchIndex(UserRepository userRepository,
+                           @Value("${search.user.fuzzy-engine:BK_TREE}") FuzzyEngineEnum fuzzyEngine) {
+        super(new SearchIndex(fuzzyEngine, true));
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    protected List<SearchTextView> loadSearchTexts() {
+        return this.userRepository.findFullNamesByDeletedFalse();
+    }
+
+    @Override
+    protected List<SearchChangeView> loadChangesSince(LocalDateTime since) {
+        return this.userRepository.findFullNamesChangedSince(since);
+    }
+
+    @Override
+    protected long countSearchable() {
+        return this.userRepository.countByDeletedFalse();
+    }
+
+    @Override
+    protected boolean isSearchable(User user) {
+        return !user.isDeleted();
+    }
+
+    @Override
+    protected int getId(User user) {
+        return user.getId();
+    }
+
+    @Override
+    protected String getSearchText(User user) {
+        return user.getFirstName() + " " + user.getLastName();
+    }
+}
@@ -1,9 +1,21 @@
 package no.ntnu.idata2306.repository;
 
+import no.ntnu.idata2306.dto.search.SearchTextView;
 import no.ntnu.idata2306.model.Provider;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ProviderRepository extends JpaRepository<Provider, Integer> {
+
+    /**
+     * Finds the ID and name of all providers, without loading the providers themselves.
+     *
+     * @return a list of the IDs and names of all providers.
+     */
+    @Query("SELECT p.id AS id, p.providerName AS text FROM Provider p")
+    List<SearchTextView> findAllNames();
 }
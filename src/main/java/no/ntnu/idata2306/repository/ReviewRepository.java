@@ -4,9 +4,20 @@ import no.ntnu.idata2306.model.Review;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Integer> {
     Page<Review> findByCourseId(int courseId, Pageable pageable);
+
+    /**
+     * Counts the reviews of every reviewed course.
+     *
+     * @return a list of arrays containing the course ID and its number of reviews.
+     */
+    @Query("SELECT r.course.id, COUNT(r) FROM Review r GROUP BY r.course.id")
+    List<Object[]> countReviewsPerCourse();
 }
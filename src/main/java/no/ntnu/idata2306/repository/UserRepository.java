@@ -1,9 +1,14 @@
 package no.ntnu.idata2306.repository;
 
+import no.ntnu.idata2306.dto.search.SearchChangeView;
+import no.ntnu.idata2306.dto.search.SearchTextView;
 import no.ntnu.idata2306.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,4 +33,31 @@ public interface UserRepository extends JpaRepository<User, Integer> {
      * @return a list of users where the deleted field is false
      */
     List<User> findByDeletedFalse();
+
+    /**
+     * Finds the ID and full name of all users that are not marked as deleted, without loading the users themselves.
+     *
+     * @return a list of the IDs and full names, first name followed by last name, of users that are not deleted
+     */
+    @Query("SELECT u.id AS id, CONCAT(u.firstName, ' ', u.lastName) AS text FROM User u WHERE u.deleted = false")
+    List<SearchTextView> findFullNamesByDeletedFalse();
+
+    /**
+     * Finds the ID, full name and whether the user is not deleted of all users created or updated after the given time,
+     * including users deleted since then.
+     *
+     * @param since the time after which the users were changed.
+     * @return a list of the IDs, full names and searchable states of the changed users
+     */
+    @Query("SELECT u.id AS id, CONCAT(u.firstName, ' ', u.lastName) AS text, " +
+            "CASE WHEN u.deleted = false THEN true ELSE false END AS searchable FROM User u " +
+            "WHERE u.created > :since OR u.updated > :since")
+    List<SearchChangeView> findFullNamesChangedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Counts the users that are not marked as deleted.
+     *
+     * @return the number of users where the deleted field is false
+     */
+    long countByDeletedFalse();
 }
@@ -1,6 +1,8 @@
 package no.ntnu.idata2306.repository.course;
 
 import no.ntnu.idata2306.dto.course.CourseResponseDto;
+import no.ntnu.idata2306.dto.search.SearchChangeView;
+import no.ntnu.idata2306.dto.search.SearchTextView;
 import no.ntnu.idata2306.dto.search.response.ScoredCourse;
 import no.ntnu.idata2306.mapper.course.CourseMapper;
 import no.ntnu.idata2306.model.course.Course;
@@ -8,13 +10,16 @@ import no.ntnu.idata2306.util.ScoreUtils;
 import no.ntnu.idata2306.util.StringUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -28,6 +33,7 @@ public interface CourseRepository extends JpaRepository<Course, Integer> {
      *   <li>5 points if the category name matches the provided category name.</li>
      *   <li>3 points if any of the topics match the provided topic name.</li>
      * </ul>
+     * Only active courses are found, and a course with several topics is scored by its best matching topic.
      * The results are ordered by the calculated score in descending order.
      *
      * The `countQuery` is used to efficiently calculate the total number of records that match the search criteria.
@@ -37,30 +43,111 @@ public interface CourseRepository extends JpaRepository<Course, Integer> {
      * @param categoryName the name of the category to search for. Partial matches are allowed.
      * @param topicName    the name of the topic to search for. Partial matches are allowed.
      * @param pageable     the pagination information.
-     * @return a page of objects where each object is an array containing the course and its calculated score.
-     *         The results are ordered by the score in descending order.
+     * @return a page of objects where each object is an array containing the ID of a course and its calculated score,
+     *         the best score over the topics of the course. The results are ordered by the score in descending order.
      */
-    @Query(value = "SELECT c.*, " +
-            "CASE WHEN c.name LIKE %:courseName% THEN 10 ELSE 0 END + " +
+    @Query(value = "SELECT c.id, MAX(" +
+            "CASE WHEN c.course_name LIKE %:courseName% THEN 10 ELSE 0 END + " +
             "CASE WHEN cat.category LIKE %:categoryName% THEN 5 ELSE 0 END + " +
-            "CASE WHEN t.topic LIKE %:topicName% THEN 3 ELSE 0 END AS score " +
+            "CASE WHEN t.topic LIKE %:topicName% THEN 3 ELSE 0 END) AS score " +
             "FROM Course c " +
             "LEFT JOIN Category cat ON c.category_id = cat.id " +
             "LEFT JOIN Course_Topic ct ON c.id = ct.course_id " +
             "LEFT JOIN Topic t ON ct.topic_id = t.id " +
-            "WHERE c.name LIKE %:courseName% OR cat.category LIKE %:categoryName% OR t.topic LIKE %:topicName% " +
+            "WHERE c.active = true AND (c.course_name LIKE %:courseName% OR cat.category LIKE %:categoryName% OR t.topic LIKE %:topicName%) " +
+            "GROUP BY c.id " +
             "ORDER BY score DESC",
-            countQuery = "SELECT COUNT(*) FROM Course c " +
+            countQuery = "SELECT COUNT(DISTINCT c.id) FROM Course c " +
                     "LEFT JOIN Category cat ON c.category_id = cat.id " +
                     "LEFT JOIN Course_Topic ct ON c.id = ct.course_id " +
                     "LEFT JOIN Topic t ON ct.topic_id = t.id " +
-                    "WHERE c.name LIKE %:courseName% OR cat.category LIKE %:categoryName% OR t.topic LIKE %:topicName%",
+                    "WHERE c.active = true AND (c.course_name LIKE %:courseName% OR cat.category LIKE %:categoryName% OR t.topic LIKE %:topicName%)",
             nativeQuery = true)
     Page<Object[]> findCoursesWithScore(@Param("courseName") String courseName,
                                         @Param("categoryName") String categoryName,
                                         @Param("topicName") String topicName,
                                         Pageable pageable);
 
+    /**
+     * Finds courses with a calculated relevance score as {@link #findCoursesWithScore} does, but matches the names
+     * with the FULLTEXT indexes of the course, category and topic names in MySQL's natural language mode.
+     * The score is 10 times the relevance of the course name, plus 5 times the relevance of the category name,
+     * plus 3 times the relevance of the topic name. Each name is matched in a subquery on its own table,
+     * so every match is resolved from its FULLTEXT index instead of a table scan.
+     *
+     * @param courseName   the search terms matched against the course names.
+     * @param categoryName the search terms matched against the category names.
+     * @param topicName    the search terms matched against the topic names.
+     * @param pageable     the pagination information.
+     * @return a page of objects where each object is an array containing the ID of a course and its calculated score,
+     *         the best score over the topics of the course. The results are ordered by the score in descending order.
+     */
+    @Query(value = "SELECT c.id, MAX(" +
+            "10 * MATCH(c.course_name) AGAINST(:courseName IN NATURAL LANGUAGE MODE) + " +
+            "5 * COALESCE(MATCH(cat.category) AGAINST(:categoryName IN NATURAL LANGUAGE MODE), 0) + " +
+            "3 * COALESCE(MATCH(t.topic) AGAINST(:topicName IN NATURAL LANGUAGE MODE), 0)) AS score " +
+            "FROM course c " +
+            "LEFT JOIN category cat ON c.category_id = cat.id " +
+            "LEFT JOIN course_topic ct ON c.id = ct.course_id " +
+            "LEFT JOIN topic t ON ct.topic_id = t.id " +
+            "WHERE c.active = true AND (c.id IN (SELECT id FROM course WHERE MATCH(course_name) AGAINST(:courseName IN NATURAL LANGUAGE MODE)) " +
+            "OR cat.id IN (SELECT id FROM category WHERE MATCH(category) AGAINST(:categoryName IN NATURAL LANGUAGE MODE)) " +
+            "OR t.id IN (SELECT id FROM topic WHERE MATCH(topic) AGAINST(:topicName IN NATURAL LANGUAGE MODE))) " +
+            "GROUP BY c.id " +
+            "ORDER BY score DESC",
+            countQuery = "SELECT COUNT(DISTINCT c.id) FROM course c " +
+                    "LEFT JOIN category cat ON c.category_id = cat.id " +
+                    "LEFT JOIN course_topic ct ON c.id = ct.course_id " +
+                    "LEFT JOIN topic t ON ct.topic_id = t.id " +
+                    "WHERE c.active = true AND (c.id IN (SELECT id FROM course WHERE MATCH(course_name) AGAINST(:courseName IN NATURAL LANGUAGE MODE)) " +
+                    "OR cat.id IN (SELECT id FROM category WHERE MATCH(category) AGAINST(:categoryName IN NATURAL LANGUAGE MODE)) " +
+                    "OR t.id IN (SELECT id FROM topic WHERE MATCH(topic) AGAINST(:topicName IN NATURAL LANGUAGE MODE)))",
+            nativeQuery = true)
+    Page<Object[]> findCoursesWithFullTextScore(@Param("courseName") String courseName,
+                                                @Param("categoryName") String categoryName,
+                                                @Param("topicName") String topicName,
+                                                Pageable pageable);
+
+    /**
+     * Finds courses with a calculated relevance score as {@link #findCoursesWithScore} does, but matches the names
+     * with the FULLTEXT indexes of the course, category and topic names in MySQL's boolean mode.
+     * The score is 10 times the relevance of the course name, plus 5 times the relevance of the category name,
+     * plus 3 times the relevance of the topic name. Each name is matched in a subquery on its own table,
+     * so every match is resolved from its FULLTEXT index instead of a table scan.
+     *
+     * @param courseName   the boolean query matched against the course names.
+     * @param categoryName the boolean query matched against the category names.
+     * @param topicName    the boolean query matched against the topic names.
+     * @param pageable     the pagination information.
+     * @return a page of objects where each object is an array containing the ID of a course and its calculated score,
+     *         the best score over the topics of the course. The results are ordered by the score in descending order.
+     */
+    @Query(value = "SELECT c.id, MAX(" +
+            "10 * MATCH(c.course_name) AGAINST(:courseName IN BOOLEAN MODE) + " +
+            "5 * COALESCE(MATCH(cat.category) AGAINST(:categoryName IN BOOLEAN MODE), 0) + " +
+            "3 * COALESCE(MATCH(t.topic) AGAINST(:topicName IN BOOLEAN MODE), 0)) AS score " +
+            "FROM course c " +
+            "LEFT JOIN category cat ON c.category_id = cat.id " +
+            "LEFT JOIN course_topic ct ON c.id = ct.course_id " +
+            "LEFT JOIN topic t ON ct.topic_id = t.id " +
+            "WHERE c.active = true AND (c.id IN (SELECT id FROM course WHERE MATCH(course_name) AGAINST(:courseName IN BOOLEAN MODE)) " +
+            "OR cat.id IN (SELECT id FROM category WHERE MATCH(category) AGAINST(:categoryName IN BOOLEAN MODE)) " +
+            "OR t.id IN (SELECT id FROM topic WHERE MATCH(topic) AGAINST(:topicName IN BOOLEAN MODE))) " +
+            "GROUP BY c.id " +
+            "ORDER BY score DESC",
+            countQuery = "SELECT COUNT(DISTINCT c.id) FROM course c " +
+                    "LEFT JOIN category cat ON c.category_id = cat.id " +
+                    "LEFT JOIN course_topic ct ON c.id = ct.course_id " +
+                    "LEFT JOIN topic t ON ct.topic_id = t.id " +
+                    "WHERE c.active = true AND (c.id IN (SELECT id FROM course WHERE MATCH(course_name) AGAINST(:courseName IN BOOLEAN MODE)) " +
+                    "OR cat.id IN (SELECT id FROM category WHERE MATCH(category) AGAINST(:categoryName IN BOOLEAN MODE)) " +
+                    "OR t.id IN (SELECT id FROM topic WHERE MATCH(topic) AGAINST(:topicName IN BOOLEAN MODE)))",
+            nativeQuery = true)
+    Page<Object[]> findCoursesWithBooleanFullTextScore(@Param("courseName") String courseName,
+                                                       @Param("categoryName") String categoryName,
+                                                       @Param("topicName") String topicName,
+                                                       Pageable pageable);
+
     @Query("SELECT c FROM Course c")
     List<Course> findAllCourses();
 
@@ -138,4 +225,82 @@ public interface CourseRepository extends JpaRepository<Course, Integer> {
      * @return a page of active courses.
      */
     Page<Course> findByActiveTrue(Pageable pageable);
+
+    /**
+     * Finds the ID and name of all active courses.
+     * Only the two columns are selected, so neither the eager associations nor the descriptions are loaded.
+     *
+     * @return a list of the IDs and names of active courses.
+     */
+    @Query("SELECT c.id AS id, c.courseName AS text FROM Course c WHERE c.active = true")
+    List<SearchTextView> findNamesByActiveTrue();
+
+    /**
+     * Finds the ID, name and active state of all courses created or updated after the given time,
+     * including courses deactivated since then.
+     *
+     * @param since the time after which the courses were changed.
+     * @return a list of the IDs, names and active states of the changed courses.
+     */
+    @Query("SELECT c.id AS id, c.courseName AS text, c.active AS searchable FROM Course c " +
+            "WHERE c.created > :since OR c.updated > :since")
+    List<SearchChangeView> findNamesChangedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Counts the active courses.
+     *
+     * @return the number of active courses.
+     */
+    long countByActiveTrue();
+
+    /**
+     * Finds the ID of all active courses together with their description followed by their requirement description.
+     * Only these columns are selected, so the eager associations are not loaded.
+     *
+     * @return a list of the IDs and description texts of active courses.
+     */
+    @Query("SELECT c.id AS id, CONCAT(COALESCE(c.description, ''), ' ', COALESCE(c.requirementDescription, '')) AS text " +
+            "FROM Course c WHERE c.active = true")
+    List<SearchTextView> findDescriptionsByActiveTrue();
+
+    /**
+     * Finds the ID, category ID, difficulty level ID and price of all active courses, without loading the courses themselves.
+     *
+     * @return a list of arrays with the course ID, category ID, difficulty level ID and price, where the IDs can be null.
+     */
+    @Query("SELECT c.id, category.id, difficultyLevel.id, c.price FROM Course c " +
+            "LEFT JOIN c.category category " +
+            "LEFT JOIN c.difficultyLevel difficultyLevel " +
+            "WHERE c.active = true")
+    List<Object[]> findFilterAttributesByActiveTrue();
+
+    /**
+     * Finds the ID, name, category name, provider ID and provider name of all active courses,
+     * without loading the courses themselves.
+     *
+     * @return a list of arrays with the course ID, course name, category name, provider ID and provider name,
+     *         where the category name and the provider ID and name can be null.
+     */
+    @Query("SELECT c.id, c.courseName, category.category, provider.id, provider.providerName FROM Course c " +
+            "LEFT JOIN c.category category " +
+            "LEFT JOIN c.provider provider " +
+            "WHERE c.active = true")
+    List<Object[]> findAutocompleteKeysByActiveTrue();
+
+    /**
+     * Finds the pairs of course ID and topic ID of all active courses, without loading the courses themselves.
+     *
+     * @return a list of arrays with a course ID and the ID of one of its topics.
+     */
+    @Query("SELECT c.id, t.id FROM Course c JOIN c.topics t WHERE c.active = true")
+    List<Object[]> findTopicIdsByActiveTrue();
+
+    /**
+     * Finds the courses with the given IDs, fetching their topics in the same query.
+     *
+     * @param ids the IDs of the courses.
+     * @return the courses with the given IDs, in no particular order.
+     */
+    @EntityGraph(attributePaths = "topics")
+    List<Course> findWithTopicsByIdIn(Collection<Integer> ids);
 }
\ No newline at end of file
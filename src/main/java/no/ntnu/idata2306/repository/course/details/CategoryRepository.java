@@ -1,5 +1,6 @@
 package no.ntnu.idata2306.repository.course.details;
 
+import no.ntnu.idata2306.dto.search.SearchTextView;
 import no.ntnu.idata2306.model.course.details.Category;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -8,6 +9,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Integer> {
 
@@ -24,10 +27,10 @@ public interface CategoryRepository extends JpaRepository<Category, Integer> {
      *
      * @param categoryName the name of the category to search for. Partial matches are allowed.
      * @param pageable     the pagination information.
-     * @return a page of objects where each object is an array containing the category and its calculated score.
+     * @return a page of objects where each object is an array containing the ID of a category and its calculated score.
      *         The results are ordered by the score in descending order.
     */
-    @Query(value = "SELECT c.*, " +
+    @Query(value = "SELECT c.id, " +
             "CASE WHEN c.category LIKE %:categoryName% THEN 10 ELSE 0 END AS score " +
             "FROM Category c " +
             "WHERE c.category LIKE %:categoryName% " +
@@ -36,6 +39,52 @@ public interface CategoryRepository extends JpaRepository<Category, Integer> {
             nativeQuery = true)
     Page<Object[]> findCategoriesWithScore(@Param("categoryName") String categoryName, Pageable pageable);
 
+    /**
+     * Finds categories with a calculated relevance score as {@link #findCategoriesWithScore} does, but matches the names
+     * with the FULLTEXT index of the category names in MySQL's natural language mode.
+     * The score is 10 times the relevance of the name.
+     *
+     * @param categoryName the search terms matched against the category names.
+     * @param pageable     the pagination information.
+     * @return a page of objects where each object is an array containing the ID of a category and its calculated score.
+     *         The results are ordered by the score in descending order.
+     */
+    @Query(value = "SELECT c.id, " +
+            "10 * MATCH(c.category) AGAINST(:categoryName IN NATURAL LANGUAGE MODE) AS score " +
+            "FROM category c " +
+            "WHERE MATCH(c.category) AGAINST(:categoryName IN NATURAL LANGUAGE MODE) " +
+            "ORDER BY score DESC",
+            countQuery = "SELECT COUNT(*) FROM category c WHERE MATCH(c.category) AGAINST(:categoryName IN NATURAL LANGUAGE MODE)",
+            nativeQuery = true)
+    Page<Object[]> findCategoriesWithFullTextScore(@Param("categoryName") String categoryName, Pageable pageable);
+
+    /**
+     * Finds categories with a calculated relevance score as {@link #findCategoriesWithScore} does, but matches the names
+     * with the FULLTEXT index of the category names in MySQL's boolean mode.
+     * The score is 10 times the relevance of the name.
+     *
+     * @param categoryName the boolean query matched against the category names.
+     * @param pageable     the pagination information.
+     * @return a page of objects where each object is an array containing the ID of a category and its calculated score.
+     *         The results are ordered by the score in descending order.
+     */
+    @Query(value = "SELECT c.id, " +
+            "10 * MATCH(c.category) AGAINST(:categoryName IN BOOLEAN MODE) AS score " +
+            "FROM category c " +
+            "WHERE MATCH(c.category) AGAINST(:categoryName IN BOOLEAN MODE) " +
+            "ORDER BY score DESC",
+            countQuery = "SELECT COUNT(*) FROM category c WHERE MATCH(c.category) AGAINST(:categoryName IN BOOLEAN MODE)",
+            nativeQuery = true)
+    Page<Object[]> findCategoriesWithBooleanFullTextScore(@Param("categoryName") String categoryName, Pageable pageable);
+
+    /**
+     * Finds the ID and name of all categories, without loading the categories themselves.
+     *
+     * @return a list of the IDs and names of all categories.
+     */
+    @Query("SELECT c.id AS id, c.category AS text FROM Category c")
+    List<SearchTextView> findAllNames();
+
 
 
 
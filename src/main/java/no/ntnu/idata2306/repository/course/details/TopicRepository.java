@@ -1,5 +1,6 @@
 package no.ntnu.idata2306.repository.course.details;
 
+import no.ntnu.idata2306.dto.search.SearchTextView;
 import no.ntnu.idata2306.model.course.details.Topic;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -8,6 +9,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface TopicRepository extends JpaRepository<Topic, Integer> {
 
@@ -24,10 +27,10 @@ public interface TopicRepository extends JpaRepository<Topic, Integer> {
  *
  * @param topicName the name of the topic to search for. Partial matches are allowed.
  * @param pageable  the pagination information.
- * @return a page of objects where each object is an array containing the topic and its calculated score.
+ * @return a page of objects where each object is an array containing the ID of a topic and its calculated score.
  *         The results are ordered by the score in descending order.
  */
-    @Query(value = "SELECT t.*, " +
+    @Query(value = "SELECT t.id, " +
             "CASE WHEN t.topic LIKE %:topicName% THEN 10 ELSE 0 END AS score " +
             "FROM Topic t " +
             "WHERE t.topic LIKE %:topicName% " +
@@ -36,5 +39,51 @@ public interface TopicRepository extends JpaRepository<Topic, Integer> {
             nativeQuery = true)
     Page<Object[]> findTopicsWithScore(@Param("topicName") String topicName, Pageable pageable);
 
+/**
+ * Finds topics with a calculated relevance score as {@link #findTopicsWithScore} does, but matches the names
+ * with the FULLTEXT index of the topic names in MySQL's natural language mode.
+ * The score is 10 times the relevance of the name.
+ *
+ * @param topicName the search terms matched against the topic names.
+ * @param pageable  the pagination information.
+ * @return a page of objects where each object is an array containing the ID of a topic and its calculated score.
+ *         The results are ordered by the score in descending order.
+ */
+    @Query(value = "SELECT t.id, " +
+            "10 * MATCH(t.topic) AGAINST(:topicName IN NATURAL LANGUAGE MODE) AS score " +
+            "FROM topic t " +
+            "WHERE MATCH(t.topic) AGAINST(:topicName IN NATURAL LANGUAGE MODE) " +
+            "ORDER BY score DESC",
+            countQuery = "SELECT COUNT(*) FROM topic t WHERE MATCH(t.topic) AGAINST(:topicName IN NATURAL LANGUAGE MODE)",
+            nativeQuery = true)
+    Page<Object[]> findTopicsWithFullTextScore(@Param("topicName") String topicName, Pageable pageable);
+
+/**
+ * Finds topics with a calculated relevance score as {@link #findTopicsWithScore} does, but matches the names
+ * with the FULLTEXT index of the topic names in MySQL's boolean mode.
+ * The score is 10 times the relevance of the name.
+ *
+ * @param topicName the boolean query matched against the topic names.
+ * @param pageable  the pagination information.
+ * @return a page of objects where each object is an array containing the ID of a topic and its calculated score.
+ *         The results are ordered by the score in descending order.
+ */
+    @Query(value = "SELECT t.id, " +
+            "10 * MATCH(t.topic) AGAINST(:topicName IN BOOLEAN MODE) AS score " +
+            "FROM topic t " +
+            "WHERE MATCH(t.topic) AGAINST(:topicName IN BOOLEAN MODE) " +
+            "ORDER BY score DESC",
+            countQuery = "SELECT COUNT(*) FROM topic t WHERE MATCH(t.topic) AGAINST(:topicName IN BOOLEAN MODE)",
+            nativeQuery = true)
+    Page<Object[]> findTopicsWithBooleanFullTextScore(@Param("topicName") String topicName, Pageable pageable);
+
+    /**
+     * Finds the ID and name of all topics, without loading the topics themselves.
+     *
+     * @return a list of the IDs and names of all topics.
+     */
+    @Query("SELECT t.id AS id, t.topic AS text FROM Topic t")
+    List<SearchTextView> findAllNames();
+
 
 }
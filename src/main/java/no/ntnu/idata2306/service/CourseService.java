@@ -5,6 +5,13 @@ import lombok.extern.slf4j.Slf4j;
 import no.ntnu.idata2306.dto.course.CourseResponseDto;
 import no.ntnu.idata2306.dto.course.CreateCourseDto;
 import no.ntnu.idata2306.dto.course.UpdateCourseDto;
+import no.ntnu.idata2306.enums.SearchTypeEnum;
+import no.ntnu.idata2306.index.AutocompleteIndex;
+import no.ntnu.idata2306.index.CourseFilterIndex;
+import no.ntnu.idata2306.index.CourseSearchIndex;
+import no.ntnu.idata2306.index.CourseTextIndex;
+import no.ntnu.idata2306.index.SearchResultCache;
+import no.ntnu.idata2306.index.SpellingIndex;
 import no.ntnu.idata2306.mapper.course.CourseMapper;
 import no.ntnu.idata2306.model.Provider;
 import no.ntnu.idata2306.model.course.Course;
@@ -27,11 +34,25 @@ public class CourseService {
 
     private final CourseRepository courseRepository;
     private final ProviderService providerService;
+    private final CourseSearchIndex courseSearchIndex;
+    private final CourseTextIndex courseTextIndex;
+    private final SearchResultCache searchResultCache;
+    private final AutocompleteIndex autocompleteIndex;
+    private final CourseFilterIndex courseFilterIndex;
+    private final SpellingIndex spellingIndex;
 
     @Autowired
-    public CourseService(CourseRepository courseRepository, ProviderService providerService) {
+    public CourseService(CourseRepository courseRepository, ProviderService providerService, CourseSearchIndex courseSearchIndex,
+                         CourseTextIndex courseTextIndex, SearchResultCache searchResultCache, AutocompleteIndex autocompleteIndex,
+                         CourseFilterIndex courseFilterIndex, SpellingIndex spellingIndex) {
         this.courseRepository = courseRepository;
         this.providerService = providerService;
+        this.courseSearchIndex = courseSearchIndex;
+        this.courseTextIndex = courseTextIndex;
+        this.searchResultCache = searchResultCache;
+        this.autocompleteIndex = autocompleteIndex;
+        this.courseFilterIndex = courseFilterIndex;
+        this.spellingIndex = spellingIndex;
     }
 
     /**
@@ -126,6 +147,7 @@ public class CourseService {
         course.setCreated(LocalDateTime.now());
         course.setCreatedBy(user);
         Course newCourse = this.courseRepository.save(course);
+        this.updateSearchIndexes(newCourse);
         return CourseMapper.INSTANCE.courseToResponseCourseDto(newCourse);
     }
 
@@ -143,6 +165,7 @@ public class CourseService {
         course.setCreatedBy(user);
         course.setProvider(provider);
         Course newCourse = this.courseRepository.save(course);
+        this.updateSearchIndexes(newCourse);
         return CourseMapper.INSTANCE.courseToResponseCourseDto(newCourse);
     }
 
@@ -160,6 +183,7 @@ public class CourseService {
         course.setUpdated(LocalDateTime.now());
         course.setUpdatedBy(user);
         Course updatedCourse = this.courseRepository.save(course);
+        this.updateSearchIndexes(updatedCourse);
         return CourseMapper.INSTANCE.courseToResponseCourseDto(updatedCourse);
     }
 
@@ -181,6 +205,7 @@ public class CourseService {
         course.setUpdated(LocalDateTime.now());
         course.setUpdatedBy(user);
         Course updatedCourse = this.courseRepository.save(course);
+        this.updateSearchIndexes(updatedCourse);
         return CourseMapper.INSTANCE.courseToResponseCourseDto(updatedCourse);
     }
 
@@ -193,10 +218,26 @@ public class CourseService {
     public CourseResponseDto deactivateCourse(int id) {
         Course course = findCourseById(id);
         course.setActive(false);
+        course.setUpdated(LocalDateTime.now());
         this.courseRepository.save(course);
+        this.updateSearchIndexes(course);
         return CourseMapper.INSTANCE.courseToResponseCourseDto(course);
     }
 
+    /**
+     * Updates the resident search indexes after a course has been written, and drops the cached course search results.
+     *
+     * @param course the course that was written.
+     */
+    private void updateSearchIndexes(Course course) {
+        this.courseSearchIndex.update(course);
+        this.courseTextIndex.update(course);
+        this.autocompleteIndex.update(course);
+        this.courseFilterIndex.update(course);
+        this.spellingIndex.update(course);
+        this.searchResultCache.invalidate(SearchTypeEnum.COURSE, SearchTypeEnum.COURSE_DESCRIPTION);
+    }
+
     /**
      * Calculates the average rating of the reviews for a given course.
      *
@@ -0,0 +1,152 @@
+package no.ntnu.idata2306.service;
+
+import no.ntnu.idata2306.enums.SqlSearchModeEnum;
+import no.ntnu.idata2306.repository.course.CourseRepository;
+import no.ntnu.idata2306.repository.course.details.CategoryRepository;
+import no.ntnu.idata2306.repository.course.details.TopicRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.StringJoiner;
+
+/**
+ * Service class for the scored name searches run by the database, rather than by the resident search indexes.
+ *
+ * Every query type has its own mode, set in the application properties. The LIKE mode matches substrings of the
+ * names, which needs a full table scan. The full text modes match whole words with the FULLTEXT indexes created by
+ * {@link no.ntnu.idata2306.FullTextIndexInitializer}, in MySQL's natural language mode, or in boolean mode with
+ * every word of the search terms required and matched as a prefix.
+ *
+ * Blank search terms match nothing in every mode, so a course search by name alone does not match every category
+ * and topic. The searches return the IDs of the matches with their scores, which are converted to DTOs by
+ * {@link SearchService#databaseSearch}.
+ */
+@Service
+public class DatabaseSearchService {
+
+    private final CourseRepository courseRepository;
+    private final CategoryRepository categoryRepository;
+    private final TopicRepository topicRepository;
+
+    @Value("${search.sql.course-mode:LIKE}")
+    private SqlSearchModeEnum courseMode;
+
+    @Value("${search.sql.category-mode:LIKE}")
+    private SqlSearchModeEnum categoryMode;
+
+    @Value("${search.sql.topic-mode:LIKE}")
+    private SqlSearchModeEnum topicMode;
+
+    @Autowired
+    public DatabaseSearchService(CourseRepository courseRepository, CategoryRepository categoryRepository, TopicRepository topicRepository) {
+        this.courseRepository = courseRepository;
+        this.categoryRepository = categoryRepository;
+        this.topicRepository = topicRepository;
+    }
+
+    /**
+     * Finds courses with a relevance score by their name, category and topic, in the mode set for courses.
+     *
+     * @param courseName   the search terms for the course names.
+     * @param categoryName the search terms for the category names.
+     * @param topicName    the search terms for the topic names.
+     * @param pageable     the pagination information.
+     * @return a page of arrays containing the ID of a course and its score, ordered by the score in descending order.
+     */
+    public Page<Object[]> findCoursesWithScore(String courseName, String categoryName, String topicName, Pageable pageable) {
+        return switch (this.courseMode) {
+            case LIKE -> this.courseRepository.findCoursesWithScore(
+                    toLikeTerms(courseName), toLikeTerms(categoryName), toLikeTerms(topicName), pageable);
+            case NATURAL_LANGUAGE -> this.courseRepository.findCoursesWithFullTextScore(
+                    toFullTextTerms(courseName), toFullTextTerms(categoryName), toFullTextTerms(topicName), pageable);
+            case BOOLEAN -> this.courseRepository.findCoursesWithBooleanFullTextScore(
+                    toBooleanQuery(courseName), toBooleanQuery(categoryName), toBooleanQuery(topicName), pageable);
+        };
+    }
+
+    /**
+     * Finds categories with a relevance score by their name, in the mode set for categories.
+     *
+     * @param categoryName the search terms for the category names.
+     * @param pageable     the pagination information.
+     * @return a page of arrays containing the ID of a category and its score, ordered by the score in descending order.
+     */
+    public Page<Object[]> findCategoriesWithScore(String categoryName, Pageable pageable) {
+        return switch (this.categoryMode) {
+            case LIKE -> this.categoryRepository.findCategoriesWithScore(toLikeTerms(categoryName), pageable);
+            case NATURAL_LANGUAGE -> this.categoryRepository.findCategoriesWithFullTextScore(toFullTextTerms(categoryName), pageable);
+            case BOOLEAN -> this.categoryRepository.findCategoriesWithBooleanFullTextScore(toBooleanQuery(categoryName), pageable);
+        };
+    }
+
+    /**
+     * Finds topics with a relevance score by their name, in the mode set for topics.
+     *
+     * @param topicName the search terms for the topic names.
+     * @param pageable  the pagination information.
+     * @return a page of arrays containing the ID of a topic and its score, ordered by the score in descending order.
+     */
+    public Page<Object[]> findTopicsWithScore(String topicName, Pageable pageable) {
+        return switch (this.topicMode) {
+            case LIKE -> this.topicRepository.findTopicsWithScore(toLikeTerms(topicName), pageable);
+            case NATURAL_LANGUAGE -> this.topicRepository.findTopicsWithFullTextScore(toFullTextTerms(topicName), pageable);
+            case BOOLEAN -> this.topicRepository.findTopicsWithBooleanFullTextScore(toBooleanQuery(topicName), pageable);
+        };
+    }
+
+    /**
+     * Checks if any query type is set to a full text mode, which needs the FULLTEXT indexes.
+     *
+     * @return true if at least one query type uses a full text mode.
+     */
+    public boolean requiresFullTextIndexes() {
+        return this.courseMode != SqlSearchModeEnum.LIKE
+                || this.categoryMode != SqlSearchModeEnum.LIKE
+                || this.topicMode != SqlSearchModeEnum.LIKE;
+    }
+
+    /**
+     * Converts search terms to the parameter of a LIKE query. Blank terms become null, as the empty pattern
+     * would match every name, while a comparison with null matches none.
+     *
+     * @param terms the search terms.
+     * @return the terms, or null if they are blank.
+     */
+    private static String toLikeTerms(String terms) {
+        return terms == null || terms.isBlank() ? null : terms;
+    }
+
+    /**
+     * Converts search terms to the parameter of a natural language mode query, where the empty string matches nothing.
+     *
+     * @param terms the search terms.
+     * @return the terms, or the empty string if they are null.
+     */
+    private static String toFullTextTerms(String terms) {
+        return terms == null ? "" : terms;
+    }
+
+    /**
+     * Converts search terms to a boolean mode query, where every word is required and matched as a prefix,
+     * e.g. "machine learn" to "+machine* +learn*". The operators of boolean mode are removed from the terms,
+     * so user input cannot change the meaning of the query.
+     *
+     * @param terms the search terms.
+     * @return the boolean mode query, empty if the terms have no words.
+     */
+    public static String toBooleanQuery(String terms) {
+        if (terms == null) {
+            return "";
+        }
+        StringJoiner query = new StringJoiner(" ");
+        for (String word : terms.split("[^\\p{L}\\p{N}_]+")) {
+            if (!word.isEmpty()) {
+                query.add("+" + word + "*");
+            }
+        }
+        return query.toString();
+    }
+}
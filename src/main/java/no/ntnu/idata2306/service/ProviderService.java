@@ -4,6 +4,9 @@ import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import no.ntnu.idata2306.dto.ProviderRequestDto;
 import no.ntnu.idata2306.dto.ProviderResponseDto;
+import no.ntnu.idata2306.enums.SearchTypeEnum;
+import no.ntnu.idata2306.index.AutocompleteIndex;
+import no.ntnu.idata2306.index.SearchResultCache;
 import no.ntnu.idata2306.mapper.ProviderMapper;
 import no.ntnu.idata2306.model.Provider;
 import no.ntnu.idata2306.repository.ProviderRepository;
@@ -19,15 +22,21 @@ import java.util.List;
 public class ProviderService {
 
     private final ProviderRepository providerRepository;
+    private final SearchResultCache searchResultCache;
+    private final AutocompleteIndex autocompleteIndex;
 
     /**
      * Constructs a new instance of ProviderService.
      *
      * @param providerRepository the repository for managing provider data
+     * @param searchResultCache the cache of search results, invalidated when providers of courses change
+     * @param autocompleteIndex the autocomplete index, suggesting provider names
      */
     @Autowired
-    public ProviderService(ProviderRepository providerRepository) {
+    public ProviderService(ProviderRepository providerRepository, SearchResultCache searchResultCache, AutocompleteIndex autocompleteIndex) {
         this.providerRepository = providerRepository;
+        this.searchResultCache = searchResultCache;
+        this.autocompleteIndex = autocompleteIndex;
     }
 
     /**
@@ -81,6 +90,8 @@ public class ProviderService {
         provider.setUpdated(LocalDateTime.now());
 
         this.providerRepository.save(provider);
+        this.searchResultCache.invalidate(SearchTypeEnum.COURSE, SearchTypeEnum.COURSE_DESCRIPTION);
+        this.autocompleteIndex.updateProvider(provider);
         return ProviderMapper.INSTANCE.providerToProviderResponseDto(provider);
     }
 
@@ -94,6 +105,7 @@ public class ProviderService {
         Provider provider = findProviderById(id);
 
         this.providerRepository.delete(provider);
+        this.searchResultCache.invalidate(SearchTypeEnum.COURSE, SearchTypeEnum.COURSE_DESCRIPTION);
         log.info("Provider deleted with ID: {}", id);
     }
 
@@ -4,6 +4,9 @@ import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import no.ntnu.idata2306.dto.review.ReviewRequestDto;
 import no.ntnu.idata2306.dto.review.ReviewResponseDto;
+import no.ntnu.idata2306.enums.SearchTypeEnum;
+import no.ntnu.idata2306.index.AutocompleteIndex;
+import no.ntnu.idata2306.index.SearchResultCache;
 import no.ntnu.idata2306.mapper.ReviewMapper;
 import no.ntnu.idata2306.model.Review;
 import no.ntnu.idata2306.model.User;
@@ -25,17 +28,24 @@ public class ReviewService {
 
     private final ReviewRepository reviewRepository;
     private final CourseService courseService;
+    private final SearchResultCache searchResultCache;
+    private final AutocompleteIndex autocompleteIndex;
 
     /**
      * Constructs a new instance of ReviewService.
      *
      * @param reviewRepository the repository for managing review data
      * @param courseService the repository for managing course data
+     * @param searchResultCache the cache of search results, invalidated when the ratings of courses change
+     * @param autocompleteIndex the autocomplete index, ranking course names by their number of reviews
      */
     @Autowired
-    public ReviewService(ReviewRepository reviewRepository, CourseService courseService) {
+    public ReviewService(ReviewRepository reviewRepository, CourseService courseService, SearchResultCache searchResultCache,
+                         AutocompleteIndex autocompleteIndex) {
         this.reviewRepository = reviewRepository;
         this.courseService = courseService;
+        this.searchResultCache = searchResultCache;
+        this.autocompleteIndex = autocompleteIndex;
     }
 
     /**
@@ -79,6 +89,8 @@ public class ReviewService {
         review.setCreated(LocalDateTime.now());
 
         this.reviewRepository.save(review);
+        this.searchResultCache.invalidate(SearchTypeEnum.COURSE, SearchTypeEnum.COURSE_DESCRIPTION);
+        this.autocompleteIndex.reviewCountChanged(course.getId(), 1);
         return ReviewMapper.INSTANCE.reviewToReviewResponseDto(review);
     }
 
@@ -91,6 +103,8 @@ public class ReviewService {
     public ReviewResponseDto deleteReview(int id) {
         Review review = findReviewById(id);
         this.reviewRepository.delete(review);
+        this.searchResultCache.invalidate(SearchTypeEnum.COURSE, SearchTypeEnum.COURSE_DESCRIPTION);
+        this.autocompleteIndex.reviewCountChanged(review.getCourse().getId(), -1);
         log.info("Review marked as deleted with ID: {}", id);
         return ReviewMapper.INSTANCE.reviewToReviewResponseDto(review);
     }
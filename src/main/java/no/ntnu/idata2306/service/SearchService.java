@@ -10,6 +10,8 @@ import no.ntnu.idata2306.dto.search.request.CategoryAndTopicsSearch;
 import no.ntnu.idata2306.dto.search.request.SearchCriteria;
 import no.ntnu.idata2306.dto.search.response.*;
 import no.ntnu.idata2306.dto.user.UserResponseDto;
+import no.ntnu.idata2306.enums.SearchTypeEnum;
+import no.ntnu.idata2306.index.*;
 import no.ntnu.idata2306.mapper.UserMapper;
 import no.ntnu.idata2306.mapper.course.CourseMapper;
 import no.ntnu.idata2306.mapper.course.details.CategoryMapper;
@@ -24,14 +26,30 @@ import no.ntnu.idata2306.repository.course.CourseRepository;
 import no.ntnu.idata2306.repository.course.details.TopicRepository;
 import no.ntnu.idata2306.util.ScoreThresholdUtils;
 import no.ntnu.idata2306.util.ScoreUtils;
+import no.ntnu.idata2306.util.SearchDeadline;
 import no.ntnu.idata2306.util.SearchUtils;
+import no.ntnu.idata2306.util.datastructure.Bm25Index;
+import no.ntnu.idata2306.util.datastructure.CompletionTrie;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
 
 @Slf4j
 @Service
@@ -41,13 +59,51 @@ public class SearchService {
     private final CategoryRepository categoryRepository;
     private final TopicRepository topicRepository;
     private final UserRepository userRepository;
+    private final CourseSearchIndex courseSearchIndex;
+    private final CategorySearchIndex categorySearchIndex;
+    private final TopicSearchIndex topicSearchIndex;
+    private final UserSearchIndex userSearchIndex;
+    private final CourseTextIndex courseTextIndex;
+    private final CourseFilterIndex courseFilterIndex;
+    private final SearchResultCache searchResultCache;
+    private final AutocompleteIndex autocompleteIndex;
+    private final SpellingIndex spellingIndex;
+    private final DatabaseSearchService databaseSearchService;
+    private final ExecutorService searchExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // Weight of the description match in the score of a course search, 0 disables blending
+    @Value("${search.course.description-weight:0.0}")
+    private double descriptionWeight;
+
+    // Time a multi parameter search waits for all its parts before returning the finished ones
+    @Value("${search.multi.timeout-ms:2000}")
+    private long multiSearchTimeoutMillis;
 
     @Autowired
-    public SearchService(CourseRepository courseRepository, CategoryRepository categoryRepository, TopicRepository topicRepository, UserRepository userRepository) {
+    public SearchService(CourseRepository courseRepository, CategoryRepository categoryRepository, TopicRepository topicRepository, UserRepository userRepository,
+                         CourseSearchIndex courseSearchIndex, CategorySearchIndex categorySearchIndex, TopicSearchIndex topicSearchIndex, UserSearchIndex userSearchIndex,
+                         CourseTextIndex courseTextIndex, CourseFilterIndex courseFilterIndex,
+                         SearchResultCache searchResultCache, AutocompleteIndex autocompleteIndex, SpellingIndex spellingIndex,
+                         DatabaseSearchService databaseSearchService,
+                         @Qualifier("searchExecutor") ExecutorService searchExecutor, PlatformTransactionManager transactionManager) {
         this.courseRepository = courseRepository;
         this.categoryRepository = categoryRepository;
         this.topicRepository = topicRepository;
         this.userRepository = userRepository;
+        this.courseSearchIndex = courseSearchIndex;
+        this.categorySearchIndex = categorySearchIndex;
+        this.topicSearchIndex = topicSearchIndex;
+        this.userSearchIndex = userSearchIndex;
+        this.courseTextIndex = courseTextIndex;
+        this.courseFilterIndex = courseFilterIndex;
+        this.searchResultCache = searchResultCache;
+        this.autocompleteIndex = autocompleteIndex;
+        this.spellingIndex = spellingIndex;
+        this.databaseSearchService = databaseSearchService;
+        this.searchExecutor = searchExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     /**
@@ -57,65 +113,278 @@ public class SearchService {
      * The results are filtered based on predefined score thresholds to ensure relevance.
      * The results are sorted by their scores in descending order to prioritize the most relevant matches.
      * The results paginated according to the provided pagination information.
-     * BK-trees are used to optimize the search process by efficiently finding close matches.
+     * Resident BK-tree indexes are used to optimize the search process by efficiently finding close matches.
+     * The course, topic and category searches run concurrently on the search executor and share the time budget
+     * of the search, after which they return the best results found so far.
+     * Searches not finished by the timeout of the multi parameter search are cancelled.
+     * In both cases the result is marked as partial. If one of the searches fails, the others are cancelled
+     * before the failure is rethrown.
+     * If nothing is found, corrected spellings of the search terms are suggested instead.
      *
      * @param criteria  the search criteria containing the course name, category name, and topic name to search for.
      * @param pageable  the pagination information.
-     * @return a SearchResult object containing the scored courses, categories, and topics, or null if no results are found.
+     * @param deadline  the time budget of the search stages.
+     * @return a SearchResult object containing the scored courses, categories, and topics, or only spelling suggestions
+     *         if no results are found, or null if no results are found, no spelling could be corrected and the
+     *         search was not partial.
      */
-    public SearchResult multiParameterSearch(SearchCriteria criteria, Pageable pageable) {
+    public SearchResult multiParameterSearch(SearchCriteria criteria, Pageable pageable, SearchDeadline deadline) {
         // Validate and prepare search inputs
         String courseName = criteria.getCourseName() != null ? criteria.getCourseName().trim().toLowerCase() : "";
         String topicName = criteria.getTopicName() != null ? criteria.getTopicName().trim().toLowerCase() : "";
         String categoryName = criteria.getCategoryName() != null ? criteria.getCategoryName().trim().toLowerCase() : "";
 
-        List<ScoredCourse> courses = this.courseSearch(courseName, pageable);
-
-        List<ScoredTopic> topics = this.topicSearch(topicName, pageable);
+        // Every search gets a deadline of its own, so a search finished in time is cached even if another was cut short
+        SearchDeadline courseDeadline = deadline.copy();
+        SearchDeadline topicDeadline = deadline.copy();
+        SearchDeadline categoryDeadline = deadline.copy();
+        long timeout = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.multiSearchTimeoutMillis);
+        Future<List<ScoredCourse>> courseFuture = this.submitSearch(() -> this.courseSearch(courseName, pageable, courseDeadline));
+        Future<List<ScoredTopic>> topicFuture = this.submitSearch(() -> this.topicSearch(topicName, pageable, topicDeadline));
+        Future<List<ScoredCategory>> categoryFuture = this.submitSearch(() -> this.categorySearch(categoryName, pageable, categoryDeadline));
 
-        List<ScoredCategory> categories = this.categorySearch(categoryName, pageable);
+        List<ScoredCourse> courses;
+        List<ScoredTopic> topics;
+        List<ScoredCategory> categories;
+        try {
+            courses = this.awaitSearch(courseFuture, timeout, "course");
+            topics = this.awaitSearch(topicFuture, timeout, "topic");
+            categories = this.awaitSearch(categoryFuture, timeout, "category");
+        } finally {
+            // Does nothing for finished searches, but stops the others if a search failed or the wait was interrupted
+            courseFuture.cancel(true);
+            topicFuture.cancel(true);
+            categoryFuture.cancel(true);
+        }
+        boolean partial = courses == null || topics == null || categories == null
+                || courseDeadline.isPartial() || topicDeadline.isPartial() || categoryDeadline.isPartial();
 
+        courses = courses != null ? courses : List.of();
+        topics = topics != null ? topics : List.of();
+        categories = categories != null ? categories : List.of();
         if (courses.isEmpty() && topics.isEmpty() && categories.isEmpty()) {
+            List<String> suggestions = this.suggestSpellings(courseName, topicName, categoryName);
+            // A partial result is returned even without suggestions, so running out of time is not mistaken for no matches
+            return suggestions.isEmpty() && !partial ? null : new SearchResult(courses, categories, topics, partial, suggestions);
+        }
+
+        return new SearchResult(courses, categories, topics, partial, List.of());
+    }
+
+    /**
+     * Suggests corrected spellings of the search terms of a multi parameter search, in the order of the terms.
+     *
+     * @param searchTerms the search terms, empty ones are skipped.
+     * @return at most {@link SpellingIndex#MAX_SUGGESTIONS} suggested spellings.
+     */
+    private List<String> suggestSpellings(String... searchTerms) {
+        Set<String> suggestions = new LinkedHashSet<>();
+        for (String searchTerm : searchTerms) {
+            if (!searchTerm.isEmpty()) {
+                suggestions.addAll(this.spellingIndex.suggest(searchTerm));
+            }
+        }
+        return suggestions.stream().limit(SpellingIndex.MAX_SUGGESTIONS).toList();
+    }
+
+    /**
+     * Submits a search to the search executor.
+     * The search runs in a read only transaction of its own, as the entities it maps to DTOs are loaded lazily
+     * and the session of the request is bound to the request thread.
+     *
+     * @param <T> the type of the search result.
+     * @param search the search to run.
+     * @return the future result of the search.
+     */
+    private <T> Future<T> submitSearch(Supplier<T> search) {
+        return this.searchExecutor.submit(() -> this.readOnlyTransaction.execute(status -> search.get()));
+    }
+
+    /**
+     * Waits for a submitted search until the timeout, cancelling it if it does not finish in time.
+     *
+     * @param <T> the type of the search result.
+     * @param future the future result of the search.
+     * @param timeout the time to stop waiting, in the time base of {@link System#nanoTime()}.
+     * @param name the name of the search, used for logging.
+     * @return the result of the search, or null if it did not finish before the timeout.
+     */
+    private <T> T awaitSearch(Future<T> future, long timeout, String name) {
+        try {
+            return future.get(Math.max(0, timeout - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("The {} search did not finish within {} ms and was left out of the results", name, this.multiSearchTimeoutMillis);
+            return null;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
             return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("The " + name + " search failed", e.getCause());
         }
+    }
+
+    /**
+     * Searches for courses, categories and topics by name with the scored queries run by the database,
+     * in the modes set for {@link DatabaseSearchService}, rather than with the resident search indexes.
+     * The courses are scored by their name, category and topics together, the categories and topics by their name.
+     * The scores are the relevance scores of the queries, which are not percentages, and no spellings are suggested.
+     *
+     * @param criteria the search criteria containing the course name, category name, and topic name to search for.
+     * @param pageable the pagination information, applied to the courses, categories and topics separately.
+     * @return a SearchResult object containing the scored courses, categories, and topics.
+     */
+    public SearchResult databaseSearch(SearchCriteria criteria, Pageable pageable) {
+        String courseName = criteria.getCourseName() != null ? criteria.getCourseName().trim() : "";
+        String topicName = criteria.getTopicName() != null ? criteria.getTopicName().trim() : "";
+        String categoryName = criteria.getCategoryName() != null ? criteria.getCategoryName().trim() : "";
 
-        return new SearchResult(courses, categories, topics);
+        List<ScoredCourse> courses = List.of();
+        if (!courseName.isEmpty() || !categoryName.isEmpty() || !topicName.isEmpty()) {
+            courses = hydrate(this.databaseSearchService.findCoursesWithScore(courseName, categoryName, topicName, pageable).getContent(),
+                    SearchService::rowId, SearchService::rowScore, courseRepository::findAllById, Course::getId,
+                    (course, score) -> new ScoredCourse(CourseMapper.INSTANCE.courseToResponseCourseDto(course), score));
+        }
+        List<ScoredCategory> categories = List.of();
+        if (!categoryName.isEmpty()) {
+            categories = hydrate(this.databaseSearchService.findCategoriesWithScore(categoryName, pageable).getContent(),
+                    SearchService::rowId, SearchService::rowScore, categoryRepository::findAllById, Category::getId,
+                    (category, score) -> new ScoredCategory(CategoryMapper.INSTANCE.categoryToCategoryDto(category), score));
+        }
+        List<ScoredTopic> topics = List.of();
+        if (!topicName.isEmpty()) {
+            topics = hydrate(this.databaseSearchService.findTopicsWithScore(topicName, pageable).getContent(),
+                    SearchService::rowId, SearchService::rowScore, topicRepository::findAllById, Topic::getId,
+                    (topic, score) -> new ScoredTopic(TopicMapper.INSTANCE.topicToTopicDto(topic), score));
+        }
+
+        return new SearchResult(courses, categories, topics, false, List.of());
+    }
+
+    /**
+     * Returns the entity ID of a row of a scored database query, which is its first column.
+     */
+    private static int rowId(Object[] row) {
+        return ((Number) row[0]).intValue();
+    }
+
+    /**
+     * Returns the score of a row of a scored database query, which is its second column.
+     * Its type depends on the mode of the query.
+     */
+    private static double rowScore(Object[] row) {
+        return ((Number) row[1]).doubleValue();
     }
 
     /**
      * Searches for courses based on the provided course name and paginates the results.
-     * Uses the hybrid similarity approach with BK-Tree for efficient candidate retrieval.
+     * Candidates are retrieved by shared trigrams and the hybrid similarity approach with BK-Tree,
+     * so only a few hundred course names are scored per search instead of the whole catalog.
      * Course names tend to be longer and may contain multiple words, making them well-suited
      * for our approach which uses Damerau-Levenshtein distance for fuzzy matching.
      *
      * @param courseName the name of the course to search for.
      * @param pageable   the pagination information.
+     * @param deadline   the time budget of the search, results cut short by it are not cached.
      * @return a paginated list of scored courses based on the search criteria.
      */
-    public List<ScoredCourse> courseSearch(String courseName, Pageable pageable) {
+    public List<ScoredCourse> courseSearch(String courseName, Pageable pageable, SearchDeadline deadline) {
         if (courseName == null || courseName.isEmpty()) {
             return List.of();
         }
-        
-        List<Course> courses = courseRepository.findByActiveTrue();
-        
-        return SearchUtils.genericSearch(
+
+        boolean initialized = this.courseSearchIndex.isInitialized()
+                && (this.descriptionWeight <= 0 || this.courseTextIndex.isInitialized());
+        return this.searchResultCache.get(SearchTypeEnum.COURSE, courseName, pageable,
+                () -> this.findCourses(SearchIndex.normalize(courseName), pageable, deadline),
+                () -> initialized && !deadline.isPartial());
+    }
+
+    /**
+     * Searches for courses by name without going through the search result cache.
+     *
+     * @param courseName the normalized search query.
+     * @param pageable the pagination information.
+     * @param deadline the time budget of the search.
+     * @return a paginated list of scored courses.
+     */
+    private List<ScoredCourse> findCourses(String courseName, Pageable pageable, SearchDeadline deadline) {
+        SearchDocument query = new SearchDocument(courseName);
+        ToDoubleFunction<SearchEntry> nameScorer = entry -> ScoreUtils.calculateSimilarityScore(entry.getDocument(), query);
+
+        List<ScoredEntry> scoredEntries = SearchUtils.genericSearch(
                 courseName,
                 pageable,
-                courses,
-                Course::getCourseName,
-                course -> {
-                    List<String> correctWords = Arrays.asList(course.getCourseName().toLowerCase().split("\\s+"));
-                    List<String> searchWords = Arrays.asList(courseName.toLowerCase().split("\\s+"));
-                    return ScoreUtils.calculateSimilarityScore(correctWords, searchWords);
-                },
+                courseSearchIndex.getIndex(),
+                this.descriptionWeight > 0 ? this.blendDescriptionScore(courseName, nameScorer) : nameScorer,
                 ScoreThresholdUtils.COURSE_SCORE_THRESHOLD,
-                Course::getId,
+                ScoredEntry::new,
+                deadline
+        );
+
+        return hydrate(scoredEntries, courseRepository::findAllById, Course::getId,
                 (course, score) -> {
                     CourseResponseDto courseDto = CourseMapper.INSTANCE.courseToResponseCourseDto(course);
                     return new ScoredCourse(courseDto, score);
-                }
-        );
+                });
+    }
+
+    /**
+     * Searches for courses whose description or requirement description matches the provided free text query.
+     * The courses are ranked by BM25 over the resident full-text index, so no TEXT columns are scanned.
+     *
+     * @param query    the free text query.
+     * @param pageable the pagination information.
+     * @return a paginated list of scored courses, scored by their BM25 score.
+     */
+    public List<ScoredCourse> courseDescriptionSearch(String query, Pageable pageable) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+
+        boolean initialized = this.courseTextIndex.isInitialized();
+        return this.searchResultCache.get(SearchTypeEnum.COURSE_DESCRIPTION, query, pageable,
+                () -> this.findCoursesByDescription(SearchIndex.normalize(query), pageable), () -> initialized);
+    }
+
+    /**
+     * Searches for courses by description without going through the search result cache.
+     *
+     * @param query the normalized search query.
+     * @param pageable the pagination information.
+     * @return a paginated list of scored courses.
+     */
+    private List<ScoredCourse> findCoursesByDescription(String query, Pageable pageable) {
+        List<Bm25Index.Hit> hits = this.courseTextIndex.search(query, (int) pageable.getOffset() + pageable.getPageSize());
+        if (hits.size() <= pageable.getOffset()) {
+            return List.of();
+        }
+
+        return hydrate(hits.subList((int) pageable.getOffset(), hits.size()), Bm25Index.Hit::getId, Bm25Index.Hit::getScore,
+                courseRepository::findAllById, Course::getId,
+                (course, score) -> {
+                    CourseResponseDto courseDto = CourseMapper.INSTANCE.courseToResponseCourseDto(course);
+                    return new ScoredCourse(courseDto, score);
+                });
+    }
+
+    /**
+     * Blends the name score of a course with how well its description matches the course name searched for.
+     * The BM25 score of the description is normalized to a percentage of the highest score a description could get
+     * for the course name, so both scores are on the same scale. Only the descriptions of the candidates are scored.
+     *
+     * @param courseName the name of the course searched for.
+     * @param nameScorer the function scoring the course name.
+     * @return a function scoring a course entry by the weighted sum of its name and description scores.
+     */
+    private ToDoubleFunction<SearchEntry> blendDescriptionScore(String courseName, ToDoubleFunction<SearchEntry> nameScorer) {
+        IntToDoubleFunction descriptionScorer = this.courseTextIndex.scorer(courseName);
+        return entry -> (1 - this.descriptionWeight) * nameScorer.applyAsDouble(entry)
+                + this.descriptionWeight * descriptionScorer.applyAsDouble(entry.getId());
     }
 
     /**
@@ -125,33 +394,45 @@ public class SearchService {
      *
      * @param categoryName the name of the category to search for.
      * @param pageable     the pagination information.
+     * @param deadline     the time budget of the search, results cut short by it are not cached.
      * @return a paginated list of scored categories based on the search criteria.
      */
-    public List<ScoredCategory> categorySearch(String categoryName, Pageable pageable) {
+    public List<ScoredCategory> categorySearch(String categoryName, Pageable pageable, SearchDeadline deadline) {
         if (categoryName == null || categoryName.isEmpty()) {
             return List.of();
         }
-        
-        List<Category> categories = categoryRepository.findAll();
-        
-        return SearchUtils.genericSearch(
+
+        boolean initialized = this.categorySearchIndex.isInitialized();
+        return this.searchResultCache.get(SearchTypeEnum.CATEGORY, categoryName, pageable,
+                () -> this.findCategories(SearchIndex.normalize(categoryName), pageable, deadline),
+                () -> initialized && !deadline.isPartial());
+    }
+
+    /**
+     * Searches for categories by name without going through the search result cache.
+     *
+     * @param categoryName the normalized search query.
+     * @param pageable the pagination information.
+     * @param deadline the time budget of the search.
+     * @return a paginated list of scored categories.
+     */
+    private List<ScoredCategory> findCategories(String categoryName, Pageable pageable, SearchDeadline deadline) {
+        SearchDocument query = new SearchDocument(categoryName);
+        List<ScoredEntry> scoredEntries = SearchUtils.genericSearch(
                 categoryName,
                 pageable,
-                categories,
-                category -> category.getCategory().toLowerCase(),
-                category -> {
-                    List<String> correctWords = Arrays.asList(category.getCategory().toLowerCase().split("\\s+"));
-                    List<String> searchWords = Arrays.asList(categoryName.toLowerCase().split("\\s+"));
-                    
-                    return ScoreUtils.calculateSimilarityScore(correctWords, searchWords);
-                },
+                categorySearchIndex.getIndex(),
+                entry -> ScoreUtils.calculateSimilarityScore(entry.getDocument(), query),
                 ScoreThresholdUtils.CATEGORY_SCORE_THRESHOLD,
-                Category::getId,
+                ScoredEntry::new,
+                deadline
+        );
+
+        return hydrate(scoredEntries, categoryRepository::findAllById, Category::getId,
                 (category, score) -> {
                     CategoryDto categoryDto = CategoryMapper.INSTANCE.categoryToCategoryDto(category);
                     return new ScoredCategory(categoryDto, score);
-                }
-        );
+                });
     }
 
     /**
@@ -162,90 +443,257 @@ public class SearchService {
      *
      * @param topicName the name of the topic to search for.
      * @param pageable  the pagination information.
+     * @param deadline  the time budget of the search, results cut short by it are not cached.
      * @return a paginated list of scored topics based on the search criteria.
      */
-    public List<ScoredTopic> topicSearch(String topicName, Pageable pageable) {
+    public List<ScoredTopic> topicSearch(String topicName, Pageable pageable, SearchDeadline deadline) {
         if (topicName == null || topicName.isEmpty()) {
             return List.of();
         }
-        
-        List<Topic> topics = topicRepository.findAll();
-        
-        return SearchUtils.genericSearch(
+
+        boolean initialized = this.topicSearchIndex.isInitialized();
+        return this.searchResultCache.get(SearchTypeEnum.TOPIC, topicName, pageable,
+                () -> this.findTopics(SearchIndex.normalize(topicName), pageable, deadline),
+                () -> initialized && !deadline.isPartial());
+    }
+
+    /**
+     * Searches for topics by name without going through the search result cache.
+     *
+     * @param topicName the normalized search query.
+     * @param pageable the pagination information.
+     * @param deadline the time budget of the search.
+     * @return a paginated list of scored topics.
+     */
+    private List<ScoredTopic> findTopics(String topicName, Pageable pageable, SearchDeadline deadline) {
+        SearchDocument query = new SearchDocument(topicName);
+        List<ScoredEntry> scoredEntries = SearchUtils.genericSearch(
                 topicName,
                 pageable,
-                topics,
-                topic -> topic.getTopic().toLowerCase(),
-                topic -> {
-                    List<String> correctWords = Arrays.asList(topic.getTopic().toLowerCase().split("\\s+"));
-                    List<String> searchWords = Arrays.asList(topicName.toLowerCase().split("\\s+"));
-                    return ScoreUtils.calculateSimilarityScore(correctWords, searchWords);
-
-                },
+                topicSearchIndex.getIndex(),
+                entry -> ScoreUtils.calculateSimilarityScore(entry.getDocument(), query),
                 ScoreThresholdUtils.TOPIC_SCORE_THRESHOLD,
-                Topic::getId,
+                ScoredEntry::new,
+                deadline
+        );
+
+        return hydrate(scoredEntries, topicRepository::findAllById, Topic::getId,
                 (topic, score) -> {
                     TopicDto topicDto = TopicMapper.INSTANCE.topicToTopicDto(topic);
                     return new ScoredTopic(topicDto, score);
-                }
-        );
+                });
     }
 
     /**
      * Searches for users based on the provided full name and paginates the results.
      * Usernames require special handling since first and last names may be entered in any order.
      * The word-level fuzzy matching with Damerau-Levenshtein distance is especially valuable here.
+     * Users whose first or last name sounds like a word of the search are taken as candidates first,
+     * so spelling variants like "Jon" and "John" are found without scanning all users.
      *
      * @param userFullName the full name of the user to search for.
      * @param pageable     the pagination information.
+     * @param deadline     the time budget of the search, results cut short by it are not cached.
      * @return a paginated list of scored users based on the search criteria.
      */
-    public List<ScoredUser> userSearch(String userFullName, Pageable pageable) {
+    public List<ScoredUser> userSearch(String userFullName, Pageable pageable, SearchDeadline deadline) {
         if (userFullName == null || userFullName.isEmpty()) {
             return List.of();
         }
-        
-        List<User> users = this.userRepository.findByDeletedFalse();
-        
-        return SearchUtils.genericSearch(
-                userFullName.toLowerCase(),
+
+        boolean initialized = this.userSearchIndex.isInitialized();
+        return this.searchResultCache.get(SearchTypeEnum.USER, userFullName, pageable,
+                () -> this.findUsers(SearchIndex.normalize(userFullName), pageable, deadline),
+                () -> initialized && !deadline.isPartial());
+    }
+
+    /**
+     * Searches for users by full name without going through the search result cache.
+     *
+     * @param userFullName the normalized search query.
+     * @param pageable the pagination information.
+     * @param deadline the time budget of the search.
+     * @return a paginated list of scored users.
+     */
+    private List<ScoredUser> findUsers(String userFullName, Pageable pageable, SearchDeadline deadline) {
+        SearchDocument query = new SearchDocument(userFullName);
+        List<ScoredEntry> scoredEntries = SearchUtils.genericSearch(
+                userFullName,
                 pageable,
-                users,
-                user -> (user.getFirstName() + " " + user.getLastName()).toLowerCase(),
-                user -> {
-                    String userName = (user.getFirstName() + " " + user.getLastName()).toLowerCase();
-                    List<String> correctWords = Arrays.asList(userName.split("\\s+"));
-                    List<String> searchWords = Arrays.asList(userFullName.toLowerCase().split("\\s+"));
-                    
-                    return ScoreUtils.calculateSimilarityScore(correctWords, searchWords);
-                },
+                userSearchIndex.getIndex(),
+                entry -> ScoreUtils.calculateSimilarityScore(entry.getDocument(), query),
                 ScoreThresholdUtils.USER_SCORE_THRESHOLD,
-                User::getId,
+                ScoredEntry::new,
+                deadline
+        );
+
+        return hydrate(scoredEntries, userRepository::findAllById, User::getId,
                 (user, score) -> {
                     UserResponseDto userResponseDto = UserMapper.INSTANCE.userToUserResponseDto(user);
                     return new ScoredUser(userResponseDto, score);
-                }
-        );
+                });
+    }
+
+    /**
+     * Loads the entities of a page of scored search entries in one batch and converts them to scored DTOs.
+     * The order of the scored entries is preserved. Entries whose entity no longer exists are skipped.
+     *
+     * @param <E> the type of entity.
+     * @param <S> the type of scored DTO.
+     * @param scoredEntries the page of scored search entries.
+     * @param loader a function loading the entities with the given IDs, e.g. {@code repository::findAllById}.
+     * @param idExtractor a function that extracts the ID from an entity.
+     * @param scorerConstructor a function that creates a scored DTO from the entity and its score.
+     * @return the scored DTOs in the same order as the scored entries.
+     */
+    private <E, S> List<S> hydrate(List<ScoredEntry> scoredEntries,
+                                   Function<List<Integer>, List<E>> loader,
+                                   ToIntFunction<E> idExtractor,
+                                   BiFunction<E, Double, S> scorerConstructor) {
+        return hydrate(scoredEntries, scoredEntry -> scoredEntry.getEntry().getId(), ScoredEntry::getScore,
+                loader, idExtractor, scorerConstructor);
+    }
+
+    /**
+     * Loads the entities of a page of search hits in one batch and converts them to scored DTOs.
+     * The order of the hits is preserved. Hits whose entity no longer exists are skipped.
+     *
+     * @param <H> the type of search hit.
+     * @param <E> the type of entity.
+     * @param <S> the type of scored DTO.
+     * @param hits the page of search hits.
+     * @param hitId a function that extracts the entity ID from a hit.
+     * @param hitScore a function that extracts the score from a hit.
+     * @param loader a function loading the entities with the given IDs, e.g. {@code repository::findAllById}.
+     * @param idExtractor a function that extracts the ID from an entity.
+     * @param scorerConstructor a function that creates a scored DTO from the entity and its score.
+     * @return the scored DTOs in the same order as the hits.
+     */
+    private <H, E, S> List<S> hydrate(List<H> hits,
+                                      ToIntFunction<H> hitId,
+                                      ToDoubleFunction<H> hitScore,
+                                      Function<List<Integer>, List<E>> loader,
+                                      ToIntFunction<E> idExtractor,
+                                      BiFunction<E, Double, S> scorerConstructor) {
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        List<Integer> ids = hits.stream()
+                .map(hitId::applyAsInt)
+                .toList();
+        Map<Integer, E> entitiesById = new HashMap<>();
+        for (E entity : loader.apply(ids)) {
+            entitiesById.put(idExtractor.applyAsInt(entity), entity);
+        }
+
+        List<S> result = new ArrayList<>(hits.size());
+        for (H hit : hits) {
+            E entity = entitiesById.get(hitId.applyAsInt(hit));
+            if (entity != null) {
+                result.add(scorerConstructor.apply(entity, hitScore.applyAsDouble(hit)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Suggests course names, topics, categories and provider names starting with the provided prefix,
+     * or with a near miss of it if there are too few.
+     * The suggestions are served from the resident autocomplete tries, which keep the most popular
+     * completions of every prefix precomputed, so no search is run per keystroke.
+     *
+     * @param prefix the prefix typed so far.
+     * @param limit  the maximum number of suggestions of each kind.
+     * @return the suggestions of each kind, the most popular first.
+     */
+    public AutocompleteResult autocomplete(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank() || limit <= 0) {
+            return new AutocompleteResult(List.of(), List.of(), List.of(), List.of());
+        }
+
+        return new AutocompleteResult(
+                toSuggestions(this.autocompleteIndex.completeCourseNames(prefix, limit)),
+                toSuggestions(this.autocompleteIndex.completeTopics(prefix, limit)),
+                toSuggestions(this.autocompleteIndex.completeCategories(prefix, limit)),
+                toSuggestions(this.autocompleteIndex.completeProviders(prefix, limit)));
+    }
+
+    /**
+     * Converts trie completions to suggestion DTOs.
+     *
+     * @param completions the completions.
+     * @return the suggestions in the same order.
+     */
+    private List<AutocompleteSuggestion> toSuggestions(List<CompletionTrie.Completion> completions) {
+        return completions.stream()
+                .map(completion -> new AutocompleteSuggestion(completion.getText(), completion.getPopularity()))
+                .toList();
+    }
+
+    /**
+     * Returns the hit, miss and eviction statistics of the search result cache.
+     *
+     * @return the statistics of the search result cache.
+     */
+    public SearchCacheStatistics getCacheStatistics() {
+        return this.searchResultCache.getStatistics();
     }
 
     /**
      * Filtering for courses based on the provided category ID and a list of topic IDs, and converts them to CourseResponseDto objects.
      * If no courses are found, an empty list is returned.
+     * The matching course IDs are resolved by intersecting the bitmaps of the resident course filter index,
+     * and only the courses on the requested page are loaded, ordered by ID.
      *
      * @param request  the request object containing category ID and topic IDs, difficulty level ID, and max price.
      * @param pageable the pagination information.
      * @return a CourseListResponseDto object representing the courses that match the filtering criteria, or an empty object if no courses are found.
      */
     public CourseListResponseDto advancedIdsAndMaxPriceFiltering(CategoryAndTopicsSearch request, Pageable pageable) {
-        Page<Course> coursesPage = this.courseRepository.searchCoursesByTopicsAndCategory(request.getCategoryId(), request.getTopicIds(),
-                                                                                          request.getDifficultyLevelId(), request.getMaxPrice(), pageable);
-        if (coursesPage.isEmpty()) {
+        CourseFilterIndex.FilterResult filterResult = this.courseFilterIndex.filter(request.getCategoryId(), request.getTopicIds(),
+                request.getDifficultyLevelId(), request.getMaxPrice(), (int) pageable.getOffset(), pageable.getPageSize());
+        return this.loadCoursePage(filterResult);
+    }
+
+    /**
+     * Filters courses as {@link #advancedIdsAndMaxPriceFiltering} does, and counts the facets of all matching courses,
+     * i.e. the number of matching courses per category, difficulty level, topic and price range.
+     * The facets are counted in memory from the course filter index, so no extra queries are run.
+     *
+     * @param request  the request object containing category ID and topic IDs, difficulty level ID, and max price.
+     * @param pageable the pagination information.
+     * @return a FacetedCourseResult object with the courses on the page and the facet counts of all matching courses.
+     */
+    public FacetedCourseResult advancedFilteringWithFacets(CategoryAndTopicsSearch request, Pageable pageable) {
+        CourseFilterIndex.FilterResult filterResult = this.courseFilterIndex.filterWithFacets(request.getCategoryId(),
+                request.getTopicIds(), request.getDifficultyLevelId(), request.getMaxPrice(),
+                (int) pageable.getOffset(), pageable.getPageSize());
+        return new FacetedCourseResult(this.loadCoursePage(filterResult), filterResult.getFacets());
+    }
+
+    /**
+     * Loads the courses on a page of filter results, with their topics, in the order of the filter results.
+     *
+     * @param filterResult the result of a course filter.
+     * @return a CourseListResponseDto object with the courses on the page, or an empty object if the page has no courses.
+     */
+    private CourseListResponseDto loadCoursePage(CourseFilterIndex.FilterResult filterResult) {
+        if (filterResult.getIds().length == 0) {
             return new CourseListResponseDto(Collections.emptyList(), 0);
         }
-        List<CourseResponseDto> courses =  coursesPage.stream()
+
+        List<Integer> pageIds = Arrays.stream(filterResult.getIds()).boxed().toList();
+        Map<Integer, Course> coursesById = new HashMap<>();
+        for (Course course : this.courseRepository.findWithTopicsByIdIn(pageIds)) {
+            coursesById.put(course.getId(), course);
+        }
+        List<CourseResponseDto> courses = pageIds.stream()
+                .map(coursesById::get)
+                .filter(Objects::nonNull)
                 .map(CourseMapper.INSTANCE::courseToResponseCourseDto)
                 .toList();
 
-        return new CourseListResponseDto(courses, (int)coursesPage.getTotalElements());
+        return new CourseListResponseDto(courses, filterResult.getTotal());
     }
 }
@@ -6,6 +6,9 @@ import no.ntnu.idata2306.dto.user.UpdateUserPasswordDto;
 import no.ntnu.idata2306.dto.user.UserResponseDto;
 import no.ntnu.idata2306.dto.user.UserSignUpDto;
 import no.ntnu.idata2306.dto.user.UserUpdateDto;
+import no.ntnu.idata2306.enums.SearchTypeEnum;
+import no.ntnu.idata2306.index.SearchResultCache;
+import no.ntnu.idata2306.index.UserSearchIndex;
 import no.ntnu.idata2306.mapper.UserMapper;
 import no.ntnu.idata2306.model.Provider;
 import no.ntnu.idata2306.model.Role;
@@ -35,6 +38,8 @@ public class UserService implements UserDetailsService {
     private final PasswordEncoder passwordEncoder;
     private final RoleService roleService;
     private final ProviderService providersService;
+    private final UserSearchIndex userSearchIndex;
+    private final SearchResultCache searchResultCache;
 
     /**
      * Constructs a new instance of UserService.
@@ -44,13 +49,18 @@ public class UserService implements UserDetailsService {
      * @param passwordEncoder the password encoder for hashing passwords
      * @param roleService the service for executing role logic
      * @param providersService the service for executing  provider logic
+     * @param userSearchIndex the resident search index over user names
+     * @param searchResultCache the cache of search results, invalidated when users are written
      */
     @Autowired
-    public UserService(UserRepository userRepository, @Lazy PasswordEncoder passwordEncoder, RoleService roleService, ProviderService providersService) {
+    public UserService(UserRepository userRepository, @Lazy PasswordEncoder passwordEncoder, RoleService roleService, ProviderService providersService,
+                       UserSearchIndex userSearchIndex, SearchResultCache searchResultCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.roleService = roleService;
         this.providersService = providersService;
+        this.userSearchIndex = userSearchIndex;
+        this.searchResultCache = searchResultCache;
     }
 
     /**
@@ -86,6 +96,8 @@ public class UserService implements UserDetailsService {
         setRole(user, AuthorityLevel.USER);
         user.setCreated(LocalDateTime.now());
         this.userRepository.save(user);
+        this.userSearchIndex.update(user);
+        this.searchResultCache.invalidate(SearchTypeEnum.USER);
         return UserMapper.INSTANCE.userToUserResponseDto(user);
     }
 
@@ -100,6 +112,8 @@ public class UserService implements UserDetailsService {
         setRole(user, AuthorityLevel.PROVIDER);
         user.setCreated(LocalDateTime.now());
         this.userRepository.save(user);
+        this.userSearchIndex.update(user);
+        this.searchResultCache.invalidate(SearchTypeEnum.USER);
         return UserMapper.INSTANCE.userToUserResponseDto(user);
     }
 
@@ -113,7 +127,10 @@ public class UserService implements UserDetailsService {
     public UserResponseDto updateUser(int id, UserUpdateDto userUpdateDto) {
         User user = findUserById(id);
         UserMapper.INSTANCE.updateUserFromDto(userUpdateDto, user);
+        user.setUpdated(LocalDateTime.now());
         userRepository.save(user);
+        this.userSearchIndex.update(user);
+        this.searchResultCache.invalidate(SearchTypeEnum.USER);
         log.info("User was updated successfully with ID: {}", id);
         return UserMapper.INSTANCE.userToUserResponseDto(user);
     }
@@ -137,6 +154,7 @@ public class UserService implements UserDetailsService {
         }
 
         this.userRepository.save(user);
+        this.searchResultCache.invalidate(SearchTypeEnum.USER);
         log.info("User was updated successfully with ID: {}", userId);
         return UserMapper.INSTANCE.userToUserResponseDto(user);
     }
@@ -166,7 +184,10 @@ public class UserService implements UserDetailsService {
     public UserResponseDto softDeleteUser(int id) {
         User user = findUserById(id);
         user.setDeleted(true);
+        user.setUpdated(LocalDateTime.now());
         this.userRepository.save(user);
+        this.userSearchIndex.update(user);
+        this.searchResultCache.invalidate(SearchTypeEnum.USER);
         log.info("User marked as deleted with ID: {}", id);
         return UserMapper.INSTANCE.userToUserResponseDto(user);
     }
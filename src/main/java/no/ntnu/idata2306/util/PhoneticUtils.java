@@ -0,0 +1,274 @@
+package no.ntnu.idata2306.util;
+
+/**
+ * Utility class for encoding names to phonetic keys, so names that sound alike get the same key,
+ * e.g. "Jon" and "John", or "Kristiansen" and "Christiansen".
+ *
+ * The encoding is a simplified Metaphone-style encoding, with only a small subset of the rules of Double Metaphone
+ * and not meant to match its keys: vowels are only kept as the first letter, where they are all encoded as "A",
+ * consonants are mapped to the code of their sound, and adjacent consonants with the same code give one code.
+ * Letters with two likely sounds give a primary and an alternate key. The rules are adapted to Nordic names:
+ * <ul>
+ *   <li>"kj", "tj", "sj", "skj", "sch" and "sh" are encoded as the sh sound "X", as are "k" and "sk" before "i" or "y",
+ *   with "K" as alternate.</li>
+ *   <li>"g" before "e", "i" or "y" at the start of a name is encoded as "J", with "K" as alternate, as in "Geir",
+ *   and "gj" is encoded as "J".</li>
+ *   <li>"ch" is encoded as "K", as in "Christian", with "X" as alternate.</li>
+ *   <li>"d" after "l", "n" or "r" at the end of a name is silent, with "T" as alternate, as in "Sigurd".</li>
+ *   <li>"h" is only encoded before a vowel at the start of a name, so "hj" and "hv" are encoded as "j" and "v".</li>
+ *   <li>"v" and "w" are both encoded as "F", and "b" and "p", "d" and "t", "c", "g", "k" and "q" share a code.</li>
+ * </ul>
+ * The words are expected to be normalized with {@link no.ntnu.idata2306.index.SearchIndex#normalize(String)},
+ * so "å", "ø" and "æ" have already been folded to "a", "o" and "ae".
+ */
+public class PhoneticUtils {
+
+    // Maximum number of codes in a key, longer names are cut off
+    private static final int MAX_KEY_LENGTH = 6;
+
+    /**
+     * Encodes a word to its primary and alternate phonetic key.
+     *
+     * @param word the normalized word.
+     * @return the primary key followed by the alternate key, or only the primary key if both are the same.
+     *         Empty if the word has no letters.
+     */
+    public static String[] encode(String word) {
+        Keys keys = new Keys();
+        int length = word.length();
+        int i = 0;
+        while (i < length && !Character.isLetter(word.charAt(i))) {
+            i++;
+        }
+        if (i < length && isVowel(word.charAt(i))) {
+            keys.add("A");
+            i++;
+        }
+        while (i < length && !keys.isFull()) {
+            i += encodeAt(word, i, word.charAt(i), isStart(word, i), keys);
+        }
+        return keys.toArray();
+    }
+
+    /**
+     * Encodes the letter at a position, and the letters forming one sound with it.
+     *
+     * @return the number of letters encoded.
+     */
+    private static int encodeAt(String word, int i, char c, boolean start, Keys keys) {
+        char next = charAt(word, i + 1);
+        switch (c) {
+            case 'a', 'e', 'i', 'o', 'u', 'y' -> {
+                keys.separate();
+                return 1;
+            }
+            case 'b', 'p' -> {
+                if (c == 'p' && next == 'h') {
+                    keys.add("F");
+                    return 2;
+                }
+                keys.add("P");
+                return 1;
+            }
+            case 'c' -> {
+                if (next == 'h') {
+                    keys.add("K", "X");
+                    return 2;
+                }
+                if (next == 'k') {
+                    keys.add("K");
+                    return 2;
+                }
+                keys.add(isFrontVowel(next) ? "S" : "K");
+                return 1;
+            }
+            case 'd', 't' -> {
+                if (c == 't' && next == 'j') {
+                    keys.add("X", "TJ");
+                    return 2;
+                }
+                if (c == 't' && next == 'z') {
+                    keys.add("S");
+                    return 2;
+                }
+                if (c == 'd' && i == word.length() - 1 && isOneOf(charAt(word, i - 1), "lnr")) {
+                    keys.add("", "T");
+                    return 1;
+                }
+                keys.add("T");
+                return 1;
+            }
+            case 'f', 'v', 'w' -> {
+                keys.add("F");
+                return 1;
+            }
+            case 'g' -> {
+                if (next == 'j') {
+                    keys.add("J");
+                    return 2;
+                }
+                if (start && (isFrontVowel(next) || next == 'e')) {
+                    keys.add("J", "K");
+                    return 1;
+                }
+                keys.add("K");
+                return 1;
+            }
+            case 'h' -> {
+                if (start && isVowel(next)) {
+                    keys.add("H");
+                }
+                return 1;
+            }
+            case 'j' -> {
+                keys.add("J");
+                return 1;
+            }
+            case 'k', 'q' -> {
+                if (next == 'j') {
+                    keys.add("X", "K");
+                    return 2;
+                }
+                if (start && isFrontVowel(next)) {
+                    keys.add("X", "K");
+                    return 1;
+                }
+                keys.add("K");
+                return 1;
+            }
+            case 'l' -> {
+                keys.add("L");
+                return 1;
+            }
+            case 'm' -> {
+                keys.add("M");
+                return 1;
+            }
+            case 'n' -> {
+                keys.add("N");
+                return next == 'g' ? 2 : 1;
+            }
+            case 'r' -> {
+                keys.add("R");
+                return 1;
+            }
+            case 's' -> {
+                return encodeS(word, i, next, keys);
+            }
+            case 'x' -> {
+                keys.add("KS");
+                return 1;
+            }
+            case 'z' -> {
+                keys.add("S");
+                return 1;
+            }
+            default -> {
+                return 1;
+            }
+        }
+    }
+
+    /**
+     * Encodes an "s" and the letters forming the sh sound with it.
+     *
+     * @return the number of letters encoded.
+     */
+    private static int encodeS(String word, int i, char next, Keys keys) {
+        char afterNext = charAt(word, i + 2);
+        if (next == 'c' && afterNext == 'h' || next == 'k' && afterNext == 'j') {
+            keys.add("X");
+            return 3;
+        }
+        if (next == 'j' || next == 'h') {
+            keys.add("X");
+            return 2;
+        }
+        if (next == 'k' && isFrontVowel(afterNext)) {
+            keys.add("X", "SK");
+            return 2;
+        }
+        keys.add("S");
+        return 1;
+    }
+
+    /**
+     * Checks if a position is the first letter of the word, ignoring leading characters that are not letters.
+     */
+    private static boolean isStart(String word, int i) {
+        for (int j = 0; j < i; j++) {
+            if (Character.isLetter(word.charAt(j))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVowel(char c) {
+        return isOneOf(c, "aeiouy");
+    }
+
+    private static boolean isFrontVowel(char c) {
+        return c == 'i' || c == 'y';
+    }
+
+    private static boolean isOneOf(char c, String characters) {
+        return c != 0 && characters.indexOf(c) >= 0;
+    }
+
+    private static char charAt(String word, int i) {
+        return i >= 0 && i < word.length() ? word.charAt(i) : 0;
+    }
+
+    /**
+     * The primary and alternate key of a word while it is encoded.
+     * Codes equal to the last code of a key are not appended unless a vowel came between them,
+     * so double consonants and consonants sharing a code, e.g. "dt", give one code.
+     */
+    private static final class Keys {
+        private final StringBuilder primary = new StringBuilder(MAX_KEY_LENGTH);
+        private final StringBuilder alternate = new StringBuilder(MAX_KEY_LENGTH);
+        private boolean separated;
+
+        private void add(String code) {
+            add(code, code);
+        }
+
+        private void add(String primaryCode, String alternateCode) {
+            append(primary, primaryCode);
+            append(alternate, alternateCode);
+            separated = false;
+        }
+
+        private void separate() {
+            separated = true;
+        }
+
+        private void append(StringBuilder key, String code) {
+            for (int i = 0; i < code.length(); i++) {
+                char c = code.charAt(i);
+                if (separated || key.isEmpty() || key.charAt(key.length() - 1) != c) {
+                    key.append(c);
+                }
+            }
+        }
+
+        private boolean isFull() {
+            return primary.length() >= MAX_KEY_LENGTH && alternate.length() >= MAX_KEY_LENGTH;
+        }
+
+        private String[] toArray() {
+            String primaryKey = primary.substring(0, Math.min(MAX_KEY_LENGTH, primary.length()));
+            String alternateKey = alternate.substring(0, Math.min(MAX_KEY_LENGTH, alternate.length()));
+            if (primaryKey.isEmpty()) {
+                return alternateKey.isEmpty() ? new String[0] : new String[]{alternateKey};
+            }
+            return primaryKey.equals(alternateKey) || alternateKey.isEmpty()
+                    ? new String[]{primaryKey}
+                    : new String[]{primaryKey, alternateKey};
+        }
+    }
+
+    private PhoneticUtils() {
+    }
+}
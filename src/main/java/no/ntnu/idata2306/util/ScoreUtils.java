@@ -1,8 +1,6 @@
 package no.ntnu.idata2306.util;
 
-import no.ntnu.idata2306.dto.LevenshteinDto;
-
-import java.util.List;
+import no.ntnu.idata2306.index.SearchDocument;
 
 /**
  * Utility class for scoring calculations.
@@ -28,64 +26,52 @@ public class ScoreUtils {
     }
 
     /**
-     * Calculates the similarity score between a list of words and a search term.
+     * Calculates the similarity score between the search document of an entity and the search document of a query.
      * This method:
      * 1. Assigns full scores to exact matches
      * 2. Handles phrase order variations with appropriate scoring
      * 3. Provides partial scores for misspelled words
      * 4. Treats all words equally regardless of length
+     * Both documents are already normalized and split into words, so no strings are created per candidate.
      *
-     * @param correctWords the list of words to compare against (e.g., from database items).
-     * @param searchWords the list of words from the search term.
+     * @param document the search document of the entity to compare against (e.g., from database items).
+     * @param query the search document of the search term.
      * @return the similarity score as a percentage.
      */
-    public static double calculateSimilarityScore(List<String> correctWords, List<String> searchWords) {
-        if (correctWords.isEmpty() || searchWords.isEmpty()) {
+    public static double calculateSimilarityScore(SearchDocument document, SearchDocument query) {
+        if (document.isEmpty() || query.isEmpty()) {
             return 0.0;
         }
-        
-        List<String> correctLowercase = correctWords.stream()
-            .map(String::toLowerCase)
-            .toList();
-        
-        List<String> searchLowercase = searchWords.stream()
-            .map(String::toLowerCase)
-            .toList();
-        
-        String correctPhrase = String.join(" ", correctLowercase);
-        String searchPhrase = String.join(" ", searchLowercase);
-        
-        if (correctPhrase.equalsIgnoreCase(searchPhrase)) {
+
+        String correctPhrase = document.getText();
+        String searchPhrase = query.getText();
+
+        if (correctPhrase.equals(searchPhrase)) {
             return 100.0;  // Perfect match gets full score
         }
-        
-        if (correctLowercase.size() == 1 && searchLowercase.size() == 1) {
-            String correctWord = correctLowercase.getFirst();
-            String searchWord = searchLowercase.getFirst();
-            
+
+        if (document.wordCount() == 1 && query.wordCount() == 1) {
             // For single words, use Levenshtein distance directly
-            LevenshteinDto dto = StringUtils.damerauLevenshteinDistance(correctWord, searchWord);
-            int maxLength = Math.max(correctWord.length(), searchWord.length());
-            return normalizeScore(dto.getDistance(), maxLength);
+            int distance = StringUtils.distance(correctPhrase, searchPhrase);
+            int maxLength = Math.max(document.length(), query.length());
+            return normalizeScore(distance, maxLength);
         }
 
         // 40% weight for whole phrase comparison (preserves order and completeness)
-        LevenshteinDto phraseDto = StringUtils.damerauLevenshteinDistance(correctPhrase, searchPhrase);
-        int phraseMaxLength = Math.max(correctPhrase.length(), searchPhrase.length());
-        double phraseScore = normalizeScore(phraseDto.getDistance(), phraseMaxLength);
-        
+        int phraseDistance = StringUtils.distance(correctPhrase, searchPhrase);
+        int phraseMaxLength = Math.max(document.length(), query.length());
+        double phraseScore = normalizeScore(phraseDistance, phraseMaxLength);
+
         // 60% weight for word-by-word comparison (handles word order differences)
-        double wordByWordScore = calculateWordMatchScore(
-            correctLowercase.toArray(new String[0]), 
-            searchLowercase.toArray(new String[0])
-        );
-        
+        double wordByWordScore = calculateWordMatchScore(document.getWords(), query.getWords());
+
         return (0.4 * phraseScore) + (0.6 * wordByWordScore);
     }
     
     /**
      * Calculates match score between two word sets regardless of order.
      * Treats all words equally without filtering by length or using thresholds.
+     * The matched words are tracked in a bit mask, and only phrases of more than 64 words need an array.
      * 
      * @param correctWords array of words from the correct phrase
      * @param searchWords array of words from the search phrase
@@ -97,7 +83,8 @@ public class ScoreUtils {
         }
         
         double totalScore = 0;
-        boolean[] matchedCorrect = new boolean[correctWords.length];
+        long matchedMask = 0L;
+        boolean[] matchedCorrect = correctWords.length > Long.SIZE ? new boolean[correctWords.length] : null;
         
         for (String searchWord : searchWords) {
             double bestMatchScore = 0;
@@ -107,7 +94,8 @@ public class ScoreUtils {
             int j = 0;
             boolean searching = true;
             while (searching && j < correctWords.length) {
-                if (!matchedCorrect[j]) { // Only process unmatched words
+                boolean matched = matchedCorrect != null ? matchedCorrect[j] : (matchedMask & (1L << j)) != 0;
+                if (!matched) { // Only process unmatched words
                     double score;
                     if (searchWord.equals(correctWords[j])) {
                         // Exact matches get full score
@@ -132,7 +120,11 @@ public class ScoreUtils {
             
             // Mark best match as used if found
             if (bestMatchIndex >= 0) {
-                matchedCorrect[bestMatchIndex] = true;
+                if (matchedCorrect != null) {
+                    matchedCorrect[bestMatchIndex] = true;
+                } else {
+                    matchedMask |= 1L << bestMatchIndex;
+                }
             }
         }
         return totalScore / searchWords.length;
@@ -156,9 +148,9 @@ public class ScoreUtils {
             return (minLength / (double) maxLength) * 95;
         }
 
-        LevenshteinDto dto = StringUtils.damerauLevenshteinDistance(word1, word2);
+        int distance = StringUtils.distance(word1, word2);
         int maxLength = Math.max(word1.length(), word2.length());
-        return normalizeScore(dto.getDistance(), maxLength);
+        return normalizeScore(distance, maxLength);
     }
 
     private ScoreUtils(){}
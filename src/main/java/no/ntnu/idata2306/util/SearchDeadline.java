@@ -0,0 +1,81 @@
+package no.ntnu.idata2306.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SearchDeadline is the time budget of a search. The stages of a search check it before and while doing their work,
+ * and stop once it has expired, so the search returns the best results found so far instead of running to the end.
+ *
+ * A deadline remembers that it stopped a stage, so the caller can flag the results as partial.
+ * It may be shared by searches running concurrently, e.g. the parts of a multi parameter search.
+ */
+public final class SearchDeadline {
+
+    private static final SearchDeadline NONE = new SearchDeadline(0, false);
+
+    private final long expiresAt;
+    private final boolean bounded;
+    private volatile boolean expired;
+
+    private SearchDeadline(long expiresAt, boolean bounded) {
+        this.expiresAt = expiresAt;
+        this.bounded = bounded;
+    }
+
+    /**
+     * Returns a deadline that never expires.
+     *
+     * @return the unbounded deadline.
+     */
+    public static SearchDeadline none() {
+        return NONE;
+    }
+
+    /**
+     * Returns a deadline expiring after the given budget from now.
+     *
+     * @param budgetMillis the time budget in milliseconds, 0 or less for no budget.
+     * @return the deadline.
+     */
+    public static SearchDeadline after(long budgetMillis) {
+        if (budgetMillis <= 0) {
+            return NONE;
+        }
+        return new SearchDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis), true);
+    }
+
+    /**
+     * Returns a deadline expiring at the same time as this one, which remembers on its own whether it cut a search
+     * short, e.g. for one of several searches sharing a budget.
+     *
+     * @return the copy of the deadline.
+     */
+    public SearchDeadline copy() {
+        return bounded ? new SearchDeadline(expiresAt, true) : NONE;
+    }
+
+    /**
+     * Checks if the deadline has expired. Should only be called by a stage about to do more work, which it skips
+     * if the deadline has expired, as the deadline is then remembered to have cut the search short.
+     *
+     * @return true if the deadline has expired.
+     */
+    public boolean isExpired() {
+        if (!bounded) {
+            return false;
+        }
+        if (!expired && System.nanoTime() - expiresAt >= 0) {
+            expired = true;
+        }
+        return expired;
+    }
+
+    /**
+     * Checks if a search stage stopped early because the deadline had expired.
+     *
+     * @return true if the results of the search are partial.
+     */
+    public boolean isPartial() {
+        return expired;
+    }
+}
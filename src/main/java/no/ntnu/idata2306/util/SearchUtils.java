@@ -1,26 +1,65 @@
 package no.ntnu.idata2306.util;
 
 import no.ntnu.idata2306.dto.search.ScoredItem;
-import no.ntnu.idata2306.util.datastructure.BKTree;
-import no.ntnu.idata2306.util.datastructure.BKTreeInitializer;
+import no.ntnu.idata2306.index.SearchEntry;
+import no.ntnu.idata2306.index.SearchIndex;
+import no.ntnu.idata2306.util.datastructure.TopKHeap;
 import org.springframework.data.domain.Pageable;
 
 import java.util.*;
 import java.util.function.BiFunction;
-import java.util.function.Function;
 import java.util.function.ToDoubleFunction;
-import java.util.function.ToIntFunction;
 
 /**
  * SearchUtils is a utility class that provides methods for sorting and paginating scored items.
  */
 public class SearchUtils {
 
-    // Limit for fuzzy matches during BKTree search
-    private static final int FUZZY_MATCH_LIMIT = 30;
+    // Maximum number of trigram candidates scored per search
+    private static final int TRIGRAM_CANDIDATE_LIMIT = 200;
+
+    // Maximum number of phonetic candidates scored per search
+    private static final int PHONETIC_CANDIDATE_LIMIT = 200;
+
+    // Maximum number of word candidates scored per multi-word search
+    private static final int WORD_CANDIDATE_LIMIT = 200;
+
+    // Largest edit distance the fuzzy search widens its radius to
+    public static final int MAX_FUZZY_RADIUS = 6;
+
+    // Number of query characters per allowed edit in the initial fuzzy radius
+    private static final int CHARACTERS_PER_EDIT = 4;
+
+    // Number of candidates scored between two checks of the deadline of a search
+    private static final int CANDIDATES_PER_DEADLINE_CHECK = 32;
+
+    /**
+     * Returns the initial radius of the fuzzy search for a query, i.e. the maximum edit distance of candidates.
+     * One edit is allowed for every few characters of the query, at least one and at most {@link #MAX_FUZZY_RADIUS},
+     * so short queries only match near misspellings and the BKTree can prune most of its nodes.
+     *
+     * @param queryLength the length of the normalized query.
+     * @return the initial fuzzy radius.
+     */
+    public static int initialFuzzyRadius(int queryLength) {
+        return Math.min(MAX_FUZZY_RADIUS, Math.max(1, queryLength / CHARACTERS_PER_EDIT));
+    }
+
+    /**
+     * Returns the next, wider radius of the fuzzy search, used when a search does not return enough hits.
+     * The radius doubles until it reaches {@link #MAX_FUZZY_RADIUS}.
+     *
+     * @param radius the current fuzzy radius.
+     * @return the widened radius, or the current radius if it already is the maximum.
+     */
+    public static int widenFuzzyRadius(int radius) {
+        return Math.min(MAX_FUZZY_RADIUS, radius * 2);
+    }
 
     /**
      * Sorts and paginates a list of scored items based on their scores.
+     * Only the items up to the end of the requested page are selected, with a bounded heap over the positions
+     * of the items, so the list is never sorted as a whole. Items with equal scores keep their order in the list.
      *
      * @param <T> the type of scored items.
      * @param scoredItems the list of scored items to be sorted and paginated.
@@ -28,17 +67,25 @@ public class SearchUtils {
      * @return a paginated list of scored items sorted by their scores in descending order.
      */
     public static <T extends ScoredItem> List<T> sortAndPaginate(List<T> scoredItems, Pageable pageable) {
-        scoredItems.sort(Comparator.comparingDouble(T::getScore).reversed());
-
         int totalItems = scoredItems.size();
-        int startIndex = (int) pageable.getOffset();
-        int endIndex = Math.min((startIndex + pageable.getPageSize()), totalItems);
+        long startIndex = pageable.getOffset();
 
         if (startIndex >= totalItems) {
             return Collections.emptyList();
         }
-        
-        return scoredItems.subList(startIndex, endIndex);
+
+        int endIndex = (int) Math.min(startIndex + pageable.getPageSize(), totalItems);
+        TopKHeap heap = new TopKHeap(endIndex);
+        for (int position = 0; position < totalItems; position++) {
+            heap.offer(position, scoredItems.get(position).getScore());
+        }
+
+        int[] positions = heap.drainDescending();
+        List<T> page = new ArrayList<>(endIndex - (int) startIndex);
+        for (int i = (int) startIndex; i < endIndex; i++) {
+            page.add(scoredItems.get(positions[i]));
+        }
+        return page;
     }
 
     /**
@@ -46,66 +93,138 @@ public class SearchUtils {
      * and unordered search. This method allows full control over how similarity scores are calculated.
      * 
      * The search process works as follows:
-     * A BK-Tree is initialized with the data to enable efficient fuzzy searching
+     * The resident search index is queried, so no data is loaded and no BK-Tree is built per request
      * Exact matches are identified and given the highest priority (score of 100)
-     * The BK-Tree's hybrid search is used to find and sort potential matches by similarity
+     * If the index keeps phonetic keys, the entries with words sounding like the words of the search term are scored next,
+     * and the later stages are skipped once they fill the requested page
+     * For a search term of several words, each word is matched fuzzily against the vocabulary of the index, and the
+     * entries containing all words, or else the most of them, are scored next, again skipping the later stages
+     * once the page is filled
+     * The entries sharing the most trigrams with the search term are used as candidates, which also finds entries
+     * with the words in a different order
+     * If the page is not filled yet, the fuzzy matcher of the index, a BK-Tree, a symmetric delete dictionary or a Levenshtein automaton,
+     * is used to find and sort potential matches by similarity, within a radius derived from the query length that is
+     * widened until the requested page is filled or the radius reaches the maximum of the search or of the matcher
      * For each candidate, a custom similarity score is calculated using the provided scorer function
      * Only items with scores above the threshold are included in the results are sorted by score and paginated
      *
-     * @param <T> the type of items to search for.
      * @param <S> the type of scored items.
      * @param searchTerm the search term to search for.
      * @param pageable the pagination information.
-     * @param data the data to be searched.
-     * @param extractor a function that extracts the string representation from the items.
-     * @param scorer a function that calculates the similarity score between the search term and each item.
+     * @param index the resident search index to be searched.
+     * @param scorer a function that calculates the similarity score between the search term and each entry.
      * @param threshold the score threshold to filter the results.
-     * @param uniqueIdentifierExtractor a function that extracts a unique identifier from the items.
-     * @param scorerConstructor a function that creates a scored item from the item and its score.
+     * @param scorerConstructor a function that creates a scored item from the entry and its score.
      * @return a paginated list of scored items based on the search criteria.
      */
-    public static <T, S extends ScoredItem> List<S> genericSearch(
+    public static <S extends ScoredItem> List<S> genericSearch(
             String searchTerm,
             Pageable pageable,
-            List<T> data,
-            Function<T, String> extractor,
-            ToDoubleFunction<T> scorer,
+            SearchIndex index,
+            ToDoubleFunction<SearchEntry> scorer,
             double threshold,
-            ToIntFunction<T> uniqueIdentifierExtractor,
-            BiFunction<T, Double, S> scorerConstructor
+            BiFunction<SearchEntry, Double, S> scorerConstructor
     ) {
-        if (searchTerm == null || searchTerm.trim().isEmpty() || data == null || data.isEmpty()) {
+        return genericSearch(searchTerm, pageable, index, scorer, threshold, scorerConstructor, SearchDeadline.none());
+    }
+
+    /**
+     * Performs the search of {@link #genericSearch(String, Pageable, SearchIndex, ToDoubleFunction, double, BiFunction)}
+     * within a time budget.
+     * Exact matches are always collected, as they only cost a hash lookup. The later stages are skipped once the
+     * deadline has expired, the fuzzy radius is no longer widened, and candidates are no longer scored, so the best
+     * results found so far are returned and the deadline is flagged as partial.
+     * A single lookup in the fuzzy matcher of the index is not interrupted.
+     *
+     * @param <S> the type of scored items.
+     * @param searchTerm the search term to search for.
+     * @param pageable the pagination information.
+     * @param index the resident search index to be searched.
+     * @param scorer a function that calculates the similarity score between the search term and each entry.
+     * @param threshold the score threshold to filter the results.
+     * @param scorerConstructor a function that creates a scored item from the entry and its score.
+     * @param deadline the time budget of the search.
+     * @return a paginated list of scored items based on the search criteria.
+     */
+    public static <S extends ScoredItem> List<S> genericSearch(
+            String searchTerm,
+            Pageable pageable,
+            SearchIndex index,
+            ToDoubleFunction<SearchEntry> scorer,
+            double threshold,
+            BiFunction<SearchEntry, Double, S> scorerConstructor,
+            SearchDeadline deadline
+    ) {
+        if (searchTerm == null || searchTerm.trim().isEmpty() || index == null || index.size() == 0) {
             return Collections.emptyList();
         }
         
-        String normalizedSearchTerm = searchTerm.toLowerCase().trim();
+        String normalizedSearchTerm = SearchIndex.normalize(searchTerm);
         List<S> scoredItems = new ArrayList<>();
         Set<Integer> uniqueIdentifiers = new HashSet<>();
         
         // Direct search for exact matches
         boolean foundExactMatch = findExactMatches(
-            data, 
+            index, 
             normalizedSearchTerm, 
-            extractor, 
-            uniqueIdentifierExtractor, 
             scorerConstructor, 
             scoredItems, 
             uniqueIdentifiers
         );
         
-        // If we didn't find exact matches, try fuzzy search through the BKTree
-        if (!foundExactMatch || scoredItems.size() < pageable.getPageSize()) {
-            // Use BK-Tree hybrid search for fuzzy search
-            fuzzyMatchWithBKTree(
-                data,
+        // Score the candidates sounding like the search term, if the index keeps phonetic keys
+        long requiredItems = pageable.getOffset() + pageable.getPageSize();
+        if (index.hasPhoneticKeys() && scoredItems.size() < requiredItems && !deadline.isExpired()) {
+            scoreCandidates(
+                index.findPhoneticCandidates(normalizedSearchTerm, PHONETIC_CANDIDATE_LIMIT),
+                scorer,
+                threshold,
+                scorerConstructor,
+                scoredItems,
+                uniqueIdentifiers,
+                deadline
+            );
+        }
+
+        // Score the candidates matching the words of a multi-word search term one by one
+        if (normalizedSearchTerm.indexOf(' ') >= 0 && scoredItems.size() < requiredItems && !deadline.isExpired()) {
+            scoreCandidates(
+                index.findWordCandidates(normalizedSearchTerm, WORD_CANDIDATE_LIMIT),
+                scorer,
+                threshold,
+                scorerConstructor,
+                scoredItems,
+                uniqueIdentifiers,
+                deadline
+            );
+        }
+        boolean pageFilled = scoredItems.size() >= requiredItems;
+
+        // If we didn't find exact matches, score the candidates sharing the most trigrams with the search term
+        if (!pageFilled && (!foundExactMatch || scoredItems.size() < pageable.getPageSize()) && !deadline.isExpired()) {
+            scoreCandidates(
+                index.findTrigramCandidates(normalizedSearchTerm, TRIGRAM_CANDIDATE_LIMIT),
+                scorer,
+                threshold,
+                scorerConstructor,
+                scoredItems,
+                uniqueIdentifiers,
+                deadline
+            );
+        }
+
+        // If the page is still not filled, try fuzzy search through the fuzzy matcher of the index
+        if (scoredItems.size() < requiredItems && !deadline.isExpired()) {
+            fuzzyMatch(
+                index,
                 normalizedSearchTerm,
-                extractor,
+                pageable,
                 scorer,
                 threshold,
-                uniqueIdentifierExtractor,
                 scorerConstructor,
                 scoredItems,
-                uniqueIdentifiers
+                uniqueIdentifiers,
+                deadline
             );
         }
         
@@ -113,90 +232,121 @@ public class SearchUtils {
     }
     
     /**
-     * Finds exact matches for the search term in the data and adds them to the scored items list.
+     * Finds exact matches for the search term in the index and adds them to the scored items list.
      * 
-     * @param data the list of items to search through
+     * @param index the search index to search through
      * @param normalizedSearchTerm the search term in normalized form
-     * @param extractor function to extract searchable text from an item
-     * @param uniqueIdentifierExtractor function to extract unique IDs from items
      * @param scorerConstructor function to create a scored item
      * @param scoredItems the list to add scored matches to
      * @param uniqueIdentifiers set of unique IDs to avoid duplicates
      * @return true if any exact matches were found
      */
-    private static <T, S extends ScoredItem> boolean findExactMatches(
-            List<T> data,
+    private static <S extends ScoredItem> boolean findExactMatches(
+            SearchIndex index,
             String normalizedSearchTerm,
-            Function<T, String> extractor,
-            ToIntFunction<T> uniqueIdentifierExtractor,
-            BiFunction<T, Double, S> scorerConstructor,
+            BiFunction<SearchEntry, Double, S> scorerConstructor,
             List<S> scoredItems,
             Set<Integer> uniqueIdentifiers
     ) {
         boolean foundMatch = false;
         
-        int i = 0;
-        while (i < data.size()) {
-            T item = data.get(i);
-            String itemText = extractor.apply(item).toLowerCase();
-            Integer uniqueIdentifier = uniqueIdentifierExtractor.applyAsInt(item);
-            
-            if (!uniqueIdentifiers.contains(uniqueIdentifier) && itemText.equalsIgnoreCase(normalizedSearchTerm)) {
+        for (SearchEntry entry : index.findExactMatches(normalizedSearchTerm)) {
+            if (uniqueIdentifiers.add(entry.getId())) {
                 // Handle exact matches - these get perfect 100 score
-                scoredItems.add(scorerConstructor.apply(item, 100.0));
-                uniqueIdentifiers.add(uniqueIdentifier);
+                scoredItems.add(scorerConstructor.apply(entry, 100.0));
                 foundMatch = true;
-
             }
-            i++;
         }
         
         return foundMatch;
     }
     
     /**
-     * Uses BKTree to find fuzzy matches for the search term in the data and adds them to the scored items list.
+     * Uses the fuzzy matcher of the index to find fuzzy matches for the search term and adds them to the scored items list.
+     * The search starts with the initial fuzzy radius of the search term and is repeated with a wider radius
+     * while the scored items cannot fill the requested page and the deadline has not expired. The radius never
+     * exceeds the largest threshold the matcher supports. Candidates are scored at most once.
      * 
-     * @param data the list of items to search through
+     * @param index the search index to search through
      * @param normalizedSearchTerm the search term in normalized form
-     * @param extractor function to extract searchable text from an item
+     * @param pageable the pagination information
      * @param scorer function to calculate similarity scores
      * @param threshold minimum score to include a result
-     * @param uniqueIdentifierExtractor function to extract unique IDs from items
      * @param scorerConstructor function to create a scored item
      * @param scoredItems the list to add scored matches to
-     * @param uniqueIdentifiers set of unique IDs to avoid duplicates
+     * @param uniqueIdentifiers set of unique IDs that have already been matched or scored
+     * @param deadline the time budget of the search
      */
-    private static <T, S extends ScoredItem> void fuzzyMatchWithBKTree(
-            List<T> data,
+    private static <S extends ScoredItem> void fuzzyMatch(
+            SearchIndex index,
             String normalizedSearchTerm,
-            Function<T, String> extractor,
-            ToDoubleFunction<T> scorer,
+            Pageable pageable,
+            ToDoubleFunction<SearchEntry> scorer,
             double threshold,
-            ToIntFunction<T> uniqueIdentifierExtractor,
-            BiFunction<T, Double, S> scorerConstructor,
+            BiFunction<SearchEntry, Double, S> scorerConstructor,
             List<S> scoredItems,
-            Set<Integer> uniqueIdentifiers
+            Set<Integer> uniqueIdentifiers,
+            SearchDeadline deadline
     ) {
-        BKTree<String> tree = BKTreeInitializer.initializeBKTree(data, extractor);
-        List<String> candidates = tree.hybridSearch(normalizedSearchTerm, FUZZY_MATCH_LIMIT);
-        
-        for (String candidate : candidates) {
-            data.stream()
-                .filter(item -> extractor.apply(item).equalsIgnoreCase(candidate))
-                .forEach(item -> {
-                    Integer uniqueIdentifier = uniqueIdentifierExtractor.applyAsInt(item);
-                    
-                    if (!uniqueIdentifiers.contains(uniqueIdentifier)) {
-                        // Apply the user-provided scoring function
-                        double score = scorer.applyAsDouble(item);
-                        
-                        if (score >= threshold) {
-                            scoredItems.add(scorerConstructor.apply(item, score));
-                            uniqueIdentifiers.add(uniqueIdentifier);
-                        }
-                    }
-                });
+        long requiredItems = pageable.getOffset() + pageable.getPageSize();
+        int maxRadius = Math.min(MAX_FUZZY_RADIUS, index.maxFuzzyThreshold());
+        int radius = Math.min(maxRadius, initialFuzzyRadius(normalizedSearchTerm.length()));
+
+        while (true) {
+            scoreCandidates(
+                index.findFuzzyCandidates(normalizedSearchTerm, radius, deadline),
+                scorer,
+                threshold,
+                scorerConstructor,
+                scoredItems,
+                uniqueIdentifiers,
+                deadline
+            );
+
+            if (scoredItems.size() >= requiredItems || radius >= maxRadius || deadline.isExpired()) {
+                return;
+            }
+            radius = Math.min(maxRadius, widenFuzzyRadius(radius));
+        }
+    }
+
+    /**
+     * Scores the candidates that have not been matched or scored yet and adds the ones reaching the threshold
+     * to the scored items list.
+     * Candidates scored below the threshold are remembered as well, so later stages skip them.
+     * Scoring stops once the deadline has expired, which is checked every few candidates.
+     *
+     * @param candidates the candidates to score
+     * @param scorer function to calculate similarity scores
+     * @param threshold minimum score to include a result
+     * @param scorerConstructor function to create a scored item
+     * @param scoredItems the list to add scored matches to
+     * @param uniqueIdentifiers set of unique IDs that have already been matched or scored
+     * @param deadline the time budget of the search
+     */
+    private static <S extends ScoredItem> void scoreCandidates(
+            List<SearchEntry> candidates,
+            ToDoubleFunction<SearchEntry> scorer,
+            double threshold,
+            BiFunction<SearchEntry, Double, S> scorerConstructor,
+            List<S> scoredItems,
+            Set<Integer> uniqueIdentifiers,
+            SearchDeadline deadline
+    ) {
+        int scored = 0;
+        for (SearchEntry candidate : candidates) {
+            if (scored % CANDIDATES_PER_DEADLINE_CHECK == 0 && deadline.isExpired()) {
+                return;
+            }
+            if (uniqueIdentifiers.add(candidate.getId())) {
+                scored++;
+                // Apply the user-provided scoring function
+                double score = scorer.applyAsDouble(candidate);
+
+                if (score >= threshold) {
+                    scoredItems.add(scorerConstructor.apply(candidate, score));
+                }
+            }
         }
     }
 
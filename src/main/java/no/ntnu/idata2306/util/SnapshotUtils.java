@@ -0,0 +1,124 @@
+package no.ntnu.idata2306.util;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Utility class for writing the values of a snapshot of the search structures with a {@link DataOutput},
+ * and reading them back from a {@link ByteBuffer}, e.g. a memory mapped snapshot file.
+ *
+ * Both use big endian byte order. Strings are written as their length in bytes followed by their UTF-8 bytes,
+ * as {@link DataOutput#writeUTF(String)} is limited to 65535 bytes. Arrays are written as their length followed
+ * by their elements, so they can be read back in bulk.
+ */
+public class SnapshotUtils {
+
+    /**
+     * Writes a string as its length in bytes followed by its UTF-8 bytes.
+     *
+     * @param out the output to write to.
+     * @param value the string to write.
+     * @throws IOException if the string could not be written.
+     */
+    public static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutput, String)}.
+     *
+     * @param buffer the buffer to read from, positioned at the string.
+     * @return the string.
+     */
+    public static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the first elements of an int array, preceded by their number.
+     *
+     * @param out the output to write to.
+     * @param values the array to write from.
+     * @param length the number of elements to write.
+     * @throws IOException if the array could not be written.
+     */
+    public static void writeInts(DataOutput out, int[] values, int length) throws IOException {
+        out.writeInt(length);
+        for (int i = 0; i < length; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    /**
+     * Reads an int array written by {@link #writeInts(DataOutput, int[], int)} in bulk.
+     *
+     * @param buffer the buffer to read from, positioned at the array.
+     * @return the array.
+     */
+    public static int[] readInts(ByteBuffer buffer) {
+        int[] values = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+        return values;
+    }
+
+    /**
+     * Writes the first elements of a char array, preceded by their number.
+     * Unlike {@link #writeString(DataOutput, String)}, every char is written as it is, even half of a surrogate pair.
+     *
+     * @param out the output to write to.
+     * @param values the array to write from.
+     * @param length the number of elements to write.
+     * @throws IOException if the array could not be written.
+     */
+    public static void writeChars(DataOutput out, char[] values, int length) throws IOException {
+        out.writeInt(length);
+        for (int i = 0; i < length; i++) {
+            out.writeChar(values[i]);
+        }
+    }
+
+    /**
+     * Reads a char array written by {@link #writeChars(DataOutput, char[], int)} in bulk.
+     *
+     * @param buffer the buffer to read from, positioned at the array.
+     * @return the array.
+     */
+    public static char[] readChars(ByteBuffer buffer) {
+        char[] values = new char[buffer.getInt()];
+        buffer.asCharBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Character.BYTES);
+        return values;
+    }
+
+    /**
+     * Writes the first elements of a byte array, preceded by their number.
+     *
+     * @param out the output to write to.
+     * @param values the array to write from.
+     * @param length the number of elements to write.
+     * @throws IOException if the array could not be written.
+     */
+    public static void writeBytes(DataOutput out, byte[] values, int length) throws IOException {
+        out.writeInt(length);
+        out.write(values, 0, length);
+    }
+
+    /**
+     * Reads a byte array written by {@link #writeBytes(DataOutput, byte[], int)}.
+     *
+     * @param buffer the buffer to read from, positioned at the array.
+     * @return the array.
+     */
+    public static byte[] readBytes(ByteBuffer buffer) {
+        byte[] values = new byte[buffer.getInt()];
+        buffer.get(values);
+        return values;
+    }
+}
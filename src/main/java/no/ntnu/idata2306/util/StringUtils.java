@@ -7,6 +7,15 @@ import no.ntnu.idata2306.dto.LevenshteinDto;
  */
 public class StringUtils {
 
+    // Strings up to this length fit one bit per character in a long and use the bit-parallel kernel
+    private static final int BIT_PARALLEL_MAX_LENGTH = Long.SIZE;
+
+    // Match masks for characters below this value are kept in a lookup table, others are computed on demand
+    private static final int MATCH_MASK_TABLE_SIZE = 256;
+
+    // Reused per thread so that the bit-parallel kernel does not allocate
+    private static final ThreadLocal<long[]> MATCH_MASKS = ThreadLocal.withInitial(() -> new long[MATCH_MASK_TABLE_SIZE]);
+
     /**
      * Calculates the Levenshtein distance between two strings.
      * The Levenshtein distance is a measure of the difference between two strings.
@@ -26,12 +35,16 @@ public class StringUtils {
      *   </li>
      *   <li>The value at `dp[a.length()][b.length()]` is the Levenshtein distance between the two strings.</li>
      * </ul>
+     * When the shorter string has at most 64 characters, the bit-parallel kernel is used instead.
      *
      * @param a the first string.
      * @param b the second string.
      * @return the Levenshtein distance between the two strings.
      */
     public static int levenshteinDistance(String a, String b) {
+        if (!a.isEmpty() && !b.isEmpty() && Math.min(a.length(), b.length()) <= BIT_PARALLEL_MAX_LENGTH) {
+            return bitParallelDistance(a, b, false);
+        }
         int[][] dp = new int[a.length() + 1][b.length() + 1];
 
         for (int i = 0; i <= a.length(); i++) {
@@ -99,6 +112,238 @@ public class StringUtils {
         return new LevenshteinDto(dp[a.length()][b.length()], transpositions);
     }
 
+    /**
+     * Calculates the Damerau-Levenshtein distance between two strings without counting transpositions.
+     * Gives the same distance as {@link #damerauLevenshteinDistance(String, String)}, but only keeps
+     * three rows of the dynamic programming matrix in memory. Use this when only the distance is needed.
+     *
+     * @param a the first string.
+     * @param b the second string.
+     * @return the Damerau-Levenshtein distance between the two strings.
+     */
+    public static int distance(String a, String b) {
+        return distance(a, b, Math.max(a.length(), b.length()));
+    }
+
+    /**
+     * Calculates the Damerau-Levenshtein distance between two strings, bounded by a maximum distance.
+     * Gives the same distance as {@link #damerauLevenshteinDistance(String, String)} as long as it is
+     * at most {@code maxDistance}, but does far less work when the strings are not similar.
+     *
+     * The algorithm works as follows:
+     * <ul>
+     *   <li>If the lengths of the strings differ by more than `maxDistance`, the distance must exceed it and no rows are computed.</li>
+     *   <li>Only the diagonal band of cells `dp[i][j]` with `|i - j| <= maxDistance` is computed, since every cell outside it exceeds `maxDistance`.</li>
+     *   <li>Only three rows are kept: the current row, the previous row and the row before that, which is needed for transpositions.</li>
+     *   <li>Cell values are capped at `maxDistance + 1`, and the calculation stops as soon as every cell in a row exceeds `maxDistance`,
+     *       since the values along any path through the matrix never decrease.</li>
+     * </ul>
+     * When the shorter string has at most 64 characters, the bit-parallel kernel is used instead of the matrix.
+     *
+     * @param a the first string.
+     * @param b the second string.
+     * @param maxDistance the largest distance of interest, must not be negative.
+     * @return the Damerau-Levenshtein distance between the two strings if it is at most `maxDistance`, otherwise `maxDistance + 1`.
+     * @throws IllegalArgumentException if maxDistance is negative.
+     */
+    public static int distance(String a, String b, int maxDistance) {
+        return boundedDistance(a, b, maxDistance, true);
+    }
+
+    /**
+     * Calculates the Levenshtein distance between two strings, bounded by a maximum distance.
+     * Works as {@link #distance(String, String, int)}, but without transpositions. Unlike the
+     * Damerau-Levenshtein distance used there, the Levenshtein distance satisfies the triangle inequality,
+     * which metric data structures such as BK-trees rely on.
+     *
+     * @param a the first string.
+     * @param b the second string.
+     * @param maxDistance the largest distance of interest, must not be negative.
+     * @return the Levenshtein distance between the two strings if it is at most `maxDistance`, otherwise `maxDistance + 1`.
+     * @throws IllegalArgumentException if maxDistance is negative.
+     */
+    public static int levenshteinDistance(String a, String b, int maxDistance) {
+        return boundedDistance(a, b, maxDistance, false);
+    }
+
+    /**
+     * Calculates the edit distance between two strings, bounded by a maximum distance.
+     * See {@link #distance(String, String, int)} for how the calculation is bounded.
+     *
+     * @param a the first string.
+     * @param b the second string.
+     * @param maxDistance the largest distance of interest, must not be negative.
+     * @param transpositions whether swapping two adjacent characters counts as a single edit.
+     * @return the edit distance between the two strings if it is at most `maxDistance`, otherwise `maxDistance + 1`.
+     * @throws IllegalArgumentException if maxDistance is negative.
+     */
+    private static int boundedDistance(String a, String b, int maxDistance, boolean transpositions) {
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("The maximum distance must not be negative");
+        }
+        int m = a.length();
+        int n = b.length();
+        if (Math.abs(m - n) > maxDistance) {
+            return maxDistance + 1;
+        }
+        if (m == 0 || n == 0) {
+            return Math.max(m, n);
+        }
+        if (Math.min(m, n) <= BIT_PARALLEL_MAX_LENGTH) {
+            int distance = bitParallelDistance(a, b, transpositions);
+            return distance <= maxDistance ? distance : maxDistance + 1;
+        }
+
+        // The distance never exceeds the longest length, so a larger bound only costs time
+        int bound = Math.min(maxDistance, Math.max(m, n));
+        int outOfBound = bound + 1;
+
+        int[] beforePrevious = new int[n + 1];
+        int[] previous = new int[n + 1];
+        int[] current = new int[n + 1];
+
+        for (int j = 0; j <= n; j++) {
+            previous[j] = Math.min(j, outOfBound);
+        }
+
+        for (int i = 1; i <= m; i++) {
+            int from = Math.max(1, i - bound);
+            int to = Math.min(n, i + bound);
+
+            current[0] = Math.min(i, outOfBound);
+            if (from > 1) {
+                current[from - 1] = outOfBound;
+            }
+            int rowMinimum = from == 1 ? current[0] : outOfBound;
+
+            char charA = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                char charB = b.charAt(j - 1);
+                int cost = (charA == charB) ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost,
+                        Math.min(previous[j] + 1, current[j - 1] + 1));
+
+                if (transpositions && i > 1 && j > 1 && charA == b.charAt(j - 2) && a.charAt(i - 2) == charB) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+
+                value = Math.min(value, outOfBound);
+                current[j] = value;
+                rowMinimum = Math.min(rowMinimum, value);
+            }
+            if (to < n) {
+                current[to + 1] = outOfBound;
+            }
+
+            if (rowMinimum > bound) {
+                return maxDistance + 1;
+            }
+
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+
+        return previous[n] > bound ? maxDistance + 1 : previous[n];
+    }
+
+    /**
+     * Calculates the edit distance between two non-empty strings using the bit-parallel algorithm of Myers,
+     * with the extension of Hyyrö for transpositions. The shorter string must have at most 64 characters.
+     *
+     * The algorithm works as follows:
+     * <ul>
+     *   <li>The shorter string is the pattern. For every character, a match mask has bit `i` set if the pattern has that character at position `i`.</li>
+     *   <li>A column of the dynamic programming matrix is represented by two bit vectors holding the positive and negative
+     *       vertical differences between neighbouring cells, which is possible since neighbouring cells differ by at most one.</li>
+     *   <li>Each character of the longer string advances the column with a constant number of word operations,
+     *       and the distance is tracked through the horizontal difference in the last row.</li>
+     *   <li>For transpositions, a diagonal step two columns back is also allowed when the two characters are swapped,
+     *       which is detected from the match masks of the current and previous character.</li>
+     * </ul>
+     * The result is the same as {@link #levenshteinDistance(String, String)} without transpositions,
+     * and the same as {@link #damerauLevenshteinDistance(String, String)} with transpositions.
+     *
+     * @param a the first string.
+     * @param b the second string.
+     * @param transpositions whether swapping two adjacent characters counts as a single edit.
+     * @return the edit distance between the two strings.
+     */
+    private static int bitParallelDistance(String a, String b, boolean transpositions) {
+        String pattern = a.length() <= b.length() ? a : b;
+        String text = pattern == a ? b : a;
+        int m = pattern.length();
+
+        long[] matchMasks = MATCH_MASKS.get();
+        for (int i = 0; i < m; i++) {
+            char c = pattern.charAt(i);
+            if (c < MATCH_MASK_TABLE_SIZE) {
+                matchMasks[c] |= 1L << i;
+            }
+        }
+
+        long lastBit = 1L << (m - 1);
+        long positiveVertical = -1L;
+        long negativeVertical = 0L;
+        long previousDiagonalZero = 0L;
+        long previousMatch = 0L;
+        int distance = m;
+
+        for (int j = 0; j < text.length(); j++) {
+            long match = matchMask(pattern, text.charAt(j), matchMasks);
+            long diagonalZero = (((match & positiveVertical) + positiveVertical) ^ positiveVertical) | match | negativeVertical;
+            if (transpositions) {
+                diagonalZero |= ((~previousDiagonalZero & match) << 1) & previousMatch;
+            }
+            long positiveHorizontal = negativeVertical | ~(diagonalZero | positiveVertical);
+            long negativeHorizontal = diagonalZero & positiveVertical;
+
+            if ((positiveHorizontal & lastBit) != 0) {
+                distance++;
+            } else if ((negativeHorizontal & lastBit) != 0) {
+                distance--;
+            }
+
+            positiveHorizontal = (positiveHorizontal << 1) | 1L;
+            negativeHorizontal = negativeHorizontal << 1;
+            positiveVertical = negativeHorizontal | ~(diagonalZero | positiveHorizontal);
+            negativeVertical = positiveHorizontal & diagonalZero;
+
+            previousDiagonalZero = diagonalZero;
+            previousMatch = match;
+        }
+
+        for (int i = 0; i < m; i++) {
+            char c = pattern.charAt(i);
+            if (c < MATCH_MASK_TABLE_SIZE) {
+                matchMasks[c] = 0L;
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Returns the match mask of a character, with bit `i` set if the pattern has the character at position `i`.
+     *
+     * @param pattern the pattern of the bit-parallel kernel.
+     * @param c the character.
+     * @param matchMasks the lookup table with the match masks of the pattern's characters.
+     * @return the match mask of the character.
+     */
+    private static long matchMask(String pattern, char c, long[] matchMasks) {
+        if (c < MATCH_MASK_TABLE_SIZE) {
+            return matchMasks[c];
+        }
+        long mask = 0L;
+        for (int i = 0; i < pattern.length(); i++) {
+            if (pattern.charAt(i) == c) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
     /**
      * Converts a given string with underscores to Pascal Case with spaces.
      * Pascal Case is a naming convention in which the first letter of each word is capitalized,
@@ -75,21 +75,7 @@ public class BKTree<T> {
         
         for (            T candidate : candidates) {
             String candidateStr = candidate.toString().toLowerCase();
-            
-            // Calculate base similarity score using Damerau-Levenshtein distance
-            int distance = StringUtils.damerauLevenshteinDistance(queryStr, candidateStr).getDistance();
-            int maxLength = Math.max(queryStr.length(), candidateStr.length());
-            double similarity = (1.0 - (double)distance / maxLength) * 65; // Scale to max 65 (out of 100)
-            
-            // Exact match gets full score
-            if (queryStr.equals(candidateStr)) {
-                similarity = 100.0;
-            }
-            
-            // Cap the final score to be within a reasonable range (0-85)
-            similarity = Math.min(85.0, similarity);
-            
-            scoredCandidates.add(Map.entry(candidate, similarity));
+            scoredCandidates.add(Map.entry(candidate, hybridSimilarity(queryStr, candidateStr)));
                     }
         
         // Sort by score (descending)
@@ -104,6 +90,28 @@ public class BKTree<T> {
         return result;
     }
 
+    /**
+     * Calculates the similarity used to order the candidates of a hybrid search.
+     *
+     * @param queryStr     the lower case query.
+     * @param candidateStr the lower case candidate.
+     * @return the similarity between the query and the candidate, in the range 0-85.
+     */
+    static double hybridSimilarity(String queryStr, String candidateStr) {
+        // Calculate base similarity score using Damerau-Levenshtein distance
+        int distance = StringUtils.distance(queryStr, candidateStr);
+        int maxLength = Math.max(queryStr.length(), candidateStr.length());
+        double similarity = (1.0 - (double)distance / maxLength) * 65; // Scale to max 65 (out of 100)
+        
+        // Exact match gets full score
+        if (queryStr.equals(candidateStr)) {
+            similarity = 100.0;
+        }
+        
+        // Cap the final score to be within a reasonable range (0-85)
+        return Math.min(85.0, similarity);
+    }
+
     /**
      * Node represents a single node in the BKTree.
      * Each node contains an element and a map of children nodes, where the keys are edit distances.
@@ -111,6 +119,7 @@ public class BKTree<T> {
     private class Node {
         private final T element;
         private final Map<Integer, List<Node>> children;
+        private int maxChildDistance;
 
         /**
          * Constructs a Node with the specified element.
@@ -131,7 +140,8 @@ public class BKTree<T> {
          * @param element the element to add to the subtree.
          */
         public void add(T element) {
-            int distance = StringUtils.damerauLevenshteinDistance(this.element.toString(), element.toString()).getDistance();
+            int distance = StringUtils.distance(this.element.toString(), element.toString());
+            maxChildDistance = Math.max(maxChildDistance, distance);
             List<Node> childList = children.computeIfAbsent(distance, k -> new ArrayList<>());
             childList.add(new Node(element));
         }
@@ -139,13 +149,18 @@ public class BKTree<T> {
         /**
          * Searches for elements in the subtree rooted at this node that are within a specified edit distance from the query.
          * The search is performed recursively, considering nodes within the range of the threshold.
+         * The distance to this node is only calculated up to `threshold + maxChildDistance`, since beyond that
+         * neither this node nor any of its children can be within the threshold of the query.
          *
          * @param query     the query element to search for.
          * @param threshold the maximum edit distance allowed for matches.
          * @param results   the list to store matching elements.
          */
         public void search(T query, int threshold, List<T> results) {
-            int distance = StringUtils.damerauLevenshteinDistance(this.element.toString(), query.toString()).getDistance();
+            int distance = StringUtils.distance(this.element.toString(), query.toString(), threshold + maxChildDistance);
+            if (distance > threshold + maxChildDistance) {
+                return;
+            }
             if (distance <= threshold) {
                 results.add(this.element);
             }
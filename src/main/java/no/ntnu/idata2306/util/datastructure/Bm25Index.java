@@ -0,0 +1,521 @@
+package no.ntnu.idata2306.util.datastructure;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import no.ntnu.idata2306.index.SearchIndex;
+import no.ntnu.idata2306.util.SnapshotUtils;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Bm25Index is an in-memory inverted index over free text, ranking documents by Okapi BM25.
+ *
+ * Every document gets a slot, a number increasing in the order the documents are added. The postings list
+ * of a term stores, for every document containing the term, the difference to the previous slot and
+ * the term frequency, both as variable length integers, so most postings take two bytes.
+ * Since slots only increase, new postings are always appended at the end. Every postings list keeps a skip list
+ * with the slot and position of every 64th posting, so the term frequency of a single document is found by decoding
+ * one block instead of the whole list, which lets a few candidate documents be scored without a full search.
+ *
+ * Removed or replaced documents are marked as deleted and skipped when postings are read, and their
+ * postings are dropped when deleted slots outnumber the live ones. As in Lucene, deleted documents still count
+ * in the document frequencies until then, which only slightly changes the inverse document frequency.
+ *
+ * The index can be written to a snapshot and read back, see {@link #writeTo(DataOutput)}, with the encoded postings
+ * lists copied as they are instead of tokenizing the documents again.
+ *
+ * The index is not thread safe, callers must synchronize access.
+ */
+public class Bm25Index {
+
+    // Term frequency saturation and document length normalization of BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Small indexes are never compacted
+    private static final int MIN_COMPACT_SIZE = 64;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // Number of postings per block of the skip list of a postings list
+    private static final int SKIP_INTERVAL = 64;
+
+    private final Map<String, Postings> postingsByTerm = new HashMap<>();
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+    private int[] idBySlot = new int[DEFAULT_CAPACITY];
+    private int[] lengthBySlot = new int[DEFAULT_CAPACITY];
+    private BitSet deleted = new BitSet();
+    private int slotCount;
+    private long totalLength;
+
+    /**
+     * Splits a text into terms of letters and digits.
+     * The text is normalized with {@link SearchIndex#normalize(String)} first, like the search terms of the other
+     * indexes, so documents and queries are tokenized the same way whether or not the query is normalized already,
+     * e.g. "Førstehjelp" and "forstehjelp" give the same term.
+     *
+     * @param text the text to split.
+     * @return the terms of the text, in order and with repetitions.
+     */
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String term : SearchIndex.normalize(text).split("[^\\p{L}\\p{N}]+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Returns the number of documents in the index.
+     *
+     * @return the number of documents.
+     */
+    public int size() {
+        return slotById.size();
+    }
+
+    /**
+     * Adds the text of a document to the index, replacing the text previously indexed for it.
+     *
+     * @param id   the identifier of the document.
+     * @param text the text of the document.
+     */
+    public void add(int id, String text) {
+        remove(id);
+
+        List<String> terms = terms(text);
+        if (terms.isEmpty()) {
+            return;
+        }
+
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+
+        int slot = allocateSlot();
+        idBySlot[slot] = id;
+        lengthBySlot[slot] = terms.size();
+        slotById.put(id, slot);
+        totalLength += terms.size();
+        for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+            postingsByTerm.computeIfAbsent(frequency.getKey(), term -> new Postings())
+                    .append(slot, frequency.getValue());
+        }
+    }
+
+    /**
+     * Removes a document from the index, if present.
+     *
+     * @param id the identifier of the document.
+     */
+    public void remove(int id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        deleted.set(slot);
+        totalLength -= lengthBySlot[slot];
+        if (slotCount > MIN_COMPACT_SIZE && deleted.cardinality() > slotById.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Removes all documents from the index.
+     */
+    public void clear() {
+        postingsByTerm.clear();
+        slotById.clear();
+        idBySlot = new int[DEFAULT_CAPACITY];
+        lengthBySlot = new int[DEFAULT_CAPACITY];
+        deleted = new BitSet();
+        slotCount = 0;
+        totalLength = 0;
+    }
+
+    /**
+     * Writes the content of the index to a snapshot: the slots with their document IDs and lengths, the deleted slots,
+     * and the encoded postings list and skip list of every term.
+     *
+     * @param out the output to write to.
+     * @throws IOException if the index could not be written.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        SnapshotUtils.writeInts(out, idBySlot, slotCount);
+        SnapshotUtils.writeInts(out, lengthBySlot, slotCount);
+        int[] deletedSlots = deleted.stream().toArray();
+        SnapshotUtils.writeInts(out, deletedSlots, deletedSlots.length);
+        out.writeInt(postingsByTerm.size());
+        for (Map.Entry<String, Postings> postings : postingsByTerm.entrySet()) {
+            SnapshotUtils.writeString(out, postings.getKey());
+            postings.getValue().writeTo(out);
+        }
+    }
+
+    /**
+     * Replaces the content of the index with a snapshot written by {@link #writeTo(DataOutput)}.
+     * The document of every slot that is not deleted is looked up by its ID again, and counts in the total length.
+     *
+     * @param buffer the buffer to read from, positioned at the snapshot of the index.
+     */
+    public void readFrom(ByteBuffer buffer) {
+        clear();
+        int[] ids = SnapshotUtils.readInts(buffer);
+        int[] lengths = SnapshotUtils.readInts(buffer);
+        slotCount = ids.length;
+        idBySlot = Arrays.copyOf(ids, Math.max(slotCount, DEFAULT_CAPACITY));
+        lengthBySlot = Arrays.copyOf(lengths, idBySlot.length);
+        for (int slot : SnapshotUtils.readInts(buffer)) {
+            deleted.set(slot);
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (!deleted.get(slot)) {
+                slotById.put(idBySlot[slot], slot);
+                totalLength += lengthBySlot[slot];
+            }
+        }
+        int termCount = buffer.getInt();
+        for (int i = 0; i < termCount; i++) {
+            String term = SnapshotUtils.readString(buffer);
+            postingsByTerm.put(term, Postings.readFrom(buffer));
+        }
+    }
+
+    /**
+     * Finds the documents containing any of the terms of the query, ranked by their BM25 score.
+     *
+     * @param query the query.
+     * @param limit the maximum number of hits to return.
+     * @return the hits, the highest scoring first.
+     */
+    public List<Hit> search(String query, int limit) {
+        if (limit <= 0 || slotById.isEmpty()) {
+            return List.of();
+        }
+
+        double averageLength = (double) totalLength / slotById.size();
+        double[] scores = new double[slotCount];
+        int[] touched = new int[DEFAULT_CAPACITY];
+        int touchedCount = 0;
+
+        for (String term : new LinkedHashSet<>(terms(query))) {
+            Postings postings = postingsByTerm.get(term);
+            if (postings == null) {
+                continue;
+            }
+
+            double idf = Math.log(1 + (slotCount - postings.documentCount + 0.5) / (postings.documentCount + 0.5));
+            int slot = 0;
+            int position = 0;
+            while (position < postings.length) {
+                long slotDelta = readVarint(postings.data, position);
+                position = (int) (slotDelta >>> Integer.SIZE);
+                slot += (int) slotDelta;
+                long frequency = readVarint(postings.data, position);
+                position = (int) (frequency >>> Integer.SIZE);
+                if (deleted.get(slot)) {
+                    continue;
+                }
+
+                int termFrequency = (int) frequency;
+                double lengthNorm = 1 - B + B * lengthBySlot[slot] / averageLength;
+                if (scores[slot] == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = slot;
+                }
+                scores[slot] += idf * termFrequency * (K1 + 1) / (termFrequency + K1 * lengthNorm);
+            }
+        }
+
+        TopKHeap heap = new TopKHeap(Math.min(limit, touchedCount));
+        for (int i = 0; i < touchedCount; i++) {
+            heap.offer(touched[i], scores[touched[i]]);
+        }
+
+        int[] topSlots = heap.drainDescending();
+        List<Hit> hits = new ArrayList<>(topSlots.length);
+        for (int slot : topSlots) {
+            hits.add(new Hit(idBySlot[slot], scores[slot]));
+        }
+        return hits;
+    }
+
+    /**
+     * Prepares a query for scoring single documents with {@link #score(Query, int)}.
+     *
+     * @param query the query.
+     * @return the prepared query.
+     */
+    public Query prepare(String query) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(terms(query)));
+        double[] idfs = new double[terms.size()];
+        double maxScore = 0;
+        for (int i = 0; i < terms.size(); i++) {
+            Postings postings = postingsByTerm.get(terms.get(i));
+            if (postings != null) {
+                idfs[i] = Math.log(1 + (slotCount - postings.documentCount + 0.5) / (postings.documentCount + 0.5));
+                maxScore += idfs[i] * (K1 + 1);
+            }
+        }
+        return new Query(terms.toArray(new String[0]), idfs, maxScore);
+    }
+
+    /**
+     * Calculates the BM25 score of a single document for a prepared query, the same score {@link #search(String, int)}
+     * gives it. Only the blocks of the postings lists that can contain the document are decoded.
+     *
+     * @param query the query prepared by {@link #prepare(String)}.
+     * @param id the identifier of the document.
+     * @return the score of the document, 0 if it is not in the index or contains none of the terms of the query.
+     */
+    public double score(Query query, int id) {
+        Integer slot = slotById.get(id);
+        if (slot == null) {
+            return 0;
+        }
+
+        double averageLength = (double) totalLength / slotById.size();
+        double lengthNorm = 1 - B + B * lengthBySlot[slot] / averageLength;
+        double score = 0;
+        for (int i = 0; i < query.terms.length; i++) {
+            Postings postings = postingsByTerm.get(query.terms[i]);
+            int termFrequency = postings != null ? postings.termFrequency(slot) : 0;
+            if (termFrequency > 0) {
+                score += query.idfs[i] * termFrequency * (K1 + 1) / (termFrequency + K1 * lengthNorm);
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Appends a new slot, growing the slot arrays if they are full.
+     *
+     * @return the slot.
+     */
+    private int allocateSlot() {
+        if (slotCount == idBySlot.length) {
+            int capacity = idBySlot.length * 2;
+            idBySlot = Arrays.copyOf(idBySlot, capacity);
+            lengthBySlot = Arrays.copyOf(lengthBySlot, capacity);
+        }
+        return slotCount++;
+    }
+
+    /**
+     * Drops the deleted documents and renumbers the remaining slots without gaps.
+     * The slots keep their order, so the postings lists are re-encoded in a single pass each.
+     */
+    private void compact() {
+        int[] newSlots = new int[slotCount];
+        int liveCount = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (deleted.get(slot)) {
+                newSlots[slot] = -1;
+            } else {
+                newSlots[slot] = liveCount;
+                idBySlot[liveCount] = idBySlot[slot];
+                lengthBySlot[liveCount] = lengthBySlot[slot];
+                slotById.put(idBySlot[liveCount], liveCount);
+                liveCount++;
+            }
+        }
+
+        Iterator<Postings> iterator = postingsByTerm.values().iterator();
+        while (iterator.hasNext()) {
+            Postings postings = iterator.next();
+            Postings compacted = new Postings();
+            int slot = 0;
+            int position = 0;
+            while (position < postings.length) {
+                long slotDelta = readVarint(postings.data, position);
+                position = (int) (slotDelta >>> Integer.SIZE);
+                slot += (int) slotDelta;
+                long frequency = readVarint(postings.data, position);
+                position = (int) (frequency >>> Integer.SIZE);
+                if (newSlots[slot] >= 0) {
+                    compacted.append(newSlots[slot], (int) frequency);
+                }
+            }
+            if (compacted.documentCount == 0) {
+                iterator.remove();
+            } else {
+                postings.replaceWith(compacted);
+            }
+        }
+
+        deleted = new BitSet();
+        slotCount = liveCount;
+    }
+
+    /**
+     * Reads a variable length integer of up to 32 bits, stored as groups of 7 bits with the lowest group first.
+     *
+     * @param data     the encoded data.
+     * @param position the position of the first byte of the integer.
+     * @return the position after the integer in the high 32 bits and the integer in the low 32 bits.
+     */
+    private static long readVarint(byte[] data, int position) {
+        int value = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = data[position++];
+            value |= (current & 0x7F) << shift;
+            shift += 7;
+        } while (current < 0);
+        return ((long) position << Integer.SIZE) | (value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A document matching a query, with its BM25 score.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Hit {
+        private final int id;
+        private final double score;
+    }
+
+    /**
+     * A query prepared for scoring single documents, with its distinct terms and their inverse document frequencies
+     * at the time it was prepared.
+     */
+    public static class Query {
+        private final String[] terms;
+        private final double[] idfs;
+
+        // Score a document would get with infinitely many occurrences of every term of the query
+        @Getter
+        private final double maxScore;
+
+        private Query(String[] terms, double[] idfs, double maxScore) {
+            this.terms = terms;
+            this.idfs = idfs;
+            this.maxScore = maxScore;
+        }
+    }
+
+    /**
+     * The delta and variable length encoded postings list of a term, with a skip list over its blocks.
+     * Block {@code k + 1} starts at posting {@code (k + 1) * SKIP_INTERVAL}, at byte {@code skipPositions[k]},
+     * with slot {@code skipSlots[k]}, and its first delta is relative to slot {@code skipBases[k]}.
+     */
+    private static class Postings {
+        private byte[] data = new byte[DEFAULT_CAPACITY];
+        private int length;
+        private int lastSlot;
+        private int documentCount;
+        private int[] skipSlots = new int[0];
+        private int[] skipBases = new int[0];
+        private int[] skipPositions = new int[0];
+        private int skipCount;
+
+        private void append(int slot, int termFrequency) {
+            if (documentCount > 0 && documentCount % SKIP_INTERVAL == 0) {
+                addSkip(slot);
+            }
+            writeVarint(slot - lastSlot);
+            writeVarint(termFrequency);
+            lastSlot = slot;
+            documentCount++;
+        }
+
+        private void addSkip(int slot) {
+            if (skipCount == skipSlots.length) {
+                int capacity = Math.max(skipCount * 2, 4);
+                skipSlots = Arrays.copyOf(skipSlots, capacity);
+                skipBases = Arrays.copyOf(skipBases, capacity);
+                skipPositions = Arrays.copyOf(skipPositions, capacity);
+            }
+            skipSlots[skipCount] = slot;
+            skipBases[skipCount] = lastSlot;
+            skipPositions[skipCount] = length;
+            skipCount++;
+        }
+
+        /**
+         * Finds the term frequency of a slot by decoding the only block that can contain it.
+         */
+        private int termFrequency(int slot) {
+            int low = 0;
+            int high = skipCount - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (skipSlots[middle] <= slot) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            int block = low - 1;
+            int position = block < 0 ? 0 : skipPositions[block];
+            int current = block < 0 ? 0 : skipBases[block];
+            int end = block + 1 < skipCount ? skipPositions[block + 1] : length;
+            while (position < end) {
+                long slotDelta = readVarint(data, position);
+                position = (int) (slotDelta >>> Integer.SIZE);
+                current += (int) slotDelta;
+                long frequency = readVarint(data, position);
+                position = (int) (frequency >>> Integer.SIZE);
+                if (current >= slot) {
+                    return current == slot ? (int) frequency : 0;
+                }
+            }
+            return 0;
+        }
+
+        private void writeVarint(int value) {
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+            }
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+
+        private void writeTo(DataOutput out) throws IOException {
+            out.writeInt(lastSlot);
+            out.writeInt(documentCount);
+            SnapshotUtils.writeBytes(out, data, length);
+            SnapshotUtils.writeInts(out, skipSlots, skipCount);
+            SnapshotUtils.writeInts(out, skipBases, skipCount);
+            SnapshotUtils.writeInts(out, skipPositions, skipCount);
+        }
+
+        private static Postings readFrom(ByteBuffer buffer) {
+            Postings postings = new Postings();
+            postings.lastSlot = buffer.getInt();
+            postings.documentCount = buffer.getInt();
+            postings.data = SnapshotUtils.readBytes(buffer);
+            postings.length = postings.data.length;
+            postings.skipSlots = SnapshotUtils.readInts(buffer);
+            postings.skipBases = SnapshotUtils.readInts(buffer);
+            postings.skipPositions = SnapshotUtils.readInts(buffer);
+            postings.skipCount = postings.skipSlots.length;
+            return postings;
+        }
+
+        private void replaceWith(Postings other) {
+            this.data = other.data;
+            this.length = other.length;
+            this.lastSlot = other.lastSlot;
+            this.documentCount = other.documentCount;
+            this.skipSlots = other.skipSlots;
+            this.skipBases = other.skipBases;
+            this.skipPositions = other.skipPositions;
+            this.skipCount = other.skipCount;
+        }
+    }
+}
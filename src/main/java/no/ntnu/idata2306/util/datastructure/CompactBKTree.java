@@ -0,0 +1,349 @@
+package no.ntnu.idata2306.util.datastructure;
+
+import no.ntnu.idata2306.util.SearchDeadline;
+import no.ntnu.idata2306.util.SnapshotUtils;
+import no.ntnu.idata2306.util.StringUtils;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+/**
+ * CompactBKTree is a BKTree over strings that stores its nodes in flat primitive arrays instead of node objects.
+ * A node is an index into the arrays. The children of a node are kept as a linked list through the
+ * {@code firstChild} and {@code nextSibling} arrays, together with their distance to the parent,
+ * so neither boxed distances, maps nor child lists are allocated per node.
+ *
+ * The tree is organized by Levenshtein distance. The Damerau-Levenshtein distance used for scoring counts
+ * transpositions as one edit, which breaks the triangle inequality the pruning of a BK-tree relies on,
+ * so using it here could make searches miss matches.
+ *
+ * Keys are lower cased once when added, so searches compare them directly with the lower cased query.
+ * Keys are kept as Strings, which already store Latin-1 text as one byte per character and can be passed
+ * to {@link StringUtils} without copying. Each distinct key is stored once.
+ *
+ * Unlike {@link BKTree}, elements are inserted below the child at the same distance, so the tree is
+ * as deep as the data requires and a search only visits the subtrees that can contain a match.
+ *
+ * As a {@link FuzzyMatcher}, the tree finds candidates with {@link #hybridSearch(String, int)} and does not
+ * support removal.
+ *
+ * The node arrays can be written to a snapshot and read back as they are, see {@link #writeTo(DataOutput)},
+ * so a large tree is restored without computing any edit distance.
+ */
+public class CompactBKTree implements FuzzyMatcher {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int NO_NODE = -1;
+    private static final int NODES_PER_DEADLINE_CHECK = 256;
+
+    private String[] keys;
+    private int[] parentDistance;
+    private int[] maxChildDistance;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int size;
+
+    /**
+     * Constructs an empty CompactBKTree.
+     */
+    public CompactBKTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty CompactBKTree with room for the given number of keys before its arrays are grown.
+     *
+     * @param capacity the expected number of keys.
+     */
+    public CompactBKTree(int capacity) {
+        int initialCapacity = Math.max(capacity, 1);
+        this.keys = new String[initialCapacity];
+        this.parentDistance = new int[initialCapacity];
+        this.maxChildDistance = new int[initialCapacity];
+        this.firstChild = new int[initialCapacity];
+        this.nextSibling = new int[initialCapacity];
+        this.size = 0;
+    }
+
+    /**
+     * Returns the number of keys in the tree.
+     *
+     * @return the number of keys.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds an element to the tree.
+     * Starting at the root, the element descends into the child at the same edit distance until there is none,
+     * and is then added as a new child at that distance. Elements already in the tree are ignored.
+     *
+     * @param element the element to add.
+     */
+    @Override
+    public void add(String element) {
+        String key = element.toLowerCase();
+        if (size == 0) {
+            newNode(key, 0);
+            return;
+        }
+
+        int node = 0;
+        while (true) {
+            int distance = StringUtils.levenshteinDistance(keys[node], key);
+            if (distance == 0) {
+                return;
+            }
+            int child = findChild(node, distance);
+            if (child == NO_NODE) {
+                int created = newNode(key, distance);
+                nextSibling[created] = firstChild[node];
+                firstChild[node] = created;
+                maxChildDistance[node] = Math.max(maxChildDistance[node], distance);
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Searches for elements that are within a specified Levenshtein distance from the query.
+     *
+     * @param query     the query to search for.
+     * @param threshold the maximum edit distance allowed for matches.
+     * @return a list of the lower cased elements that are within the specified edit distance from the query.
+     */
+    public List<String> search(String query, int threshold) {
+        return search(query, threshold, SearchDeadline.none());
+    }
+
+    /**
+     * Searches for elements that are within a specified Levenshtein distance from the query,
+     * stopping once the deadline has expired.
+     *
+     * @param query     the query to search for.
+     * @param threshold the maximum edit distance allowed for matches.
+     * @param deadline  the time budget of the search, checked every few hundred nodes.
+     * @return a list of the lower cased elements within the distance found before the deadline expired.
+     */
+    public List<String> search(String query, int threshold, SearchDeadline deadline) {
+        List<String> results = new ArrayList<>();
+        traverse(query.toLowerCase(), threshold, results, deadline);
+        return results;
+    }
+
+    /**
+     * Counts the nodes a search with the given threshold visits, i.e. the number of distance calculations it makes.
+     * Used to measure how well the tree prunes for a given search radius.
+     *
+     * @param query     the query to search for.
+     * @param threshold the maximum edit distance allowed for matches.
+     * @return the number of nodes visited.
+     */
+    public int countVisitedNodes(String query, int threshold) {
+        return traverse(query.toLowerCase(), threshold, null, SearchDeadline.none());
+    }
+
+    /**
+     * Traverses the tree with an explicit stack of node indexes. For every node, the distance to the query
+     * is only calculated up to the threshold plus the largest distance to its children, and only children whose
+     * distance lies within the threshold of that distance are visited.
+     *
+     * @param key       the lower cased query.
+     * @param threshold the maximum edit distance allowed for matches.
+     * @param results   the list to add the matching keys to, or null if only the visited nodes are counted.
+     * @param deadline  the time budget of the traversal, which stops once it has expired.
+     * @return the number of nodes visited.
+     */
+    private int traverse(String key, int threshold, List<String> results, SearchDeadline deadline) {
+        if (size == 0) {
+            return 0;
+        }
+
+        int[] stack = new int[DEFAULT_CAPACITY];
+        int stackSize = 0;
+        int visited = 0;
+        stack[stackSize++] = 0;
+
+        while (stackSize > 0) {
+            if (visited % NODES_PER_DEADLINE_CHECK == NODES_PER_DEADLINE_CHECK - 1 && deadline.isExpired()) {
+                break;
+            }
+            int node = stack[--stackSize];
+            visited++;
+            int bound = threshold + maxChildDistance[node];
+            int distance = StringUtils.levenshteinDistance(keys[node], key, bound);
+            if (distance <= threshold && results != null) {
+                results.add(keys[node]);
+            }
+            if (distance > bound) {
+                continue;
+            }
+
+            int low = distance - threshold;
+            int high = distance + threshold;
+            for (int child = firstChild[node]; child != NO_NODE; child = nextSibling[child]) {
+                int childDistance = parentDistance[child];
+                if (childDistance >= low && childDistance <= high) {
+                    if (stackSize == stack.length) {
+                        stack = Arrays.copyOf(stack, stackSize * 2);
+                    }
+                    stack[stackSize++] = child;
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Performs a hybrid search that prioritizes exact term matches.
+     * The matches are ordered in the same way as by {@link BKTree#hybridSearch(Object, int)}.
+     *
+     * @param query     the query to search for.
+     * @param threshold the maximum edit distance allowed for matches.
+     * @return a list of the lower cased elements sorted by their relevance to the query.
+     */
+    public List<String> hybridSearch(String query, int threshold) {
+        return hybridSearch(query, threshold, SearchDeadline.none());
+    }
+
+    /**
+     * Performs a hybrid search as {@link #hybridSearch(String, int)} does, ranking the matches found before the
+     * deadline expired.
+     *
+     * @param query     the query to search for.
+     * @param threshold the maximum edit distance allowed for matches.
+     * @param deadline  the time budget of the search, checked every few hundred nodes.
+     * @return a list of the lower cased elements found sorted by their relevance to the query.
+     */
+    public List<String> hybridSearch(String query, int threshold, SearchDeadline deadline) {
+        List<String> candidates = search(query, threshold, deadline);
+
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+
+        String queryStr = query.toLowerCase();
+        List<Map.Entry<String, Double>> scoredCandidates = new ArrayList<>(candidates.size());
+        for (String candidate : candidates) {
+            scoredCandidates.add(Map.entry(candidate, BKTree.hybridSimilarity(queryStr, candidate)));
+        }
+
+        // Sort by score (descending)
+        scoredCandidates.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
+
+        List<String> result = new ArrayList<>(scoredCandidates.size());
+        for (Map.Entry<String, Double> entry : scoredCandidates) {
+            result.add(entry.getKey());
+        }
+        return result;
+    }
+
+    /**
+     * Writes the nodes of the tree to a snapshot, as their keys followed by the node arrays.
+     *
+     * @param out the output to write to.
+     * @throws IOException if the tree could not be written.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int node = 0; node < size; node++) {
+            SnapshotUtils.writeString(out, keys[node]);
+        }
+        SnapshotUtils.writeInts(out, parentDistance, size);
+        SnapshotUtils.writeInts(out, maxChildDistance, size);
+        SnapshotUtils.writeInts(out, firstChild, size);
+        SnapshotUtils.writeInts(out, nextSibling, size);
+    }
+
+    /**
+     * Replaces the nodes of the tree with a snapshot written by {@link #writeTo(DataOutput)}.
+     *
+     * @param buffer the buffer to read from, positioned at the snapshot of the tree.
+     * @param canonicalKey maps a key read to an equal instance already kept by the caller, so it is not kept twice.
+     */
+    public void readFrom(ByteBuffer buffer, UnaryOperator<String> canonicalKey) {
+        int nodeCount = buffer.getInt();
+        int capacity = Math.max(nodeCount, 1);
+        String[] nodeKeys = new String[capacity];
+        for (int node = 0; node < nodeCount; node++) {
+            nodeKeys[node] = canonicalKey.apply(SnapshotUtils.readString(buffer));
+        }
+        this.keys = nodeKeys;
+        this.parentDistance = Arrays.copyOf(SnapshotUtils.readInts(buffer), capacity);
+        this.maxChildDistance = Arrays.copyOf(SnapshotUtils.readInts(buffer), capacity);
+        this.firstChild = Arrays.copyOf(SnapshotUtils.readInts(buffer), capacity);
+        this.nextSibling = Arrays.copyOf(SnapshotUtils.readInts(buffer), capacity);
+        this.size = nodeCount;
+    }
+
+    /**
+     * Does nothing, as elements cannot be removed from a BKTree without rebuilding it.
+     *
+     * @param key the key.
+     */
+    @Override
+    public void remove(String key) {
+    }
+
+    @Override
+    public boolean supportsRemoval() {
+        return false;
+    }
+
+    @Override
+    public int maxThreshold() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public List<String> findCandidates(String query, int threshold, SearchDeadline deadline) {
+        return hybridSearch(query, threshold, deadline);
+    }
+
+    /**
+     * Finds the child of a node at the given distance.
+     *
+     * @param node     the index of the parent node.
+     * @param distance the distance of the child to the parent.
+     * @return the index of the child, or {@code NO_NODE} if the node has no child at that distance.
+     */
+    private int findChild(int node, int distance) {
+        for (int child = firstChild[node]; child != NO_NODE; child = nextSibling[child]) {
+            if (parentDistance[child] == distance) {
+                return child;
+            }
+        }
+        return NO_NODE;
+    }
+
+    /**
+     * Appends a node without children, growing the arrays if they are full.
+     *
+     * @param key      the lower cased key of the node.
+     * @param distance the distance of the node to its parent.
+     * @return the index of the new node.
+     */
+    private int newNode(String key, int distance) {
+        if (size == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            parentDistance = Arrays.copyOf(parentDistance, capacity);
+            maxChildDistance = Arrays.copyOf(maxChildDistance, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+        }
+        int node = size++;
+        keys[node] = key;
+        parentDistance[node] = distance;
+        maxChildDistance[node] = 0;
+        firstChild[node] = NO_NODE;
+        nextSibling[node] = NO_NODE;
+        return node;
+    }
+}
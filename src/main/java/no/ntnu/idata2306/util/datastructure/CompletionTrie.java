@@ -0,0 +1,387 @@
+package no.ntnu.idata2306.util.datastructure;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import no.ntnu.idata2306.util.SnapshotUtils;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * CompletionTrie is a radix trie answering prefix completion queries with the most popular keys starting with the prefix.
+ *
+ * Every edge is labeled with a string instead of a single character, so chains of nodes with a single child
+ * are stored as one node. Children are kept in an array sorted by the first character of their label
+ * and found by binary search.
+ *
+ * Every node keeps its top completions, the most popular keys in its subtree, precomputed. A completion query
+ * only walks down the prefix and returns the top completions of the node it ends in, so its cost does not
+ * depend on the number of keys starting with the prefix. When a key is added, changed or removed, only the
+ * top completions of the nodes on its path are recomputed, from the top completions of their children.
+ *
+ * The nodes can be written to a snapshot and read back, see {@link #writeTo(DataOutput)}, without splitting
+ * edges again. Only the top completions are recomputed when reading, once per node.
+ *
+ * The trie is not thread safe, callers must synchronize access.
+ */
+public class CompletionTrie {
+
+    private static final Node[] NO_NODES = new Node[0];
+
+    private final int maxCompletions;
+    private final Node root = new Node("");
+    private int size;
+
+    /**
+     * Constructs an empty trie keeping the given number of top completions per node.
+     *
+     * @param maxCompletions the maximum number of completions returned for a prefix.
+     */
+    public CompletionTrie(int maxCompletions) {
+        if (maxCompletions <= 0) {
+            throw new IllegalArgumentException("The number of completions must be positive");
+        }
+        this.maxCompletions = maxCompletions;
+    }
+
+    /**
+     * Returns the number of keys in the trie.
+     *
+     * @return the number of keys.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a key to the trie, or updates the text and popularity of an existing key.
+     *
+     * @param key        the normalized key completions are looked up by.
+     * @param text       the text shown for the completion.
+     * @param popularity the popularity the completions are ranked by.
+     */
+    public void put(String key, String text, long popularity) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        int position = 0;
+        path.add(node);
+
+        while (position < key.length()) {
+            int childIndex = node.findChild(key.charAt(position));
+            if (childIndex < 0) {
+                Node leaf = new Node(key.substring(position));
+                node.insertChild(-childIndex - 1, leaf);
+                node = leaf;
+                position = key.length();
+            } else {
+                Node child = node.children[childIndex];
+                int common = commonPrefixLength(child.label, key, position);
+                if (common < child.label.length()) {
+                    // Split the edge at the end of the common prefix
+                    Node middle = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    middle.children = new Node[]{child};
+                    middle.updateTopCompletions(maxCompletions);
+                    node.children[childIndex] = middle;
+                    child = middle;
+                }
+                node = child;
+                position += common;
+            }
+            path.add(node);
+        }
+
+        if (!node.terminal) {
+            size++;
+        }
+        node.terminal = true;
+        node.text = text;
+        node.popularity = popularity;
+        updatePath(path);
+    }
+
+    /**
+     * Removes a key from the trie, if present.
+     *
+     * @param key the normalized key.
+     */
+    public void remove(String key) {
+        List<Node> path = findPath(key);
+        if (path == null) {
+            return;
+        }
+
+        Node node = path.get(path.size() - 1);
+        if (!node.terminal) {
+            return;
+        }
+        node.terminal = false;
+        node.text = null;
+        size--;
+
+        // Drop nodes left without keys below them
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node current = path.get(i);
+            if (current.terminal || current.children.length > 0) {
+                break;
+            }
+            path.get(i - 1).removeChild(current);
+            path.remove(i);
+        }
+        updatePath(path);
+    }
+
+    /**
+     * Returns the most popular completions of a prefix.
+     *
+     * @param prefix the normalized prefix.
+     * @param limit  the maximum number of completions, at most the number of completions kept per node.
+     * @return the completions, the most popular first.
+     */
+    public List<Completion> complete(String prefix, int limit) {
+        Node node = root;
+        int position = 0;
+        while (position < prefix.length()) {
+            int childIndex = node.findChild(prefix.charAt(position));
+            if (childIndex < 0) {
+                return List.of();
+            }
+            Node child = node.children[childIndex];
+            int common = commonPrefixLength(child.label, prefix, position);
+            if (common < child.label.length() && position + common < prefix.length()) {
+                return List.of();
+            }
+            node = child;
+            position += common;
+        }
+
+        int count = Math.min(limit, node.topCompletions.length);
+        List<Completion> completions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Node completion = node.topCompletions[i];
+            completions.add(new Completion(completion.text, completion.popularity));
+        }
+        return completions;
+    }
+
+    /**
+     * Returns the completion of a key.
+     *
+     * @param key the normalized key.
+     * @return the text and popularity of the key, or null if the key is not in the trie.
+     */
+    public Completion get(String key) {
+        List<Node> path = findPath(key);
+        if (path == null) {
+            return null;
+        }
+        Node node = path.get(path.size() - 1);
+        return node.terminal ? new Completion(node.text, node.popularity) : null;
+    }
+
+    /**
+     * Writes the nodes of the trie to a snapshot in depth first order, every node with its label, its key if it holds one,
+     * and its number of children.
+     *
+     * @param out the output to write to.
+     * @throws IOException if the trie could not be written.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        writeNode(out, root);
+    }
+
+    /**
+     * Replaces the nodes of the trie with a snapshot written by {@link #writeTo(DataOutput)}.
+     * The snapshot must have been written by a trie keeping the same number of top completions.
+     *
+     * @param buffer the buffer to read from, positioned at the snapshot of the trie.
+     */
+    public void readFrom(ByteBuffer buffer) {
+        size = buffer.getInt();
+        readNode(buffer, root);
+    }
+
+    private static void writeNode(DataOutput out, Node node) throws IOException {
+        SnapshotUtils.writeString(out, node.label);
+        out.writeBoolean(node.terminal);
+        if (node.terminal) {
+            SnapshotUtils.writeString(out, node.text);
+            out.writeLong(node.popularity);
+        }
+        out.writeInt(node.children.length);
+        for (Node child : node.children) {
+            writeNode(out, child);
+        }
+    }
+
+    /**
+     * Reads a node and its subtree, and computes the top completions of the node once those of its children are known.
+     */
+    private void readNode(ByteBuffer buffer, Node node) {
+        node.label = SnapshotUtils.readString(buffer);
+        node.terminal = buffer.get() != 0;
+        node.text = node.terminal ? SnapshotUtils.readString(buffer) : null;
+        node.popularity = node.terminal ? buffer.getLong() : 0;
+        int childCount = buffer.getInt();
+        node.children = childCount == 0 ? NO_NODES : new Node[childCount];
+        for (int i = 0; i < childCount; i++) {
+            node.children[i] = new Node(null);
+            readNode(buffer, node.children[i]);
+        }
+        node.updateTopCompletions(maxCompletions);
+    }
+
+    /**
+     * Finds the nodes on the path to the node of a key.
+     *
+     * @param key the key.
+     * @return the nodes from the root to the node of the key, or null if the key ends inside an edge or is missing.
+     */
+    private List<Node> findPath(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        int position = 0;
+        path.add(node);
+        while (position < key.length()) {
+            int childIndex = node.findChild(key.charAt(position));
+            if (childIndex < 0) {
+                return null;
+            }
+            Node child = node.children[childIndex];
+            if (!key.startsWith(child.label, position)) {
+                return null;
+            }
+            node = child;
+            position += child.label.length();
+            path.add(node);
+        }
+        return path;
+    }
+
+    /**
+     * Recomputes the top completions of the nodes on a path, from the deepest node up to the root.
+     *
+     * @param path the nodes from the root down.
+     */
+    private void updatePath(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            path.get(i).updateTopCompletions(maxCompletions);
+        }
+    }
+
+    /**
+     * Returns the length of the common prefix of a label and the key from the given position.
+     */
+    private static int commonPrefixLength(String label, String key, int position) {
+        int length = Math.min(label.length(), key.length() - position);
+        int common = 0;
+        while (common < length && label.charAt(common) == key.charAt(position + common)) {
+            common++;
+        }
+        return common;
+    }
+
+    /**
+     * Checks if the first completion ranks above the second, i.e. is more popular, or equally popular
+     * and first in alphabetical order.
+     */
+    private static boolean ranksAbove(Node node, Node other) {
+        if (node.popularity != other.popularity) {
+            return node.popularity > other.popularity;
+        }
+        return node.text.compareTo(other.text) < 0;
+    }
+
+    /**
+     * A completion of a prefix with its popularity.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Completion {
+        private final String text;
+        private final long popularity;
+    }
+
+    /**
+     * A node of the trie. The key of a node is the concatenation of the labels from the root.
+     */
+    private static class Node {
+        private String label;
+        private Node[] children = NO_NODES;
+        private Node[] topCompletions = NO_NODES;
+        private boolean terminal;
+        private String text;
+        private long popularity;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Finds the child whose label starts with the given character.
+         *
+         * @return the index of the child, or {@code -(insertion point) - 1} if there is none.
+         */
+        private int findChild(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char middleFirst = children[middle].label.charAt(0);
+                if (middleFirst < first) {
+                    low = middle + 1;
+                } else if (middleFirst > first) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void insertChild(int index, Node child) {
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            children = grown;
+        }
+
+        private void removeChild(Node child) {
+            int index = findChild(child.label.charAt(0));
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+
+        /**
+         * Merges the node itself, if it holds a key, with the top completions of its children.
+         */
+        private void updateTopCompletions(int maxCompletions) {
+            Node[] merged = new Node[maxCompletions];
+            int count = 0;
+            if (terminal) {
+                merged[count++] = this;
+            }
+            for (Node child : children) {
+                for (Node candidate : child.topCompletions) {
+                    if (count == maxCompletions && !ranksAbove(candidate, merged[count - 1])) {
+                        // The completions of a child are sorted, so the rest rank lower as well
+                        break;
+                    }
+                    int index = count < maxCompletions ? count++ : count - 1;
+                    while (index > 0 && ranksAbove(candidate, merged[index - 1])) {
+                        merged[index] = merged[index - 1];
+                        index--;
+                    }
+                    merged[index] = candidate;
+                }
+            }
+            topCompletions = count == maxCompletions ? merged : Arrays.copyOf(merged, count);
+        }
+    }
+}
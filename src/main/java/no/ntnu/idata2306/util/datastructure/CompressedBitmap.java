@@ -0,0 +1,586 @@
+package no.ntnu.idata2306.util.datastructure;
+
+import no.ntnu.idata2306.util.SnapshotUtils;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * CompressedBitmap is a set of non-negative integers, compressed the same way as Roaring bitmaps.
+ *
+ * The integers are split into chunks of 65536 by their high 16 bits. Every chunk holding at least one integer has a
+ * container for the low 16 bits of its integers. A chunk with few integers stores them in a sorted array,
+ * two bytes per integer, and a chunk with many integers in a bitmap of 8 KiB, one bit per possible integer.
+ * A chunk switches between the two forms at 4096 integers, where both take the same space.
+ *
+ * Intersections and unions are computed chunk by chunk, merging sorted arrays, probing bitmaps from arrays,
+ * or combining bitmaps a word at a time.
+ *
+ * The containers can be written to a snapshot and read back as they are, see {@link #writeTo(DataOutput)}.
+ *
+ * The bitmap is not thread safe, callers must synchronize access.
+ */
+public class CompressedBitmap {
+
+    // Chunks with more integers than this are stored as bitmaps
+    private static final int MAX_ARRAY_SIZE = 4096;
+    private static final int BITMAP_WORDS = 1024;
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private char[] keys = new char[DEFAULT_CAPACITY];
+    private Container[] containers = new Container[DEFAULT_CAPACITY];
+    private int containerCount;
+
+    /**
+     * Adds an integer to the set.
+     *
+     * @param value the integer, must not be negative.
+     */
+    public void add(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Only non-negative integers can be added");
+        }
+        char key = (char) (value >>> 16);
+        int index = findContainer(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key, new ArrayContainer());
+        }
+        containers[index] = containers[index].add((char) value);
+    }
+
+    /**
+     * Removes an integer from the set, if present.
+     *
+     * @param value the integer.
+     */
+    public void remove(int value) {
+        if (value < 0) {
+            return;
+        }
+        int index = findContainer((char) (value >>> 16));
+        if (index < 0) {
+            return;
+        }
+        Container container = containers[index].remove((char) value);
+        if (container.cardinality() == 0) {
+            removeContainer(index);
+        } else {
+            containers[index] = container;
+        }
+    }
+
+    /**
+     * Checks if the set contains an integer.
+     *
+     * @param value the integer.
+     * @return true if the integer is in the set.
+     */
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int index = findContainer((char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    /**
+     * Returns the number of integers in the set.
+     *
+     * @return the number of integers.
+     */
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < containerCount; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    /**
+     * Returns the intersection of this set and another set. Neither set is changed.
+     *
+     * @param other the other set.
+     * @return a new set with the integers that are in both sets.
+     */
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < containerCount && j < other.containerCount) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container intersection = containers[i].and(other.containers[j]);
+                if (intersection.cardinality() > 0) {
+                    result.insertContainer(result.containerCount, keys[i], intersection);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the union of this set and another set. Neither set is changed.
+     *
+     * @param other the other set.
+     * @return a new set with the integers that are in either set.
+     */
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < containerCount || j < other.containerCount) {
+            if (j == other.containerCount || (i < containerCount && keys[i] < other.keys[j])) {
+                result.insertContainer(result.containerCount, keys[i], containers[i].copy());
+                i++;
+            } else if (i == containerCount || keys[i] > other.keys[j]) {
+                result.insertContainer(result.containerCount, other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.insertContainer(result.containerCount, keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of this set.
+     *
+     * @return a new set with the same integers.
+     */
+    public CompressedBitmap copy() {
+        CompressedBitmap copy = new CompressedBitmap();
+        copy.keys = Arrays.copyOf(keys, Math.max(containerCount, DEFAULT_CAPACITY));
+        copy.containers = new Container[copy.keys.length];
+        for (int i = 0; i < containerCount; i++) {
+            copy.containers[i] = containers[i].copy();
+        }
+        copy.containerCount = containerCount;
+        return copy;
+    }
+
+    /**
+     * Returns a range of the integers of the set in ascending order, e.g. the integers on a page.
+     * Whole containers before the range are skipped by their cardinality.
+     *
+     * @param offset the number of integers to skip.
+     * @param limit the maximum number of integers to return.
+     * @return the integers in the range, in ascending order.
+     */
+    public int[] toArray(int offset, int limit) {
+        int[] values = new int[Math.max(0, Math.min(limit, cardinality() - offset))];
+        int count = 0;
+        int skip = offset;
+        for (int i = 0; i < containerCount && count < values.length; i++) {
+            Container container = containers[i];
+            if (skip >= container.cardinality()) {
+                skip -= container.cardinality();
+                continue;
+            }
+            count = container.copyTo(values, count, skip, keys[i] << 16);
+            skip = 0;
+        }
+        return values;
+    }
+
+    /**
+     * Performs an action for every integer of the set, in ascending order.
+     *
+     * @param action the action to perform.
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < containerCount; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /**
+     * Writes the set to a snapshot: the key and cardinality of every container, followed by its sorted array
+     * or its bitmap words, depending on which form a container of that cardinality has.
+     *
+     * @param out the output to write to.
+     * @throws IOException if the set could not be written.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(containerCount);
+        for (int i = 0; i < containerCount; i++) {
+            out.writeChar(keys[i]);
+            out.writeInt(containers[i].cardinality());
+            if (containers[i] instanceof ArrayContainer array) {
+                SnapshotUtils.writeChars(out, array.values, array.size);
+            } else {
+                for (long word : ((BitmapContainer) containers[i]).words) {
+                    out.writeLong(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a set written by {@link #writeTo(DataOutput)}.
+     *
+     * @param buffer the buffer to read from, positioned at the set.
+     * @return the set.
+     */
+    public static CompressedBitmap readFrom(ByteBuffer buffer) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        int count = buffer.getInt();
+        bitmap.keys = new char[Math.max(count, DEFAULT_CAPACITY)];
+        bitmap.containers = new Container[bitmap.keys.length];
+        for (int i = 0; i < count; i++) {
+            bitmap.keys[i] = buffer.getChar();
+            int cardinality = buffer.getInt();
+            if (cardinality <= MAX_ARRAY_SIZE) {
+                char[] values = SnapshotUtils.readChars(buffer);
+                bitmap.containers[i] = new ArrayContainer(values, values.length);
+            } else {
+                long[] words = new long[BITMAP_WORDS];
+                buffer.asLongBuffer().get(words);
+                buffer.position(buffer.position() + BITMAP_WORDS * Long.BYTES);
+                bitmap.containers[i] = new BitmapContainer(words, cardinality);
+            }
+        }
+        bitmap.containerCount = count;
+        return bitmap;
+    }
+
+    /**
+     * Finds the container of a chunk by binary search.
+     *
+     * @return the index of the container, or {@code -(insertion point) - 1} if the chunk has none.
+     */
+    private int findContainer(char key) {
+        return Arrays.binarySearch(keys, 0, containerCount, key);
+    }
+
+    private void insertContainer(int index, char key, Container container) {
+        if (containerCount == keys.length) {
+            keys = Arrays.copyOf(keys, containerCount * 2);
+            containers = Arrays.copyOf(containers, containerCount * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, containerCount - index);
+        System.arraycopy(containers, index, containers, index + 1, containerCount - index);
+        keys[index] = key;
+        containers[index] = container;
+        containerCount++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, containerCount - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, containerCount - index - 1);
+        containers[--containerCount] = null;
+    }
+
+    /**
+     * The low 16 bits of the integers in one chunk. Adding and removing return the container to use afterwards,
+     * which is a container of the other form when the cardinality crosses {@link #MAX_ARRAY_SIZE}.
+     */
+    private interface Container {
+        Container add(char value);
+
+        Container remove(char value);
+
+        boolean contains(char value);
+
+        int cardinality();
+
+        Container and(Container other);
+
+        Container or(Container other);
+
+        Container copy();
+
+        /**
+         * Copies the values after the first {@code skip} ones, combined with the high bits, until the target is full.
+         *
+         * @return the number of values in the target afterwards.
+         */
+        int copyTo(int[] target, int count, int skip, int high);
+
+        void forEach(int high, IntConsumer action);
+    }
+
+    /**
+     * A container of few values, kept in a sorted array.
+     */
+    private static final class ArrayContainer implements Container {
+        private char[] values;
+        private int size;
+
+        private ArrayContainer() {
+            this(new char[DEFAULT_CAPACITY], 0);
+        }
+
+        private ArrayContainer(char[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        public Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (size == MAX_ARRAY_SIZE) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(MAX_ARRAY_SIZE, size * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+            return this;
+        }
+
+        @Override
+        public Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return size;
+        }
+
+        @Override
+        public Container and(Container other) {
+            char[] intersection = new char[size];
+            int count = 0;
+            if (other instanceof ArrayContainer array) {
+                int i = 0;
+                int j = 0;
+                while (i < size && j < array.size) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        intersection[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    if (other.contains(values[i])) {
+                        intersection[count++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(intersection, count);
+        }
+
+        @Override
+        public Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            if (size + array.size > MAX_ARRAY_SIZE) {
+                BitmapContainer union = toBitmap();
+                for (int i = 0; i < array.size; i++) {
+                    union.add(array.values[i]);
+                }
+                return union.cardinality > MAX_ARRAY_SIZE ? union : union.toArray();
+            }
+            char[] union = new char[Math.max(size + array.size, DEFAULT_CAPACITY)];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size || j < array.size) {
+                if (j == array.size || (i < size && values[i] < array.values[j])) {
+                    union[count++] = values[i++];
+                } else if (i == size || values[i] > array.values[j]) {
+                    union[count++] = array.values[j++];
+                } else {
+                    union[count++] = values[i++];
+                    j++;
+                }
+            }
+            return new ArrayContainer(union, count);
+        }
+
+        @Override
+        public Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(size, DEFAULT_CAPACITY)), size);
+        }
+
+        @Override
+        public int copyTo(int[] target, int count, int skip, int high) {
+            for (int i = skip; i < size && count < target.length; i++) {
+                target[count++] = high | values[i];
+            }
+            return count;
+        }
+
+        @Override
+        public void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * A container of many values, kept as a bitmap with one bit for every possible value.
+     */
+    private static final class BitmapContainer implements Container {
+        private final long[] words;
+        private int cardinality;
+
+        private BitmapContainer() {
+            this(new long[BITMAP_WORDS], 0);
+        }
+
+        private BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        public Container add(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) == 0) {
+                words[value >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        public Container remove(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) != 0) {
+                words[value >>> 6] &= ~bit;
+                cardinality--;
+            }
+            return cardinality > MAX_ARRAY_SIZE ? this : toArray();
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] intersection = new long[BITMAP_WORDS];
+            int count = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                intersection[i] = words[i] & otherWords[i];
+                count += Long.bitCount(intersection[i]);
+            }
+            BitmapContainer result = new BitmapContainer(intersection, count);
+            return count > MAX_ARRAY_SIZE ? result : result.toArray();
+        }
+
+        @Override
+        public Container or(Container other) {
+            BitmapContainer union = new BitmapContainer(words.clone(), cardinality);
+            if (other instanceof ArrayContainer array) {
+                for (int i = 0; i < array.size; i++) {
+                    union.add(array.values[i]);
+                }
+                return union;
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            int count = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                union.words[i] |= otherWords[i];
+                count += Long.bitCount(union.words[i]);
+            }
+            union.cardinality = count;
+            return union;
+        }
+
+        @Override
+        public Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        public int copyTo(int[] target, int count, int skip, int high) {
+            int position = 0;
+            for (int i = 0; i < BITMAP_WORDS && count < target.length; i++) {
+                long word = words[i];
+                int bits = Long.bitCount(word);
+                if (position + bits <= skip) {
+                    position += bits;
+                    continue;
+                }
+                while (word != 0 && count < target.length) {
+                    int value = (i << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    if (position++ >= skip) {
+                        target[count++] = high | value;
+                    }
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    action.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        private ArrayContainer toArray() {
+            char[] values = new char[Math.max(cardinality, DEFAULT_CAPACITY)];
+            int count = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[count++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
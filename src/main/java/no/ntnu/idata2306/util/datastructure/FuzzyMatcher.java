@@ -0,0 +1,74 @@
+package no.ntnu.idata2306.util.datastructure;
+
+import no.ntnu.idata2306.util.SearchDeadline;
+
+import java.util.List;
+
+/**
+ * FuzzyMatcher is the engine behind the fuzzy stage of a search: it holds the distinct search keys of an index
+ * and finds the keys within an edit distance of a search term.
+ *
+ * Implementations are not thread safe, callers must synchronize access.
+ */
+public interface FuzzyMatcher {
+
+    /**
+     * Adds a key. Keys already added are ignored.
+     *
+     * @param key the normalized key.
+     */
+    void add(String key);
+
+    /**
+     * Removes a key, if the matcher supports removal.
+     *
+     * @param key the normalized key.
+     */
+    void remove(String key);
+
+    /**
+     * Checks if keys can be removed. Matchers without removal keep the keys of removed entries,
+     * and are rebuilt by their owner once too many of their keys are stale.
+     *
+     * @return true if {@link #remove(String)} removes keys.
+     */
+    boolean supportsRemoval();
+
+    /**
+     * Returns the number of keys held.
+     *
+     * @return the number of keys.
+     */
+    int size();
+
+    /**
+     * Returns the largest edit distance the matcher can search with. Searches with a larger threshold
+     * are limited to this distance.
+     *
+     * @return the largest supported threshold.
+     */
+    int maxThreshold();
+
+    /**
+     * Finds the keys within an edit distance of a search term, without a time budget.
+     *
+     * @param query     the normalized search term.
+     * @param threshold the maximum edit distance of the keys.
+     * @return the matching keys, the ones most similar to the search term first.
+     */
+    default List<String> findCandidates(String query, int threshold) {
+        return findCandidates(query, threshold, SearchDeadline.none());
+    }
+
+    /**
+     * Finds the keys within an edit distance of a search term. Matchers walking a structure whose size grows with
+     * the number of keys check the deadline every few steps, and stop once it has expired.
+     *
+     * @param query     the normalized search term.
+     * @param threshold the maximum edit distance of the keys.
+     * @param deadline  the time budget of the search.
+     * @return the matching keys, the ones most similar to the search term first,
+     *         only the ones found before the deadline expired if it did.
+     */
+    List<String> findCandidates(String query, int threshold, SearchDeadline deadline);
+}
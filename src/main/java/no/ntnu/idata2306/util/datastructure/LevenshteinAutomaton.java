@@ -0,0 +1,147 @@
+package no.ntnu.idata2306.util.datastructure;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LevenshteinAutomaton is a deterministic automaton accepting the strings within a Levenshtein distance of a query.
+ * It is used to walk a sorted dictionary character by character, see {@link SortedTermDictionary}.
+ *
+ * A state is a row of the Levenshtein matrix of the query against the characters read so far, i.e. the distance
+ * between every prefix of the query and the input. Distances are capped at one more than the maximum distance,
+ * so there is a finite number of states. States are built lazily as the input reaches them, and states and
+ * transitions are cached, so inputs sharing a prefix, or reaching the same row by different paths, are
+ * stepped through in a single hash lookup.
+ *
+ * A state whose smallest distance exceeds the maximum distance can never lead to a match, whatever is read next.
+ * Such states are not kept, {@link #step(int, char)} returns {@link #DEAD} instead, so a dictionary walk can skip
+ * every term starting with the input read so far.
+ *
+ * The automaton is not thread safe, and is meant to be compiled for a single query.
+ */
+public class LevenshteinAutomaton {
+
+    // State returned when no input starting with the characters read so far can match
+    public static final int DEAD = -1;
+
+    private final String query;
+    private final int maxDistance;
+    private final List<char[]> rows = new ArrayList<>();
+    private final Map<String, Integer> statesByRow = new HashMap<>();
+    private final Map<Long, Integer> transitions = new HashMap<>();
+
+    /**
+     * Compiles an automaton for a query.
+     *
+     * @param query       the query.
+     * @param maxDistance the largest Levenshtein distance between the query and an accepted string.
+     */
+    public LevenshteinAutomaton(String query, int maxDistance) {
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("Max distance must not be negative");
+        }
+        this.query = query;
+        this.maxDistance = maxDistance;
+
+        char[] start = new char[query.length() + 1];
+        for (int i = 0; i < start.length; i++) {
+            start[i] = (char) Math.min(i, maxDistance + 1);
+        }
+        intern(start);
+    }
+
+    /**
+     * Returns the state before any input has been read.
+     *
+     * @return the start state.
+     */
+    public int start() {
+        return 0;
+    }
+
+    /**
+     * Returns the state after reading a character.
+     *
+     * @param state the current state, not {@link #DEAD}.
+     * @param c     the character read.
+     * @return the next state, or {@link #DEAD} if no input continuing with the character can match.
+     */
+    public int step(int state, char c) {
+        long transition = ((long) state << Character.SIZE) | c;
+        Integer next = transitions.get(transition);
+        if (next == null) {
+            next = intern(nextRow(rows.get(state), c));
+            transitions.put(transition, next);
+        }
+        return next;
+    }
+
+    /**
+     * Returns the distance between the query and the input read to reach a state.
+     *
+     * @param state the state, not {@link #DEAD}.
+     * @return the Levenshtein distance, or one more than the maximum distance if it is larger.
+     */
+    public int distance(int state) {
+        return rows.get(state)[query.length()];
+    }
+
+    /**
+     * Checks if the input read to reach a state is accepted.
+     *
+     * @param state the state.
+     * @return true if the input is within the maximum distance of the query.
+     */
+    public boolean isMatch(int state) {
+        return state != DEAD && distance(state) <= maxDistance;
+    }
+
+    /**
+     * Returns the largest distance accepted by the automaton.
+     *
+     * @return the maximum distance.
+     */
+    public int maxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * Computes the next row of the Levenshtein matrix, with distances capped at one more than the maximum.
+     */
+    private char[] nextRow(char[] row, char c) {
+        int cap = maxDistance + 1;
+        char[] next = new char[row.length];
+        next[0] = (char) Math.min(row[0] + 1, cap);
+        for (int i = 1; i < row.length; i++) {
+            int substitution = row[i - 1] + (query.charAt(i - 1) == c ? 0 : 1);
+            int distance = Math.min(substitution, Math.min(row[i] + 1, next[i - 1] + 1));
+            next[i] = (char) Math.min(distance, cap);
+        }
+        return next;
+    }
+
+    /**
+     * Returns the state of a row, creating it if the row has not been reached before.
+     *
+     * @return the state, or {@link #DEAD} if every distance of the row exceeds the maximum.
+     */
+    private int intern(char[] row) {
+        int smallest = Integer.MAX_VALUE;
+        for (char distance : row) {
+            smallest = Math.min(smallest, distance);
+        }
+        if (smallest > maxDistance) {
+            return DEAD;
+        }
+        String key = new String(row);
+        Integer state = statesByRow.get(key);
+        if (state == null) {
+            state = rows.size();
+            rows.add(row);
+            statesByRow.put(key, state);
+        }
+        return state;
+    }
+}
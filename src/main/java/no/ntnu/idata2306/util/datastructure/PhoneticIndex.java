@@ -0,0 +1,203 @@
+package no.ntnu.idata2306.util.datastructure;
+
+import no.ntnu.idata2306.util.PhoneticUtils;
+import no.ntnu.idata2306.util.SnapshotUtils;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * PhoneticIndex is an inverted index from the phonetic keys of words to the identifiers of the texts containing them.
+ * It is used to generate candidates for a search by names that sound like the query, e.g. "Christiansen" for
+ * "Kristiansen", which are often further apart by edit distance than by sound.
+ *
+ * Every word of a text is encoded with {@link PhoneticUtils#encode(String)}, and the text is added to the bucket of
+ * both the primary and the alternate key of the word. The buckets are {@link CompressedBitmap}s of the identifiers.
+ * A query is matched against the buckets of the keys of its words, so a text is a candidate if any of its words
+ * sounds like any word of the query, and the texts matching the most words of the query come first.
+ *
+ * The index can be written to a snapshot and read back, see {@link #writeTo(DataOutput)}, without encoding
+ * the words again.
+ *
+ * The index is not thread safe, callers must synchronize access.
+ */
+public class PhoneticIndex {
+
+    private static final String[] NO_KEYS = new String[0];
+
+    private final Map<String, CompressedBitmap> bucketsByKey = new HashMap<>();
+    private final Map<Integer, String[]> keysById = new HashMap<>();
+
+    /**
+     * Returns the distinct phonetic keys of the words of a text.
+     * The text is expected to be normalized already.
+     *
+     * @param text the text to encode.
+     * @return the distinct primary and alternate keys of the words of the text.
+     */
+    public static String[] keys(String text) {
+        if (text == null || text.isBlank()) {
+            return NO_KEYS;
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        for (String word : text.trim().split("\\s+")) {
+            Collections.addAll(keys, PhoneticUtils.encode(word));
+        }
+        return keys.toArray(NO_KEYS);
+    }
+
+    /**
+     * Returns the number of texts in the index.
+     *
+     * @return the number of texts.
+     */
+    public int size() {
+        return keysById.size();
+    }
+
+    /**
+     * Adds the text of an identifier to the index, replacing the text previously indexed for it.
+     *
+     * @param id   the identifier of the text.
+     * @param text the normalized text.
+     */
+    public void add(int id, String text) {
+        remove(id);
+
+        String[] keys = keys(text);
+        keysById.put(id, keys);
+        for (String key : keys) {
+            bucketsByKey.computeIfAbsent(key, bucketKey -> new CompressedBitmap()).add(id);
+        }
+    }
+
+    /**
+     * Removes the text of an identifier from the index, if present.
+     *
+     * @param id the identifier of the text.
+     */
+    public void remove(int id) {
+        String[] keys = keysById.remove(id);
+        if (keys == null) {
+            return;
+        }
+
+        for (String key : keys) {
+            CompressedBitmap bucket = bucketsByKey.get(key);
+            if (bucket != null) {
+                bucket.remove(id);
+                if (bucket.cardinality() == 0) {
+                    bucketsByKey.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all texts from the index.
+     */
+    public void clear() {
+        bucketsByKey.clear();
+        keysById.clear();
+    }
+
+    /**
+     * Writes the content of the index to a snapshot.
+     * The distinct keys are written once, followed by the keys of every text as indexes into them,
+     * in ascending order of identifier so the buckets can be restored by appending the identifiers.
+     *
+     * @param out the output to write to.
+     * @throws IOException if the index could not be written.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        Map<String, Integer> keyNumbers = new HashMap<>(bucketsByKey.size() * 2);
+        out.writeInt(bucketsByKey.size());
+        for (String key : bucketsByKey.keySet()) {
+            keyNumbers.put(key, keyNumbers.size());
+            SnapshotUtils.writeString(out, key);
+        }
+
+        int[] ids = keysById.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        out.writeInt(ids.length);
+        for (int id : ids) {
+            String[] keys = keysById.get(id);
+            out.writeInt(id);
+            out.writeInt(keys.length);
+            for (String key : keys) {
+                out.writeInt(keyNumbers.get(key));
+            }
+        }
+    }
+
+    /**
+     * Replaces the content of the index with a snapshot written by {@link #writeTo(DataOutput)}.
+     *
+     * @param buffer the buffer to read from, positioned at the snapshot of the index.
+     */
+    public void readFrom(ByteBuffer buffer) {
+        clear();
+        String[] keys = new String[buffer.getInt()];
+        CompressedBitmap[] buckets = new CompressedBitmap[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = SnapshotUtils.readString(buffer);
+            buckets[i] = new CompressedBitmap();
+        }
+
+        int textCount = buffer.getInt();
+        for (int text = 0; text < textCount; text++) {
+            int id = buffer.getInt();
+            String[] textKeys = new String[buffer.getInt()];
+            for (int i = 0; i < textKeys.length; i++) {
+                int key = buffer.getInt();
+                textKeys[i] = keys[key];
+                buckets[key].add(id);
+            }
+            keysById.put(id, textKeys);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            bucketsByKey.put(keys[i], buckets[i]);
+        }
+    }
+
+    /**
+     * Finds the texts with the most words sounding like a word of the query.
+     * A word of the query sounds like a word of a text if their primary or alternate keys are the same.
+     *
+     * @param query the normalized query.
+     * @param limit the maximum number of candidates to return.
+     * @return the identifiers of the candidates, the ones matching the most words of the query first.
+     */
+    public int[] topCandidates(String query, int limit) {
+        if (query == null || query.isBlank() || limit <= 0 || keysById.isEmpty()) {
+            return new int[0];
+        }
+
+        // Per identifier, the number of matched query words and the last query word that matched it
+        Map<Integer, int[]> matches = new HashMap<>();
+        String[] words = query.trim().split("\\s+");
+        for (int word = 0; word < words.length; word++) {
+            int wordNumber = word + 1;
+            for (String key : PhoneticUtils.encode(words[word])) {
+                CompressedBitmap bucket = bucketsByKey.get(key);
+                if (bucket == null) {
+                    continue;
+                }
+                bucket.forEach(id -> {
+                    int[] match = matches.computeIfAbsent(id, matchId -> new int[2]);
+                    if (match[1] != wordNumber) {
+                        match[0]++;
+                        match[1] = wordNumber;
+                    }
+                });
+            }
+        }
+
+        TopKHeap heap = new TopKHeap(Math.min(limit, matches.size()));
+        for (Map.Entry<Integer, int[]> match : matches.entrySet()) {
+            heap.offer(match.getKey(), match.getValue()[0]);
+        }
+        return heap.drainDescending();
+    }
+}
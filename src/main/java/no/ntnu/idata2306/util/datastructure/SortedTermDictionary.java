@@ -0,0 +1,500 @@
+package no.ntnu.idata2306.util.datastructure;
+
+import no.ntnu.idata2306.util.SearchDeadline;
+import no.ntnu.idata2306.util.SnapshotUtils;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * SortedTermDictionary keeps a set of terms sorted and prefix compressed, and finds the terms within an edit distance
+ * of a query by intersecting the dictionary with a {@link LevenshteinAutomaton} compiled from the query.
+ *
+ * The terms are front coded in blocks: the first term of a block is stored in full, and every following term only
+ * stores the length of the prefix it shares with the term before it and the rest of its characters. Terms such as
+ * course names, which often share their first words, take little more space than their distinct suffixes.
+ *
+ * A search walks the terms in order, stepping the automaton through the characters of each term. The states of
+ * the prefix a term shares with the previous term are reused, so each distinct prefix is only stepped through once.
+ * When the automaton dies on a prefix, no term starting with it can match, and the walk jumps past all of them
+ * with a binary search over the first terms of the blocks. Unlike a BKTree, this pruning does not depend on how
+ * the terms are spread out, and it also gives fuzzy prefix matching: {@link #findCompletions(String, int)}
+ * finds the terms starting with a prefix within an edit distance of the query, for typo tolerant autocomplete.
+ *
+ * Added terms are kept in a small sorted set and removed terms are marked as removed, until they make up a large
+ * enough share of the dictionary to be merged into the compressed terms.
+ *
+ * The dictionary can be written to a snapshot and read back, see {@link #writeTo(DataOutput)}, with the compressed
+ * terms copied as they are instead of sorting and front coding the terms again.
+ *
+ * The dictionary is not thread safe, callers must synchronize access.
+ */
+public class SortedTermDictionary implements FuzzyMatcher {
+
+    // Number of terms per block, the first of which is stored in full
+    private static final int BLOCK_SIZE = 16;
+
+    // Added and removed terms are merged once they are more than this many, and more than an eighth of the terms
+    private static final int MIN_MERGE_SIZE = 64;
+    private static final int MERGE_DIVISOR = 8;
+
+    // Number of terms walked by a search between checks of its deadline
+    private static final int TERMS_PER_DEADLINE_CHECK = 256;
+
+    private char[] chars = new char[0];
+    private int[] offsets = {0};
+    private int[] shared = new int[0];
+    private int count;
+    private final TreeSet<String> added = new TreeSet<>();
+    private final Set<String> removed = new HashSet<>();
+
+    /**
+     * A term found for a query.
+     *
+     * @param term     the term.
+     * @param distance the Levenshtein distance between the query and the term, or the closest prefix of the term
+     *                 when looking up completions.
+     */
+    public record Match(String term, int distance) {
+    }
+
+    /**
+     * Returns the number of terms in the dictionary.
+     *
+     * @return the number of terms.
+     */
+    @Override
+    public int size() {
+        return count - removed.size() + added.size();
+    }
+
+    /**
+     * Adds a term to the dictionary. Terms already in the dictionary are ignored.
+     *
+     * @param term the normalized term.
+     */
+    @Override
+    public void add(String term) {
+        if (removed.remove(term)) {
+            return;
+        }
+        if (!containsCompressed(term) && added.add(term)) {
+            mergeIfNeeded();
+        }
+    }
+
+    /**
+     * Removes a term from the dictionary, if present.
+     *
+     * @param term the normalized term.
+     */
+    @Override
+    public void remove(String term) {
+        if (added.remove(term)) {
+            return;
+        }
+        if (containsCompressed(term) && removed.add(term)) {
+            mergeIfNeeded();
+        }
+    }
+
+    @Override
+    public boolean supportsRemoval() {
+        return true;
+    }
+
+    @Override
+    public int maxThreshold() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Finds the terms within an edit distance of the query.
+     *
+     * @param query     the query, normalized the same way as the terms.
+     * @param threshold the largest Levenshtein distance of the terms.
+     * @param deadline  the time budget of the search, checked every few hundred terms walked.
+     * @return the matching terms found before the deadline expired, the closest first.
+     */
+    @Override
+    public List<String> findCandidates(String query, int threshold, SearchDeadline deadline) {
+        List<Match> matches = intersect(query, threshold, false, deadline);
+        List<String> terms = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            terms.add(match.term());
+        }
+        return terms;
+    }
+
+    /**
+     * Finds the terms starting with a prefix within an edit distance of the query, e.g. "javascript basics"
+     * for "javs" within one edit.
+     *
+     * @param query     the prefix typed so far, normalized the same way as the terms.
+     * @param threshold the largest Levenshtein distance between the query and a prefix of the terms.
+     * @return the matching terms with the distance of their closest prefix, the closest first.
+     */
+    public List<Match> findCompletions(String query, int threshold) {
+        return intersect(query, threshold, true, SearchDeadline.none());
+    }
+
+    /**
+     * Writes the dictionary to a snapshot: the arrays of the compressed terms as they are,
+     * followed by the terms added and removed since they were last merged.
+     *
+     * @param out the output to write to.
+     * @throws IOException if the dictionary could not be written.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        SnapshotUtils.writeChars(out, chars, chars.length);
+        SnapshotUtils.writeInts(out, offsets, count + 1);
+        SnapshotUtils.writeInts(out, shared, count);
+        out.writeInt(added.size());
+        for (String term : added) {
+            SnapshotUtils.writeString(out, term);
+        }
+        out.writeInt(removed.size());
+        for (String term : removed) {
+            SnapshotUtils.writeString(out, term);
+        }
+    }
+
+    /**
+     * Replaces the content of the dictionary with a snapshot written by {@link #writeTo(DataOutput)}.
+     *
+     * @param buffer the buffer to read from, positioned at the snapshot of the dictionary.
+     */
+    public void readFrom(ByteBuffer buffer) {
+        chars = SnapshotUtils.readChars(buffer);
+        offsets = SnapshotUtils.readInts(buffer);
+        shared = SnapshotUtils.readInts(buffer);
+        count = shared.length;
+        added.clear();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            added.add(SnapshotUtils.readString(buffer));
+        }
+        removed.clear();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            removed.add(SnapshotUtils.readString(buffer));
+        }
+    }
+
+    /**
+     * Walks the terms with an automaton compiled from the query, skipping the terms starting with dead prefixes.
+     *
+     * @param query       the query.
+     * @param threshold   the largest distance of the matches.
+     * @param prefixMatch true to match the prefixes of the terms instead of the whole terms.
+     * @param deadline    the time budget of the walk, which stops once it has expired.
+     * @return the matches, the closest first, and in alphabetical order among equally close ones.
+     */
+    private List<Match> intersect(String query, int threshold, boolean prefixMatch, SearchDeadline deadline) {
+        Walk walk = new Walk(new LevenshteinAutomaton(query, threshold), prefixMatch);
+        List<Match> matches = new ArrayList<>();
+        Cursor cursor = new Cursor();
+        Cursor scan = new Cursor();
+        int index = 0;
+        int walked = 0;
+        while (index < count) {
+            if (++walked % TERMS_PER_DEADLINE_CHECK == 0 && deadline.isExpired()) {
+                break;
+            }
+            cursor.seek(index);
+            int distance = walk.walk(cursor.term, cursor.length);
+            if (distance >= 0) {
+                String term = cursor.text();
+                if (!removed.contains(term)) {
+                    matches.add(new Match(term, distance));
+                }
+            }
+            index = walk.deadDepth > 0 ? skipPrefix(cursor.term, walk.deadDepth, index + 1, scan) : index + 1;
+        }
+        for (String term : added) {
+            if (++walked % TERMS_PER_DEADLINE_CHECK == 0 && deadline.isExpired()) {
+                break;
+            }
+            int distance = walk.walk(term.toCharArray(), term.length());
+            if (distance >= 0) {
+                matches.add(new Match(term, distance));
+            }
+        }
+
+        matches.sort(Comparator.comparingInt(Match::distance).thenComparing(Match::term));
+        return matches;
+    }
+
+    /**
+     * Finds the first compressed term from a position on that does not start with a prefix.
+     * The terms before the position must all start with the prefix.
+     *
+     * @param prefix the prefix.
+     * @param length the length of the prefix.
+     * @param from   the position to start from.
+     * @param scan   a cursor to decode terms with.
+     * @return the position of the first term not starting with the prefix, or the number of compressed terms.
+     */
+    private int skipPrefix(char[] prefix, int length, int from, Cursor scan) {
+        if (from >= count) {
+            return count;
+        }
+        // Find the first block after the current one whose first term does not start with the prefix
+        int low = from / BLOCK_SIZE + 1;
+        int high = (count - 1) / BLOCK_SIZE + 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (startsWith(middle * BLOCK_SIZE, prefix, length)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        // The terms with the prefix end in the block before it
+        int end = Math.min(count, low * BLOCK_SIZE);
+        for (int index = Math.max(from, (low - 1) * BLOCK_SIZE); index < end; index++) {
+            scan.seek(index);
+            if (!scan.startsWith(prefix, length)) {
+                return index;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Checks if a term is among the compressed terms, removed or not.
+     *
+     * @param term the term.
+     * @return true if the term is compressed.
+     */
+    private boolean containsCompressed(String term) {
+        if (count == 0) {
+            return false;
+        }
+        // Find the last block whose first term is not after the term
+        int low = 0;
+        int high = (count - 1) / BLOCK_SIZE;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (compareFirst(middle * BLOCK_SIZE, term) <= 0) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        Cursor cursor = new Cursor();
+        int end = Math.min(count, (low + 1) * BLOCK_SIZE);
+        for (int index = low * BLOCK_SIZE; index < end; index++) {
+            cursor.seek(index);
+            int comparison = cursor.text().compareTo(term);
+            if (comparison >= 0) {
+                return comparison == 0;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the first term of a block starts with a prefix.
+     */
+    private boolean startsWith(int first, char[] prefix, int length) {
+        int start = offsets[first];
+        if (offsets[first + 1] - start < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chars[start + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the first term of a block to a term, in the order of {@link String#compareTo(String)}.
+     */
+    private int compareFirst(int first, String term) {
+        int start = offsets[first];
+        int length = offsets[first + 1] - start;
+        int common = Math.min(length, term.length());
+        for (int i = 0; i < common; i++) {
+            if (chars[start + i] != term.charAt(i)) {
+                return chars[start + i] - term.charAt(i);
+            }
+        }
+        return length - term.length();
+    }
+
+    /**
+     * Merges the added and removed terms into the compressed terms once there are too many of them.
+     */
+    private void mergeIfNeeded() {
+        if (added.size() + removed.size() > Math.max(MIN_MERGE_SIZE, count / MERGE_DIVISOR)) {
+            merge();
+        }
+    }
+
+    /**
+     * Front codes the compressed terms that were not removed together with the added terms.
+     */
+    private void merge() {
+        int mergedCount = size();
+        StringBuilder mergedChars = new StringBuilder(chars.length);
+        int[] mergedOffsets = new int[mergedCount + 1];
+        int[] mergedShared = new int[mergedCount];
+
+        Iterator<String> addedTerms = added.iterator();
+        String nextAdded = addedTerms.hasNext() ? addedTerms.next() : null;
+        Cursor cursor = new Cursor();
+        String previous = "";
+        int index = 0;
+        int merged = 0;
+        while (merged < mergedCount) {
+            String next = null;
+            if (index < count) {
+                cursor.seek(index);
+                next = cursor.text();
+                if (removed.contains(next)) {
+                    index++;
+                    continue;
+                }
+            }
+            if (next == null || (nextAdded != null && nextAdded.compareTo(next) < 0)) {
+                next = nextAdded;
+                nextAdded = addedTerms.hasNext() ? addedTerms.next() : null;
+            } else {
+                index++;
+            }
+
+            int common = merged % BLOCK_SIZE == 0 ? 0 : commonPrefixLength(previous, next);
+            mergedShared[merged] = common;
+            mergedChars.append(next, common, next.length());
+            mergedOffsets[++merged] = mergedChars.length();
+            previous = next;
+        }
+
+        chars = new char[mergedChars.length()];
+        mergedChars.getChars(0, mergedChars.length(), chars, 0);
+        offsets = mergedOffsets;
+        shared = mergedShared;
+        count = mergedCount;
+        added.clear();
+        removed.clear();
+    }
+
+    /**
+     * Returns the length of the common prefix of two strings.
+     */
+    private static int commonPrefixLength(String first, String second) {
+        int length = Math.min(first.length(), second.length());
+        int common = 0;
+        while (common < length && first.charAt(common) == second.charAt(common)) {
+            common++;
+        }
+        return common;
+    }
+
+    /**
+     * Decodes compressed terms into a reusable buffer. Seeking to the next term only appends its own characters
+     * to the shared prefix, seeking anywhere else decodes from the first term of the block.
+     */
+    private class Cursor {
+        private int index = -1;
+        private char[] term = new char[16];
+        private int length;
+
+        private void seek(int target) {
+            int from = target == index + 1 && target % BLOCK_SIZE != 0 ? target : target - target % BLOCK_SIZE;
+            for (int i = from; i <= target; i++) {
+                int start = offsets[i];
+                int suffixLength = offsets[i + 1] - start;
+                length = shared[i];
+                if (length + suffixLength > term.length) {
+                    term = Arrays.copyOf(term, Math.max(term.length * 2, length + suffixLength));
+                }
+                System.arraycopy(chars, start, term, length, suffixLength);
+                length += suffixLength;
+            }
+            index = target;
+        }
+
+        private boolean startsWith(char[] prefix, int prefixLength) {
+            if (length < prefixLength) {
+                return false;
+            }
+            for (int i = 0; i < prefixLength; i++) {
+                if (term[i] != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String text() {
+            return new String(term, 0, length);
+        }
+    }
+
+    /**
+     * Steps an automaton through a sequence of sorted terms, keeping the states of the characters of the
+     * previous term so the prefix shared with the next term is not stepped through again.
+     */
+    private static class Walk {
+        private final LevenshteinAutomaton automaton;
+        private final boolean prefixMatch;
+        private char[] path = new char[16];
+        private int[] states = new int[17];
+        private int[] closest = new int[17];
+        private int depth;
+        private int deadDepth;
+
+        private Walk(LevenshteinAutomaton automaton, boolean prefixMatch) {
+            this.automaton = automaton;
+            this.prefixMatch = prefixMatch;
+            states[0] = automaton.start();
+            closest[0] = automaton.distance(states[0]);
+        }
+
+        /**
+         * Steps the automaton through a term. If the automaton dies, {@link #deadDepth} is set to the length of the
+         * prefix it died on, and to 0 otherwise.
+         *
+         * @return the distance of the term, or of its closest prefix when matching prefixes, or -1 if it does not match.
+         */
+        private int walk(char[] term, int length) {
+            if (length + 1 > states.length) {
+                int capacity = Math.max(states.length * 2, length + 1);
+                path = Arrays.copyOf(path, capacity);
+                states = Arrays.copyOf(states, capacity);
+                closest = Arrays.copyOf(closest, capacity);
+            }
+            int position = 0;
+            while (position < depth && position < length && path[position] == term[position]) {
+                position++;
+            }
+
+            deadDepth = 0;
+            int maxDistance = automaton.maxDistance();
+            for (; position < length; position++) {
+                int next = automaton.step(states[position], term[position]);
+                if (next == LevenshteinAutomaton.DEAD) {
+                    depth = position;
+                    if (prefixMatch && closest[position] <= maxDistance) {
+                        // A prefix already matched, so every term starting with this prefix is a completion
+                        return closest[position];
+                    }
+                    deadDepth = position + 1;
+                    return -1;
+                }
+                path[position] = term[position];
+                states[position + 1] = next;
+                closest[position + 1] = Math.min(closest[position], automaton.distance(next));
+            }
+            depth = length;
+            int distance = prefixMatch ? closest[length] : automaton.distance(states[length]);
+            return distance <= maxDistance ? distance : -1;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package no.ntnu.idata2306.util.datastructure;
+
+import no.ntnu.idata2306.util.SearchDeadline;
+import no.ntnu.idata2306.util.StringUtils;
+
+import java.util.*;
+
+/**
+ * SymmetricDeleteDictionary finds the words of a dictionary within a small Damerau-Levenshtein distance of a query,
+ * using the symmetric delete algorithm of SymSpell.
+ *
+ * When a word is added, every string that can be made from it by deleting up to the maximum edit distance of
+ * characters is computed once, and the word is added to the list of words of each of these deletes.
+ * A lookup computes the deletes of the query the same way, and every word sharing a delete with the query
+ * is a candidate, whose distance is then verified. Since a substitution, insertion or transposition on either side
+ * is covered by deleting characters on both sides, a lookup costs a number of hash lookups that only depends on
+ * the length of the query and the maximum edit distance, not on the size of the dictionary.
+ *
+ * Words no longer than the maximum edit distance also have the empty string as a delete, so they are found by
+ * any short enough query, e.g. "ac" for "eb" within distance 2.
+ *
+ * Lookups for spelling suggestions verify candidates with the Damerau-Levenshtein distance, so a swap of two letters
+ * is a single edit. As a {@link FuzzyMatcher}, candidates are verified with the Levenshtein distance instead,
+ * so the same keys match as with the other engines.
+ *
+ * Deletes are only computed for a prefix of each word, which keeps the number of deletes per word bounded.
+ * A longer prefix gives fewer candidates to verify per lookup, at the cost of more deletes per word.
+ * Words are counted, so suggestions at the same distance can be ranked by how often their word occurs.
+ *
+ * The dictionary is not thread safe, callers must synchronize access.
+ */
+public class SymmetricDeleteDictionary implements FuzzyMatcher {
+
+    // Deletes are computed for this many leading characters of each word, unless set otherwise
+    private static final int DEFAULT_PREFIX_LENGTH = 7;
+
+    private final int maxEditDistance;
+    private final int prefixLength;
+    private final Map<String, Long> counts = new HashMap<>();
+    private final Map<String, List<String>> wordsByDelete = new HashMap<>();
+    private int longestWordLength;
+
+    /**
+     * A word of the dictionary suggested for a query.
+     *
+     * @param word     the word.
+     * @param distance the edit distance between the query and the word.
+     * @param count    the number of times the word occurs in the dictionary.
+     */
+    public record Suggestion(String word, int distance, long count) {
+    }
+
+    /**
+     * Constructs an empty dictionary computing the deletes of the first 7 characters of each word.
+     *
+     * @param maxEditDistance the largest edit distance lookups can be made with.
+     */
+    public SymmetricDeleteDictionary(int maxEditDistance) {
+        this(maxEditDistance, DEFAULT_PREFIX_LENGTH);
+    }
+
+    /**
+     * Constructs an empty dictionary.
+     *
+     * @param maxEditDistance the largest edit distance lookups can be made with.
+     * @param prefixLength the number of leading characters of each word deletes are computed for.
+     */
+    public SymmetricDeleteDictionary(int maxEditDistance, int prefixLength) {
+        if (maxEditDistance < 0) {
+            throw new IllegalArgumentException("Max edit distance must not be negative");
+        }
+        if (prefixLength <= maxEditDistance) {
+            throw new IllegalArgumentException("Prefix length must be larger than the max edit distance");
+        }
+        this.maxEditDistance = maxEditDistance;
+        this.prefixLength = prefixLength;
+    }
+
+    /**
+     * Returns the number of distinct words in the dictionary.
+     *
+     * @return the number of words.
+     */
+    @Override
+    public int size() {
+        return counts.size();
+    }
+
+    /**
+     * Returns the number of times a word occurs in the dictionary.
+     *
+     * @param word the word.
+     * @return the count of the word, 0 if it is not in the dictionary.
+     */
+    public long count(String word) {
+        return counts.getOrDefault(word, 0L);
+    }
+
+    /**
+     * Adds an occurrence of a word to the dictionary.
+     *
+     * @param word the word.
+     */
+    @Override
+    public void add(String word) {
+        if (word.isEmpty() || counts.merge(word, 1L, Long::sum) > 1) {
+            return;
+        }
+        longestWordLength = Math.max(longestWordLength, word.length());
+        for (String delete : deletes(prefix(word))) {
+            wordsByDelete.computeIfAbsent(delete, key -> new ArrayList<>(1)).add(word);
+        }
+    }
+
+    /**
+     * Removes an occurrence of a word from the dictionary. The word is removed once no occurrences are left.
+     *
+     * @param word the word.
+     */
+    @Override
+    public void remove(String word) {
+        Long count = counts.get(word);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            counts.put(word, count - 1);
+            return;
+        }
+        counts.remove(word);
+        for (String delete : deletes(prefix(word))) {
+            List<String> words = wordsByDelete.get(delete);
+            if (words != null) {
+                words.remove(word);
+                if (words.isEmpty()) {
+                    wordsByDelete.remove(delete);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean supportsRemoval() {
+        return true;
+    }
+
+    @Override
+    public int maxThreshold() {
+        return maxEditDistance;
+    }
+
+    /**
+     * Finds the words within a Levenshtein distance of the query, as {@link #lookup(String, int, int)} without a limit,
+     * but without counting a swap of two letters as a single edit, like the other {@link FuzzyMatcher} implementations.
+     * The deadline is not checked, as a lookup only visits the deletes of the query, however many words there are.
+     *
+     * @param query     the query, normalized the same way as the words.
+     * @param threshold the largest edit distance of the words, limited to the maximum of the dictionary.
+     * @param deadline  the time budget of the search, not checked.
+     * @return the matching words, the closest first.
+     */
+    @Override
+    public List<String> findCandidates(String query, int threshold, SearchDeadline deadline) {
+        List<Suggestion> suggestions = lookup(query, threshold, Integer.MAX_VALUE, false);
+        List<String> words = new ArrayList<>(suggestions.size());
+        for (Suggestion suggestion : suggestions) {
+            words.add(suggestion.word());
+        }
+        return words;
+    }
+
+    /**
+     * Removes all words from the dictionary.
+     */
+    public void clear() {
+        counts.clear();
+        wordsByDelete.clear();
+        longestWordLength = 0;
+    }
+
+    /**
+     * Finds the words within a Damerau-Levenshtein distance of the query.
+     *
+     * @param query       the query, normalized the same way as the words.
+     * @param maxDistance the largest edit distance of the suggestions, at most the maximum of the dictionary.
+     * @param limit       the maximum number of suggestions.
+     * @return the suggestions, the closest first, and the most frequent first among equally close ones.
+     */
+    public List<Suggestion> lookup(String query, int maxDistance, int limit) {
+        return lookup(query, maxDistance, limit, true);
+    }
+
+    /**
+     * Finds the words within an edit distance of the query. Every word within the Levenshtein distance of the query
+     * is also within its Damerau-Levenshtein distance, so the deletes give the candidates for both distances.
+     *
+     * @param query          the query, normalized the same way as the words.
+     * @param maxDistance    the largest edit distance of the suggestions, at most the maximum of the dictionary.
+     * @param limit          the maximum number of suggestions.
+     * @param transpositions whether a swap of two adjacent letters counts as a single edit.
+     * @return the suggestions, the closest first, and the most frequent first among equally close ones.
+     */
+    private List<Suggestion> lookup(String query, int maxDistance, int limit, boolean transpositions) {
+        int distanceLimit = Math.min(maxDistance, maxEditDistance);
+        if (limit <= 0 || query.length() - distanceLimit > longestWordLength) {
+            return List.of();
+        }
+
+        List<Suggestion> suggestions = new ArrayList<>();
+        Set<String> checked = new HashSet<>();
+        if (counts.containsKey(query)) {
+            suggestions.add(new Suggestion(query, 0, counts.get(query)));
+        }
+        checked.add(query);
+
+        String queryPrefix = prefix(query);
+        Deque<String> candidates = new ArrayDeque<>();
+        Set<String> visited = new HashSet<>();
+        candidates.add(queryPrefix);
+        visited.add(queryPrefix);
+        while (!candidates.isEmpty()) {
+            String candidate = candidates.poll();
+            int deleted = queryPrefix.length() - candidate.length();
+            for (String word : wordsByDelete.getOrDefault(candidate, List.of())) {
+                if (checked.add(word) && Math.abs(word.length() - query.length()) <= distanceLimit) {
+                    int distance = transpositions
+                            ? StringUtils.distance(query, word, distanceLimit)
+                            : StringUtils.levenshteinDistance(query, word, distanceLimit);
+                    if (distance <= distanceLimit) {
+                        suggestions.add(new Suggestion(word, distance, counts.get(word)));
+                    }
+                }
+            }
+            if (deleted < distanceLimit && !candidate.isEmpty()) {
+                for (int i = 0; i < candidate.length(); i++) {
+                    String delete = candidate.substring(0, i) + candidate.substring(i + 1);
+                    if (visited.add(delete)) {
+                        candidates.add(delete);
+                    }
+                }
+            }
+        }
+
+        suggestions.sort(Comparator.comparingInt(Suggestion::distance)
+                .thenComparing(Comparator.comparingLong(Suggestion::count).reversed())
+                .thenComparing(Suggestion::word));
+        return suggestions.size() > limit ? new ArrayList<>(suggestions.subList(0, limit)) : suggestions;
+    }
+
+    /**
+     * Computes a string and all strings made from it by deleting up to the maximum edit distance of characters,
+     * down to the empty string.
+     *
+     * @param text the string.
+     * @return the string and its deletes.
+     */
+    private Set<String> deletes(String text) {
+        Set<String> deletes = new HashSet<>();
+        deletes.add(text);
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(text);
+        while (!queue.isEmpty()) {
+            String current = queue.poll();
+            if (text.length() - current.length() >= maxEditDistance || current.isEmpty()) {
+                continue;
+            }
+            for (int i = 0; i < current.length(); i++) {
+                String delete = current.substring(0, i) + current.substring(i + 1);
+                if (deletes.add(delete)) {
+                    queue.add(delete);
+                }
+            }
+        }
+        return deletes;
+    }
+
+    private String prefix(String word) {
+        return word.length() > prefixLength ? word.substring(0, prefixLength) : word;
+    }
+}
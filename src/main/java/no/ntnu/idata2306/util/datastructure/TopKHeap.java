@@ -0,0 +1,125 @@
+package no.ntnu.idata2306.util.datastructure;
+
+/**
+ * TopKHeap selects the k highest scoring ids from a stream of (id, score) pairs in O(n log k) time.
+ * It is a binary min-heap over two parallel primitive arrays, so no objects are allocated per offered pair.
+ * The root is the worst of the kept pairs and is replaced whenever a better pair is offered.
+ *
+ * Pairs with equal scores are ranked by their id, the lowest first. When ids are positions in a list,
+ * the selection therefore gives the same order as a stable sort by descending score.
+ */
+public class TopKHeap {
+
+    private final int capacity;
+    private final int[] ids;
+    private final double[] scores;
+    private int size;
+
+    /**
+     * Constructs an empty heap keeping at most the given number of pairs.
+     *
+     * @param capacity the number of pairs to keep.
+     */
+    public TopKHeap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+        this.capacity = capacity;
+        this.ids = new int[capacity];
+        this.scores = new double[capacity];
+        this.size = 0;
+    }
+
+    /**
+     * Returns the number of pairs kept.
+     *
+     * @return the number of pairs.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Offers a pair to the heap. It is kept if the heap is not full, or if it ranks above the worst kept pair.
+     *
+     * @param id    the id.
+     * @param score the score of the id.
+     */
+    public void offer(int id, double score) {
+        if (size < capacity) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (capacity > 0 && ranksAbove(id, score, ids[0], scores[0])) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Removes all kept pairs and returns their ids, the highest scoring first.
+     *
+     * @return the ids of the kept pairs in descending order of score.
+     */
+    public int[] drainDescending() {
+        int[] result = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = ids[0];
+            size--;
+            if (size > 0) {
+                ids[0] = ids[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the first pair ranks above the second, i.e. has a higher score, or an equal score and a lower id.
+     */
+    private static boolean ranksAbove(int id, double score, int otherId, double otherScore) {
+        int comparison = Double.compare(score, otherScore);
+        return comparison > 0 || (comparison == 0 && id < otherId);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksAbove(ids[parent], scores[parent], ids[index], scores[index])) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int right = left + 1;
+            int worst = left;
+            if (right < size && ranksAbove(ids[left], scores[left], ids[right], scores[right])) {
+                worst = right;
+            }
+            if (!ranksAbove(ids[index], scores[index], ids[worst], scores[worst])) {
+                return;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int first, int second) {
+        int id = ids[first];
+        ids[first] = ids[second];
+        ids[second] = id;
+        double score = scores[first];
+        scores[first] = scores[second];
+        scores[second] = score;
+    }
+}
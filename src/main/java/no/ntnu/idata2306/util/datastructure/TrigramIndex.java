@@ -0,0 +1,320 @@
+package no.ntnu.idata2306.util.datastructure;
+
+import no.ntnu.idata2306.util.SnapshotUtils;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * TrigramIndex is an inverted index from character trigrams to the identifiers of the texts containing them.
+ * It is used to generate candidates for a fuzzy search by the number of trigrams they share with the query,
+ * before any edit distance is calculated.
+ *
+ * Trigrams are taken per word, with the word padded by a space on both sides, so "java" gives
+ * " ja", "jav", "ava" and "va ". As the words are indexed independently, texts are found regardless
+ * of the order of their words, and a single misspelled word only affects the trigrams of that word.
+ *
+ * Postings lists are growable int arrays of slots, sorted by slot. A slot is a dense number assigned to each indexed
+ * identifier, so the shared trigrams of all texts can be counted in a plain int array. The counts are kept in a
+ * scratch array per thread, which is reset after every query, so a query does not allocate an array over all slots.
+ * Slots of removed texts are reused.
+ *
+ * A slot is found in a postings list by binary search, so updating a text does not scan the long postings lists of
+ * common trigrams such as "ing". The slots after it are still shifted by an array copy when it is inserted or removed.
+ *
+ * The index can be written to a snapshot and read back, see {@link #writeTo(DataOutput)}, which restores the slots
+ * and postings as they were instead of splitting every text into its trigrams again.
+ *
+ * The index is not thread safe, callers must synchronize access.
+ */
+public class TrigramIndex {
+
+    private static final int GRAM_LENGTH = 3;
+    private static final int INITIAL_POSTINGS_CAPACITY = 4;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final String[] NO_GRAMS = new String[0];
+
+    // Shared trigram counts per slot, all zero between queries. Only grown, so it fits the largest index queried
+    private static final ThreadLocal<int[]> SCRATCH_COUNTS = ThreadLocal.withInitial(() -> new int[DEFAULT_CAPACITY]);
+
+    private final Map<String, Postings> postingsByGram = new HashMap<>();
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+    private int[] idBySlot = new int[DEFAULT_CAPACITY];
+    private String[][] gramsBySlot = new String[DEFAULT_CAPACITY][];
+    private int[] freeSlots = new int[DEFAULT_CAPACITY];
+    private int freeSlotCount;
+    private int slotCount;
+
+    /**
+     * Splits a text into its distinct trigrams.
+     * The text is expected to be normalized already.
+     *
+     * @param text the text to split.
+     * @return the distinct trigrams of the words of the text.
+     */
+    public static String[] grams(String text) {
+        if (text == null || text.isBlank()) {
+            return NO_GRAMS;
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (String word : text.trim().split("\\s+")) {
+            String padded = " " + word + " ";
+            for (int start = 0; start + GRAM_LENGTH <= padded.length(); start++) {
+                grams.add(padded.substring(start, start + GRAM_LENGTH));
+            }
+        }
+        return grams.toArray(NO_GRAMS);
+    }
+
+    /**
+     * Returns the number of texts in the index.
+     *
+     * @return the number of texts.
+     */
+    public int size() {
+        return slotById.size();
+    }
+
+    /**
+     * Adds the text of an identifier to the index, replacing the text previously indexed for it.
+     *
+     * @param id   the identifier of the text.
+     * @param text the normalized text.
+     */
+    public void add(int id, String text) {
+        remove(id);
+
+        int slot = allocateSlot();
+        String[] grams = grams(text);
+        slotById.put(id, slot);
+        idBySlot[slot] = id;
+        gramsBySlot[slot] = grams;
+        for (String gram : grams) {
+            postingsByGram.computeIfAbsent(gram, key -> new Postings()).add(slot);
+        }
+    }
+
+    /**
+     * Removes the text of an identifier from the index, if present.
+     *
+     * @param id the identifier of the text.
+     */
+    public void remove(int id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) {
+            return;
+        }
+
+        for (String gram : gramsBySlot[slot]) {
+            Postings postings = postingsByGram.get(gram);
+            if (postings != null && postings.remove(slot) && postings.size == 0) {
+                postingsByGram.remove(gram);
+            }
+        }
+        gramsBySlot[slot] = null;
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    /**
+     * Removes all texts from the index.
+     */
+    public void clear() {
+        postingsByGram.clear();
+        slotById.clear();
+        idBySlot = new int[DEFAULT_CAPACITY];
+        gramsBySlot = new String[DEFAULT_CAPACITY][];
+        freeSlotCount = 0;
+        slotCount = 0;
+    }
+
+    /**
+     * Writes the content of the index to a snapshot.
+     * The distinct trigrams are written once, with the size of their postings list, followed by the trigrams of
+     * every slot as indexes into them, so the postings lists can be restored by appending the slots in order.
+     *
+     * @param out the output to write to.
+     * @throws IOException if the index could not be written.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        SnapshotUtils.writeInts(out, idBySlot, slotCount);
+        SnapshotUtils.writeInts(out, freeSlots, freeSlotCount);
+
+        Map<String, Integer> gramNumbers = new HashMap<>(postingsByGram.size() * 2);
+        out.writeInt(postingsByGram.size());
+        for (Map.Entry<String, Postings> postings : postingsByGram.entrySet()) {
+            gramNumbers.put(postings.getKey(), gramNumbers.size());
+            SnapshotUtils.writeString(out, postings.getKey());
+            out.writeInt(postings.getValue().size);
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            String[] grams = gramsBySlot[slot];
+            if (grams == null) {
+                out.writeInt(-1);
+                continue;
+            }
+            out.writeInt(grams.length);
+            for (String gram : grams) {
+                out.writeInt(gramNumbers.get(gram));
+            }
+        }
+    }
+
+    /**
+     * Replaces the content of the index with a snapshot written by {@link #writeTo(DataOutput)}.
+     * Every distinct trigram is only kept once, and the postings lists are allocated at their final size.
+     *
+     * @param buffer the buffer to read from, positioned at the snapshot of the index.
+     */
+    public void readFrom(ByteBuffer buffer) {
+        clear();
+        int[] ids = SnapshotUtils.readInts(buffer);
+        int[] free = SnapshotUtils.readInts(buffer);
+        slotCount = ids.length;
+        idBySlot = Arrays.copyOf(ids, Math.max(ids.length, DEFAULT_CAPACITY));
+        gramsBySlot = new String[idBySlot.length][];
+        freeSlots = Arrays.copyOf(free, Math.max(free.length, DEFAULT_CAPACITY));
+        freeSlotCount = free.length;
+
+        String[] grams = new String[buffer.getInt()];
+        Postings[] postings = new Postings[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = SnapshotUtils.readString(buffer);
+            postings[i] = new Postings(buffer.getInt());
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            int gramCount = buffer.getInt();
+            if (gramCount < 0) {
+                continue;
+            }
+            String[] slotGrams = new String[gramCount];
+            for (int i = 0; i < gramCount; i++) {
+                int gram = buffer.getInt();
+                slotGrams[i] = grams[gram];
+                postings[gram].add(slot);
+            }
+            gramsBySlot[slot] = slotGrams;
+            slotById.put(idBySlot[slot], slot);
+        }
+        for (int i = 0; i < grams.length; i++) {
+            postingsByGram.put(grams[i], postings[i]);
+        }
+    }
+
+    /**
+     * Finds the texts sharing the most trigrams with the query.
+     * The postings lists of the trigrams of the query are merged by counting, per slot, how many of them
+     * contain the slot. Only texts sharing at least one trigram are candidates.
+     *
+     * @param query the normalized query.
+     * @param limit the maximum number of candidates to return.
+     * @return the identifiers of the candidates, the ones sharing the most trigrams first.
+     */
+    public int[] topCandidates(String query, int limit) {
+        String[] grams = grams(query);
+        if (grams.length == 0 || limit <= 0 || slotCount == 0) {
+            return new int[0];
+        }
+
+        int[] counts = SCRATCH_COUNTS.get();
+        if (counts.length < slotCount) {
+            counts = new int[Math.max(slotCount, counts.length * 2)];
+            SCRATCH_COUNTS.set(counts);
+        }
+        int[] touched = new int[DEFAULT_CAPACITY];
+        int touchedCount = 0;
+        for (String gram : grams) {
+            Postings postings = postingsByGram.get(gram);
+            if (postings == null) {
+                continue;
+            }
+            for (int i = 0; i < postings.size; i++) {
+                int slot = postings.slots[i];
+                if (counts[slot]++ == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = slot;
+                }
+            }
+        }
+
+        // Sort by count and slot packed into one long, so no comparator or boxing is needed
+        long[] ranked = new long[touchedCount];
+        for (int i = 0; i < touchedCount; i++) {
+            int slot = touched[i];
+            ranked[i] = ((long) counts[slot] << Integer.SIZE) | (Integer.MAX_VALUE - slot);
+            counts[slot] = 0;
+        }
+        Arrays.sort(ranked);
+
+        int resultSize = Math.min(limit, touchedCount);
+        int[] result = new int[resultSize];
+        for (int i = 0; i < resultSize; i++) {
+            int slot = Integer.MAX_VALUE - (int) ranked[touchedCount - 1 - i];
+            result[i] = idBySlot[slot];
+        }
+        return result;
+    }
+
+    /**
+     * Takes a free slot, or appends a new one and grows the slot arrays if they are full.
+     *
+     * @return the slot.
+     */
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (slotCount == idBySlot.length) {
+            int capacity = idBySlot.length * 2;
+            idBySlot = Arrays.copyOf(idBySlot, capacity);
+            gramsBySlot = Arrays.copyOf(gramsBySlot, capacity);
+        }
+        return slotCount++;
+    }
+
+    /**
+     * A growable array of the slots containing a trigram, sorted by slot.
+     */
+    private static class Postings {
+        private int[] slots;
+        private int size;
+
+        private Postings() {
+            this(INITIAL_POSTINGS_CAPACITY);
+        }
+
+        private Postings(int capacity) {
+            this.slots = new int[Math.max(capacity, 1)];
+        }
+
+        private void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            // New slots are the largest, so only reused slots are inserted before the end
+            int index = size;
+            if (index > 0 && slots[index - 1] > slot) {
+                index = -Arrays.binarySearch(slots, 0, size, slot) - 1;
+            }
+            System.arraycopy(slots, index, slots, index + 1, size - index);
+            slots[index] = slot;
+            size++;
+        }
+
+        private boolean remove(int slot) {
+            int index = Arrays.binarySearch(slots, 0, size, slot);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package no.ntnu.idata2306.util.datastructure;
+
+import no.ntnu.idata2306.util.SnapshotUtils;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * WordVocabulary is a fuzzy index over the distinct words of a set of texts.
+ * It keeps a {@link CompactBKTree} over the words, and for every word a postings list of the identifiers of the texts
+ * containing it, as a {@link CompressedBitmap}.
+ *
+ * A query is resolved word by word: each query word is looked up in the tree within a small edit distance, and the
+ * postings of the words found are united. The texts matching every query word are found by intersecting these unions,
+ * and are the best candidates. So "java programing" finds "Introduction to Java Programming" although the whole names
+ * are far apart by edit distance. The tree only holds each distinct word once, so a lookup scales with the size
+ * of the vocabulary rather than the number of texts.
+ *
+ * A BKTree does not support removal, so words no longer in any text are left in the tree and have no postings.
+ * The tree is rebuilt once these stale words make up too large a share of it.
+ *
+ * The vocabulary can be written to a snapshot and read back, see {@link #writeTo(DataOutput)}, without splitting
+ * the texts into their words again.
+ *
+ * The vocabulary is not thread safe, callers must synchronize access.
+ */
+public class WordVocabulary {
+
+    // Small vocabularies are never rebuilt because of stale words
+    private static final int MIN_REBUILD_SIZE = 64;
+
+    // Query words up to this length must match exactly, longer words may have one edit, and long words two
+    private static final int EXACT_WORD_LENGTH = 3;
+    private static final int ONE_EDIT_WORD_LENGTH = 7;
+
+    private static final String[] NO_WORDS = new String[0];
+
+    private final Map<String, CompressedBitmap> postingsByWord = new HashMap<>();
+    private final Map<Integer, String[]> wordsById = new HashMap<>();
+    private final Set<String> treeWords = new HashSet<>();
+    private CompactBKTree tree = new CompactBKTree();
+
+    /**
+     * Splits a text into its distinct words.
+     * The text is expected to be normalized already.
+     *
+     * @param text the text to split.
+     * @return the distinct words of the text.
+     */
+    public static String[] words(String text) {
+        if (text == null || text.isBlank()) {
+            return NO_WORDS;
+        }
+        return new LinkedHashSet<>(Arrays.asList(text.trim().split("\\s+"))).toArray(NO_WORDS);
+    }
+
+    /**
+     * Returns the maximum edit distance between a query word and the words it matches.
+     *
+     * @param word the query word.
+     * @return 0 for short words, 1 for words of medium length and 2 for long words.
+     */
+    public static int wordRadius(String word) {
+        if (word.length() <= EXACT_WORD_LENGTH) {
+            return 0;
+        }
+        return word.length() <= ONE_EDIT_WORD_LENGTH ? 1 : 2;
+    }
+
+    /**
+     * Returns the number of texts in the vocabulary.
+     *
+     * @return the number of texts.
+     */
+    public int size() {
+        return wordsById.size();
+    }
+
+    /**
+     * Returns the number of distinct words of the texts in the vocabulary.
+     *
+     * @return the number of distinct words.
+     */
+    public int wordCount() {
+        return postingsByWord.size();
+    }
+
+    /**
+     * Adds the text of an identifier to the vocabulary, replacing the text previously added for it.
+     *
+     * @param id   the identifier of the text.
+     * @param text the normalized text.
+     */
+    public void add(int id, String text) {
+        remove(id);
+
+        String[] words = words(text);
+        wordsById.put(id, words);
+        for (String word : words) {
+            postingsByWord.computeIfAbsent(word, key -> new CompressedBitmap()).add(id);
+            if (treeWords.add(word)) {
+                tree.add(word);
+            }
+        }
+    }
+
+    /**
+     * Removes the text of an identifier from the vocabulary, if present.
+     *
+     * @param id the identifier of the text.
+     */
+    public void remove(int id) {
+        String[] words = wordsById.remove(id);
+        if (words == null) {
+            return;
+        }
+
+        for (String word : words) {
+            CompressedBitmap postings = postingsByWord.get(word);
+            if (postings != null) {
+                postings.remove(id);
+                if (postings.cardinality() == 0) {
+                    postingsByWord.remove(word);
+                }
+            }
+        }
+        rebuildTreeIfStale();
+    }
+
+    /**
+     * Removes all texts from the vocabulary.
+     */
+    public void clear() {
+        postingsByWord.clear();
+        wordsById.clear();
+        treeWords.clear();
+        tree = new CompactBKTree();
+    }
+
+    /**
+     * Writes the content of the vocabulary to a snapshot.
+     * The distinct words are written once, followed by the words of every text as indexes into them,
+     * in ascending order of identifier so the postings can be restored by appending the identifiers.
+     *
+     * @param out the output to write to.
+     * @throws IOException if the vocabulary could not be written.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        Map<String, Integer> wordNumbers = new HashMap<>(postingsByWord.size() * 2);
+        out.writeInt(postingsByWord.size());
+        for (String word : postingsByWord.keySet()) {
+            wordNumbers.put(word, wordNumbers.size());
+            SnapshotUtils.writeString(out, word);
+        }
+
+        int[] ids = wordsById.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        out.writeInt(ids.length);
+        for (int id : ids) {
+            String[] words = wordsById.get(id);
+            out.writeInt(id);
+            out.writeInt(words.length);
+            for (String word : words) {
+                out.writeInt(wordNumbers.get(word));
+            }
+        }
+    }
+
+    /**
+     * Replaces the content of the vocabulary with a snapshot written by {@link #writeTo(DataOutput)}.
+     * The tree is built from the distinct words, so it holds no stale words.
+     *
+     * @param buffer the buffer to read from, positioned at the snapshot of the vocabulary.
+     */
+    public void readFrom(ByteBuffer buffer) {
+        clear();
+        String[] words = new String[buffer.getInt()];
+        CompressedBitmap[] postings = new CompressedBitmap[words.length];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = SnapshotUtils.readString(buffer);
+            postings[i] = new CompressedBitmap();
+        }
+
+        int textCount = buffer.getInt();
+        for (int text = 0; text < textCount; text++) {
+            int id = buffer.getInt();
+            String[] textWords = new String[buffer.getInt()];
+            for (int i = 0; i < textWords.length; i++) {
+                int word = buffer.getInt();
+                textWords[i] = words[word];
+                postings[word].add(id);
+            }
+            wordsById.put(id, textWords);
+        }
+        for (int i = 0; i < words.length; i++) {
+            postingsByWord.put(words[i], postings[i]);
+        }
+        rebuildTree();
+    }
+
+    /**
+     * Finds the texts whose words match the words of the query within a small edit distance.
+     * The texts matching every word of the query come first, in ascending order of identifier. If there are fewer
+     * of them than the limit, they are followed by the texts matching the most query words.
+     * Query words matching no word of the vocabulary are ignored.
+     *
+     * @param query the normalized query.
+     * @param limit the maximum number of candidates to return.
+     * @return the identifiers of the candidates.
+     */
+    public int[] topCandidates(String query, int limit) {
+        if (limit <= 0 || wordsById.isEmpty()) {
+            return new int[0];
+        }
+
+        List<CompressedBitmap> matches = new ArrayList<>();
+        for (String word : words(query)) {
+            CompressedBitmap wordMatches = findWordMatches(word);
+            if (wordMatches.cardinality() > 0) {
+                matches.add(wordMatches);
+            }
+        }
+        if (matches.isEmpty()) {
+            return new int[0];
+        }
+
+        // Intersect the smallest sets first, so the intermediate results stay small
+        matches.sort(Comparator.comparingInt(CompressedBitmap::cardinality));
+        CompressedBitmap all = matches.get(0);
+        for (int i = 1; i < matches.size() && all.cardinality() > 0; i++) {
+            all = all.and(matches.get(i));
+        }
+        int[] matchingAll = all.toArray(0, limit);
+        if (matchingAll.length == limit || matches.size() == 1) {
+            return matchingAll;
+        }
+        return appendPartialMatches(matchingAll, all, matches, limit);
+    }
+
+    /**
+     * Unites the postings of the words within the radius of a query word.
+     *
+     * @param word the query word.
+     * @return the identifiers of the texts containing a matching word.
+     */
+    private CompressedBitmap findWordMatches(String word) {
+        int radius = wordRadius(word);
+        if (radius == 0) {
+            CompressedBitmap postings = postingsByWord.get(word);
+            return postings == null ? new CompressedBitmap() : postings;
+        }
+        CompressedBitmap union = new CompressedBitmap();
+        for (String match : tree.search(word, radius)) {
+            CompressedBitmap postings = postingsByWord.get(match);
+            if (postings != null) {
+                union = union.or(postings);
+            }
+        }
+        return union;
+    }
+
+    /**
+     * Fills the candidates matching every query word up to the limit with the texts matching the most query words.
+     *
+     * @param matchingAll the identifiers of the texts matching every query word.
+     * @param all the set of these identifiers.
+     * @param matches the identifiers of the texts matching each query word.
+     * @param limit the maximum number of candidates.
+     * @return the candidates matching every query word followed by the best partial matches.
+     */
+    private int[] appendPartialMatches(int[] matchingAll, CompressedBitmap all, List<CompressedBitmap> matches, int limit) {
+        Map<Integer, Integer> matchCounts = new HashMap<>();
+        for (CompressedBitmap wordMatches : matches) {
+            wordMatches.forEach(id -> {
+                if (!all.contains(id)) {
+                    matchCounts.merge(id, 1, Integer::sum);
+                }
+            });
+        }
+
+        TopKHeap heap = new TopKHeap(Math.min(limit - matchingAll.length, matchCounts.size()));
+        for (Map.Entry<Integer, Integer> matchCount : matchCounts.entrySet()) {
+            heap.offer(matchCount.getKey(), matchCount.getValue());
+        }
+        int[] partial = heap.drainDescending();
+        int[] candidates = Arrays.copyOf(matchingAll, matchingAll.length + partial.length);
+        System.arraycopy(partial, 0, candidates, matchingAll.length, partial.length);
+        return candidates;
+    }
+
+    /**
+     * Rebuilds the tree once the words without postings outnumber the live words.
+     */
+    private void rebuildTreeIfStale() {
+        int staleWords = treeWords.size() - postingsByWord.size();
+        if (treeWords.size() > MIN_REBUILD_SIZE && staleWords > postingsByWord.size()) {
+            rebuildTree();
+        }
+    }
+
+    /**
+     * Rebuilds the tree from the words of the current texts.
+     */
+    private void rebuildTree() {
+        treeWords.clear();
+        treeWords.addAll(postingsByWord.keySet());
+        tree = new CompactBKTree(treeWords.size());
+        for (String word : treeWords) {
+            tree.add(word);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package no.ntnu.idata2306.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Equivalence tests of the bit-parallel edit distance kernel of {@link StringUtils} against the dynamic programming
+ * implementations. {@link StringUtils#damerauLevenshteinDistance(String, String)} is always computed with the matrix,
+ * and is the reference with transpositions. The public Levenshtein methods use the kernel for short strings,
+ * so the reference without transpositions is the same matrix computed here.
+ */
+public class StringUtilsTest {
+
+    private static final int[] LENGTHS = {0, 1, 2, 63, 64, 65, 100};
+    private static final String LATIN_ALPHABET = "abcde ";
+    private static final String MIXED_ALPHABET = "aeøæåéßЖ漢Ā￿";
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void randomPairsMatchMatrix() {
+        for (int i = 0; i < 5000; i++) {
+            String a = randomString(random.nextInt(80), LATIN_ALPHABET);
+            String b = random.nextBoolean() ? mutate(a) : randomString(random.nextInt(80), LATIN_ALPHABET);
+            assertMatchesMatrix(a, b);
+        }
+    }
+
+    @Test
+    public void lengthsAroundWordSizeMatchMatrix() {
+        for (int lengthA : LENGTHS) {
+            for (int lengthB : LENGTHS) {
+                for (int i = 0; i < 20; i++) {
+                    String a = randomString(lengthA, LATIN_ALPHABET);
+                    String b = i % 2 == 0 ? randomString(lengthB, LATIN_ALPHABET) : resize(mutate(a), lengthB);
+                    assertMatchesMatrix(a, b);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void nonLatin1CharactersMatchMatrix() {
+        for (int i = 0; i < 2000; i++) {
+            String a = randomString(random.nextInt(70), MIXED_ALPHABET);
+            String b = random.nextBoolean() ? mutate(a) : randomString(random.nextInt(70), MIXED_ALPHABET);
+            assertMatchesMatrix(a, b);
+        }
+        assertMatchesMatrix("漢字", "字漢");
+        assertMatchesMatrix("Жaв", "aЖв");
+    }
+
+    @Test
+    public void transpositionsCountAsOneEditOnlyWithDamerau() {
+        assertEquals(1, StringUtils.distance("jaav", "java", 5));
+        assertEquals(2, StringUtils.levenshteinDistance("jaav", "java", 5));
+        assertEquals(1, StringUtils.distance("ab", "ba"));
+        assertEquals(2, StringUtils.levenshteinDistance("ab", "ba"));
+
+        for (int i = 0; i < 2000; i++) {
+            String a = randomString(1 + random.nextInt(70), LATIN_ALPHABET + "xyz");
+            assertMatchesMatrix(a, transpose(a));
+            assertMatchesMatrix(a, transpose(transpose(a)));
+        }
+    }
+
+    @Test
+    public void boundedDistanceIsCappedAboveMaximum() {
+        for (int i = 0; i < 2000; i++) {
+            String a = randomString(random.nextInt(90), LATIN_ALPHABET);
+            String b = mutate(a);
+            int maxDistance = random.nextInt(6);
+            int levenshtein = matrixLevenshtein(a, b);
+            int damerau = StringUtils.damerauLevenshteinDistance(a, b).getDistance();
+            assertEquals(Math.min(levenshtein, maxDistance + 1), StringUtils.levenshteinDistance(a, b, maxDistance));
+            assertEquals(Math.min(damerau, maxDistance + 1), StringUtils.distance(a, b, maxDistance));
+        }
+    }
+
+    private void assertMatchesMatrix(String a, String b) {
+        String pair = "\"" + a + "\" and \"" + b + "\"";
+        int levenshtein = matrixLevenshtein(a, b);
+        int damerau = StringUtils.damerauLevenshteinDistance(a, b).getDistance();
+        assertEquals(pair, levenshtein, StringUtils.levenshteinDistance(a, b));
+        assertEquals(pair, levenshtein, StringUtils.levenshteinDistance(b, a));
+        assertEquals(pair, levenshtein, StringUtils.levenshteinDistance(a, b, Math.max(a.length(), b.length())));
+        assertEquals(pair, damerau, StringUtils.distance(a, b));
+        assertEquals(pair, damerau, StringUtils.distance(b, a));
+    }
+
+    /**
+     * The Levenshtein distance computed with the full dynamic programming matrix.
+     */
+    private static int matrixLevenshtein(String a, String b) {
+        int[][] dp = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0) {
+                    dp[i][j] = j;
+                } else if (j == 0) {
+                    dp[i][j] = i;
+                } else {
+                    dp[i][j] = Math.min(dp[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1),
+                            Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1));
+                }
+            }
+        }
+        return dp[a.length()][b.length()];
+    }
+
+    private String randomString(int length, String alphabet) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Applies a few random substitutions, insertions, deletions and transpositions.
+     */
+    private String mutate(String text) {
+        StringBuilder builder = new StringBuilder(text);
+        int edits = random.nextInt(4);
+        for (int i = 0; i < edits; i++) {
+            int position = builder.isEmpty() ? 0 : random.nextInt(builder.length());
+            switch (random.nextInt(4)) {
+                case 0 -> builder.insert(position, (char) ('a' + random.nextInt(26)));
+                case 1 -> {
+                    if (!builder.isEmpty()) {
+                        builder.deleteCharAt(position);
+                    }
+                }
+                case 2 -> {
+                    if (!builder.isEmpty()) {
+                        builder.setCharAt(position, (char) ('a' + random.nextInt(26)));
+                    }
+                }
+                default -> {
+                    if (builder.length() > 1) {
+                        int first = Math.min(position, builder.length() - 2);
+                        char swapped = builder.charAt(first);
+                        builder.setCharAt(first, builder.charAt(first + 1));
+                        builder.setCharAt(first + 1, swapped);
+                    }
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private String transpose(String text) {
+        if (text.length() < 2) {
+            return text;
+        }
+        int first = random.nextInt(text.length() - 1);
+        char[] chars = text.toCharArray();
+        char swapped = chars[first];
+        chars[first] = chars[first + 1];
+        chars[first + 1] = swapped;
+        return new String(chars);
+    }
+
+    private String resize(String text, int length) {
+        if (text.length() >= length) {
+            return text.substring(0, length);
+        }
+        return text + randomString(length - text.length(), LATIN_ALPHABET);
+    }
+}
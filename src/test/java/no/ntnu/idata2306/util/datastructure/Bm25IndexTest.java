@@ -0,0 +1,97 @@
+package no.ntnu.idata2306.util.datastructure;
+
+import no.ntnu.idata2306.index.SearchIndex;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link Bm25Index}, in particular that documents and queries are tokenized the same way, so descriptions
+ * with diacritics are found by the normalized queries the search service passes to the index.
+ */
+public class Bm25IndexTest {
+
+    private Bm25Index index;
+
+    @Before
+    public void setUp() {
+        index = new Bm25Index();
+        index.add(1, "Kurs i førstehjelp for hele familien");
+        index.add(2, "Kjøreteknikk på glatt føre");
+        index.add(3, "Barista course at our café in Ålesund");
+        index.add(4, "Introduction to Java programming");
+    }
+
+    @Test
+    public void wordsWithDiacriticsAreFoundByRawAndNormalizedQueries() {
+        for (String query : List.of("førstehjelp", "kjøreteknikk", "café", "Ålesund")) {
+            List<Bm25Index.Hit> raw = index.search(query, 10);
+            List<Bm25Index.Hit> normalized = index.search(SearchIndex.normalize(query), 10);
+            assertEquals(query, 1, raw.size());
+            assertEquals(query, 1, normalized.size());
+            assertEquals(query, raw.get(0).getId(), normalized.get(0).getId());
+        }
+    }
+
+    @Test
+    public void termsAreFoldedLikeSearchKeys() {
+        assertEquals(List.of("forstehjelp", "kjoreteknikk", "cafe", "aeble"), Bm25Index.terms("Førstehjelp, KJØRETEKNIKK; café – æble"));
+        assertEquals(List.of(), Bm25Index.terms(null));
+    }
+
+    @Test
+    public void documentsMatchingMoreQueryTermsRankFirst() {
+        List<Bm25Index.Hit> hits = index.search("java programming course", 10);
+        assertEquals(2, hits.size());
+        assertEquals(4, hits.get(0).getId());
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+    }
+
+    @Test
+    public void removedAndReplacedDocumentsAreNotFound() {
+        index.remove(1);
+        assertEquals(0, index.search("førstehjelp", 10).size());
+        index.add(2, "Vinterkurs");
+        assertEquals(0, index.search("kjoreteknikk", 10).size());
+        assertEquals(2, index.search("vinterkurs", 10).get(0).getId());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void scoreOfSingleDocumentsEqualsSearchScore() {
+        String[] vocabulary = {"java", "kurs", "førstehjelp", "python", "data", "web", "sikkerhet", "design"};
+        Random random = new Random(7);
+        Bm25Index large = new Bm25Index();
+        for (int round = 0; round < 3; round++) {
+            for (int id = 0; id < 2000; id++) {
+                if (random.nextInt(5) == 0) {
+                    large.remove(id);
+                    continue;
+                }
+                StringBuilder text = new StringBuilder();
+                for (int word = random.nextInt(12); word >= 0; word--) {
+                    text.append(vocabulary[random.nextInt(vocabulary.length)]).append(' ');
+                }
+                large.add(id, text.toString());
+            }
+        }
+
+        for (String query : List.of("java", "førstehjelp kurs", "python web design", "ukjent")) {
+            Bm25Index.Query prepared = large.prepare(query);
+            List<Bm25Index.Hit> hits = large.search(query, Integer.MAX_VALUE);
+            double[] expected = new double[2000];
+            for (Bm25Index.Hit hit : hits) {
+                expected[hit.getId()] = hit.getScore();
+                assertTrue(hit.getScore() < prepared.getMaxScore());
+            }
+            for (int id = 0; id < 2000; id++) {
+                assertEquals(query + " " + id, expected[id], large.score(prepared, id), 1e-9);
+            }
+        }
+    }
+}
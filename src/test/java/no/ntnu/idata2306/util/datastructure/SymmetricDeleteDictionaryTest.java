@@ -0,0 +1,79 @@
+package no.ntnu.idata2306.util.datastructure;
+
+import no.ntnu.idata2306.util.StringUtils;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link SymmetricDeleteDictionary}, comparing its lookups with a brute force scan of all words,
+ * in particular for words no longer than the maximum edit distance and words longer than the prefix deletes are
+ * computed for.
+ */
+public class SymmetricDeleteDictionaryTest {
+
+    private static final int MAX_EDIT_DISTANCE = 2;
+
+    @Test
+    public void shortWordsAreFoundThroughTheEmptyDelete() {
+        SymmetricDeleteDictionary dictionary = new SymmetricDeleteDictionary(MAX_EDIT_DISTANCE);
+        for (String word : List.of("ac", "dd", "abcd")) {
+            dictionary.add(word);
+        }
+        assertEquals(Set.of("ac", "dd"), new HashSet<>(dictionary.findCandidates("eb", MAX_EDIT_DISTANCE)));
+    }
+
+    @Test
+    public void candidatesAreVerifiedWithoutTranspositions() {
+        SymmetricDeleteDictionary dictionary = new SymmetricDeleteDictionary(MAX_EDIT_DISTANCE);
+        dictionary.add("ea");
+        assertTrue(dictionary.findCandidates("ae", 1).isEmpty());
+        assertEquals(1, dictionary.lookup("ae", 1, 10).size());
+    }
+
+    @Test
+    public void lookupsMatchBruteForce() {
+        Random random = new Random(42);
+        List<String> words = randomWords(random, 500);
+        SymmetricDeleteDictionary dictionary = new SymmetricDeleteDictionary(MAX_EDIT_DISTANCE, 4);
+        for (String word : words) {
+            dictionary.add(word);
+        }
+        Set<String> distinct = new HashSet<>(words);
+        for (String query : randomWords(random, 300)) {
+            for (int threshold = 0; threshold <= MAX_EDIT_DISTANCE; threshold++) {
+                Set<String> levenshtein = new HashSet<>();
+                Set<String> damerau = new HashSet<>();
+                for (String word : distinct) {
+                    if (StringUtils.levenshteinDistance(query, word, threshold) <= threshold) {
+                        levenshtein.add(word);
+                    }
+                    if (StringUtils.distance(query, word, threshold) <= threshold) {
+                        damerau.add(word);
+                    }
+                }
+                assertEquals(query, levenshtein, new HashSet<>(dictionary.findCandidates(query, threshold)));
+                Set<String> suggested = new HashSet<>();
+                for (SymmetricDeleteDictionary.Suggestion suggestion : dictionary.lookup(query, threshold, Integer.MAX_VALUE)) {
+                    suggested.add(suggestion.word());
+                }
+                assertEquals(query, damerau, suggested);
+            }
+        }
+    }
+
+    private static List<String> randomWords(Random random, int count) {
+        List<String> words = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int length = 1 + random.nextInt(7); length > 0; length--) {
+                word.append((char) ('a' + random.nextInt(5)));
+            }
+            words.add(word.toString());
+        }
+        return words;
+    }
+}